@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.IOException;
+import java.time.YearMonth;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import service.ApuracaoMensal;
+import service.Banco;
+
+/**
+ * Duração da apuração mensal de todas as contas do banco (em memória).
+ *
+ * Cada medição apura um período novo, de forma que todas as contas recebem um lançamento
+ * (metade poupança, metade corrente, como em ConjuntoDeDados).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+@State(Scope.Benchmark)
+public class ApuracaoBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int contas;
+
+    private Banco banco;
+    private YearMonth periodo = YearMonth.of(2000, 1);
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @Benchmark
+    public ApuracaoMensal.Resumo apurarPeriodo() {
+        periodo = periodo.plusMonths(1);
+        return banco.apurarPeriodo(periodo);
+    }
+}
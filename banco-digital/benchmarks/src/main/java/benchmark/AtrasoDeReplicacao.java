@@ -0,0 +1,201 @@
+package benchmark;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import model.TipoConta;
+import model.TipoServico;
+import persistencia.ReceptorDoDiario;
+import persistencia.TransmissorDoDiario;
+import service.Banco;
+import service.OperacaoEmLote;
+import service.Replica;
+import util.HistogramaLatencia;
+
+/**
+ * Mede o atraso da replicação do diário entre dois processos no mesmo host, com o primário sob uma
+ * vazão fixa de operações:
+ * <pre>
+ * java -cp benchmarks.jar benchmark.AtrasoDeReplicacao primario dados-primario 7600 100000 30 10000
+ * java -cp benchmarks.jar benchmark.AtrasoDeReplicacao replica dados-replica 127.0.0.1:7600 45
+ * </pre>
+ *
+ * O primário (4 partições) cria as contas, aguarda a réplica alcançá-lo e executa lotes de 100 operações
+ * (depósitos e transferências entre contas sorteadas) no ritmo pedido, durante os segundos informados. A
+ * cada segundo, exibe a vazão obtida e os registros ainda não confirmados pela réplica; ao final, os
+ * percentis dessa contagem (amostrada a cada milissegundo) e a soma dos saldos.
+ *
+ * A réplica exibe a cada segundo os registros aplicados e, ao final, o atraso entre cada operação no
+ * primário e a sua aplicação na réplica (pelo registro mais antigo de cada lote, com resolução de 1 ms),
+ * a compressão obtida e a soma dos saldos, que deve ser igual à do primário.
+ */
+public class AtrasoDeReplicacao {
+    private static final int PARTICOES = 4;
+    private static final int OPERACOES_POR_LOTE = 100;
+    private static final int THREADS_CARGA = 4;
+    private static final int LOTES_POR_THREAD = 1000;
+    private static final int THREADS_CRIACAO = 64;
+    private static final long SALDO_INICIAL = 1_000_000_00L;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("primario")) {
+            executarPrimario(Path.of(args[1]), Integer.parseInt(args[2]),
+                    args.length > 3 ? Integer.parseInt(args[3]) : 100_000,
+                    args.length > 4 ? Integer.parseInt(args[4]) : 30,
+                    args.length > 5 ? Integer.parseInt(args[5]) : 10_000);
+        } else if (args.length > 2 && args[0].equals("replica")) {
+            int separador = args[2].lastIndexOf(':');
+            executarReplica(Path.of(args[1]), new InetSocketAddress(args[2].substring(0, separador), Integer.parseInt(args[2].substring(separador + 1))),
+                    args.length > 3 ? Integer.parseInt(args[3]) : 45);
+        } else {
+            System.out.println("Uso: AtrasoDeReplicacao primario diretorio porta [operacoesPorSegundo] [segundos] [contas]");
+            System.out.println("     AtrasoDeReplicacao replica diretorio host:porta [segundos]");
+        }
+    }
+
+    private static void executarPrimario(Path diretorio, int porta, int operacoesPorSegundo, int segundos, int contas) throws Exception {
+        Banco banco = new Banco(diretorio, PARTICOES);
+        TransmissorDoDiario transmissor = banco.iniciarReplicacao(new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+        criarContas(banco, contas);
+        System.out.printf("%d contas criadas; aguardando a réplica na porta %d%n", contas, transmissor.getPorta());
+        while (transmissor.getReplicasConectadas() == 0 || transmissor.getRegistrosNaoConfirmados() > 0) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(2000);  // Um intervalo sem registros separa, na réplica, a criação das contas da carga medida
+
+        LongAdder executadas = new LongAdder();
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS_CARGA; t++) {
+            int indice = t;
+            Thread thread = new Thread(() -> gerarCarga(banco, contas, operacoesPorSegundo / THREADS_CARGA, fim, indice, executadas));
+            thread.start();
+            threads.add(thread);
+        }
+
+        // Amostra a cada milissegundo os registros gravados no primário e ainda não confirmados pela réplica
+        HistogramaLatencia naoConfirmados = new HistogramaLatencia();
+        long anterior = 0;
+        long proximoRelatorio = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        long maximoNoSegundo = 0;
+        while (System.nanoTime() < fim) {
+            long pendentes = transmissor.getRegistrosNaoConfirmados();
+            naoConfirmados.registrar(pendentes);
+            maximoNoSegundo = Math.max(maximoNoSegundo, pendentes);
+            if (System.nanoTime() >= proximoRelatorio) {
+                long total = executadas.sum();
+                System.out.printf("%,d operações/s, até %,d registros não confirmados%n", total - anterior, maximoNoSegundo);
+                anterior = total;
+                maximoNoSegundo = 0;
+                proximoRelatorio += TimeUnit.SECONDS.toNanos(1);
+            }
+            Thread.sleep(1);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long inicioEspera = System.nanoTime();
+        while (transmissor.getRegistrosNaoConfirmados() > 0) {
+            Thread.sleep(1);
+        }
+        System.out.printf("%,d operações em %d s (%,d/s); réplica confirmou tudo %.1f ms depois do fim da carga%n",
+                executadas.sum(), segundos, executadas.sum() / segundos, (System.nanoTime() - inicioEspera) / 1e6);
+        System.out.printf("registros não confirmados: p50 %,d  p99 %,d  p99,9 %,d  máximo %,d%n", naoConfirmados.percentil(0.5),
+                naoConfirmados.percentil(0.99), naoConfirmados.percentil(0.999), naoConfirmados.getMaximo());
+        System.out.println("soma dos saldos: " + banco.somarSaldos());
+        Thread.sleep(2000);
+        banco.close();
+    }
+
+    // Cria as contas em várias threads, para que as gravações no diário sejam agrupadas
+    private static void criarContas(Banco banco, int contas) throws InterruptedException {
+        AtomicInteger proxima = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS_CRIACAO; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = proxima.getAndIncrement(); i < contas; i = proxima.getAndIncrement()) {
+                    banco.criarConta("Cliente " + i, ConjuntoDeDados.cpf(i), TipoConta.CORRENTE);
+                    Banco.buscarCpf(ConjuntoDeDados.cpf(i)).tentarExecutarServico(TipoServico.DEPOSITO, SALDO_INICIAL, null);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    // Executa lotes de operações sorteadas no ritmo pedido; um atraso é compensado em no máximo um lote, sem rajadas
+    private static void gerarCarga(Banco banco, int contas, int operacoesPorSegundo, long fim, int indice, LongAdder executadas) {
+        List<List<OperacaoEmLote>> lotes = sortearLotes(contas, indice);
+        long intervaloLote = TimeUnit.SECONDS.toNanos(1) * OPERACOES_POR_LOTE / operacoesPorSegundo;
+        long proximoLote = System.nanoTime();
+        for (int i = 0; proximoLote < fim; i = (i + 1) % LOTES_POR_THREAD) {
+            banco.executarLote(lotes.get(i));
+            executadas.add(OPERACOES_POR_LOTE);
+
+            proximoLote = Math.max(proximoLote + intervaloLote, System.nanoTime() - intervaloLote);
+            long espera = proximoLote - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+        }
+    }
+
+    // Lotes sorteados antes da medição (depósitos e transferências), percorridos em ciclo
+    private static List<List<OperacaoEmLote>> sortearLotes(int contas, int indice) {
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + indice);
+        List<List<OperacaoEmLote>> lotes = new ArrayList<>(LOTES_POR_THREAD);
+        for (int l = 0; l < LOTES_POR_THREAD; l++) {
+            List<OperacaoEmLote> lote = new ArrayList<>(OPERACOES_POR_LOTE);
+            for (int i = 0; i < OPERACOES_POR_LOTE; i++) {
+                int origem = aleatorio.nextInt(contas);
+                if (aleatorio.nextInt(4) == 0) {
+                    lote.add(new OperacaoEmLote(TipoServico.DEPOSITO, ConjuntoDeDados.cpf(origem), 1 + aleatorio.nextInt(100), null));
+                } else {
+                    int destino = (origem + 1 + aleatorio.nextInt(contas - 1)) % contas;
+                    lote.add(new OperacaoEmLote(TipoServico.TRANSFERENCIA, ConjuntoDeDados.cpf(origem), 1 + aleatorio.nextInt(100),
+                            ConjuntoDeDados.cpf(destino)));
+                }
+            }
+            lotes.add(lote);
+        }
+        return lotes;
+    }
+
+    private static void executarReplica(Path diretorio, InetSocketAddress primario, int segundos) throws Exception {
+        Replica replica = new Replica(diretorio, PARTICOES, primario);
+        ReceptorDoDiario receptor = replica.getReceptor();
+        long anterior = 0;
+        boolean carregou = false;
+        for (int s = 0; s < segundos; s++) {
+            Thread.sleep(1000);
+            long registros = receptor.getRegistros();
+            System.out.printf("%,d registros/s aplicados%n", registros - anterior);
+            // O atraso é medido a partir do primeiro segundo sem registros novos (depois da criação das contas)
+            if (!carregou && registros > 0 && registros == anterior) {
+                receptor.getAtraso().zerar();
+                carregou = true;
+            }
+            anterior = registros;
+        }
+
+        HistogramaLatencia atraso = receptor.getAtraso();
+        System.out.printf("%,d lotes, %,d registros; %,d bytes comprimidos em %,d (%.1f%%)%n", receptor.getLotes(), receptor.getRegistros(),
+                receptor.getBytesOriginais(), receptor.getBytesComprimidos(), 100.0 * receptor.getBytesComprimidos() / Math.max(1, receptor.getBytesOriginais()));
+        System.out.printf("atraso (ms): p50 %.0f  p90 %.0f  p99 %.0f  p99,9 %.0f  máximo %.0f  (%,d lotes)%n", atraso.percentil(0.5) / 1e6,
+                atraso.percentil(0.9) / 1e6, atraso.percentil(0.99) / 1e6, atraso.percentil(0.999) / 1e6, atraso.getMaximo() / 1e6, atraso.getQuantidade());
+        System.out.println("soma dos saldos: " + replica.getBanco().somarSaldos());
+        replica.close();
+    }
+}
@@ -0,0 +1,94 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import service.Banco;
+
+/**
+ * Busca de contas por CPF e por agência/número, comparada com a busca original do banco (varredura com
+ * stream de uma lista de todas as contas), mantida aqui como referência.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class BuscaBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int contas;
+
+    private Banco banco;
+    private String[] cpfs;
+    private long[] chaves;
+    private List<Conta> lista;  // As mesmas contas, na ordem de criação, como na lista original do banco
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+
+        // Sequência fixa de consultas, para que todas as execuções busquem as mesmas contas
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+        cpfs = new String[1 << 16];
+        chaves = new long[cpfs.length];
+        for (int i = 0; i < cpfs.length; i++) {
+            cpfs[i] = ConjuntoDeDados.cpf(aleatorio.nextInt(contas));
+            chaves[i] = Banco.buscarCpf(cpfs[i]).getChave();
+        }
+
+        lista = new ArrayList<>(contas);
+        for (int i = 0; i < contas; i++) {
+            lista.add(Banco.buscarCpf(ConjuntoDeDados.cpf(i)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int posicao;
+    }
+
+    @Benchmark
+    public Conta buscarCpf(Cursor cursor) {
+        return Banco.buscarCpf(cpfs[cursor.posicao++ & (cpfs.length - 1)]);
+    }
+
+    @Benchmark
+    public Conta buscarContaPorChave(Cursor cursor) {
+        return Banco.buscarConta(chaves[cursor.posicao++ & (chaves.length - 1)]);
+    }
+
+    // Referência: a busca por CPF antes dos índices, que percorre a lista até encontrar a conta
+    @Benchmark
+    public Conta buscarCpfPorVarredura(Cursor cursor) {
+        String cpf = cpfs[cursor.posicao++ & (cpfs.length - 1)];
+        return lista.stream()
+                .filter(conta -> conta.getCliente().getCpf().equals(cpf))
+                .findFirst()
+                .orElse(null);
+    }
+}
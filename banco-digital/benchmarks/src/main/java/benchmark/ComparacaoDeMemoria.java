@@ -0,0 +1,148 @@
+package benchmark;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.SplittableRandom;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import model.ArmazemDeContas;
+import model.Conta;
+import model.TipoConta;
+import model.TipoServico;
+import service.Banco;
+import util.HistogramaLatencia;
+
+/**
+ * Compara a memória ocupada e as pausas de coleta com as contas em objetos (Banco) e no ArmazemDeContas.
+ *
+ * Cada execução mede uma única representação, para que uma não influencie a outra:
+ * <pre>
+ * java -Xmx16g -cp benchmarks.jar benchmark.ComparacaoDeMemoria objetos 10000000
+ * java -Xmx16g -cp benchmarks.jar benchmark.ComparacaoDeMemoria armazem 10000000
+ * </pre>
+ *
+ * Depois de criar as contas (com um depósito cada), informa o heap ocupado após uma coleta completa,
+ * a memória fora do heap, a duração da coleta completa e as pausas das coletas ocorridas durante uma
+ * fase de depósitos aleatórios que também gera lixo de vida curta, como uma aplicação real.
+ */
+public class ComparacaoDeMemoria {
+    private static final long LIXO_POR_OPERACAO = 256;          // Bytes de lixo de vida curta por depósito
+    private static final int OPERACOES_COM_LIXO = 20_000_000;
+
+    private static final HistogramaLatencia pausas = new HistogramaLatencia();
+
+    public static void main(String[] args) throws Exception {
+        String modo = args.length > 0 ? args[0] : "armazem";
+        int quantidade = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        registrarPausas();
+
+        MemoryMXBean memoria = ManagementFactory.getMemoryMXBean();
+        long heapInicial = heapAposColeta(memoria);
+
+        long inicio = System.nanoTime();
+        ArmazemDeContas armazem = null;
+        Conta[] contas = null;
+        if (modo.equals("armazem")) {
+            armazem = criarArmazem(quantidade);
+        } else {
+            contas = criarObjetos(quantidade);
+        }
+        double segundosCriacao = (System.nanoTime() - inicio) / 1e9;
+
+        long heapFinal = heapAposColeta(memoria);
+        long foraDoHeap = armazem != null ? armazem.getBytesForaDoHeap() : 0;
+        long coletaCompleta = duracaoColetaCompleta();
+
+        pausas.zerar();
+        long lixo = gerarCarga(armazem, contas, quantidade);
+
+        System.out.printf("Representação:              %s (%,d contas, criadas em %.1f s)%n", modo, quantidade, segundosCriacao);
+        System.out.printf("Heap ocupado:               %,d MiB (%.0f bytes/conta)%n", (heapFinal - heapInicial) >> 20,
+                (double) (heapFinal - heapInicial) / quantidade);
+        System.out.printf("Fora do heap:               %,d MiB%n", foraDoHeap >> 20);
+        System.out.printf("Coleta completa (System.gc): %,d ms%n", coletaCompleta);
+        System.out.printf("Pausas sob carga:           %d coletas, p50 %d ms, p99 %d ms, máximo %d ms, total %d ms%n",
+                pausas.getQuantidade(), pausas.percentil(0.50), pausas.percentil(0.99), pausas.getMaximo(),
+                Math.round(pausas.getMedia() * pausas.getQuantidade()));
+        System.out.println("(verificação: " + lixo + ")");
+    }
+
+    private static ArmazemDeContas criarArmazem(int quantidade) {
+        ArmazemDeContas armazem = new ArmazemDeContas();
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+        for (int i = 0; i < quantidade; i++) {
+            TipoConta tipoConta = aleatorio.nextBoolean() ? TipoConta.CORRENTE : TipoConta.POUPANCA;
+            int indice = armazem.criar("Cliente " + i, ConjuntoDeDados.cpf(i), tipoConta, Conta.AGENCIA_PADRAO);
+            armazem.aplicarMovimentacao(indice, TipoServico.DEPOSITO, 1 + aleatorio.nextLong(1_000_000_00L));
+        }
+        return armazem;
+    }
+
+    private static Conta[] criarObjetos(int quantidade) {
+        ConjuntoDeDados.criarBanco(quantidade, ConjuntoDeDados.SEMENTE_PADRAO);
+        Conta[] contas = new Conta[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            contas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+        return contas;
+    }
+
+    // Depósitos em contas sorteadas, cada um acompanhado de um pouco de lixo de vida curta
+    private static long gerarCarga(ArmazemDeContas armazem, Conta[] contas, int quantidade) {
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+        byte[][] recentes = new byte[1024][];   // Mantém o lixo vivo por pouco tempo, como requisições em andamento
+        long verificacao = 0;
+        for (int i = 0; i < OPERACOES_COM_LIXO; i++) {
+            int indice = aleatorio.nextInt(quantidade);
+            if (armazem != null) {
+                armazem.aplicarMovimentacao(indice, TipoServico.DEPOSITO, 1);
+            } else {
+                contas[indice].aplicarMovimentacao(TipoServico.DEPOSITO, 1);
+            }
+            byte[] temporario = new byte[(int) LIXO_POR_OPERACAO];
+            recentes[i & (recentes.length - 1)] = temporario;
+            verificacao += temporario.length;
+        }
+        return verificacao;
+    }
+
+    private static long heapAposColeta(MemoryMXBean memoria) {
+        System.gc();
+        System.gc();
+        return memoria.getHeapMemoryUsage().getUsed();
+    }
+
+    // Duração, em ms, de uma coleta completa com todas as contas vivas
+    private static long duracaoColetaCompleta() {
+        long antes = tempoTotalDeColeta();
+        System.gc();
+        return tempoTotalDeColeta() - antes;
+    }
+
+    private static long tempoTotalDeColeta() {
+        long total = 0;
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += coletor.getCollectionTime();
+        }
+        return total;
+    }
+
+    // Registra a duração (em ms) de cada coleta no histograma de pausas, exceto as pedidas por System.gc()
+    private static void registrarPausas() {
+        for (GarbageCollectorMXBean coletor : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ((NotificationEmitter) coletor).addNotificationListener((notificacao, dados) -> {
+                if (notificacao.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notificacao.getUserData());
+                    if (!info.getGcCause().equals("System.gc()")) {
+                        pausas.registrar(info.getGcInfo().getDuration());
+                    }
+                }
+            }, null, null);
+        }
+    }
+}
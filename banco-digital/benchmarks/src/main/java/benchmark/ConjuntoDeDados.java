@@ -0,0 +1,47 @@
+package benchmark;
+
+import java.util.SplittableRandom;
+
+import model.TipoConta;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Gera bancos de teste reproduzíveis para os benchmarks.
+ *
+ * Com a mesma quantidade de contas e a mesma semente, os CPFs, tipos de conta e saldos iniciais
+ * gerados são sempre os mesmos, permitindo comparar resultados entre versões.
+ */
+public class ConjuntoDeDados {
+    public static final long SEMENTE_PADRAO = 20240601L;
+
+    // Saldo inicial máximo de cada conta, em centavos
+    private static final long SALDO_INICIAL_MAXIMO = 1_000_000_00L;
+
+    // CPF determinístico da conta de índice informado
+    public static String cpf(int indice) {
+        return String.format("%011d", indice);
+    }
+
+    /**
+     * Cria um banco em memória com a quantidade de contas informada.
+     *
+     * As contas recebem CPFs sequenciais (ver {@link #cpf(int)}), tipo e saldo inicial sorteados a
+     * partir da semente.
+     */
+    public static Banco criarBanco(int quantidadeContas, long semente) {
+        return preencher(new Banco(), quantidadeContas, semente);
+    }
+
+    // Cria no banco informado (por exemplo, persistente ou particionado) as mesmas contas de criarBanco
+    public static Banco preencher(Banco banco, int quantidadeContas, long semente) {
+        SplittableRandom aleatorio = new SplittableRandom(semente);
+
+        for (int i = 0; i < quantidadeContas; i++) {
+            TipoConta tipoConta = aleatorio.nextBoolean() ? TipoConta.CORRENTE : TipoConta.POUPANCA;
+            banco.criarConta("Cliente " + i, cpf(i), tipoConta);
+            Banco.buscarCpf(cpf(i)).tentarExecutarServico(TipoServico.DEPOSITO, 1 + aleatorio.nextLong(SALDO_INICIAL_MAXIMO), null);
+        }
+        return banco;
+    }
+}
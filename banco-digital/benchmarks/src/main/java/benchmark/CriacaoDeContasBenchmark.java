@@ -0,0 +1,58 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.TipoConta;
+import service.Banco;
+
+// Vazão de abertura de contas, com uma e com várias threads
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class CriacaoDeContasBenchmark {
+
+    private Banco banco;
+    private final AtomicInteger proximoCpf = new AtomicInteger();
+
+    // Um banco novo por iteração, para que o tamanho dos índices não cresça indefinidamente
+    @Setup(Level.Iteration)
+    public void preparar() {
+        banco = new Banco();
+    }
+
+    @TearDown(Level.Iteration)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String criarConta() {
+        return banco.criarConta("Cliente", ConjuntoDeDados.cpf(proximoCpf.getAndIncrement()), TipoConta.CORRENTE);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String criarContaConcorrente() {
+        return banco.criarConta("Cliente", ConjuntoDeDados.cpf(proximoCpf.getAndIncrement()), TipoConta.CORRENTE);
+    }
+}
@@ -0,0 +1,127 @@
+package benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import util.Dinheiro;
+
+/**
+ * Depósito seguido de saque (com a verificação de saldo) e formatação do saldo, com três representações
+ * de dinheiro: double em reais (a original de Conta.saldo), BigDecimal com duas casas e long em centavos
+ * (util.Dinheiro, com soma e subtração verificadas).
+ *
+ * Cada operação movimenta um de 1024 saldos com um valor sorteado, sem locks nem histórico, para comparar
+ * apenas o custo da aritmética; a alocação de cada representação aparece em gc.alloc.rate.norm.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1)
+@State(Scope.Thread)
+public class DinheiroBenchmark {
+    private static final int SALDOS = 1024;            // Potência de 2
+    private static final long VALOR_MAXIMO = 1_000_00L;
+
+    private double[] saldosDouble;
+    private BigDecimal[] saldosBigDecimal;
+    private long[] saldosCentavos;
+
+    private double[] valoresDouble;
+    private BigDecimal[] valoresBigDecimal;
+    private long[] valoresCentavos;
+
+    private int posicao;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+        saldosDouble = new double[SALDOS];
+        saldosBigDecimal = new BigDecimal[SALDOS];
+        saldosCentavos = new long[SALDOS];
+        valoresDouble = new double[SALDOS];
+        valoresBigDecimal = new BigDecimal[SALDOS];
+        valoresCentavos = new long[SALDOS];
+
+        for (int i = 0; i < SALDOS; i++) {
+            long saldo = aleatorio.nextLong(VALOR_MAXIMO * 10);
+            long valor = 1 + aleatorio.nextLong(VALOR_MAXIMO);
+            saldosCentavos[i] = saldo;
+            saldosDouble[i] = saldo / 100.0;
+            saldosBigDecimal[i] = BigDecimal.valueOf(saldo, 2);
+            valoresCentavos[i] = valor;
+            valoresDouble[i] = valor / 100.0;
+            valoresBigDecimal[i] = BigDecimal.valueOf(valor, 2);
+        }
+    }
+
+    @Benchmark
+    public double depositarESacarDouble() {
+        int i = proxima();
+        double valor = valoresDouble[i];
+        double saldo = saldosDouble[i] + valor;
+        if (valor <= saldo) {
+            saldo -= valor;
+        }
+        saldosDouble[i] = saldo;
+        return saldo;
+    }
+
+    @Benchmark
+    public BigDecimal depositarESacarBigDecimal() {
+        int i = proxima();
+        BigDecimal valor = valoresBigDecimal[i];
+        BigDecimal saldo = saldosBigDecimal[i].add(valor);
+        if (valor.compareTo(saldo) <= 0) {
+            saldo = saldo.subtract(valor);
+        }
+        saldosBigDecimal[i] = saldo;
+        return saldo;
+    }
+
+    @Benchmark
+    public long depositarESacarCentavos() {
+        int i = proxima();
+        long valor = valoresCentavos[i];
+        long saldo = Dinheiro.somar(saldosCentavos[i], valor);
+        if (valor <= saldo) {
+            saldo = Dinheiro.subtrair(saldo, valor);
+        }
+        saldosCentavos[i] = saldo;
+        return saldo;
+    }
+
+    // Formatação como "R$ x,yy" de cada representação
+    @Benchmark
+    public String formatarDouble() {
+        return String.format("R$ %.2f", saldosDouble[proxima()]);
+    }
+
+    @Benchmark
+    public String formatarBigDecimal() {
+        return "R$ " + saldosBigDecimal[proxima()].setScale(2, RoundingMode.UNNECESSARY).toPlainString().replace('.', ',');
+    }
+
+    @Benchmark
+    public String formatarCentavos() {
+        return Dinheiro.formatar(saldosCentavos[proxima()]);
+    }
+
+    private int proxima() {
+        return posicao++ & (SALDOS - 1);
+    }
+}
@@ -0,0 +1,126 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Vazão de transferências entre contas sorteadas conforme o número de threads cresce de 1 até o número
+ * de núcleos, com os locks por conta (ordem global de locks, sem lock global).
+ *
+ * Com 100 contas, as threads disputam as mesmas contas o tempo todo; com 1 milhão, quase nunca. Para
+ * medir todas as quantidades de threads (1, 2, 4, ... e o número de núcleos) e exibir a vazão relativa
+ * à de uma thread:
+ * <pre>
+ * java -cp benchmarks.jar benchmark.EscalabilidadeBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class EscalabilidadeBenchmark {
+    private static final long VALOR = 1L;
+
+    @Param({"100", "1000000"})
+    public int contas;
+
+    private Banco banco;
+    private Conta[] todas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[contas];
+        for (int i = 0; i < contas; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    public ResultadoOperacao transferir(Sorteio sorteio) {
+        Conta origem = todas[sorteio.aleatorio.nextInt(todas.length)];
+        Conta destino = todas[sorteio.aleatorio.nextInt(todas.length)];
+        return origem.tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, destino.getCliente().getCpf());
+    }
+
+    // Executa o benchmark com 1, 2, 4, ... threads até o número de núcleos e exibe a vazão de cada quantidade
+    public static void main(String[] args) throws RunnerException {
+        int nucleos = Runtime.getRuntime().availableProcessors();
+        List<Integer> quantidades = new ArrayList<>();
+        for (int threads = 1; threads < nucleos; threads *= 2) {
+            quantidades.add(threads);
+        }
+        quantidades.add(nucleos);
+
+        // Vazão por quantidade de contas e de threads, na ordem em que as threads foram medidas
+        Map<String, Map<Integer, Double>> vazoes = new TreeMap<>();
+        for (int threads : quantidades) {
+            Options opcoes = new OptionsBuilder()
+                    .include(EscalabilidadeBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            Collection<RunResult> resultados = new Runner(opcoes).run();
+            for (RunResult resultado : resultados) {
+                vazoes.computeIfAbsent(resultado.getParams().getParam("contas"), contas -> new LinkedHashMap<>())
+                        .put(threads, resultado.getPrimaryResult().getScore());
+            }
+        }
+
+        System.out.println();
+        for (Map.Entry<String, Map<Integer, Double>> porContas : vazoes.entrySet()) {
+            double umaThread = porContas.getValue().get(1);
+            for (Map.Entry<Integer, Double> vazao : porContas.getValue().entrySet()) {
+                System.out.printf("contas=%-8s threads=%-3d %,15.0f ops/s  %5.2fx%n",
+                        porContas.getKey(), vazao.getKey(), vazao.getValue(), vazao.getValue() / umaThread);
+            }
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.TipoServico;
+import persistencia.ExportadorDeExtratos;
+import service.Banco;
+
+/**
+ * Duração da exportação de todas as contas e extratos para arquivos (Banco.exportarExtratos).
+ *
+ * As transações são distribuídas igualmente entre as contas, alternando depósitos e saques. Ao final
+ * de cada iteração, o tamanho dos arquivos e a taxa em MB/s são impressos; o diretório de destino
+ * pode ser escolhido com -Dexportacao.diretorio (por padrão, um diretório temporário).
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx16g")
+@State(Scope.Benchmark)
+public class ExportacaoBenchmark {
+
+    @Param({"1000000"})
+    public int contas;
+
+    @Param({"100000000"})
+    public long transacoes;
+
+    @Param({"CSV", "BINARIO"})
+    public ExportadorDeExtratos.Formato formato;
+
+    private Banco banco;
+    private Path diretorio;
+    private ExportadorDeExtratos.Resumo ultimo;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+        long porConta = transacoes / contas - 1;  // O depósito inicial de ConjuntoDeDados já é uma transação
+        for (int i = 0; i < contas; i++) {
+            Conta conta = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+            for (long j = 0; j < porConta; j++) {
+                conta.tentarExecutarServico(j % 2 == 0 ? TipoServico.DEPOSITO : TipoServico.SAQUE, 1_00L, null);
+            }
+        }
+
+        String base = System.getProperty("exportacao.diretorio");
+        diretorio = base != null ? Files.createTempDirectory(Path.of(base), "exportacao") : Files.createTempDirectory("exportacao");
+    }
+
+    @Benchmark
+    public ExportadorDeExtratos.Resumo exportar() throws IOException {
+        ultimo = banco.exportarExtratos(diretorio, formato);
+        return ultimo;
+    }
+
+    @TearDown(Level.Iteration)
+    public void relatar() {
+        System.out.printf("%n%d transações, %.1f MB, %.1f MB/s%n", ultimo.transacoes(), ultimo.bytes() / 1e6, ultimo.megabytesPorSegundo());
+    }
+
+    @TearDown(Level.Trial)
+    public void limpar() throws IOException {
+        banco.close();
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.PaginaExtrato;
+import model.RenderizadorDeExtrato;
+import model.TipoConta;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Montagem do extrato: histórico completo e uma página do período mais recente, como listas de Strings e
+ * escritos direto em uma saída com buffer, como no menu (ver OperacoesContaMenu.verExtrato). Com
+ * "-prof gc", gc.alloc.rate.norm dividido pelas linhas de cada operação dá a alocação por linha.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class ExtratoBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int transacoes;
+
+    private Banco banco;
+    private Conta conta;
+    private final RenderizadorDeExtrato renderizador = new RenderizadorDeExtrato();
+    private final PrintWriter saida = new PrintWriter(new BufferedWriter(
+            new OutputStreamWriter(OutputStream.nullOutputStream(), StandardCharsets.UTF_8), 1 << 16));
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = new Banco();
+        banco.criarConta("Cliente", ConjuntoDeDados.cpf(1), TipoConta.CORRENTE);
+        banco.criarConta("Destinatário", ConjuntoDeDados.cpf(2), TipoConta.POUPANCA);
+        conta = Banco.buscarCpf(ConjuntoDeDados.cpf(1));
+
+        // Alterna depósitos, saques e transferências, para que o extrato tenha todos os tipos de mensagem
+        for (int i = 0; i < transacoes; i++) {
+            switch (i % 3) {
+                case 0 -> conta.tentarExecutarServico(TipoServico.DEPOSITO, 10_00L, null);
+                case 1 -> conta.tentarExecutarServico(TipoServico.SAQUE, 1_00L, null);
+                default -> conta.tentarExecutarServico(TipoServico.TRANSFERENCIA, 1_00L, ConjuntoDeDados.cpf(2));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @Benchmark
+    public List<String> extratoCompleto() {
+        return conta.getTransacoes();
+    }
+
+    @Benchmark
+    public PaginaExtrato paginaUltimos30Dias() {
+        long fim = System.currentTimeMillis() + 1;
+        return conta.consultarExtrato(fim - TimeUnit.DAYS.toMillis(30), fim, null, 0, 20);
+    }
+
+    @Benchmark
+    public int extratoCompletoNaSaida() throws IOException {
+        return conta.escreverExtrato(Long.MIN_VALUE, Long.MAX_VALUE, null, 0, Integer.MAX_VALUE, renderizador, "• ", saida);
+    }
+
+    @Benchmark
+    public int paginaUltimos30DiasNaSaida() throws IOException {
+        long fim = System.currentTimeMillis() + 1;
+        return conta.escreverExtrato(fim - TimeUnit.DAYS.toMillis(30), fim, null, 0, 20, renderizador, "• ", saida);
+    }
+}
@@ -0,0 +1,132 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.CacheDeIdempotencia;
+
+/**
+ * Custo da verificação de idempotência no depósito (Conta.tentarExecutarServico com chave).
+ *
+ * "semChave" é a referência. "chaveNova" usa uma chave diferente a cada depósito, de um conjunto
+ * maior que a capacidade do cache, de forma que toda chamada reserva uma entrada e descarta a mais
+ * antiga. "chaveRepetida" repete chaves já usadas: o depósito não é aplicado e o resultado original
+ * é devolvido pelo cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class IdempotenciaBenchmark {
+    private static final long VALOR = 100_00L;
+    private static final int CONTAS = 10_000;
+    private static final int CHAVES_NOVAS = CacheDeIdempotencia.CAPACIDADE_PADRAO * 4;
+    private static final int CHAVES_REPETIDAS = 1024;
+
+    private Banco banco;
+    private Conta[] todas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    // As chaves são criadas antes da medição, como se já tivessem chegado na requisição
+    @State(Scope.Thread)
+    public static class Chaves {
+        SplittableRandom aleatorio;
+        String[] novas;
+        String[] repetidas;
+        Conta[] contasRepetidas;
+        int proxima;
+
+        @Setup(Level.Trial)
+        public void preparar(IdempotenciaBenchmark estado) {
+            long thread = Thread.currentThread().getId();
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + thread);
+            novas = new String[CHAVES_NOVAS];
+            for (int i = 0; i < novas.length; i++) {
+                novas[i] = "dep-" + thread + "-" + i;
+            }
+
+            repetidas = new String[CHAVES_REPETIDAS];
+            contasRepetidas = new Conta[CHAVES_REPETIDAS];
+            for (int i = 0; i < repetidas.length; i++) {
+                repetidas[i] = "rep-" + thread + "-" + i;
+                contasRepetidas[i] = estado.todas[aleatorio.nextInt(estado.todas.length)];
+                contasRepetidas[i].tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null, repetidas[i]);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao semChave(Chaves chaves) {
+        return sortear(chaves).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao chaveNova(Chaves chaves) {
+        return sortear(chaves).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null, proximaChave(chaves));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao chaveRepetida(Chaves chaves) {
+        int i = chaves.aleatorio.nextInt(CHAVES_REPETIDAS);
+        return chaves.contasRepetidas[i].tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null, chaves.repetidas[i]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao semChaveConcorrente(Chaves chaves) {
+        return sortear(chaves).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao chaveNovaConcorrente(Chaves chaves) {
+        return sortear(chaves).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null, proximaChave(chaves));
+    }
+
+    private Conta sortear(Chaves chaves) {
+        return todas[chaves.aleatorio.nextInt(todas.length)];
+    }
+
+    private static String proximaChave(Chaves chaves) {
+        String chave = chaves.novas[chaves.proxima];
+        chaves.proxima = (chaves.proxima + 1) % CHAVES_NOVAS;
+        return chave;
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Leituras de saldo sem lock (Conta.getSaldo) e cortes consistentes de todos os saldos (Banco.somarSaldos)
+ * enquanto uma thread executa transferências entre contas sorteadas.
+ *
+ * Os grupos "leitura1" e "leitura4" diferem apenas no número de threads de leitura (1 e 4), para medir
+ * como a vazão de leitura cresce com as threads; "corte" mede a duração de um corte de todas as contas.
+ * Em cada grupo, a vazão da thread de escrita mostra o efeito das leituras sobre as operações.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Group)
+public class LeituraDeSaldosBenchmark {
+    private static final long VALOR = 1L;
+
+    @Param({"10000", "1000000"})
+    public int contas;
+
+    private Banco banco;
+    private Conta[] todas;
+    private String[] cpfs;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[contas];
+        cpfs = new String[contas];
+        for (int i = 0; i < contas; i++) {
+            cpfs[i] = ConjuntoDeDados.cpf(i);
+            todas[i] = Banco.buscarCpf(cpfs[i]);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    @Group("leitura1")
+    @GroupThreads(1)
+    public long lerSaldo1(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(contas)].getSaldo();
+    }
+
+    @Benchmark
+    @Group("leitura1")
+    @GroupThreads(1)
+    public ResultadoOperacao transferir1(Sorteio sorteio) {
+        return transferir(sorteio);
+    }
+
+    @Benchmark
+    @Group("leitura4")
+    @GroupThreads(4)
+    public long lerSaldo4(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(contas)].getSaldo();
+    }
+
+    @Benchmark
+    @Group("leitura4")
+    @GroupThreads(1)
+    public ResultadoOperacao transferir4(Sorteio sorteio) {
+        return transferir(sorteio);
+    }
+
+    @Benchmark
+    @Group("corte")
+    @GroupThreads(1)
+    public long somarSaldos() {
+        return banco.somarSaldos();
+    }
+
+    @Benchmark
+    @Group("corte")
+    @GroupThreads(1)
+    public ResultadoOperacao transferirDuranteCorte(Sorteio sorteio) {
+        return transferir(sorteio);
+    }
+
+    private ResultadoOperacao transferir(Sorteio sorteio) {
+        int origem = sorteio.aleatorio.nextInt(contas);
+        int destino = (origem + 1 + sorteio.aleatorio.nextInt(contas - 1)) % contas;
+        return todas[origem].tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, cpfs[destino]);
+    }
+}
@@ -0,0 +1,128 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.LimitesDeOperacao;
+import service.LimitesDeOperacao.Alvo;
+import service.LimitesDeOperacao.Janela;
+import service.LimitesDeOperacao.Regra;
+
+/**
+ * Custo dos limites de operação (LimitesDeOperacao) com 1 milhão de contas ativas.
+ *
+ * "reservar" mede a avaliação das regras diretamente, com origem e destino sorteados entre as
+ * contas, todas já com contadores nas três janelas. "saque" e "transferencia" medem a operação
+ * completa (Conta.tentarExecutarServico), com e sem os limites ativos. As regras usam limites altos o
+ * suficiente para que nenhuma operação seja recusada, de forma que toda chamada contabiliza.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class LimitesBenchmark {
+    private static final long VALOR = 1L;
+
+    @Param({"1000000"})
+    public int contas;
+
+    private LimitesDeOperacao limites;
+    private long[] chaves;
+    private SplittableRandom aleatorio;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        limites = new LimitesDeOperacao(regrasAltas());
+        chaves = new long[contas];
+        long agora = System.currentTimeMillis();
+        for (int i = 0; i < contas; i++) {
+            chaves[i] = Banco.chaveConta(Conta.AGENCIA_PADRAO, i + 1);
+            limites.reservar(chaves[i], LimitesDeOperacao.SEM_DESTINO, VALOR, agora);
+        }
+        for (int i = 0; i < contas; i++) {
+            limites.reservar(chaves[(i + 1) % contas], chaves[i], VALOR, agora);
+        }
+        aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+    }
+
+    // Banco com as contas, com ou sem os limites ativos
+    @State(Scope.Benchmark)
+    public static class ComBanco {
+        @Param({"false", "true"})
+        public boolean comLimites;
+
+        Banco banco;
+        Conta[] todas;
+        String[] cpfs;
+
+        @Setup(Level.Trial)
+        public void preparar(LimitesBenchmark estado) {
+            banco = ConjuntoDeDados.criarBanco(estado.contas, ConjuntoDeDados.SEMENTE_PADRAO);
+            todas = new Conta[estado.contas];
+            cpfs = new String[estado.contas];
+            for (int i = 0; i < estado.contas; i++) {
+                cpfs[i] = ConjuntoDeDados.cpf(i);
+                todas[i] = Banco.buscarCpf(cpfs[i]);
+            }
+            banco.ativarLimites(comLimites ? new LimitesDeOperacao(regrasAltas()) : null);
+        }
+
+        @TearDown(Level.Trial)
+        public void encerrar() throws IOException {
+            banco.close();
+        }
+    }
+
+    @Benchmark
+    public boolean reservar() {
+        long origem = chaves[aleatorio.nextInt(contas)];
+        long destino = chaves[aleatorio.nextInt(contas)];
+        return limites.reservar(origem, destino, VALOR, System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public ResultadoOperacao saque(ComBanco banco) {
+        return banco.todas[aleatorio.nextInt(contas)].tentarExecutarServico(TipoServico.SAQUE, VALOR, null);
+    }
+
+    @Benchmark
+    public ResultadoOperacao transferencia(ComBanco banco) {
+        int origem = aleatorio.nextInt(contas);
+        int destino = (origem + 1 + aleatorio.nextInt(contas - 1)) % contas;
+        return banco.todas[origem].tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, banco.cpfs[destino]);
+    }
+
+    // As mesmas janelas das regras padrão, com limites que nunca são atingidos no benchmark
+    private static List<Regra> regrasAltas() {
+        List<Regra> regras = new ArrayList<>();
+        for (Janela janela : Janela.values()) {
+            regras.add(new Regra(Alvo.CONTA, janela, Integer.MAX_VALUE, Long.MAX_VALUE - 1));
+        }
+        regras.add(new Regra(Alvo.DESTINO, Janela.HORA, Integer.MAX_VALUE, Long.MAX_VALUE - 1));
+        regras.add(new Regra(Alvo.DESTINO, Janela.DIA, Integer.MAX_VALUE, Long.MAX_VALUE - 1));
+        return regras;
+    }
+}
@@ -0,0 +1,125 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exception.SaldoInsuficienteException;
+import exception.ValorInvalidoException;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.OperacaoEmLote;
+
+/**
+ * Tempo de um lote de operações (80% depósitos, 10% saques e 10% transferências entre contas sorteadas)
+ * executado por Banco.executarLote, comparado com as mesmas operações executadas uma a uma por
+ * executarServico (com exceções nas recusas) e por tentarExecutarServico.
+ *
+ * Em memória, a diferença vem da busca das contas e do lock por conta; no banco persistente, o lote também
+ * aguarda o diário uma única vez, enquanto cada operação isolada aguarda a sua própria gravação.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class LoteBenchmark {
+    private static final int CONTAS = 10_000;
+    private static final long VALOR_MAXIMO = 1_000_00L;
+
+    @Param({"100", "1000"})
+    public int tamanho;
+
+    @Param({"false", "true"})
+    public boolean persistente;
+
+    private Path diretorio;
+    private Banco banco;
+    private List<OperacaoEmLote> lote;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        if (persistente) {
+            diretorio = Files.createTempDirectory("banco-lote");
+            banco = ConjuntoDeDados.preencher(new Banco(diretorio), CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        } else {
+            banco = ConjuntoDeDados.criarBanco(CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        }
+
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+        lote = new ArrayList<>(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            int sorteio = aleatorio.nextInt(10);
+            TipoServico tipoServico = sorteio < 8 ? TipoServico.DEPOSITO : sorteio == 8 ? TipoServico.SAQUE : TipoServico.TRANSFERENCIA;
+            String destino = tipoServico == TipoServico.TRANSFERENCIA ? ConjuntoDeDados.cpf(aleatorio.nextInt(CONTAS)) : null;
+            lote.add(new OperacaoEmLote(tipoServico, ConjuntoDeDados.cpf(aleatorio.nextInt(CONTAS)), 1 + aleatorio.nextLong(VALOR_MAXIMO), destino));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+        if (diretorio != null) {
+            try (Stream<Path> arquivos = Files.walk(diretorio)) {
+                for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(arquivo);
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public List<ResultadoOperacao> executarLote() {
+        return banco.executarLote(lote);
+    }
+
+    // Uma chamada de executarServico por operação, como antes da execução em lote
+    @Benchmark
+    public int repetirExecutarServico() {
+        int recusadas = 0;
+        for (OperacaoEmLote operacao : lote) {
+            try {
+                Banco.buscarCpf(operacao.cpf()).executarServico(operacao.tipoServico(), operacao.valor(), operacao.cpfDestinatario());
+            } catch (SaldoInsuficienteException | ValorInvalidoException | IllegalArgumentException e) {
+                recusadas++;
+            }
+        }
+        return recusadas;
+    }
+
+    // Uma chamada por operação pelo caminho sem exceções
+    @Benchmark
+    public int repetirTentarExecutarServico() {
+        int recusadas = 0;
+        for (OperacaoEmLote operacao : lote) {
+            ResultadoOperacao resultado = Banco.buscarCpf(operacao.cpf())
+                    .tentarExecutarServico(operacao.tipoServico(), operacao.valor(), operacao.cpfDestinatario());
+            if (!resultado.isSucesso()) {
+                recusadas++;
+            }
+        }
+        return recusadas;
+    }
+}
@@ -0,0 +1,100 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.Metricas;
+
+/**
+ * Custo das métricas no caminho das operações.
+ *
+ * Compare os resultados com metricas=false e metricas=true: a diferença é o custo da coleta
+ * (leitura do relógio, contador e histograma) por operação.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class MetricasBenchmark {
+    private static final int CONTAS = 10_000;
+    private static final long VALOR = 100_00L;
+
+    @Param({"false", "true"})
+    public boolean metricas;
+
+    private Banco banco;
+    private Conta[] todas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+        Metricas.zerarTudo();
+        if (metricas) {
+            Metricas.ativar();
+        } else {
+            Metricas.desativar();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        Metricas.desativar();
+        banco.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao depositar(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(CONTAS)].tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao depositarConcorrente(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(CONTAS)].tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao transferirConcorrente(Sorteio sorteio) {
+        Conta origem = todas[sorteio.aleatorio.nextInt(CONTAS)];
+        Conta destino = todas[sorteio.aleatorio.nextInt(CONTAS)];
+        return origem.tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, destino.getCliente().getCpf());
+    }
+}
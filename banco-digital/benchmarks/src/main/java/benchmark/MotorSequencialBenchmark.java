@@ -0,0 +1,111 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.MotorSequencial;
+
+/**
+ * Vazão do motor sequencial, com e sem o diário de comandos.
+ *
+ * "enviar" mede a vazão da thread de negócio: o produtor não aguarda cada comando, apenas espaço no
+ * buffer. "executar" aguarda o resultado de cada comando, como Conta.tentarExecutarServico, e pode
+ * ser comparado com OperacoesBenchmark, que usa os locks das contas.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class MotorSequencialBenchmark {
+    private static final long VALOR = 100_00L;
+    private static final int CONTAS = 10_000;
+
+    @Param({"false", "true"})
+    public boolean diario;
+
+    private Banco banco;
+    private MotorSequencial motor;
+    private Conta[] todas;
+    private Path arquivoComandos;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        banco = ConjuntoDeDados.criarBanco(CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+        arquivoComandos = diario ? Files.createTempFile("comandos", ".log") : null;
+        motor = banco.iniciarMotorSequencial(arquivoComandos);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+        if (arquivoComandos != null) {
+            Files.delete(arquivoComandos);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long enviarDeposito(Sorteio sorteio) {
+        return motor.enviar(sortear(sorteio), TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long enviarTransferencia(Sorteio sorteio) {
+        return motor.enviar(sortear(sorteio), TipoServico.TRANSFERENCIA, VALOR, sortear(sorteio));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao executarDeposito(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao executarTransferenciaConcorrente(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, sortear(sorteio).getCliente().getCpf());
+    }
+
+    private Conta sortear(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(todas.length)];
+    }
+}
@@ -0,0 +1,162 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.HistoricoTransacoes;
+import model.RenderizadorDeExtrato;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.FilaDeNotificacoes;
+
+/**
+ * Distribuição da latência (p50, p99, p99,9) de depósitos e transferências com a entrega das notificações
+ * dentro da operação (SINCRONA, como antes da fila) e pela FilaDeNotificacoes (FILA).
+ *
+ * Na entrega síncrona, a thread da operação monta a mensagem de cada conta movimentada e a entrega ao
+ * destino, uma por vez; pela fila, a operação apenas publica os dados e a thread consumidora monta e entrega
+ * as mensagens em lotes. "entregaMicros" simula o custo de cada entrega ao destino (por exemplo, a chamada a
+ * um serviço de mensagens), pago por mensagem na entrega síncrona e por lote na fila.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class NotificacoesBenchmark {
+    private static final int CONTAS = 10_000;
+    private static final long VALOR = 100_00L;
+    private static final int CAPACIDADE_FILA = 1 << 16;
+    private static final int TAMANHO_LOTE = 256;
+
+    @Param({"SINCRONA", "FILA"})
+    public String entrega;
+
+    @Param({"0", "20"})
+    public int entregaMicros;
+
+    private Banco banco;
+    private Conta[] todas;
+    private final LongAdder caracteresEntregues = new LongAdder();
+    private Consumer<List<String>> destino;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+
+        long custoNanos = TimeUnit.MICROSECONDS.toNanos(entregaMicros);
+        destino = mensagens -> {
+            for (String mensagem : mensagens) {
+                caracteresEntregues.add(mensagem.length());
+            }
+            esperar(custoNanos);
+        };
+        if (entrega.equals("FILA")) {
+            // BLOQUEAR para que nenhuma notificação descartada deixe a fila mais barata do que a entrega síncrona
+            banco.ativarNotificacoes(CAPACIDADE_FILA, TAMANHO_LOTE, FilaDeNotificacoes.Politica.BLOQUEAR, destino);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close(); // Entrega as notificações pendentes e encerra a thread consumidora
+    }
+
+    // Estado de cada thread: sorteio das contas e, na entrega síncrona, o renderizador e a mensagem reaproveitados
+    @State(Scope.Thread)
+    public static class Operador {
+        SplittableRandom aleatorio;
+        RenderizadorDeExtrato renderizador;
+        StringBuilder mensagem;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+            renderizador = new RenderizadorDeExtrato();
+            mensagem = new StringBuilder(128);
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao depositar(Operador operador) {
+        return depositarEEntregar(operador);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao transferir(Operador operador) {
+        return transferirEEntregar(operador);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao transferirConcorrente(Operador operador) {
+        return transferirEEntregar(operador);
+    }
+
+    private ResultadoOperacao depositarEEntregar(Operador operador) {
+        Conta conta = todas[operador.aleatorio.nextInt(CONTAS)];
+        ResultadoOperacao resultado = conta.tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+        if (resultado.isSucesso() && entrega.equals("SINCRONA")) {
+            entregarAgora(operador, conta, TipoServico.DEPOSITO, VALOR, HistoricoTransacoes.SEM_CONTRAPARTE);
+        }
+        return resultado;
+    }
+
+    private ResultadoOperacao transferirEEntregar(Operador operador) {
+        Conta origem = todas[operador.aleatorio.nextInt(CONTAS)];
+        Conta destinatario = todas[operador.aleatorio.nextInt(CONTAS)];
+        ResultadoOperacao resultado = origem.tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, destinatario.getCliente().getCpf());
+        if (resultado.isSucesso() && entrega.equals("SINCRONA")) {
+            entregarAgora(operador, origem, TipoServico.TRANSFERENCIA, -VALOR, destinatario.getChave());
+            entregarAgora(operador, destinatario, TipoServico.TRANSFERENCIA, VALOR, origem.getChave());
+        }
+        return resultado;
+    }
+
+    // Monta e entrega a notificação na thread da operação, com a mesma mensagem montada pela fila
+    private void entregarAgora(Operador operador, Conta conta, TipoServico tipoServico, long valor, long contraparte) {
+        StringBuilder mensagem = operador.mensagem;
+        mensagem.setLength(0);
+        mensagem.append("Conta ").append(conta.getAgencia()).append('/').append(conta.getNumero()).append(": ");
+        operador.renderizador.acrescentar(mensagem, System.currentTimeMillis(), tipoServico, valor, conta.getSaldo(), contraparte);
+        destino.accept(List.of(mensagem.toString()));
+    }
+
+    // Simula o custo de uma entrega ao destino, sem liberar o processador
+    private static void esperar(long nanos) {
+        if (nanos > 0) {
+            long fim = System.nanoTime() + nanos;
+            while (System.nanoTime() < fim) {
+                Thread.onSpinWait();
+            }
+        }
+    }
+}
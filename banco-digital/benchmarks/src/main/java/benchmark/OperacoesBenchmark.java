@@ -0,0 +1,119 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exception.SaldoInsuficienteException;
+import exception.ValorInvalidoException;
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Vazão de depósitos, saques e transferências entre contas sorteadas, com uma e com várias threads.
+ *
+ * Inclui o registro no histórico (notificarTransacao). Com os saldos iniciais sorteados, quase nenhum saque
+ * é recusado; o custo das recusas é medido em RecusasBenchmark.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+@State(Scope.Benchmark)
+public class OperacoesBenchmark {
+    private static final long VALOR = 100_00L;
+
+    @Param({"10000", "1000000"})
+    public int contas;
+
+    private Banco banco;
+    private Conta[] todas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[contas];
+        for (int i = 0; i < contas; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao depositar(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao depositarConcorrente(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao sacar(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.SAQUE, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao transferir(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, sortear(sorteio).getCliente().getCpf());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao transferirConcorrente(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, sortear(sorteio).getCliente().getCpf());
+    }
+
+    // Caminho com exceções (executarServico), para comparação com o caminho por código de resultado
+    @Benchmark
+    @Threads(1)
+    public boolean sacarComExcecoes(Sorteio sorteio) {
+        try {
+            sortear(sorteio).executarServico(TipoServico.SAQUE, VALOR, null);
+            return true;
+        } catch (SaldoInsuficienteException | ValorInvalidoException e) {
+            return false;
+        }
+    }
+
+    private Conta sortear(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(todas.length)];
+    }
+}
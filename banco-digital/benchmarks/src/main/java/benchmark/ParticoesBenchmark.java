@@ -0,0 +1,100 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Vazão de depósitos e transferências concorrentes em um banco persistente, com 1, 4 e 16 partições.
+ *
+ * Com uma partição, todas as operações disputam o mesmo diário. Com várias, as operações de contas
+ * de partições diferentes gravam em diários independentes; as transferências entre partições gravam
+ * uma metade em cada diário.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class ParticoesBenchmark {
+    private static final long VALOR = 100_00L;
+    private static final int CONTAS = 100_000;
+
+    @Param({"1", "4", "16"})
+    public int particoes;
+
+    private Path diretorio;
+    private Banco banco;
+    private Conta[] todas;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        diretorio = Files.createTempDirectory("banco-particoes");
+        banco = ConjuntoDeDados.preencher(new Banco(diretorio, particoes), CONTAS, ConjuntoDeDados.SEMENTE_PADRAO);
+        todas = new Conta[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+        try (Stream<Path> arquivos = Files.walk(diretorio)) {
+            for (Path arquivo : (Iterable<Path>) arquivos.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(arquivo);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao depositarConcorrente(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.DEPOSITO, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public ResultadoOperacao transferirConcorrente(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.TRANSFERENCIA, VALOR, sortear(sorteio).getCliente().getCpf());
+    }
+
+    private Conta sortear(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(todas.length)];
+    }
+}
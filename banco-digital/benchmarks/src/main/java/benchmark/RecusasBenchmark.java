@@ -0,0 +1,106 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exception.SaldoInsuficienteException;
+import exception.ValorInvalidoException;
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Custo das recusas: saques com uma proporção controlada de recusas por saldo insuficiente, pelo caminho
+ * com código de resultado (tentarExecutarServico) e pelo caminho com exceções (executarServico).
+ *
+ * Em OperacoesBenchmark os saldos iniciais sorteados são altos e quase nenhum saque é recusado. Aqui,
+ * "percentualRecusas" de cada 100 contas começam sem saldo e as demais com um saldo que não se esgota
+ * durante a medição; como as contas são sorteadas de maneira uniforme, essa é a proporção de saques
+ * recusados.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class RecusasBenchmark {
+    private static final int CONTAS = 10_000;
+    private static final long VALOR = 100_00L;
+
+    // Saldo das contas que aceitam saques: suficiente para bilhões de saques de VALOR
+    private static final long SALDO_INESGOTAVEL = Long.MAX_VALUE / 4;
+
+    @Param({"0", "20"})
+    public int percentualRecusas;
+
+    private Banco banco;
+    private Conta[] todas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = new Banco();
+        todas = new Conta[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            banco.criarConta("Cliente " + i, ConjuntoDeDados.cpf(i), TipoConta.CORRENTE);
+            todas[i] = Banco.buscarCpf(ConjuntoDeDados.cpf(i));
+            if (i % 100 >= percentualRecusas) {
+                todas[i].tentarExecutarServico(TipoServico.DEPOSITO, SALDO_INESGOTAVEL, null);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Sorteio {
+        SplittableRandom aleatorio;
+
+        @Setup(Level.Trial)
+        public void preparar() {
+            aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public ResultadoOperacao sacarComResultado(Sorteio sorteio) {
+        return sortear(sorteio).tentarExecutarServico(TipoServico.SAQUE, VALOR, null);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean sacarComExcecoes(Sorteio sorteio) {
+        try {
+            sortear(sorteio).executarServico(TipoServico.SAQUE, VALOR, null);
+            return true;
+        } catch (SaldoInsuficienteException | ValorInvalidoException e) {
+            return false;
+        }
+    }
+
+    private Conta sortear(Sorteio sorteio) {
+        return todas[sorteio.aleatorio.nextInt(CONTAS)];
+    }
+}
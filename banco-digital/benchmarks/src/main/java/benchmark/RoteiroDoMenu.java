@@ -0,0 +1,47 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Gera um roteiro de comandos para o menu de terminal (app.Main), usado para medir o menu conduzido
+ * por arquivos, com e sem o modo em lote:
+ * <pre>
+ * java -cp benchmarks.jar benchmark.RoteiroDoMenu roteiro.txt 1000000
+ * time java -cp benchmarks.jar app.Main < roteiro.txt > saida.txt
+ * time java -cp benchmarks.jar app.Main --lote < roteiro.txt > saida.txt
+ * </pre>
+ *
+ * O roteiro cria as contas e, em seguida, repete sessões que acessam uma conta sorteada, consultam o
+ * saldo, depositam, sacam, transferem para outra conta sorteada, digitam uma opção inválida e
+ * desconectam. Cada linha é um comando (uma opção ou um dado digitado).
+ */
+public class RoteiroDoMenu {
+    public static void main(String[] args) throws IOException {
+        Path arquivo = Path.of(args.length > 0 ? args[0] : "roteiro.txt");
+        long comandos = args.length > 1 ? Long.parseLong(args[1]) : 1_000_000;
+        int contas = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO);
+        long escritos = 0;
+
+        try (PrintWriter roteiro = new PrintWriter(new BufferedWriter(Files.newBufferedWriter(arquivo, StandardCharsets.UTF_8), 1 << 16))) {
+            for (int i = 0; i < contas; i++) {
+                roteiro.printf("1%n%d%nCliente %d%n%s%n", 1 + i % 2, i, ConjuntoDeDados.cpf(i));
+                escritos += 4;
+            }
+            while (escritos < comandos) {
+                String origem = ConjuntoDeDados.cpf(aleatorio.nextInt(contas));
+                String destino = ConjuntoDeDados.cpf(aleatorio.nextInt(contas));
+                roteiro.printf("2%n%s%n1%n2%n10,00%n3%n1,50%n4%n%s%n0,25%nx%n9%n0%n", origem, destino);
+                escritos += 13;
+            }
+            roteiro.printf("0%n");
+        }
+        System.out.printf("%d comandos gravados em %s%n", escritos + 1, arquivo);
+    }
+}
@@ -0,0 +1,106 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import model.ResultadoOperacao;
+import model.TipoServico;
+import service.Banco;
+import service.PernaDeTransacao;
+
+/**
+ * Vazão das transações com várias pernas (Banco.executarTransacao) sob contenção.
+ *
+ * Cada thread executa transações de 2, 5 ou 20 pernas entre contas sorteadas; com 100 contas, quase
+ * toda transação disputa contas com as das outras threads. "pernasSeparadas" executa as mesmas pernas
+ * como transferências independentes (sem atomicidade entre elas), como referência.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@Threads(4)
+@State(Scope.Benchmark)
+public class TransacaoBenchmark {
+    private static final int TRANSACOES_POR_THREAD = 1024;
+    private static final long VALOR = 1L;
+
+    @Param({"100", "100000"})
+    public int contas;
+
+    @Param({"2", "5", "20"})
+    public int pernas;
+
+    private Banco banco;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        banco = ConjuntoDeDados.criarBanco(contas, ConjuntoDeDados.SEMENTE_PADRAO);
+    }
+
+    @TearDown(Level.Trial)
+    public void encerrar() throws IOException {
+        banco.close();
+    }
+
+    // Transações sorteadas antes da medição, percorridas em ciclo por cada thread
+    @State(Scope.Thread)
+    public static class Transacoes {
+        List<List<PernaDeTransacao>> transacoes;
+        int proxima;
+
+        @Setup(Level.Trial)
+        public void preparar(TransacaoBenchmark estado) {
+            SplittableRandom aleatorio = new SplittableRandom(ConjuntoDeDados.SEMENTE_PADRAO + Thread.currentThread().getId());
+            transacoes = new ArrayList<>(TRANSACOES_POR_THREAD);
+            for (int i = 0; i < TRANSACOES_POR_THREAD; i++) {
+                List<PernaDeTransacao> transacao = new ArrayList<>(estado.pernas);
+                for (int j = 0; j < estado.pernas; j++) {
+                    int origem = aleatorio.nextInt(estado.contas);
+                    int destino = (origem + 1 + aleatorio.nextInt(estado.contas - 1)) % estado.contas;
+                    transacao.add(new PernaDeTransacao(ConjuntoDeDados.cpf(origem), ConjuntoDeDados.cpf(destino), VALOR));
+                }
+                transacoes.add(transacao);
+            }
+        }
+
+        List<PernaDeTransacao> proxima() {
+            List<PernaDeTransacao> transacao = transacoes.get(proxima);
+            proxima = (proxima + 1) % TRANSACOES_POR_THREAD;
+            return transacao;
+        }
+    }
+
+    @Benchmark
+    public ResultadoOperacao transacao(Transacoes transacoes) {
+        return banco.executarTransacao(transacoes.proxima());
+    }
+
+    @Benchmark
+    public ResultadoOperacao pernasSeparadas(Transacoes transacoes) {
+        ResultadoOperacao resultado = null;
+        for (PernaDeTransacao perna : transacoes.proxima()) {
+            resultado = Banco.buscarCpf(perna.cpfOrigem()).tentarExecutarServico(TipoServico.TRANSFERENCIA, perna.valor(), perna.cpfDestinatario());
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,100 @@
+package app;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gerador de carga local para o ServidorHttp.
+ *
+ * Cria uma conta por thread e executa depósitos e consultas de saldo alternados durante o tempo
+ * informado, exibindo ao final a vazão e os percentis de latência.
+ *
+ * Uso: GeradorDeCarga [url=http://localhost:8080] [threads=8] [segundos=10]
+ */
+public class GeradorDeCarga {
+    public static void main(String[] args) throws Exception {
+        String url = args.length > 0 ? args[0] : "http://localhost:8080";
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        int segundos = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        long prefixoCpf = System.currentTimeMillis() % 1_000_000;
+        long[][] latencias = new long[threads][];
+        int[] quantidades = new int[threads];
+
+        long fim = System.nanoTime() + TimeUnit.SECONDS.toNanos(segundos);
+        Thread[] trabalhadores = new Thread[threads];
+
+        for (int t = 0; t < threads; t++) {
+            final int indice = t;
+            trabalhadores[t] = new Thread(() -> {
+                String cpf = "carga" + prefixoCpf + "-" + indice;
+                long[] amostras = new long[1 << 16];
+                int quantidade = 0;
+                try {
+                    enviar(cliente, "POST", url + "/contas?nome=Carga&cpf=" + cpf + "&tipo=CORRENTE");
+
+                    while (System.nanoTime() < fim) {
+                        String rota = quantidade % 2 == 0
+                                ? url + "/contas/" + cpf + "/deposito?valor=1,00"
+                                : url + "/contas/" + cpf + "/saldo";
+                        long inicio = System.nanoTime();
+                        enviar(cliente, quantidade % 2 == 0 ? "POST" : "GET", rota);
+                        long duracao = System.nanoTime() - inicio;
+
+                        if (quantidade == amostras.length) {
+                            amostras = Arrays.copyOf(amostras, amostras.length * 2);
+                        }
+                        amostras[quantidade++] = duracao;
+                    }
+                } catch (Exception e) {
+                    System.err.println("[!] Falha na thread " + indice + ": " + e.getMessage());
+                }
+                latencias[indice] = amostras;
+                quantidades[indice] = quantidade;
+            });
+            trabalhadores[t].start();
+        }
+
+        for (Thread trabalhador : trabalhadores) {
+            trabalhador.join();
+        }
+
+        // Junta as amostras de todas as threads para calcular os percentis
+        int total = Arrays.stream(quantidades).sum();
+        long[] todas = new long[total];
+        int posicao = 0;
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencias[t], 0, todas, posicao, quantidades[t]);
+            posicao += quantidades[t];
+        }
+        Arrays.sort(todas);
+
+        System.out.printf("Requisições: %d em %d s (%d threads)%n", total, segundos, threads);
+        System.out.printf("Vazão: %.0f req/s%n", total / (double) segundos);
+        if (total > 0) {
+            System.out.printf("Latência p50: %.1f µs | p90: %.1f µs | p99: %.1f µs | p99.9: %.1f µs | máx: %.1f µs%n",
+                    percentil(todas, 0.50), percentil(todas, 0.90), percentil(todas, 0.99), percentil(todas, 0.999),
+                    todas[total - 1] / 1000.0);
+        }
+    }
+
+    private static void enviar(HttpClient cliente, String metodo, String url) throws Exception {
+        HttpRequest requisicao = HttpRequest.newBuilder(URI.create(url))
+                .method(metodo, HttpRequest.BodyPublishers.noBody())
+                .build();
+        HttpResponse<Void> resposta = cliente.send(requisicao, HttpResponse.BodyHandlers.discarding());
+        if (resposta.statusCode() >= 500) {
+            throw new IllegalStateException("Resposta " + resposta.statusCode() + " para " + url);
+        }
+    }
+
+    private static double percentil(long[] ordenadas, double fracao) {
+        int indice = (int) Math.min(ordenadas.length - 1, Math.ceil(fracao * ordenadas.length) - 1);
+        return ordenadas[Math.max(0, indice)] / 1000.0;
+    }
+}
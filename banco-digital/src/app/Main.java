@@ -1,15 +1,144 @@
 package app;
-import java.util.Scanner;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
 
 import service.Banco;
+import service.LimitesDeOperacao;
+import service.Metricas;
+import service.Replica;
 import ui.OperacoesContaMenu;
+import ui.ServidorHttp;
 
 public class Main {
-    public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in); 
-        Banco banco = new Banco();
-        OperacoesContaMenu menu = new OperacoesContaMenu(scanner, banco); // Inicia o menu principal
+    // Uso: Main [diretorioDados] [--http [host:]porta] [--metricas] [--particoes quantidade] [--motor arquivoComandos] [--lote] [--limites]
+    //           [--replicacao porta] [--replica host:porta]
+    public static void main(String[] args) throws IOException {
+        String diretorioDados = null;
+        String enderecoHttp = null;
+        int portaReplicacao = -1;
+        String primario = null;
+        int particoes = 1;
+        String arquivoComandos = null;
+        boolean lote = false;
+        boolean limites = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--http") && i + 1 < args.length) {
+                enderecoHttp = args[++i];
+            } else if (args[i].equals("--particoes") && i + 1 < args.length) {
+                particoes = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--motor") && i + 1 < args.length) {
+                arquivoComandos = args[++i];
+            } else if (args[i].equals("--metricas")) {
+                Metricas.ativar();
+            } else if (args[i].equals("--lote")) {
+                lote = true;
+            } else if (args[i].equals("--limites")) {
+                limites = true;
+            } else if (args[i].equals("--replicacao") && i + 1 < args.length) {
+                portaReplicacao = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--replica") && i + 1 < args.length) {
+                primario = args[++i];
+            } else {
+                diretorioDados = args[i];
+            }
+        }
+
+        // Combinações que o banco recusaria depois de aberto são informadas antes de recuperar qualquer estado
+        if (arquivoComandos != null && diretorioDados != null) {
+            System.err.println("[!] O motor sequencial não pode ser usado com um diretório de dados: a durabilidade fica a cargo do diário de comandos.");
+            return;
+        }
+        if (portaReplicacao >= 0 && diretorioDados == null) {
+            System.err.println("[!] A replicação exige um diretório de dados.");
+            return;
+        }
+
+        // As métricas ficam sempre disponíveis via JMX; a coleta pode ser ligada com --metricas ou pelo próprio MBean
+        Metricas.registrarJmx();
+
+        // Se um diretório de dados for informado, o estado do banco é recuperado e persistido nele
+        // Com --particoes, as contas são distribuídas entre partições com índices e diários independentes
+        // Com --replica, o processo acompanha o diário do primário informado e só atende o menu depois de promovido
+        Banco banco;
+        if (primario != null) {
+            if (diretorioDados == null) {
+                System.err.println("[!] A réplica exige um diretório de dados.");
+                return;
+            }
+            int separador = primario.lastIndexOf(':');
+            InetSocketAddress endereco = new InetSocketAddress(primario.substring(0, separador), Integer.parseInt(primario.substring(separador + 1)));
+            Replica replica = new Replica(Path.of(diretorioDados), particoes, endereco);
+            System.out.println("[!] Réplica de " + primario + "; digite \"promover\" para assumir como primário.");
+            if (!aguardarPromocao()) {
+                replica.close();
+                return;
+            }
+            banco = replica.promover();
+            System.out.println("[!] Réplica promovida a primário.");
+        } else {
+            banco = diretorioDados != null ? new Banco(Path.of(diretorioDados), particoes) : new Banco(particoes);
+            if (diretorioDados != null) {
+                banco.agendarSnapshots(5, TimeUnit.MINUTES);
+            }
+        }
+
+        // Com --replicacao, réplicas no mesmo host podem se conectar à porta informada para receber o diário
+        if (portaReplicacao >= 0) {
+            int porta = banco.iniciarReplicacao(new InetSocketAddress(InetAddress.getLoopbackAddress(), portaReplicacao)).getPorta();
+            System.out.println("[!] Transmitindo o diário para réplicas na porta " + porta);
+        }
+
+        // Com --motor, as operações são executadas por uma única thread, sem locks, e os comandos são gravados no arquivo informado
+        if (arquivoComandos != null) {
+            banco.iniciarMotorSequencial(Path.of(arquivoComandos));
+        }
+
+        // Com --limites, saques e transferências são recusados quando excedem as regras padrão de quantidade e valor por janela
+        if (limites) {
+            banco.ativarLimites(new LimitesDeOperacao(LimitesDeOperacao.REGRAS_PADRAO));
+        }
+
+        // O servidor HTTP atende outros clientes sobre o mesmo banco utilizado pelo menu; sem host, apenas no endereço local
+        ServidorHttp servidor = null;
+        if (enderecoHttp != null) {
+            // Desativa o algoritmo de Nagle: com conexões keep-alive, ele atrasa cada resposta em ~40 ms
+            if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                System.setProperty("sun.net.httpserver.nodelay", "true");
+            }
+            int separador = enderecoHttp.lastIndexOf(':');
+            int porta = Integer.parseInt(enderecoHttp.substring(separador + 1));
+            servidor = separador < 0 ? new ServidorHttp(banco, porta)
+                    : new ServidorHttp(banco, new InetSocketAddress(enderecoHttp.substring(0, separador), porta));
+            servidor.iniciar();
+            System.out.println("[!] Servidor HTTP escutando na porta " + servidor.getPorta());
+        }
+
+        // Com --lote, o menu lê um roteiro de comandos da entrada padrão e exibe apenas os resultados das operações
+        OperacoesContaMenu menu = new OperacoesContaMenu(System.in, System.out, banco, lote); // Inicia o menu principal
 
         menu.menuInicial();
+        if (servidor != null) {
+            servidor.parar();
+        }
+        banco.close();
+    }
+
+    // Lê a entrada padrão até a linha "promover", byte a byte para não consumir o que vem depois (lido pelo menu)
+    private static boolean aguardarPromocao() throws IOException {
+        StringBuilder linha = new StringBuilder();
+        int lido;
+        while ((lido = System.in.read()) >= 0) {
+            if (lido != '\n') {
+                linha.append((char) lido);
+            } else if (linha.toString().trim().equals("promover")) {
+                return true;
+            } else {
+                linha.setLength(0);
+            }
+        }
+        return false;
     }
 }
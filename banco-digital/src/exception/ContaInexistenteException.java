@@ -1,7 +1,8 @@
 package exception;
 
+// Exceção sem stack trace: representa uma recusa comum do negócio, não um erro de programação
 public class ContaInexistenteException extends Exception {
     public ContaInexistenteException(String mensagem) {
-        super(mensagem);
+        super(mensagem, null, false, false);
     }
 }
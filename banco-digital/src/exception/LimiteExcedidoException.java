@@ -0,0 +1,9 @@
+package exception;
+
+// Exceção sem stack trace: representa uma recusa comum do negócio, não um erro de programação.
+// Não verificada, para não alterar a assinatura de executarServico (ver service.LimitesDeOperacao).
+public class LimiteExcedidoException extends RuntimeException {
+    public LimiteExcedidoException(String mensagem) {
+        super(mensagem, null, false, false);
+    }
+}
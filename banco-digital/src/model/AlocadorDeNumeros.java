@@ -0,0 +1,115 @@
+package model;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Alocador de números de conta, independente por agência e sem locks.
+ *
+ * Cada agência tem um contador global, do qual são reservados blocos de números, e algumas faixas
+ * (uma por processador, arredondado para potência de 2) que distribuem os números do bloco reservado.
+ * Cada thread usa sempre a mesma faixa, e o contador global só é acessado a cada
+ * {@link #TAMANHO_BLOCO} contas, o que evita a disputa por uma única variável em aberturas de contas em massa.
+ *
+ * Os números nunca se repetem e são crescentes dentro de cada faixa, mas não entre faixas: contas
+ * abertas em threads diferentes podem receber números fora da ordem de abertura. Números de um
+ * bloco não utilizado até o encerramento não são aproveitados.
+ *
+ * Na recuperação, {@link #reservarAte(int, int)} é chamado com o número de cada conta recuperada,
+ * para que novas contas recebam sempre números maiores que os já gravados.
+ */
+public class AlocadorDeNumeros {
+    public static final int TAMANHO_BLOCO = 64;
+
+    private static final int PRIMEIRO_NUMERO = 1;
+    private static final long LIMITE = Integer.MAX_VALUE + 1L; // Números válidos: de PRIMEIRO_NUMERO a Integer.MAX_VALUE
+    private static final int ESPACAMENTO = 8;                   // 8 longs (64 bytes) entre faixas, para não dividirem linha de cache
+
+    // Estado de uma agência
+    private static class Agencia {
+        private final AtomicLong proximoBloco = new AtomicLong(PRIMEIRO_NUMERO);
+
+        // Cada faixa guarda, em um único long, o próximo número (32 bits baixos) e o fim do bloco, exclusivo (32 bits altos)
+        private final AtomicLongArray faixas;
+
+        Agencia(int quantidadeFaixas) {
+            this.faixas = new AtomicLongArray(quantidadeFaixas * ESPACAMENTO);
+        }
+    }
+
+    private final ConcurrentHashMap<Integer, Agencia> agencias = new ConcurrentHashMap<>();
+    private final int mascaraFaixas;
+
+    public AlocadorDeNumeros() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public AlocadorDeNumeros(int quantidadeFaixas) {
+        int faixas = Integer.highestOneBit(Math.max(1, quantidadeFaixas) * 2 - 1);
+        this.mascaraFaixas = faixas - 1;
+    }
+
+    /**
+     * Aloca o próximo número de conta da agência informada.
+     *
+     * @throws IllegalStateException Se os números da agência estiverem esgotados.
+     */
+    public int alocar(int agencia) {
+        Agencia estado = agencia(agencia);
+        int posicao = faixaDaThread() * ESPACAMENTO;
+
+        while (true) {
+            long atual = estado.faixas.get(posicao);
+            long proximo = atual & 0xFFFFFFFFL;
+            long fim = atual >>> 32;
+
+            // Bloco da faixa ainda tem números: consome o próximo
+            if (proximo < fim) {
+                if (estado.faixas.compareAndSet(posicao, atual, atual + 1)) {
+                    return (int) proximo;
+                }
+                continue;
+            }
+
+            // Bloco esgotado: reserva um novo bloco no contador da agência e usa o primeiro número dele
+            long inicio = estado.proximoBloco.getAndAdd(TAMANHO_BLOCO);
+            if (inicio >= LIMITE) {
+                throw new IllegalStateException("Os números de conta da agência " + agencia + " estão esgotados.");
+            }
+            long novoFim = Math.min(inicio + TAMANHO_BLOCO, LIMITE);
+
+            // Se outra thread trocou o bloco da faixa antes, o restante do bloco reservado é descartado
+            estado.faixas.compareAndSet(posicao, atual, (novoFim << 32) | (inicio + 1));
+            return (int) inicio;
+        }
+    }
+
+    /**
+     * Garante que a agência nunca alocará o número informado nem números menores que ele.
+     *
+     * Usado na recuperação de contas já existentes. Blocos em uso que contenham o número são descartados.
+     */
+    public void reservarAte(int agencia, int numero) {
+        Agencia estado = agencia(agencia);
+        estado.proximoBloco.accumulateAndGet(numero + 1L, Math::max);
+
+        for (int posicao = 0; posicao < estado.faixas.length(); posicao += ESPACAMENTO) {
+            long atual = estado.faixas.get(posicao);
+            if (numero >= (atual & 0xFFFFFFFFL) && numero < (atual >>> 32)) {
+                estado.faixas.compareAndSet(posicao, atual, 0L);
+            }
+        }
+    }
+
+    private Agencia agencia(int agencia) {
+        Agencia estado = agencias.get(agencia);
+        return estado != null ? estado : agencias.computeIfAbsent(agencia, chave -> new Agencia(mascaraFaixas + 1));
+    }
+
+    // Cada thread usa sempre a mesma faixa, distribuindo as threads entre as faixas disponíveis
+    private int faixaDaThread() {
+        long id = Thread.currentThread().getId();
+        return (int) (id ^ (id >>> 16)) & mascaraFaixas;
+    }
+}
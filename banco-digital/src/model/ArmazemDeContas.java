@@ -0,0 +1,409 @@
+package model;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.StampedLock;
+
+import util.Dinheiro;
+
+/**
+ * Armazenamento compacto de contas fora do heap, para dezenas de milhões de contas.
+ *
+ * Em vez de um objeto Conta (com Cliente, Strings, histórico e entradas nos índices) por conta, cada
+ * conta ocupa um registro de {@value #TAMANHO_REGISTRO} bytes em blocos de memória direta (saldo, CPF
+ * compactado em um long, referência ao nome, agência, número e tipo), e os nomes ficam em uma área
+ * de bytes também fora do heap. Os índices por CPF e por agência/número são tabelas de hash de tipos
+ * primitivos. O coletor de lixo não percorre nenhuma dessas estruturas, de modo que o número de contas
+ * não influencia as pausas de coleta.
+ *
+ * As contas são identificadas pelo índice do registro; {@link VisaoDeConta} oferece uma visão
+ * reutilizável (flyweight) de uma conta, com a mesma interface de operações de Conta.
+ *
+ * O armazém guarda apenas os dados cadastrais e o saldo: não há histórico de transações nem diário.
+ * Os saldos são lidos sem lock; as operações travam uma de {@value #QUANTIDADE_TRAVAS} travas,
+ * escolhida pelo índice da conta (duas nas transferências, na ordem das travas).
+ */
+public class ArmazemDeContas {
+    public static final int NAO_ENCONTRADA = -1;
+
+    static final int TAMANHO_REGISTRO = 40;
+    private static final int DESLOCAMENTO_SALDO = 0;
+    private static final int DESLOCAMENTO_CPF = 8;
+    private static final int DESLOCAMENTO_NOME = 16;
+    private static final int DESLOCAMENTO_AGENCIA = 24;
+    private static final int DESLOCAMENTO_NUMERO = 28;
+    private static final int DESLOCAMENTO_TIPO = 32;
+
+    private static final int BITS_BLOCO = 20;                  // 2^20 contas (40 MiB) por bloco
+    private static final int CONTAS_POR_BLOCO = 1 << BITS_BLOCO;
+    private static final int BITS_AREA_NOMES = 24;             // Blocos de 16 MiB para os nomes
+    private static final int TAMANHO_AREA_NOMES = 1 << BITS_AREA_NOMES;
+    private static final int QUANTIDADE_TRAVAS = 1024;
+    private static final TipoConta[] TIPOS = TipoConta.values();
+
+    // Acesso atômico ao saldo dentro dos blocos de memória direta
+    private static final VarHandle SALDO = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    private volatile ByteBuffer[] blocos = new ByteBuffer[0];
+    private volatile int quantidade;                   // Contas publicadas; escrita apenas sob o lock de escrita de "indices"
+
+    private ByteBuffer[] areasNomes = new ByteBuffer[0];
+    private long fimNomes;                             // Próxima posição livre da área de nomes
+
+    private final StampedLock indices = new StampedLock();
+    private TabelaDeIndices porCpf = new TabelaDeIndices(1024);
+    private TabelaDeIndices porChave = new TabelaDeIndices(1024);
+
+    private final Object[] travas = new Object[QUANTIDADE_TRAVAS];
+    private final AlocadorDeNumeros numeracao = new AlocadorDeNumeros();
+
+    public ArmazemDeContas() {
+        for (int i = 0; i < travas.length; i++) {
+            travas[i] = new Object();
+        }
+    }
+
+    /**
+     * Cria uma conta no armazém, com o próximo número disponível da agência.
+     *
+     * @return O índice da conta criada.
+     * @throws IllegalArgumentException Se o CPF for inválido ou já tiver uma conta.
+     */
+    public int criar(String nome, String cpf, TipoConta tipoConta, int agencia) {
+        long cpfCompactado = compactarCpf(cpf);
+        byte[] bytesNome = nome.getBytes(StandardCharsets.UTF_8);
+        if (bytesNome.length > 0xFFFF) {
+            throw new IllegalArgumentException("Nome excede o tamanho permitido.");
+        }
+        int numero = numeracao.alocar(agencia);
+
+        long trava = indices.writeLock();
+        try {
+            if (porCpf.buscar(cpfCompactado) != NAO_ENCONTRADA) {
+                throw new IllegalArgumentException("Já existe uma conta utilizando o CPF informado.");
+            }
+            int indice = quantidade;
+            if ((indice >>> BITS_BLOCO) == blocos.length) {
+                ByteBuffer[] novos = Arrays.copyOf(blocos, blocos.length + 1);
+                novos[blocos.length] = ByteBuffer.allocateDirect(CONTAS_POR_BLOCO * TAMANHO_REGISTRO).order(ByteOrder.nativeOrder());
+                blocos = novos;
+            }
+
+            ByteBuffer bloco = blocos[indice >>> BITS_BLOCO];
+            int base = posicao(indice);
+            bloco.putLong(base + DESLOCAMENTO_SALDO, 0L);
+            bloco.putLong(base + DESLOCAMENTO_CPF, cpfCompactado);
+            bloco.putLong(base + DESLOCAMENTO_NOME, guardarNome(bytesNome));
+            bloco.putInt(base + DESLOCAMENTO_AGENCIA, agencia);
+            bloco.putInt(base + DESLOCAMENTO_NUMERO, numero);
+            bloco.put(base + DESLOCAMENTO_TIPO, (byte) tipoConta.ordinal());
+
+            porCpf = porCpf.inserir(cpfCompactado, indice);
+            porChave = porChave.inserir(chave(agencia, numero), indice);
+            quantidade = indice + 1; // Escrita volátil: publica o registro para as leituras sem lock
+            return indice;
+        } finally {
+            indices.unlockWrite(trava);
+        }
+    }
+
+    // Quantidade de contas no armazém; os índices válidos vão de 0 a quantidade() - 1
+    public int quantidade() {
+        return quantidade;
+    }
+
+    // Índice da conta do CPF informado, ou NAO_ENCONTRADA
+    public int buscarCpf(String cpf) {
+        long cpfCompactado;
+        try {
+            cpfCompactado = compactarCpf(cpf);
+        } catch (IllegalArgumentException e) {
+            return NAO_ENCONTRADA;
+        }
+        return buscar(cpfCompactado, true);
+    }
+
+    // Índice da conta da agência e número informados, ou NAO_ENCONTRADA
+    public int buscarConta(int agencia, int numero) {
+        return buscar(chave(agencia, numero), false);
+    }
+
+    public long getSaldo(int indice) {
+        return (long) SALDO.getVolatile(bloco(indice), posicao(indice) + DESLOCAMENTO_SALDO);
+    }
+
+    public int getAgencia(int indice) {
+        return bloco(indice).getInt(posicao(indice) + DESLOCAMENTO_AGENCIA);
+    }
+
+    public int getNumero(int indice) {
+        return bloco(indice).getInt(posicao(indice) + DESLOCAMENTO_NUMERO);
+    }
+
+    public TipoConta getTipoConta(int indice) {
+        return TIPOS[bloco(indice).get(posicao(indice) + DESLOCAMENTO_TIPO)];
+    }
+
+    public long getCpfCompactado(int indice) {
+        return bloco(indice).getLong(posicao(indice) + DESLOCAMENTO_CPF);
+    }
+
+    public String getCpf(int indice) {
+        return String.format("%011d", getCpfCompactado(indice));
+    }
+
+    // Nome do titular, decodificado da área de nomes (aloca uma String a cada chamada)
+    public String getNome(int indice) {
+        long referencia = bloco(indice).getLong(posicao(indice) + DESLOCAMENTO_NOME);
+        ByteBuffer area = areaNomes(referencia);
+        int inicio = (int) (referencia & (TAMANHO_AREA_NOMES - 1));
+        byte[] bytes = new byte[Short.toUnsignedInt(area.getShort(inicio))];
+        area.get(inicio + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Aplica um saque ou depósito, com as mesmas regras de Conta.aplicarMovimentacao.
+     *
+     * @return O resultado da operação; o saldo só é alterado em caso de SUCESSO.
+     */
+    public ResultadoOperacao aplicarMovimentacao(int indice, TipoServico tipoServico, long valor) {
+        if (valor <= 0) {
+            return ResultadoOperacao.VALOR_INVALIDO;
+        }
+        ByteBuffer bloco = bloco(indice);
+        int posicaoSaldo = posicao(indice) + DESLOCAMENTO_SALDO;
+
+        synchronized (travas[indice & (QUANTIDADE_TRAVAS - 1)]) {
+            long saldo = (long) SALDO.getVolatile(bloco, posicaoSaldo);
+            switch (tipoServico) {
+                case SAQUE -> {
+                    if (valor > saldo) {
+                        return ResultadoOperacao.SALDO_INSUFICIENTE;
+                    }
+                    SALDO.setVolatile(bloco, posicaoSaldo, Dinheiro.subtrair(saldo, valor));
+                }
+                case DEPOSITO -> {
+                    if (saldo > Long.MAX_VALUE - valor) {
+                        return ResultadoOperacao.VALOR_INVALIDO;
+                    }
+                    SALDO.setVolatile(bloco, posicaoSaldo, Dinheiro.somar(saldo, valor));
+                }
+                case TRANSFERENCIA -> throw new IllegalArgumentException("Utilize transferir para transferências.");
+                case RENDIMENTO, TARIFA -> throw new IllegalArgumentException(Conta.MENSAGEM_APURACAO);
+            }
+        }
+        return ResultadoOperacao.SUCESSO;
+    }
+
+    /**
+     * Transfere um valor entre duas contas do armazém, com as mesmas regras de Conta.aplicarTransferencia.
+     *
+     * @return O resultado da operação; os saldos só são alterados em caso de SUCESSO.
+     */
+    public ResultadoOperacao transferir(int origem, int destino, long valor) {
+        if (origem == destino) {
+            return ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+        }
+        if (valor <= 0) {
+            return ResultadoOperacao.VALOR_INVALIDO;
+        }
+        int travaOrigem = origem & (QUANTIDADE_TRAVAS - 1);
+        int travaDestino = destino & (QUANTIDADE_TRAVAS - 1);
+
+        synchronized (travas[Math.min(travaOrigem, travaDestino)]) {
+            synchronized (travas[Math.max(travaOrigem, travaDestino)]) {
+                ByteBuffer blocoOrigem = bloco(origem);
+                ByteBuffer blocoDestino = bloco(destino);
+                int saldoOrigem = posicao(origem) + DESLOCAMENTO_SALDO;
+                int saldoDestino = posicao(destino) + DESLOCAMENTO_SALDO;
+
+                long saldo = (long) SALDO.getVolatile(blocoOrigem, saldoOrigem);
+                long saldoRecebedor = (long) SALDO.getVolatile(blocoDestino, saldoDestino);
+                if (valor > saldo) {
+                    return ResultadoOperacao.SALDO_INSUFICIENTE;
+                }
+                if (saldoRecebedor > Long.MAX_VALUE - valor) {
+                    return ResultadoOperacao.VALOR_INVALIDO;
+                }
+                SALDO.setVolatile(blocoOrigem, saldoOrigem, Dinheiro.subtrair(saldo, valor));
+                SALDO.setVolatile(blocoDestino, saldoDestino, Dinheiro.somar(saldoRecebedor, valor));
+                return ResultadoOperacao.SUCESSO;
+            }
+        }
+    }
+
+    // Cria uma visão (flyweight) posicionada na conta informada; a visão pode ser reposicionada e reutilizada
+    public VisaoDeConta visao(int indice) {
+        return new VisaoDeConta(this).posicionar(indice);
+    }
+
+    // Memória ocupada fora do heap (registros e nomes), em bytes
+    public long getBytesForaDoHeap() {
+        long total = 0;
+        for (ByteBuffer bloco : blocos) {
+            total += bloco.capacity();
+        }
+        synchronized (this) {
+            for (ByteBuffer area : areasNomes) {
+                total += area.capacity();
+            }
+        }
+        return total;
+    }
+
+    // Memória ocupada no heap pelos índices, em bytes (aproximada)
+    public long getBytesDosIndices() {
+        long trava = indices.readLock();
+        try {
+            return porCpf.bytes() + porChave.bytes();
+        } finally {
+            indices.unlockRead(trava);
+        }
+    }
+
+    /**
+     * Compacta um CPF de 11 dígitos (com ou sem pontuação) em um long.
+     *
+     * @throws IllegalArgumentException Se o CPF não tiver exatamente 11 dígitos.
+     */
+    public static long compactarCpf(String cpf) {
+        long valor = 0;
+        int digitos = 0;
+        for (int i = 0; i < cpf.length(); i++) {
+            char c = cpf.charAt(i);
+            if (c >= '0' && c <= '9') {
+                valor = valor * 10 + (c - '0');
+                digitos++;
+            } else if (c != '.' && c != '-') {
+                digitos = -1;
+                break;
+            }
+        }
+        if (digitos != 11) {
+            throw new IllegalArgumentException("CPF inválido: informe os 11 dígitos.");
+        }
+        return valor;
+    }
+
+    // Busca nos índices com leitura otimista, sem travar enquanto nenhuma conta é criada
+    private int buscar(long chave, boolean cpf) {
+        long trava = indices.tryOptimisticRead();
+        int indice = (cpf ? porCpf : porChave).buscar(chave);
+        if (!indices.validate(trava)) {
+            trava = indices.readLock();
+            try {
+                indice = (cpf ? porCpf : porChave).buscar(chave);
+            } finally {
+                indices.unlockRead(trava);
+            }
+        }
+        return indice;
+    }
+
+    // Guarda o nome na área de nomes (tamanho e bytes UTF-8) e retorna a referência; chamado sob o lock de escrita
+    private long guardarNome(byte[] bytesNome) {
+        int necessario = 2 + bytesNome.length;
+        long inicioArea = fimNomes & ~((long) TAMANHO_AREA_NOMES - 1);
+        if (areasNomes.length == 0 || fimNomes + necessario > inicioArea + TAMANHO_AREA_NOMES) {
+            synchronized (this) {
+                areasNomes = Arrays.copyOf(areasNomes, areasNomes.length + 1);
+                areasNomes[areasNomes.length - 1] = ByteBuffer.allocateDirect(TAMANHO_AREA_NOMES);
+            }
+            fimNomes = (long) (areasNomes.length - 1) << BITS_AREA_NOMES;
+        }
+        long referencia = fimNomes;
+        ByteBuffer area = areaNomes(referencia);
+        int inicio = (int) (referencia & (TAMANHO_AREA_NOMES - 1));
+        area.putShort(inicio, (short) bytesNome.length);
+        area.put(inicio + 2, bytesNome);
+        fimNomes += necessario;
+        return referencia;
+    }
+
+    private synchronized ByteBuffer areaNomes(long referencia) {
+        return areasNomes[(int) (referencia >>> BITS_AREA_NOMES)];
+    }
+
+    private ByteBuffer bloco(int indice) {
+        if (indice < 0 || indice >= quantidade) {
+            throw new IndexOutOfBoundsException("Conta inexistente no armazém: " + indice);
+        }
+        return blocos[indice >>> BITS_BLOCO];
+    }
+
+    private static int posicao(int indice) {
+        return (indice & (CONTAS_POR_BLOCO - 1)) * TAMANHO_REGISTRO;
+    }
+
+    private static long chave(int agencia, int numero) {
+        return ((long) agencia << 32) | (numero & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Tabela de hash de long para índice de conta, com endereçamento aberto e sondagem linear.
+     *
+     * Apenas inserções; a tabela é substituída por uma maior ao passar de 3/4 de ocupação.
+     */
+    private static final class TabelaDeIndices {
+        private final long[] chaves;
+        private final int[] indices;   // NAO_ENCONTRADA nas posições livres
+        private final int mascara;
+        private int ocupadas;
+
+        TabelaDeIndices(int capacidade) {
+            chaves = new long[capacidade];
+            indices = new int[capacidade];
+            Arrays.fill(indices, NAO_ENCONTRADA);
+            mascara = capacidade - 1;
+        }
+
+        int buscar(long chave) {
+            int posicao = espalhar(chave) & mascara;
+            while (true) {
+                int indice = indices[posicao];
+                if (indice == NAO_ENCONTRADA || chaves[posicao] == chave) {
+                    return indice;
+                }
+                posicao = (posicao + 1) & mascara;
+            }
+        }
+
+        // Insere a chave e retorna a tabela a ser utilizada a partir daqui (esta ou uma maior)
+        TabelaDeIndices inserir(long chave, int indice) {
+            TabelaDeIndices tabela = this;
+            if ((ocupadas + 1) * 4L > chaves.length * 3L) {
+                tabela = new TabelaDeIndices(chaves.length * 2);
+                for (int i = 0; i < chaves.length; i++) {
+                    if (indices[i] != NAO_ENCONTRADA) {
+                        tabela.colocar(chaves[i], indices[i]);
+                    }
+                }
+            }
+            tabela.colocar(chave, indice);
+            return tabela;
+        }
+
+        long bytes() {
+            return chaves.length * 12L;
+        }
+
+        private void colocar(long chave, int indice) {
+            int posicao = espalhar(chave) & mascara;
+            while (indices[posicao] != NAO_ENCONTRADA) {
+                posicao = (posicao + 1) & mascara;
+            }
+            chaves[posicao] = chave;
+            indices[posicao] = indice;
+            ocupadas++;
+        }
+
+        private static int espalhar(long chave) {
+            return (int) ((chave * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+}
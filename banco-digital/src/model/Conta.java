@@ -1,37 +1,68 @@
 package model;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.List;
 
+import exception.LimiteExcedidoException;
 import exception.SaldoInsuficienteException;
 import exception.ValorInvalidoException;
 import service.Banco;
+import service.CacheDeIdempotencia;
 import service.IConta;
-import util.ValidadorDeValor;
+import service.LimitesDeOperacao;
+import service.Metricas;
+import service.MotorSequencial;
+import util.Dinheiro;
 
 public abstract class Conta implements IConta {
-    private static int AGENCIA_PADRAO = 1;
-    private static int SEQUENCIAL = 1;
-    private List<String> transacoes = new ArrayList<>();
+    public static final int AGENCIA_PADRAO = 1;
+    public static final long JA_APURADA = Long.MIN_VALUE;  // Retorno de apurar para um período já apurado
+    static final String MENSAGEM_APURACAO = "Rendimentos e tarifas são lançados apenas pela apuração mensal.";
+    private static final AlocadorDeNumeros NUMERACAO = new AlocadorDeNumeros(); // Números de conta, por agência
+    private HistoricoTransacoes transacoes = new HistoricoTransacoes();
     
     protected int agencia;
     protected int numero;
-    protected double saldo;
+    protected volatile long saldo;     // Saldo em centavos; escrito apenas sob o lock da conta, volatile para leituras sem lock
     protected Cliente cliente;
     protected TipoConta tipoConta;
-
-    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    private long ultimoLsn;            // LSN do diário da última operação aplicada; protegido pelo lock da conta
+    private int ultimoPeriodoApurado;  // Último período da apuração mensal aplicado (ver service.ApuracaoMensal); protegido pelo lock da conta
+    private long saldoNoCorte;         // Saldo anterior à primeira alteração na época epocaDoCorte (ver CorteDeSaldos); escrito antes dela
+    private volatile long epocaDoCorte;
 
     // Construtor da classe Conta, utilizado para criar uma nova conta bancária associada a um cliente e a um tipo de conta.
     public Conta(Cliente cliente, TipoConta tipoConta) {
-        this.agencia = AGENCIA_PADRAO;
-        this.numero = SEQUENCIAL++;
+        this(cliente, tipoConta, AGENCIA_PADRAO);
+    }
+
+    // Cria uma nova conta na agência informada, com o próximo número disponível da agência.
+    public Conta(Cliente cliente, TipoConta tipoConta, int agencia) {
+        this.agencia = agencia;
+        this.numero = NUMERACAO.alocar(agencia);
         this.cliente = cliente;
         this.tipoConta = tipoConta;
     }
 
+    // Construtor utilizado na recuperação de contas já existentes, preservando agência e número.
+    protected Conta(Cliente cliente, TipoConta tipoConta, int agencia, int numero) {
+        this(cliente, tipoConta, agencia, numero, true);
+    }
+
+    // Cria uma conta com agência e número já definidos. Apenas um número recuperado é reservado na numeração
+    // global da agência; um número alocado por uma partição (ver service.Particao) não passa por ela.
+    protected Conta(Cliente cliente, TipoConta tipoConta, int agencia, int numero, boolean recuperada) {
+        this.agencia = agencia;
+        this.numero = numero;
+        this.cliente = cliente;
+        this.tipoConta = tipoConta;
+        if (recuperada) {
+            NUMERACAO.reservarAte(agencia, numero); // Novas contas nunca reutilizam um número recuperado
+        }
+    }
+
     public int getAgencia() {
         return agencia;
     }
@@ -40,10 +71,22 @@ public abstract class Conta implements IConta {
         return numero;
     }
 
-    public double getSaldo() {
+    // Retorna a chave única da conta (agência e número), usada nos índices do Banco
+    public long getChave() {
+        return Banco.chaveConta(agencia, numero);
+    }
+
+    // Retorna o saldo em centavos, sem lock: sempre um saldo confirmado, nunca o de uma operação em andamento ou desfeita
+    public long getSaldo() {
         return saldo;
     }
 
+    // Retorna o saldo em centavos no corte da época informada, sem lock (ver CorteDeSaldos.abrir)
+    public long getSaldoNoCorte(long epoca) {
+        long atual = saldo;
+        return epocaDoCorte >= epoca ? saldoNoCorte : atual;
+    }
+
     public Cliente getCliente() {
         return cliente;
     }
@@ -52,10 +95,139 @@ public abstract class Conta implements IConta {
         return tipoConta;
     }
 
-    public List<String> getTransacoes() {
+    // Retorna as mensagens do histórico, montadas sob demanda a partir dos registros da conta
+    public synchronized List<String> getTransacoes() {
+        return transacoes.renderizar();
+    }
+
+    /**
+     * Consulta uma página do extrato da conta dentro de um período.
+     *
+     * @param inicio Início do período (epoch em milissegundos, inclusivo).
+     * @param fim Fim do período (epoch em milissegundos, exclusivo).
+     * @param tipoServico Tipo de serviço a ser incluído, ou nulo para todos.
+     * @param cursor O cursor retornado pela página anterior, ou 0 para a primeira página.
+     * @param tamanhoPagina Número máximo de transações na página.
+     * @throws IllegalArgumentException Se o cursor for negativo ou o tamanho da página não for positivo.
+     */
+    public synchronized PaginaExtrato consultarExtrato(long inicio, long fim, TipoServico tipoServico, int cursor, int tamanhoPagina) {
+        PaginaExtrato.validar(cursor, tamanhoPagina);
+        return transacoes.consultar(inicio, fim, tipoServico, cursor, tamanhoPagina);
+    }
+
+    /**
+     * Escreve uma página do extrato da conta diretamente na saída, sem montar Strings por transação (ver
+     * RenderizadorDeExtrato.escrever). As colunas do histórico são capturadas sob o lock da conta e as
+     * linhas, escritas depois que ele é liberado.
+     *
+     * @return O cursor da próxima página, ou PaginaExtrato.SEM_PROXIMA_PAGINA.
+     * @throws IllegalArgumentException Se o cursor for negativo ou o tamanho da página não for positivo.
+     */
+    public int escreverExtrato(long inicio, long fim, TipoServico tipoServico, int cursor, int tamanhoPagina,
+                               RenderizadorDeExtrato renderizador, String marcador, Writer saida) throws IOException {
+        PaginaExtrato.validar(cursor, tamanhoPagina);
+        HistoricoTransacoes.Colunas colunas;
+        synchronized (this) {
+            colunas = transacoes.capturarColunas();
+        }
+        return renderizador.escrever(colunas, inicio, fim, tipoServico, cursor, tamanhoPagina, marcador, saida);
+    }
+
+    // Retorna o histórico estruturado; o acesso deve ser feito sob o lock da conta
+    public HistoricoTransacoes getHistorico() {
         return transacoes;
     }
 
+    // Retorna o LSN do diário da última operação aplicada; o acesso deve ser feito sob o lock da conta
+    public long getUltimoLsn() {
+        return ultimoLsn;
+    }
+
+    // Define o LSN do diário da última operação aplicada; deve ser chamado sob o lock da conta
+    public void setUltimoLsn(long ultimoLsn) {
+        this.ultimoLsn = ultimoLsn;
+    }
+
+    // Retorna o último período da apuração mensal aplicado à conta (0 se nenhum); deve ser chamado sob o lock da conta
+    public int getUltimoPeriodoApurado() {
+        return ultimoPeriodoApurado;
+    }
+
+    // Restaura saldo e LSN de uma conta lida de um snapshot. Uso exclusivo da recuperação.
+    public synchronized void restaurar(long saldo, long ultimoLsn) {
+        restaurar(saldo, ultimoLsn, 0);
+    }
+
+    // Restaura saldo, LSN e último período apurado de uma conta lida de um snapshot. Uso exclusivo da recuperação.
+    public synchronized void restaurar(long saldo, long ultimoLsn, int ultimoPeriodoApurado) {
+        definirSaldo(saldo);
+        this.ultimoLsn = ultimoLsn;
+        this.ultimoPeriodoApurado = ultimoPeriodoApurado;
+    }
+
+    /**
+     * Reaplica uma movimentação lida do diário de operações, sem validações e sem novo registro no diário.
+     *
+     * Movimentações com LSN menor ou igual ao da última operação aplicada à conta já estão refletidas
+     * no saldo (por exemplo, porque foram copiadas no snapshot) e são ignoradas.
+     *
+     * @param valor O valor da movimentação em centavos, negativo para débitos.
+     * @param contraparte A chave da conta contraparte, ou HistoricoTransacoes.SEM_CONTRAPARTE.
+     */
+    public synchronized void reaplicar(long lsn, long instante, TipoServico tipoServico, long valor, long contraparte) {
+        if (lsn <= ultimoLsn) {
+            return;
+        }
+        definirSaldo(Dinheiro.somar(saldo, valor));
+        transacoes.registrar(instante, tipoServico, valor, saldo, contraparte);
+        ultimoLsn = lsn;
+    }
+
+    // Reaplica um lançamento da apuração mensal lido do diário (ver reaplicar), marcando o período como apurado
+    public synchronized void reaplicarApuracao(long lsn, long instante, TipoServico tipoServico, long valor, int periodo) {
+        reaplicar(lsn, instante, tipoServico, valor, HistoricoTransacoes.SEM_CONTRAPARTE);
+        ultimoPeriodoApurado = Math.max(ultimoPeriodoApurado, periodo);
+    }
+
+    /**
+     * Aplica o lançamento mensal da conta (rendimento ou tarifa) de um período, no máximo uma vez por período.
+     *
+     * O valor é calculado pela subclasse sobre o saldo do momento, sob o lock da conta, e registrado no
+     * histórico e no diário (que guarda o período). Períodos iguais ou anteriores ao último apurado são
+     * ignorados. A gravação no diário não é aguardada; cabe ao chamador aguardar a do lote.
+     *
+     * @param periodo O período, codificado por ApuracaoMensal.codificar.
+     * @return O valor lançado em centavos (positivo para créditos, negativo para débitos, 0 sem lançamento),
+     *         ou JA_APURADA se o período já tinha sido apurado.
+     */
+    public synchronized long apurar(int periodo, TabelaDeEncargos tabela) {
+        if (periodo <= ultimoPeriodoApurado) {
+            return JA_APURADA;
+        }
+        ultimoPeriodoApurado = periodo;
+
+        long valor = calcularLancamentoMensal(saldo, tabela);
+        if (valor == 0) {
+            return 0;
+        }
+        long instante = System.currentTimeMillis();
+        TipoServico tipoServico = getTipoLancamentoMensal();
+        definirSaldo(Dinheiro.somar(saldo, valor));
+        registrarNoHistorico(instante, tipoServico, valor, HistoricoTransacoes.SEM_CONTRAPARTE);
+        ultimoLsn = Banco.registrarApuracao(instante, tipoServico, getChave(), periodo, Math.abs(valor));
+        return valor;
+    }
+
+    /**
+     * Valor do lançamento mensal da conta sobre o saldo informado (ver apurar).
+     *
+     * @return O valor em centavos: positivo para créditos, negativo para débitos (nunca maior que o saldo) e 0 sem lançamento.
+     */
+    protected abstract long calcularLancamentoMensal(long saldo, TabelaDeEncargos tabela);
+
+    // Tipo de serviço registrado no histórico para o lançamento mensal (RENDIMENTO ou TARIFA)
+    protected abstract TipoServico getTipoLancamentoMensal();
+
     /**
      * Executa um serviço bancário baseado no tipo de operação solicitado (saque, depósito ou transferência).
      * 
@@ -64,141 +236,558 @@ public abstract class Conta implements IConta {
      * exceto no caso de transferências, que são tratadas de maneira específica.
      * 
      * @param tipoServico O tipo de serviço bancário a ser executado (SAQUE, DEPOSITO, TRANSFERENCIA).
-     * @param valor O valor a ser utilizado na operação (positivo).
+     * @param valor O valor a ser utilizado na operação, em centavos (positivo).
      * @param cpfDestinatario O CPF do destinatário, utilizado no caso de uma transferência (caso contrário, nulo).
      * @throws ValorInvalidoException Se o valor informado for negativo ou zero.
      * @throws SaldoInsuficienteException Se o saldo for insuficiente para realizar a operação.
      */
-    public void executarServico(TipoServico tipoServico, double valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException {
+    public void executarServico(TipoServico tipoServico, long valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException {
+
+        // Executa a operação pelo caminho sem exceções e converte uma eventual recusa na exceção correspondente.
+        lancarSeRecusada(tentarExecutarServico(tipoServico, valor, cpfDestinatario));
+    }
+
+    // Como executarServico, com uma chave de idempotência (ver tentarExecutarServico): uma repetição lança a mesma exceção da original
+    public void executarServico(TipoServico tipoServico, long valor, String cpfDestinatario, String chaveIdempotencia)
+            throws ValorInvalidoException, SaldoInsuficienteException {
+        lancarSeRecusada(tentarExecutarServico(tipoServico, valor, cpfDestinatario, chaveIdempotencia));
+    }
+
+    /**
+     * Executa um serviço bancário sem lançar exceções, retornando o resultado da operação.
+     *
+     * Equivalente a {@link #executarServico(TipoServico, long, String)}, mas recusas comuns do negócio
+     * (saldo insuficiente, valor inválido, CPF inexistente) são informadas pelo retorno em vez de
+     * exceções, o que evita o custo de criá-las quando as recusas são frequentes.
+     *
+     * @param tipoServico O tipo de serviço bancário a ser executado (SAQUE, DEPOSITO, TRANSFERENCIA).
+     * @param valor O valor a ser utilizado na operação, em centavos (positivo).
+     * @param cpfDestinatario O CPF do destinatário, utilizado no caso de uma transferência (caso contrário, nulo).
+     * @return O resultado da operação; o saldo só é alterado em caso de SUCESSO.
+     */
+    public ResultadoOperacao tentarExecutarServico(TipoServico tipoServico, long valor, String cpfDestinatario) {
+        return executar(tipoServico, valor, cpfDestinatario, null);
+    }
+
+    /**
+     * Executa um serviço bancário sem lançar exceções, no máximo uma vez por chave de idempotência.
+     *
+     * Um cliente que repete a operação (por exemplo, após um timeout) com a mesma chave recebe o
+     * resultado da primeira execução, sem que o saldo seja alterado de novo; uma repetição concorrente
+     * aguarda a primeira terminar. As chaves são lembradas por conta, pelo tempo e até a quantidade
+     * definidos no cache do Banco (ver CacheDeIdempotencia), e com a persistência ativa são gravadas
+     * no diário junto com a operação, sobrevivendo a reinícios.
+     *
+     * @param chaveIdempotencia Chave escolhida pelo cliente para a operação; nula para não usar idempotência.
+     * @return O resultado da operação, ou o da primeira execução com a mesma chave.
+     */
+    public ResultadoOperacao tentarExecutarServico(TipoServico tipoServico, long valor, String cpfDestinatario, String chaveIdempotencia) {
+        if (chaveIdempotencia == null) {
+            return executar(tipoServico, valor, cpfDestinatario, null);
+        }
+
+        CacheDeIdempotencia cache = Banco.getIdempotencia();
+        ResultadoOperacao original = cache.reservar(getChave(), chaveIdempotencia);
+        if (original != null) {
+            return original;
+        }
+
+        // Se a operação falhar sem resultado (erro de gravação, por exemplo), a chave é liberada para uma nova tentativa
+        ResultadoOperacao resultado = null;
+        try {
+            resultado = executar(tipoServico, valor, cpfDestinatario, chaveIdempotencia);
+        } finally {
+            if (resultado != null) {
+                cache.concluir(getChave(), chaveIdempotencia, resultado);
+            } else {
+                cache.cancelar(getChave(), chaveIdempotencia);
+            }
+        }
+        return resultado;
+    }
+
+    // Executa o serviço e aguarda a gravação no diário, registrando a chave de idempotência (opcional) junto com a operação
+    private ResultadoOperacao executar(TipoServico tipoServico, long valor, String cpfDestinatario, String chaveIdempotencia) {
+        long inicio = Metricas.iniciar();
+        ResultadoOperacao resultado = executarNosLimites(tipoServico, valor, cpfDestinatario, chaveIdempotencia);
+        Metricas.registrarServico(tipoServico, resultado, inicio);
+        return resultado;
+    }
+
+    // Como executar, sem as métricas. Com os limites ativos, saques e transferências reservam a sua parte nas janelas
+    // antes de serem executados, e uma operação recusada por outro motivo não consome os limites
+    private ResultadoOperacao executarNosLimites(TipoServico tipoServico, long valor, String cpfDestinatario, String chaveIdempotencia) {
+        ResultadoOperacao resultado;
+        LimitesDeOperacao limites = Banco.getLimites();
+        long instante = 0;
+        long destino = LimitesDeOperacao.SEM_DESTINO;
+        if (limites != null && LimitesDeOperacao.isLimitada(tipoServico, valor)) {
+            instante = System.currentTimeMillis();
+            destino = chaveDoDestino(tipoServico, cpfDestinatario);
+            if (!limites.reservarSeLimitada(tipoServico, getChave(), destino, valor, instante)) {
+                resultado = ResultadoOperacao.LIMITE_EXCEDIDO;
+                if (chaveIdempotencia != null) {
+                    Banco.registrarResultado(tipoServico, getChave(), chaveIdempotencia, resultado);
+                    Banco.aguardarPersistenciaPendente(this);
+                }
+                return resultado;
+            }
+        } else {
+            limites = null;
+        }
+
+        // Com o motor sequencial ativo, o comando é executado pela thread de negócio dele, sem locks
+        MotorSequencial motor = Banco.getMotor();
+        if (motor != null) {
+            resultado = motor.executar(this, tipoServico, valor, cpfDestinatario);
+        } else {
+            resultado = switch (tipoServico) {
+                case SAQUE, DEPOSITO -> aplicarMovimentacao(tipoServico, valor, chaveIdempotencia);
+                case TRANSFERENCIA -> tentarTransferir(valor, cpfDestinatario, chaveIdempotencia);
+                case RENDIMENTO, TARIFA -> throw new IllegalArgumentException(MENSAGEM_APURACAO);
+            };
+
+            // Uma recusa com chave também é gravada, para que a repetição receba a mesma recusa após um reinício
+            if (!resultado.isSucesso() && chaveIdempotencia != null) {
+                Banco.registrarResultado(tipoServico, getChave(), chaveIdempotencia, resultado);
+            }
+
+            // Aguarda a gravação no diário fora do lock, permitindo que outras operações entrem no mesmo lote.
+            if (resultado.isSucesso() || chaveIdempotencia != null) {
+                Banco.aguardarPersistenciaPendente(this);
+            }
+        }
+
+        if (limites != null) {
+            limites.estornarSeRecusada(tipoServico, getChave(), destino, valor, instante, resultado);
+        }
+        return resultado;
+    }
+
+    // Chave da conta de destino de uma transferência, contabilizada nos limites por destinatário
+    private static long chaveDoDestino(TipoServico tipoServico, String cpfDestinatario) {
+        if (tipoServico != TipoServico.TRANSFERENCIA || cpfDestinatario == null) {
+            return LimitesDeOperacao.SEM_DESTINO;
+        }
+        Conta destinatario = Banco.buscarCpf(cpfDestinatario);
+        return destinatario != null ? destinatario.getChave() : LimitesDeOperacao.SEM_DESTINO;
+    }
+
+    // Localiza o destinatário e realiza a transferência sem lançar exceções. Apenas a gravação no diário da partição
+    // do destinatário é aguardada aqui; a da conta de origem fica a cargo do chamador.
+    private ResultadoOperacao tentarTransferir(long valor, String cpfDestinatario, String chaveIdempotencia) {
+        // Verifica se o CPF do destinatário é o mesmo do cliente que está fazendo a transferência
+        if (cliente.getCpf().equals(cpfDestinatario)) {
+            return ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+        }
+
+        // Busca a conta do destinatário através do CPF
+        Conta destinatario = Banco.buscarCpf(cpfDestinatario);
+        if (destinatario == null) {
+            return ResultadoOperacao.CONTA_INEXISTENTE;
+        }
+
+        ResultadoOperacao resultado = aplicarTransferencia(valor, destinatario, chaveIdempotencia);
+        if (resultado.isSucesso()) {
+            Banco.aguardarPersistenciaPendente(destinatario);
+        }
+        return resultado;
+    }
 
-        // Verifica o tipo de serviço a ser executado e executa a ação correspondente.
+    // Converte o resultado de uma operação recusada na exceção correspondente
+    static void lancarSeRecusada(ResultadoOperacao resultado) throws ValorInvalidoException, SaldoInsuficienteException {
+        switch (resultado) {
+            case SUCESSO -> { }
+            case VALOR_INVALIDO -> throw new ValorInvalidoException(resultado.getDescricao());
+            case SALDO_INSUFICIENTE -> throw new SaldoInsuficienteException(resultado.getDescricao());
+            case CONTA_INEXISTENTE, TRANSFERENCIA_PARA_PROPRIA_CONTA -> throw new IllegalArgumentException(resultado.getDescricao());
+            case LIMITE_EXCEDIDO -> throw new LimiteExcedidoException(resultado.getDescricao());
+        }
+    }
+
+    /**
+     * Aplica um saque ou depósito sem lançar exceções, retornando o resultado da operação.
+     *
+     * Utilizado no processamento em lote: o chamador pode manter o lock da conta durante várias
+     * chamadas seguidas, aplicando um grupo de operações com uma única aquisição de lock.
+     * A gravação no diário não é aguardada; cabe ao chamador aguardar a persistência do lote.
+     *
+     * @param tipoServico SAQUE ou DEPOSITO.
+     * @param valor O valor em centavos.
+     * @return O resultado da operação; o saldo só é alterado em caso de SUCESSO.
+     */
+    public ResultadoOperacao aplicarMovimentacao(TipoServico tipoServico, long valor) {
+        return aplicarMovimentacao(tipoServico, valor, null);
+    }
+
+    private synchronized ResultadoOperacao aplicarMovimentacao(TipoServico tipoServico, long valor, String chaveIdempotencia) {
+        if (valor <= 0) {
+            return ResultadoOperacao.VALOR_INVALIDO;
+        }
+
+        switch (tipoServico) {
+            case SAQUE -> {
+                if (valor > saldo) {
+                    return ResultadoOperacao.SALDO_INSUFICIENTE;
+                }
+                definirSaldo(Dinheiro.subtrair(saldo, valor));
+            }
+            case DEPOSITO -> {
+                // Recusa depósitos que estourariam o saldo
+                if (saldo > Long.MAX_VALUE - valor) {
+                    return ResultadoOperacao.VALOR_INVALIDO;
+                }
+                definirSaldo(Dinheiro.somar(saldo, valor));
+            }
+            case TRANSFERENCIA -> throw new IllegalArgumentException("Utilize aplicarTransferencia para transferências.");
+            case RENDIMENTO, TARIFA -> throw new IllegalArgumentException(MENSAGEM_APURACAO);
+        }
+
+        notificarTransacao(tipoServico, valor, null, null, chaveIdempotencia);
+        return ResultadoOperacao.SUCESSO;
+    }
+
+    /**
+     * Aplica uma transferência para a conta informada sem lançar exceções, retornando o resultado da operação.
+     *
+     * As duas contas são travadas na ordem global de locks. A gravação no diário não é aguardada.
+     *
+     * @param valor O valor em centavos.
+     * @param destinatario A conta de destino, já localizada pelo chamador.
+     */
+    public ResultadoOperacao aplicarTransferencia(long valor, Conta destinatario) {
+        return aplicarTransferencia(valor, destinatario, null);
+    }
+
+    private ResultadoOperacao aplicarTransferencia(long valor, Conta destinatario, String chaveIdempotencia) {
+        if (destinatario == this) {
+            return ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+        }
+        if (valor <= 0) {
+            return ResultadoOperacao.VALOR_INVALIDO;
+        }
+
+        Conta primeira = ordemDeLock(this) < ordemDeLock(destinatario) ? this : destinatario;
+        Conta segunda = primeira == this ? destinatario : this;
+
+        synchronized (primeira) {
+            synchronized (segunda) {
+                if (valor > saldo) {
+                    return ResultadoOperacao.SALDO_INSUFICIENTE;
+                }
+                if (destinatario.saldo > Long.MAX_VALUE - valor) {
+                    return ResultadoOperacao.VALOR_INVALIDO;
+                }
+                transferirSaldo(valor, destinatario);
+                notificarTransacao(TipoServico.TRANSFERENCIA, valor, this, destinatario, chaveIdempotencia);
+                return ResultadoOperacao.SUCESSO;
+            }
+        }
+    }
+
+    /**
+     * Aplica uma transação com várias pernas (transferências) de forma atômica: todas as pernas são
+     * aplicadas, ou nenhuma.
+     *
+     * Todas as contas envolvidas são travadas na ordem global de locks, sem nenhum lock global. As
+     * pernas são aplicadas a uma cópia dos saldos na ordem recebida, com as mesmas validações de
+     * aplicarTransferencia; se uma delas for recusada, nenhum saldo é alterado e nada é registrado. Confirmada a transação, cada perna é registrada no histórico das duas contas
+     * (com o saldo após a perna) e a transação é registrada no diário (ver Banco.registrarTransacao). A
+     * gravação no diário não é aguardada.
+     *
+     * @param origens A conta debitada em cada perna.
+     * @param destinos A conta creditada em cada perna.
+     * @param valores O valor de cada perna em centavos.
+     * @return SUCESSO, ou o resultado da primeira perna recusada.
+     */
+    public static ResultadoOperacao aplicarTransacao(Conta[] origens, Conta[] destinos, long[] valores) {
+        for (int i = 0; i < valores.length; i++) {
+            if (origens[i] == destinos[i]) {
+                return ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+            }
+            if (valores[i] <= 0) {
+                return ResultadoOperacao.VALOR_INVALIDO;
+            }
+        }
+
+        // Contas distintas da transação, na ordem global de locks
+        Conta[] contas = new Conta[origens.length * 2];
+        System.arraycopy(origens, 0, contas, 0, origens.length);
+        System.arraycopy(destinos, 0, contas, origens.length, destinos.length);
+        Arrays.sort(contas, (a, b) -> Long.compare(ordemDeLock(a), ordemDeLock(b)));
+        int distintas = 0;
+        for (Conta conta : contas) {
+            if (distintas == 0 || contas[distintas - 1] != conta) {
+                contas[distintas++] = conta;
+            }
+        }
+        return travarEAplicar(Arrays.copyOf(contas, distintas), 0, origens, destinos, valores);
+    }
+
+    // Trava as contas a partir da posição informada, uma dentro da outra, e aplica a transação com todas travadas
+    private static ResultadoOperacao travarEAplicar(Conta[] contas, int posicao, Conta[] origens, Conta[] destinos, long[] valores) {
+        if (posicao < contas.length) {
+            synchronized (contas[posicao]) {
+                return travarEAplicar(contas, posicao + 1, origens, destinos, valores);
+            }
+        }
+
+        // As pernas são aplicadas a uma cópia dos saldos, escrita nas contas só se todas forem aceitas:
+        // leituras sem lock nunca veem o saldo de uma transação incompleta ou recusada
+        long[] saldosIniciais = new long[contas.length];
+        for (int i = 0; i < contas.length; i++) {
+            saldosIniciais[i] = contas[i].saldo;
+        }
+        long[] saldosFinais = saldosIniciais.clone();
+        for (int i = 0; i < valores.length; i++) {
+            int origem = indiceNaTransacao(contas, origens[i]);
+            int destino = indiceNaTransacao(contas, destinos[i]);
+            if (valores[i] > saldosFinais[origem]) {
+                return ResultadoOperacao.SALDO_INSUFICIENTE;
+            }
+            if (saldosFinais[destino] > Long.MAX_VALUE - valores[i]) {
+                return ResultadoOperacao.VALOR_INVALIDO;
+            }
+            saldosFinais[origem] -= valores[i];
+            saldosFinais[destino] += valores[i];
+        }
+        long epoca = CorteDeSaldos.entrar();
+        for (int i = 0; i < contas.length; i++) {
+            contas[i].preservarParaOCorte(epoca);
+            contas[i].saldo = saldosFinais[i];
+        }
+        CorteDeSaldos.sair(epoca);
+
+        // Registra cada perna com o saldo da conta logo após ela, refazendo os saldos a partir dos iniciais
+        long instante = System.currentTimeMillis();
+        long[] saldos = saldosIniciais.clone();
+        for (int i = 0; i < valores.length; i++) {
+            int origem = indiceNaTransacao(contas, origens[i]);
+            int destino = indiceNaTransacao(contas, destinos[i]);
+            saldos[origem] -= valores[i];
+            saldos[destino] += valores[i];
+            origens[i].registrarNoHistorico(instante, TipoServico.TRANSFERENCIA, -valores[i], saldos[origem], destinos[i].getChave());
+            destinos[i].registrarNoHistorico(instante, TipoServico.TRANSFERENCIA, valores[i], saldos[destino], origens[i].getChave());
+        }
+        Banco.registrarTransacao(instante, contas, origens, destinos, valores);
+        return ResultadoOperacao.SUCESSO;
+    }
+
+    // Posição da conta entre as contas distintas da transação, ordenadas pela ordem de lock
+    private static int indiceNaTransacao(Conta[] contas, Conta conta) {
+        int inicio = 0;
+        int fim = contas.length - 1;
+        long ordem = ordemDeLock(conta);
+        while (inicio < fim) {
+            int meio = (inicio + fim) >>> 1;
+            if (ordemDeLock(contas[meio]) < ordem) {
+                inicio = meio + 1;
+            } else {
+                fim = meio;
+            }
+        }
+        return inicio;
+    }
+
+    /**
+     * Reaplica, com um único LSN, as pernas de uma transação lidas do diário que movimentam esta conta
+     * (ver reaplicar). As pernas são ignoradas se a transação já estiver refletida no saldo.
+     *
+     * @param valores O valor de cada perna em centavos, negativo para débitos.
+     * @param contrapartes A chave da outra conta de cada perna.
+     */
+    public synchronized void reaplicarTransacao(long lsn, long instante, long[] valores, long[] contrapartes, int quantidade) {
+        if (lsn <= ultimoLsn) {
+            return;
+        }
+        long saldoApos = saldo;
+        for (int i = 0; i < quantidade; i++) {
+            saldoApos = Dinheiro.somar(saldoApos, valores[i]);
+            transacoes.registrar(instante, TipoServico.TRANSFERENCIA, valores[i], saldoApos, contrapartes[i]);
+        }
+        definirSaldo(saldoApos);
+        ultimoLsn = lsn;
+    }
+
+    /**
+     * Aplica um comando do motor sequencial (ver service.MotorSequencial) sem locks, retornando o resultado.
+     *
+     * Só pode ser chamado pela thread de negócio do motor, que é a única a alterar saldos enquanto ele
+     * está ativo. As validações são as mesmas de aplicarMovimentacao e aplicarTransferencia, mas nada é
+     * registrado no histórico nem no diário: o histórico é registrado depois, fora do caminho crítico,
+     * por {@link #registrarDoMotor}.
+     *
+     * @param destinatario A conta de destino das transferências; nula nos demais serviços.
+     */
+    public ResultadoOperacao aplicarSemLock(TipoServico tipoServico, long valor, Conta destinatario) {
+        if (valor <= 0) {
+            return ResultadoOperacao.VALOR_INVALIDO;
+        }
         switch (tipoServico) {
             case SAQUE -> {
-                sacar(valor);
-                // Notifica a transação do tipo "SAQUE", sem especificar destinatário.
-                notificarTransacao(TipoServico.SAQUE, valor, null, null);
+                if (valor > saldo) {
+                    return ResultadoOperacao.SALDO_INSUFICIENTE;
+                }
+                definirSaldo(Dinheiro.subtrair(saldo, valor));
             }
             case DEPOSITO -> {
-                depositar(valor);
-                // Notifica a transação do tipo "DEPOSITO", sem especificar destinatário.
-                notificarTransacao(TipoServico.DEPOSITO, valor, null, null);
+                if (saldo > Long.MAX_VALUE - valor) {
+                    return ResultadoOperacao.VALOR_INVALIDO;
+                }
+                definirSaldo(Dinheiro.somar(saldo, valor));
             }
             case TRANSFERENCIA -> {
-                transferir(valor, cpfDestinatario);
+                if (destinatario == this) {
+                    return ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+                }
+                if (valor > saldo) {
+                    return ResultadoOperacao.SALDO_INSUFICIENTE;
+                }
+                if (destinatario.saldo > Long.MAX_VALUE - valor) {
+                    return ResultadoOperacao.VALOR_INVALIDO;
+                }
+                transferirSaldo(valor, destinatario);
             }
-            // Caso o tipo de serviço não seja reconhecido, retorna sem fazer nada.
-            default -> { return; }
         }
+        return ResultadoOperacao.SUCESSO;
+    }
+
+    // Registra no histórico (e na fila de notificações) uma operação já aplicada pelo motor sequencial
+    public synchronized void registrarDoMotor(long instante, TipoServico tipoServico, long valorAssinado, long saldoApos, long contraparte) {
+        transacoes.registrar(instante, tipoServico, valorAssinado, saldoApos, contraparte);
+        Banco.publicarNotificacao(getChave(), instante, tipoServico, valorAssinado, saldoApos, contraparte);
     }
 
     // Método responsável por notificar a transação de um determinado serviço bancário (saque, depósito ou transferência).
-    public void notificarTransacao(TipoServico tipoServico, double valor, Conta remetente, Conta destinatario) {
-        // Formatação da data e hora atual para incluir na mensagem de transação
-        String mensagem = "[" + LocalDateTime.now().format(dateFormatter) + "] ";
-        
+    // Apenas os dados da operação são registrados; a mensagem é montada quando o extrato é consultado.
+    // Quando a persistência está ativa, a operação também é registrada no diário (uma única vez por operação; entre partições,
+    // uma metade no diário de cada uma).
+    // O envio ao cliente é feito de forma assíncrona pela fila de notificações do Banco, quando ativada.
+    public void notificarTransacao(TipoServico tipoServico, long valor, Conta remetente, Conta destinatario) {
+        notificarTransacao(tipoServico, valor, remetente, destinatario, null);
+    }
+
+    // Como notificarTransacao, gravando no diário a chave de idempotência da operação (opcional) junto com ela
+    private void notificarTransacao(TipoServico tipoServico, long valor, Conta remetente, Conta destinatario, String chaveIdempotencia) {
+        long instante = System.currentTimeMillis();
+
         // Trata diferentes tipos de serviço bancário (SAQUE, DEPÓSITO, TRANSFERÊNCIA)
         switch (tipoServico) {
 
-            // Caso de saque: cria mensagem sobre o saque realizado, incluindo o valor e o saldo após a transação
-            case SAQUE -> {mensagem += "Saque -R$ " + valor + " | Saldo: R$ " + saldo;
+            // Caso de saque: registra o débito e o saldo após a transação
+            case SAQUE -> {
+                registrarNoHistorico(instante, tipoServico, -valor, HistoricoTransacoes.SEM_CONTRAPARTE);
+                ultimoLsn = Banco.registrarOperacao(instante, tipoServico, getChave(), HistoricoTransacoes.SEM_CONTRAPARTE, valor, chaveIdempotencia);
             }
 
-            // Caso de depósito: cria mensagem sobre o depósito realizado, incluindo o valor e o saldo após a transação
+            // Caso de depósito: registra o crédito e o saldo após a transação
             case DEPOSITO -> {
-                mensagem += "Depósito +R$ " + valor + " | Saldo: R$ " + saldo;
+                registrarNoHistorico(instante, tipoServico, valor, HistoricoTransacoes.SEM_CONTRAPARTE);
+                ultimoLsn = Banco.registrarOperacao(instante, tipoServico, getChave(), HistoricoTransacoes.SEM_CONTRAPARTE, valor, chaveIdempotencia);
             }
 
-            // Caso de transferência: cria mensagem o envio ou recebimento de uma transferência, dependendo do remetente ou destinatário
+            // Caso de transferência: registra o envio ou recebimento, dependendo do remetente ou destinatário
             case TRANSFERENCIA -> {
                 if (this == remetente) {
-                    // Notifica o envio de uma transferência e chama a notificação no destinatário
-                    mensagem += "Transferência Enviada para: " +
-                                destinatario.getCliente().getNome() +
-                     " (CPF: " + destinatario.getCliente().getCpf() +
-                     "): -R$ " + valor + " | Saldo: R$ " + saldo;
-                     destinatario.notificarTransacao(TipoServico.TRANSFERENCIA, valor, remetente, destinatario);
+                    // Registra o envio de uma transferência e chama a notificação no destinatário
+                    registrarNoHistorico(instante, tipoServico, -valor, destinatario.getChave());
+                    Banco.registrarTransferencia(instante, this, destinatario, valor, chaveIdempotencia);
+                    destinatario.notificarTransacao(TipoServico.TRANSFERENCIA, valor, remetente, destinatario);
                 } else {
-                    // Notifica o recebimento de uma transferência
-                    mensagem += "Transferência Recebida de: " +
-                                remetente.getCliente().getNome() +
-                     " (CPF: " + remetente.getCliente().getCpf() +
-                     "): -R$ " + valor + " | Saldo: R$ " + saldo;
+                    // Registra o recebimento de uma transferência
+                    registrarNoHistorico(instante, tipoServico, valor, remetente.getChave());
                 }
             }
-            default -> mensagem = "Serviço desconhecido.";
         }
-        transacoes.add(mensagem);
+    }
+
+    // Registra a transação no histórico da conta e a publica na fila de notificações
+    private void registrarNoHistorico(long instante, TipoServico tipoServico, long valorAssinado, long contraparte) {
+        registrarNoHistorico(instante, tipoServico, valorAssinado, saldo, contraparte);
+    }
+
+    // Como registrarNoHistorico, informando o saldo após a transação (usado pelas pernas de uma transação)
+    private void registrarNoHistorico(long instante, TipoServico tipoServico, long valorAssinado, long saldoApos, long contraparte) {
+        transacoes.registrar(instante, tipoServico, valorAssinado, saldoApos, contraparte);
+        Banco.publicarNotificacao(getChave(), instante, tipoServico, valorAssinado, saldoApos, contraparte);
     }
 
     /**
      * Realiza o saque de um valor da conta.
      * 
-     * Este método verifica se o valor solicitado para o saque é positivo e se a conta
-     * possui saldo suficiente. Caso algum desses requisitos não seja atendido, são lançadas
-     * exceções apropriadas. Após a validação, o valor é subtraído do saldo da conta.
+     * Segue o mesmo caminho de executarServico: o saque passa pelos limites de operação e, com o motor
+     * sequencial ativo, é executado por ele; a verificação do saldo e o débito ocorrem sob o lock da conta,
+     * e o saque é registrado no histórico, na fila de notificações e no diário, cuja gravação é aguardada.
      * 
-     * @param valor O valor a ser sacado.
+     * @param valor O valor a ser sacado, em centavos.
      * @throws ValorInvalidoException Se o valor informado for negativo ou zero.
      * @throws SaldoInsuficienteException Se o saldo da conta for insuficiente para realizar o saque.
      */
     @Override
-    public void sacar(double valor) throws ValorInvalidoException, SaldoInsuficienteException {
-        // Valida se o valor é positivo. Caso contrário, lança uma exceção personalizada.
-        ValidadorDeValor.valorPositivo(valor);
-
-        // Verifica se o saldo é suficiente para realizar o saque.
-        if (valor > saldo) {
-            // Lança exceção caso o saldo seja insuficiente.
-            throw new SaldoInsuficienteException("Saldo insuficiente.");
-        }
-
-        // Subtrai o valor do saldo da conta após as validações.
-        saldo -= valor;
+    public void sacar(long valor) throws ValorInvalidoException, SaldoInsuficienteException {
+        lancarSeRecusada(executar(TipoServico.SAQUE, valor, null, null));
     }
 
     /**
      * Realiza o depósito de um valor na conta.
      * 
-     * Este método valida se o valor do depósito é positivo. Se o valor for válido, ele é
-     * somado ao saldo da conta. Caso contrário, uma exceção será lançada.
+     * Segue o mesmo caminho de executarServico (ver sacar): o depósito é registrado no histórico, na fila
+     * de notificações e no diário, cuja gravação é aguardada.
      * 
-     * @param valor O valor a ser depositado.
-     * @throws ValorInvalidoException Se o valor informado for negativo ou zero.
+     * @param valor O valor a ser depositado, em centavos.
+     * @throws ValorInvalidoException Se o valor informado for negativo ou zero, ou se estourar o saldo.
      */
     @Override
-    public void depositar(double valor) throws ValorInvalidoException {
-        // Valida se o valor é positivo. Caso contrário, lança uma exceção personalizada.
-        ValidadorDeValor.valorPositivo(valor);
-
-        // Adiciona o valor ao saldo da conta após validação.
-        saldo += valor;
+    public void depositar(long valor) throws ValorInvalidoException {
+        // A única recusa possível de um depósito é a do valor: não positivo, ou que estouraria o saldo
+        ResultadoOperacao resultado = executar(TipoServico.DEPOSITO, valor, null, null);
+        if (!resultado.isSucesso()) {
+            throw new ValorInvalidoException(valor <= 0 ? resultado.getDescricao() : "O valor informado excede o limite permitido para a conta.");
+        }
     }
 
     @Override
-    public void transferir(double valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException, IllegalArgumentException {
+    public void transferir(long valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException, IllegalArgumentException {
 
-        // Verifica se o CPF do destinatário é o mesmo do cliente que está fazendo a transferência
-        if (cpfDestinatario.equals(cliente.getCpf())) {
-            throw new IllegalArgumentException("Não é permitido realizar transferências para sua própria conta.");
-        }
-
-        // Busca a conta do destinatário através do CPF
-        Conta destinatario = Banco.buscarCpf(cpfDestinatario);
+        // As duas contas são travadas na ordem global de locks, e o débito e o crédito ocorrem de forma atômica.
+        // A transferência passa pelos mesmos limites de executarServico.
+        long inicio = Metricas.iniciar();
+        ResultadoOperacao resultado = executarNosLimites(TipoServico.TRANSFERENCIA, valor, cpfDestinatario, null);
+        Metricas.registrarTransferir(resultado, inicio);
+        lancarSeRecusada(resultado);
+    }
 
-        // Verifica se a conta do destinatário existe
-        if (destinatario == null) {
-            throw new IllegalArgumentException("Não encontramos uma conta associada a este CPF. Verifique o número e tente novamente.");
-        }
+    // Altera o saldo, guardando o anterior para o corte em andamento (ver CorteDeSaldos). Chamado sob o lock da conta ou pelo motor
+    private void definirSaldo(long novoSaldo) {
+        long epoca = CorteDeSaldos.entrar();
+        preservarParaOCorte(epoca);
+        saldo = novoSaldo;
+        CorteDeSaldos.sair(epoca);
+    }
 
-        // Realiza o saque da conta de origem
-        this.sacar(valor);
+    // Transfere o valor, já validado, para o destinatário, com as duas contas na mesma época de corte
+    private void transferirSaldo(long valor, Conta destinatario) {
+        long debitado = Dinheiro.subtrair(saldo, valor);
+        long creditado = Dinheiro.somar(destinatario.saldo, valor);
+        long epoca = CorteDeSaldos.entrar();
+        preservarParaOCorte(epoca);
+        destinatario.preservarParaOCorte(epoca);
+        saldo = debitado;
+        destinatario.saldo = creditado;
+        CorteDeSaldos.sair(epoca);
+    }
 
-        // Realiza o depósito na conta de destino
-        destinatario.depositar(valor);
+    // Guarda o saldo atual como o saldo no corte da época, se esta for a primeira alteração da conta na época
+    private void preservarParaOCorte(long epoca) {
+        if (epocaDoCorte < epoca) {
+            saldoNoCorte = saldo;
+            epocaDoCorte = epoca;
+        }
+    }
 
-        // Solicita notificação da transação realizada
-        notificarTransacao(TipoServico.TRANSFERENCIA, valor, this, destinatario);
-        
+    // Define a ordem global de aquisição de locks entre contas
+    private static long ordemDeLock(Conta conta) {
+        return conta.getChave();
     }
 
     /*
@@ -206,7 +795,7 @@ public abstract class Conta implements IConta {
         System.out.println(String.format("Titular: %s", this.cliente.getNome()));
         System.out.println(String.format("Agência: %d", this.agencia));
         System.out.println(String.format("Numero: %d", this.numero));
-        System.out.println(String.format("Saldo: %.2f", this.saldo));
+        System.out.println(String.format("Saldo: %s", Dinheiro.formatar(this.saldo)));
     }
     */
 }
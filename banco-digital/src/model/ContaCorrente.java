@@ -6,6 +6,29 @@ public class ContaCorrente extends Conta {
         super(cliente, TipoConta.CORRENTE);
     }
 
+    public ContaCorrente(Cliente cliente, int agencia) {
+        super(cliente, TipoConta.CORRENTE, agencia);
+    }
+
+    public ContaCorrente(Cliente cliente, int agencia, int numero) {
+        super(cliente, TipoConta.CORRENTE, agencia, numero);
+    }
+
+    public ContaCorrente(Cliente cliente, int agencia, int numero, boolean recuperada) {
+        super(cliente, TipoConta.CORRENTE, agencia, numero, recuperada);
+    }
+
+    // Tarifa de manutenção do mês; cobrada até o limite do saldo, que nunca fica negativo
+    @Override
+    protected long calcularLancamentoMensal(long saldo, TabelaDeEncargos tabela) {
+        return -Math.min(saldo, tabela.tarifaCorrente());
+    }
+
+    @Override
+    protected TipoServico getTipoLancamentoMensal() {
+        return TipoServico.TARIFA;
+    }
+
     /*
     @Override
     public void imprimirExtrato() {
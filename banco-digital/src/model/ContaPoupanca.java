@@ -1,11 +1,37 @@
 package model;
 
+import util.Dinheiro;
+
 public class ContaPoupanca extends Conta {
     
     public ContaPoupanca(Cliente cliente) {
         super(cliente, TipoConta.POUPANCA);
     }
 
+    public ContaPoupanca(Cliente cliente, int agencia) {
+        super(cliente, TipoConta.POUPANCA, agencia);
+    }
+
+    public ContaPoupanca(Cliente cliente, int agencia, int numero) {
+        super(cliente, TipoConta.POUPANCA, agencia, numero);
+    }
+
+    public ContaPoupanca(Cliente cliente, int agencia, int numero, boolean recuperada) {
+        super(cliente, TipoConta.POUPANCA, agencia, numero, recuperada);
+    }
+
+    // Rendimento do mês sobre o saldo, arredondado para baixo e limitado para não estourar o saldo
+    @Override
+    protected long calcularLancamentoMensal(long saldo, TabelaDeEncargos tabela) {
+        long rendimento = Dinheiro.aplicarTaxa(saldo, tabela.rendimentoPoupanca());
+        return Math.min(rendimento, Long.MAX_VALUE - saldo);
+    }
+
+    @Override
+    protected TipoServico getTipoLancamentoMensal() {
+        return TipoServico.RENDIMENTO;
+    }
+
     /*
     @Override
     public void imprimirExtrato() {
@@ -0,0 +1,95 @@
+package model;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cortes consistentes dos saldos de todas as contas, obtidos sem travar as contas e sem bloquear as operações.
+ *
+ * O tempo é dividido em épocas. Toda alteração de saldo ocorre dentro de {@link #entrar()} e
+ * {@link #sair(long)} e, antes de alterar o saldo de uma conta pela primeira vez numa época, guarda o
+ * saldo anterior da conta como o saldo daquela época (ver Conta.getSaldoNoCorte). Um corte
+ * ({@link #abrir()}) inicia uma nova época e aguarda apenas as alterações que já estavam em andamento
+ * na época anterior (algumas escritas de saldo, sem locks nem E/S); a partir daí, o saldo de cada conta
+ * no corte é o saldo atual, se ela não foi alterada desde então, ou o saldo guardado pela primeira
+ * alteração. Uma transferência ou transação altera todas as suas contas na mesma época, então fica
+ * inteira antes ou inteira depois do corte.
+ *
+ * As alterações em andamento são contadas por faixa (uma por processador, arredondado para potência de 2,
+ * cada uma na sua linha de cache) e por paridade da época, de forma que as operações não disputam uma
+ * única variável. Um corte por vez.
+ */
+public final class CorteDeSaldos {
+    private static final int ESPACAMENTO = 8;  // 8 longs (64 bytes) entre faixas, para não dividirem linha de cache
+    private static final int ESPERAS_ATIVAS = 1000;
+
+    private static final int MASCARA_FAIXAS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2 - 1) - 1;
+    private static final AtomicLong EPOCA = new AtomicLong();
+    private static final AtomicLongArray EM_ANDAMENTO = new AtomicLongArray((MASCARA_FAIXAS + 1) * ESPACAMENTO);  // Posições 0 e 1 de cada faixa: alterações em andamento por paridade da época
+    private static final ReentrantLock CORTE = new ReentrantLock();
+
+    private CorteDeSaldos() {
+    }
+
+    /**
+     * Registra o início de uma alteração de saldos. Deve ser seguido de {@link #sair(long)}, na mesma thread,
+     * logo depois das escritas de saldo.
+     *
+     * @return A época da alteração, a ser informada a Conta.preservarParaOCorte e a sair.
+     */
+    public static long entrar() {
+        int faixa = faixaDaThread();
+        while (true) {
+            long epoca = EPOCA.get();
+            int posicao = faixa + (int) (epoca & 1);
+            EM_ANDAMENTO.getAndIncrement(posicao);
+            if (EPOCA.get() == epoca) {
+                return epoca;
+            }
+            // Um corte começou entre as duas leituras: a alteração passa para a nova época
+            EM_ANDAMENTO.getAndDecrement(posicao);
+        }
+    }
+
+    // Registra o fim de uma alteração de saldos iniciada por entrar
+    public static void sair(long epoca) {
+        EM_ANDAMENTO.getAndDecrement(faixaDaThread() + (int) (epoca & 1));
+    }
+
+    /**
+     * Inicia um corte: começa uma nova época e aguarda o fim das alterações da época anterior. Deve ser
+     * seguido de {@link #fechar()}; enquanto isso, o saldo de cada conta no corte é dado por
+     * Conta.getSaldoNoCorte com a época retornada.
+     *
+     * @return A época do corte.
+     */
+    public static long abrir() {
+        CORTE.lock();
+        long epoca = EPOCA.incrementAndGet();
+        int anterior = (int) ((epoca - 1) & 1);
+        for (int faixa = 0; faixa <= MASCARA_FAIXAS; faixa++) {
+            int tentativas = 0;
+            while (EM_ANDAMENTO.get(faixa * ESPACAMENTO + anterior) != 0) {
+                if (++tentativas < ESPERAS_ATIVAS) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(1000);
+                }
+            }
+        }
+        return epoca;
+    }
+
+    // Encerra o corte iniciado por abrir, liberando o próximo
+    public static void fechar() {
+        CORTE.unlock();
+    }
+
+    // Cada thread usa sempre a mesma faixa, distribuindo as threads entre as faixas disponíveis
+    private static int faixaDaThread() {
+        long id = Thread.currentThread().getId();
+        return ((int) (id ^ (id >>> 16)) & MASCARA_FAIXAS) * ESPACAMENTO;
+    }
+}
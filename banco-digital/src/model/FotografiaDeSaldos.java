@@ -0,0 +1,12 @@
+package model;
+
+/**
+ * Saldos de todas as contas num mesmo instante (ver CorteDeSaldos), para relatórios como o passivo total do banco.
+ *
+ * @param chaves A chave (agência, número) de cada conta; vazio quando apenas o total foi pedido.
+ * @param saldos O saldo de cada conta em centavos, na mesma ordem das chaves; vazio quando apenas o total foi pedido.
+ * @param quantidade O número de contas no corte.
+ * @param total A soma dos saldos em centavos.
+ */
+public record FotografiaDeSaldos(long[] chaves, long[] saldos, int quantidade, long total) {
+}
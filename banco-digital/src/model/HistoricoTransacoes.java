@@ -0,0 +1,165 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Histórico de transações de uma conta, armazenado em colunas de tipos primitivos.
+ *
+ * Cada transação ocupa 33 bytes (instante, tipo, valor, saldo após a operação e conta da
+ * contraparte), em vez de uma String formatada por operação. As mensagens legíveis só são
+ * montadas quando o extrato é solicitado (ver {@link RenderizadorDeExtrato}).
+ *
+ * Os registros são mantidos em ordem crescente de instante, o que permite localizar um período por
+ * busca binária (ver {@link #consultar}).
+ *
+ * A classe não é thread-safe: o acesso é protegido pelo lock da {@link Conta} dona do histórico.
+ */
+public class HistoricoTransacoes {
+    public static final long SEM_CONTRAPARTE = -1L;
+
+    private static final int CAPACIDADE_INICIAL = 8;
+    static final TipoServico[] TIPOS = TipoServico.values();
+
+    private long[] instantes = new long[CAPACIDADE_INICIAL];    // Epoch em milissegundos
+    private byte[] tipos = new byte[CAPACIDADE_INICIAL];        // Ordinal de TipoServico
+    private long[] valores = new long[CAPACIDADE_INICIAL];      // Centavos; negativo para débitos
+    private long[] saldos = new long[CAPACIDADE_INICIAL];       // Saldo em centavos após a operação
+    private long[] contrapartes = new long[CAPACIDADE_INICIAL]; // Chave da conta contraparte (Banco.chaveConta)
+    private int tamanho;
+
+    /**
+     * Colunas do histórico capturadas em um instante, para leitura fora do lock da conta.
+     *
+     * O histórico só cresce pelo final, e as posições já gravadas nunca são alteradas (ao crescer, as
+     * colunas são copiadas para arrays novos e as antigas ficam intactas). Por isso as posições abaixo de
+     * "tamanho" dos arrays capturados sob o lock continuam válidas depois que ele é liberado, sem copiar
+     * as transações. Os arrays são os do próprio histórico e não devem ser modificados.
+     */
+    public record Colunas(long[] instantes, byte[] tipos, long[] valores, long[] saldos, long[] contrapartes, int tamanho) {
+    }
+
+    // Registra uma nova transação no final do histórico
+    public void registrar(long instante, TipoServico tipoServico, long valor, long saldoApos, long contraparte) {
+        if (tamanho == instantes.length) {
+            crescer();
+        }
+        // Mantém a ordem crescente mesmo se o relógio do sistema retroceder
+        if (tamanho > 0 && instante < instantes[tamanho - 1]) {
+            instante = instantes[tamanho - 1];
+        }
+        instantes[tamanho] = instante;
+        tipos[tamanho] = (byte) tipoServico.ordinal();
+        valores[tamanho] = valor;
+        saldos[tamanho] = saldoApos;
+        contrapartes[tamanho] = contraparte;
+        tamanho++;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public boolean isEmpty() {
+        return tamanho == 0;
+    }
+
+    public long getInstante(int indice) {
+        return instantes[indice];
+    }
+
+    public TipoServico getTipo(int indice) {
+        return TIPOS[tipos[indice]];
+    }
+
+    public long getValor(int indice) {
+        return valores[indice];
+    }
+
+    public long getSaldo(int indice) {
+        return saldos[indice];
+    }
+
+    public long getContraparte(int indice) {
+        return contrapartes[indice];
+    }
+
+    // Captura as colunas atuais; deve ser chamado sob o lock da conta (ver Colunas)
+    public Colunas capturarColunas() {
+        return new Colunas(instantes, tipos, valores, saldos, contrapartes, tamanho);
+    }
+
+    /**
+     * Consulta uma página do histórico dentro de um período, opcionalmente filtrando pelo tipo de serviço.
+     *
+     * O início do período é localizado por busca binária, e a leitura para ao completar a página ou
+     * ao passar do fim do período; o custo não depende do tamanho total do histórico.
+     *
+     * @param inicio Início do período (epoch em milissegundos, inclusivo).
+     * @param fim Fim do período (epoch em milissegundos, exclusivo).
+     * @param tipoServico Tipo de serviço a ser incluído, ou nulo para todos.
+     * @param cursor Posição retornada pela página anterior, ou 0 para a primeira página.
+     * @param tamanhoPagina Número máximo de transações na página.
+     */
+    public PaginaExtrato consultar(long inicio, long fim, TipoServico tipoServico, int cursor, int tamanhoPagina) {
+        List<String> mensagens = new ArrayList<>(Math.min(tamanhoPagina, 64));
+        RenderizadorDeExtrato renderizador = new RenderizadorDeExtrato();
+        int indice = Math.max(cursor, primeiroAPartirDe(instantes, tamanho, inicio));
+
+        while (indice < tamanho && instantes[indice] < fim && mensagens.size() < tamanhoPagina) {
+            if (tipoServico == null || tipos[indice] == tipoServico.ordinal()) {
+                mensagens.add(renderizar(renderizador, indice));
+            }
+            indice++;
+        }
+
+        // Há próxima página se ainda restarem registros dentro do período
+        boolean haMais = indice < tamanho && instantes[indice] < fim;
+        return new PaginaExtrato(mensagens, haMais ? indice : PaginaExtrato.SEM_PROXIMA_PAGINA);
+    }
+
+    // Retorna a posição do primeiro registro com instante maior ou igual ao informado, entre os "tamanho" primeiros
+    static int primeiroAPartirDe(long[] instantes, int tamanho, long instante) {
+        int baixo = 0;
+        int alto = tamanho;
+        while (baixo < alto) {
+            int meio = (baixo + alto) >>> 1;
+            if (instantes[meio] < instante) {
+                baixo = meio + 1;
+            } else {
+                alto = meio;
+            }
+        }
+        return baixo;
+    }
+
+    // Monta a mensagem legível de todas as transações
+    public List<String> renderizar() {
+        List<String> mensagens = new ArrayList<>(tamanho);
+        RenderizadorDeExtrato renderizador = new RenderizadorDeExtrato();
+        for (int i = 0; i < tamanho; i++) {
+            mensagens.add(renderizar(renderizador, i));
+        }
+        return mensagens;
+    }
+
+    // Monta a mensagem legível de uma transação, no formato exibido no extrato
+    public String renderizar(int indice) {
+        return renderizar(new RenderizadorDeExtrato(), indice);
+    }
+
+    private String renderizar(RenderizadorDeExtrato renderizador, int indice) {
+        return renderizador.renderizar(instantes[indice], getTipo(indice), valores[indice], saldos[indice], contrapartes[indice]).toString();
+    }
+
+    // Dobra a capacidade das colunas
+    private void crescer() {
+        int novaCapacidade = instantes.length * 2;
+        instantes = Arrays.copyOf(instantes, novaCapacidade);
+        tipos = Arrays.copyOf(tipos, novaCapacidade);
+        valores = Arrays.copyOf(valores, novaCapacidade);
+        saldos = Arrays.copyOf(saldos, novaCapacidade);
+        contrapartes = Arrays.copyOf(contrapartes, novaCapacidade);
+    }
+}
@@ -0,0 +1,32 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Página de uma consulta de extrato.
+ *
+ * @param transacoes As mensagens das transações da página, em ordem cronológica.
+ * @param proximoCursor O cursor para buscar a próxima página, ou SEM_PROXIMA_PAGINA se esta for a última.
+ */
+public record PaginaExtrato(List<String> transacoes, int proximoCursor) {
+    public static final int SEM_PROXIMA_PAGINA = -1;
+
+    public boolean temProximaPagina() {
+        return proximoCursor != SEM_PROXIMA_PAGINA;
+    }
+
+    /**
+     * Valida o cursor e o tamanho de página de uma consulta de extrato. Um tamanho zero devolveria sempre o
+     * mesmo cursor como próxima página, e quem percorre o extrato página a página nunca terminaria.
+     *
+     * @throws IllegalArgumentException Se o cursor for negativo ou o tamanho da página não for positivo.
+     */
+    public static void validar(int cursor, int tamanhoPagina) {
+        if (cursor < 0) {
+            throw new IllegalArgumentException("O cursor do extrato não pode ser negativo.");
+        }
+        if (tamanhoPagina <= 0) {
+            throw new IllegalArgumentException("O tamanho da página do extrato deve ser maior que zero.");
+        }
+    }
+}
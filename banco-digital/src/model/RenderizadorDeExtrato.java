@@ -0,0 +1,170 @@
+package model;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+import service.Banco;
+import util.Dinheiro;
+
+/**
+ * Monta as mensagens legíveis do extrato ("[dd/MM/yyyy HH:mm] Depósito +R$ 10,00 | Saldo: ...") a partir
+ * das colunas do histórico, sem criar objetos por linha.
+ *
+ * A data é formatada apenas quando o instante sai do minuto em cache, os valores são escritos a partir
+ * dos centavos (ver Dinheiro.formatar) e a linha é montada em um StringBuilder reaproveitado. A última
+ * conta contraparte consultada também fica em cache, evitando a busca (e a chave Long) a cada
+ * transferência para a mesma conta. Com {@link #escrever}, as linhas vão direto para a saída, sem Strings
+ * intermediárias.
+ *
+ * A classe não é thread-safe: cada thread que monta extratos deve usar a sua instância.
+ */
+public final class RenderizadorDeExtrato {
+    private static final int TAMANHO_PREFIXO = 19;  // "[dd/MM/yyyy HH:mm] "
+    private static final long MS_POR_MINUTO = 60_000L;
+
+    private final ZoneId fuso;
+    private final char[] prefixo = new char[TAMANHO_PREFIXO];
+    private long inicioMinuto = Long.MAX_VALUE;     // Intervalo [inicioMinuto, fimMinuto) de instantes do prefixo em cache
+    private long fimMinuto = Long.MIN_VALUE;
+    private long chaveContraparte = HistoricoTransacoes.SEM_CONTRAPARTE;
+    private Conta contaContraparte;
+    private final StringBuilder linha = new StringBuilder(128);
+    private char[] caracteres = new char[128];
+    private int linhasEscritas;
+
+    // Renderizador no fuso horário padrão do sistema
+    public RenderizadorDeExtrato() {
+        this(ZoneId.systemDefault());
+    }
+
+    public RenderizadorDeExtrato(ZoneId fuso) {
+        this.fuso = fuso;
+        prefixo[0] = '[';
+        prefixo[3] = '/';
+        prefixo[6] = '/';
+        prefixo[11] = ' ';
+        prefixo[14] = ':';
+        prefixo[17] = ']';
+        prefixo[18] = ' ';
+    }
+
+    // Monta a mensagem de uma transação no StringBuilder interno, reaproveitado na próxima chamada
+    public StringBuilder renderizar(long instante, TipoServico tipoServico, long valor, long saldo, long contraparte) {
+        linha.setLength(0);
+        return acrescentar(linha, instante, tipoServico, valor, saldo, contraparte);
+    }
+
+    /**
+     * Acrescenta ao StringBuilder a mensagem legível de uma transação.
+     *
+     * @param valor O valor em centavos, negativo para débitos.
+     * @param contraparte A chave da conta contraparte, ou SEM_CONTRAPARTE.
+     */
+    public StringBuilder acrescentar(StringBuilder mensagem, long instante, TipoServico tipoServico, long valor, long saldo, long contraparte) {
+        if (instante < inicioMinuto || instante >= fimMinuto) {
+            formatarMinuto(instante);
+        }
+        mensagem.append(prefixo, 0, TAMANHO_PREFIXO);
+
+        switch (tipoServico) {
+            case SAQUE -> mensagem.append("Saque -");
+            case DEPOSITO -> mensagem.append("Depósito +");
+            case RENDIMENTO -> mensagem.append("Rendimento +");
+            case TARIFA -> mensagem.append("Tarifa de manutenção -");
+            case TRANSFERENCIA -> {
+                Conta conta = buscarContraparte(contraparte);
+                mensagem.append(valor < 0 ? "Transferência Enviada para: " : "Transferência Recebida de: ");
+                if (conta != null) {
+                    mensagem.append(conta.getCliente().getNome())
+                            .append(" (CPF: ").append(conta.getCliente().getCpf()).append(')');
+                }
+                mensagem.append(valor < 0 ? ": -" : ": +");
+            }
+        }
+        Dinheiro.formatar(mensagem, Math.abs(valor));
+        mensagem.append(" | Saldo: ");
+        return Dinheiro.formatar(mensagem, saldo);
+    }
+
+    /**
+     * Escreve na saída uma página do extrato, uma transação por linha, precedida do marcador; os critérios
+     * de período, tipo e cursor são os de HistoricoTransacoes.consultar.
+     *
+     * @param colunas As colunas do histórico, capturadas sob o lock da conta.
+     * @param marcador Texto escrito antes de cada mensagem (ex.: "• ").
+     * @return O cursor da próxima página, ou PaginaExtrato.SEM_PROXIMA_PAGINA; o número de linhas escritas
+     *         fica em {@link #getLinhasEscritas()}.
+     */
+    public int escrever(HistoricoTransacoes.Colunas colunas, long inicio, long fim, TipoServico tipoServico, int cursor,
+                        int tamanhoPagina, String marcador, Writer saida) throws IOException {
+        long[] instantes = colunas.instantes();
+        byte[] tipos = colunas.tipos();
+        int tamanho = colunas.tamanho();
+        String fimDeLinha = System.lineSeparator();
+        int indice = Math.max(cursor, HistoricoTransacoes.primeiroAPartirDe(instantes, tamanho, inicio));
+        linhasEscritas = 0;
+        contaContraparte = null;  // O cache da contraparte vale apenas durante a página
+
+        while (indice < tamanho && instantes[indice] < fim && linhasEscritas < tamanhoPagina) {
+            if (tipoServico == null || tipos[indice] == tipoServico.ordinal()) {
+                linha.setLength(0);
+                linha.append(marcador);
+                acrescentar(linha, instantes[indice], HistoricoTransacoes.TIPOS[tipos[indice]], colunas.valores()[indice],
+                        colunas.saldos()[indice], colunas.contrapartes()[indice]);
+                linha.append(fimDeLinha);
+                escreverLinha(saida);
+                linhasEscritas++;
+            }
+            indice++;
+        }
+
+        boolean haMais = indice < tamanho && instantes[indice] < fim;
+        return haMais ? indice : PaginaExtrato.SEM_PROXIMA_PAGINA;
+    }
+
+    // Número de linhas escritas pela última chamada de escrever
+    public int getLinhasEscritas() {
+        return linhasEscritas;
+    }
+
+    // Copia a linha montada para o array reaproveitado e a escreve; Writer.append(CharSequence) criaria uma String
+    private void escreverLinha(Writer saida) throws IOException {
+        int tamanho = linha.length();
+        if (tamanho > caracteres.length) {
+            caracteres = new char[Math.max(tamanho, caracteres.length * 2)];
+        }
+        linha.getChars(0, tamanho, caracteres, 0);
+        saida.write(caracteres, 0, tamanho);
+    }
+
+    // Formata o prefixo "[dd/MM/yyyy HH:mm] " do minuto do instante e guarda o intervalo em que ele vale
+    private void formatarMinuto(long instante) {
+        LocalDateTime data = LocalDateTime.ofInstant(Instant.ofEpochMilli(instante), fuso);
+        escreverDoisDigitos(1, data.getDayOfMonth());
+        escreverDoisDigitos(4, data.getMonthValue());
+        escreverDoisDigitos(7, data.getYear() / 100);
+        escreverDoisDigitos(9, data.getYear() % 100);
+        escreverDoisDigitos(12, data.getHour());
+        escreverDoisDigitos(15, data.getMinute());
+
+        inicioMinuto = instante - data.getSecond() * 1000L - data.getNano() / 1_000_000;
+        fimMinuto = inicioMinuto + MS_POR_MINUTO;
+    }
+
+    private void escreverDoisDigitos(int posicao, int valor) {
+        prefixo[posicao] = (char) ('0' + valor / 10);
+        prefixo[posicao + 1] = (char) ('0' + valor % 10);
+    }
+
+    // Busca a conta contraparte, reaproveitando a última encontrada
+    private Conta buscarContraparte(long chave) {
+        if (chave != chaveContraparte || contaContraparte == null) {
+            contaContraparte = Banco.buscarConta(chave);
+            chaveContraparte = chave;
+        }
+        return contaContraparte;
+    }
+}
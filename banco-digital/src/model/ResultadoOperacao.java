@@ -0,0 +1,24 @@
+package model;
+
+public enum ResultadoOperacao {
+    SUCESSO("Operação realizada com sucesso."),
+    VALOR_INVALIDO("O valor mínimo permitido deve ser maior ou igual a R$ 0,01."),
+    SALDO_INSUFICIENTE("Saldo insuficiente."),
+    CONTA_INEXISTENTE("Não encontramos uma conta associada a este CPF. Verifique o número e tente novamente."),
+    TRANSFERENCIA_PARA_PROPRIA_CONTA("Não é permitido realizar transferências para sua própria conta."),
+    LIMITE_EXCEDIDO("Operação recusada: limite de segurança de saques e transferências atingido. Tente novamente mais tarde.");
+
+    private String descricao;
+
+    ResultadoOperacao(String descricao) {
+        this.descricao = descricao;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    public boolean isSucesso() {
+        return this == SUCESSO;
+    }
+}
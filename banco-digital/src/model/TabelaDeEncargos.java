@@ -0,0 +1,19 @@
+package model;
+
+import util.Dinheiro;
+
+/**
+ * Taxas utilizadas na apuração mensal das contas (ver service.ApuracaoMensal).
+ *
+ * @param rendimentoPoupanca Rendimento mensal da poupança, em partes por milhão do saldo (5.000 = 0,5%).
+ * @param tarifaCorrente Tarifa mensal de manutenção da conta corrente, em centavos.
+ */
+public record TabelaDeEncargos(long rendimentoPoupanca, long tarifaCorrente) {
+    public static final TabelaDeEncargos PADRAO = new TabelaDeEncargos(5_000, 12_90);
+
+    public TabelaDeEncargos {
+        if (rendimentoPoupanca < 0 || rendimentoPoupanca > Dinheiro.PARTES_POR_MILHAO || tarifaCorrente < 0) {
+            throw new IllegalArgumentException("Taxas da apuração mensal inválidas.");
+        }
+    }
+}
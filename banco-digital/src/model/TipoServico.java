@@ -3,7 +3,9 @@ package model;
 public enum TipoServico {
     TRANSFERENCIA("Transferência"),
     DEPOSITO("Depósito"),
-    SAQUE("Saque");
+    SAQUE("Saque"),
+    RENDIMENTO("Rendimento"),   // Lançado pela apuração mensal (ver service.ApuracaoMensal)
+    TARIFA("Tarifa");           // Lançado pela apuração mensal
 
     private String descricao;
 
@@ -14,4 +16,9 @@ public enum TipoServico {
     public String getDescricao() {
         return descricao;
     }
+
+    // Indica os lançamentos feitos apenas pela apuração mensal, que não podem ser solicitados pelos clientes
+    public boolean isApuracaoMensal() {
+        return this == RENDIMENTO || this == TARIFA;
+    }
 }
@@ -0,0 +1,100 @@
+package model;
+
+import exception.SaldoInsuficienteException;
+import exception.ValorInvalidoException;
+import service.IConta;
+
+/**
+ * Visão (flyweight) de uma conta do {@link ArmazemDeContas}.
+ *
+ * A visão não guarda dados da conta, apenas o armazém e o índice do registro: uma única instância pode
+ * ser reposicionada para percorrer milhões de contas sem criar um objeto por conta. Oferece as mesmas
+ * operações de Conta (IConta e tentarExecutarServico), aplicadas diretamente ao armazém.
+ *
+ * Não é thread-safe: cada thread deve usar a sua própria visão (as operações em si são seguras).
+ */
+public class VisaoDeConta implements IConta {
+    private final ArmazemDeContas armazem;
+    private int indice = ArmazemDeContas.NAO_ENCONTRADA;
+
+    public VisaoDeConta(ArmazemDeContas armazem) {
+        this.armazem = armazem;
+    }
+
+    // Posiciona a visão na conta do índice informado e retorna a própria visão
+    public VisaoDeConta posicionar(int indice) {
+        this.indice = indice;
+        return this;
+    }
+
+    // Posiciona a visão na conta do CPF informado; retorna false se não houver conta
+    public boolean posicionarNoCpf(String cpf) {
+        int encontrada = armazem.buscarCpf(cpf);
+        indice = encontrada;
+        return encontrada != ArmazemDeContas.NAO_ENCONTRADA;
+    }
+
+    public int getIndice() {
+        return indice;
+    }
+
+    public int getAgencia() {
+        return armazem.getAgencia(indice);
+    }
+
+    public int getNumero() {
+        return armazem.getNumero(indice);
+    }
+
+    // Retorna o saldo em centavos
+    public long getSaldo() {
+        return armazem.getSaldo(indice);
+    }
+
+    public TipoConta getTipoConta() {
+        return armazem.getTipoConta(indice);
+    }
+
+    public String getCpf() {
+        return armazem.getCpf(indice);
+    }
+
+    public String getNome() {
+        return armazem.getNome(indice);
+    }
+
+    /**
+     * Executa um serviço bancário sem lançar exceções, como Conta.tentarExecutarServico.
+     *
+     * @param cpfDestinatario O CPF do destinatário, utilizado no caso de uma transferência (caso contrário, nulo).
+     * @return O resultado da operação; o saldo só é alterado em caso de SUCESSO.
+     */
+    public ResultadoOperacao tentarExecutarServico(TipoServico tipoServico, long valor, String cpfDestinatario) {
+        if (tipoServico != TipoServico.TRANSFERENCIA) {
+            return armazem.aplicarMovimentacao(indice, tipoServico, valor);
+        }
+        int destino = armazem.buscarCpf(cpfDestinatario);
+        if (destino == ArmazemDeContas.NAO_ENCONTRADA) {
+            return ResultadoOperacao.CONTA_INEXISTENTE;
+        }
+        return armazem.transferir(indice, destino, valor);
+    }
+
+    @Override
+    public void sacar(long valor) throws ValorInvalidoException, SaldoInsuficienteException {
+        Conta.lancarSeRecusada(armazem.aplicarMovimentacao(indice, TipoServico.SAQUE, valor));
+    }
+
+    @Override
+    public void depositar(long valor) throws ValorInvalidoException {
+        ResultadoOperacao resultado = armazem.aplicarMovimentacao(indice, TipoServico.DEPOSITO, valor);
+        if (!resultado.isSucesso()) {
+            throw new ValorInvalidoException(resultado.getDescricao());
+        }
+    }
+
+    @Override
+    public void transferir(long valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException, IllegalArgumentException {
+        Conta.lancarSeRecusada(tentarExecutarServico(TipoServico.TRANSFERENCIA, valor, cpfDestinatario));
+    }
+}
@@ -0,0 +1,78 @@
+package persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import model.ResultadoOperacao;
+import service.CacheDeIdempotencia;
+
+/**
+ * Cópia em disco do cache de idempotência, gravada junto com os snapshots.
+ *
+ * As chaves usadas depois do snapshot estão nos registros do diário (ver RegistroDiario) e são
+ * restauradas na reaplicação dele; este arquivo guarda as chaves cujos registros foram descartados
+ * com os segmentos anteriores ao snapshot.
+ *
+ * Formato: mágico e versão, seguidos de uma entrada por chave (marcador 1, conta, instante, resultado
+ * e chave) e do marcador 0. O arquivo é escrito com um nome temporário e renomeado ao final.
+ */
+public class ArquivoDeIdempotencia {
+    private static final int MAGICO = 0x4244494B; // "BDIK"
+    private static final int VERSAO = 1;
+    private static final ResultadoOperacao[] RESULTADOS = ResultadoOperacao.values();
+
+    // Grava todas as entradas concluídas do cache (ver CacheDeIdempotencia.percorrer)
+    public static void salvar(Path arquivo, CacheDeIdempotencia cache) throws IOException {
+        Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+        try (FileOutputStream arquivoSaida = new FileOutputStream(temporario.toFile());
+             DataOutputStream saida = new DataOutputStream(new BufferedOutputStream(arquivoSaida))) {
+            saida.writeInt(MAGICO);
+            saida.writeInt(VERSAO);
+            try {
+                cache.percorrer((conta, chave, resultado, instante) -> {
+                    try {
+                        saida.writeByte(1);
+                        saida.writeLong(conta);
+                        saida.writeLong(instante);
+                        saida.writeByte(resultado.ordinal());
+                        saida.writeUTF(chave);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            saida.writeByte(0);
+            saida.flush();
+            arquivoSaida.getFD().sync();
+        }
+        Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Restaura no cache as entradas gravadas no arquivo, se ele existir
+    public static void carregar(Path arquivo, CacheDeIdempotencia cache) throws IOException {
+        if (!Files.exists(arquivo)) {
+            return;
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(arquivo)))) {
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSAO) {
+                throw new IOException("Arquivo de chaves de idempotência inválido: " + arquivo);
+            }
+            while (entrada.readByte() != 0) {
+                long conta = entrada.readLong();
+                long instante = entrada.readLong();
+                ResultadoOperacao resultado = RESULTADOS[entrada.readByte()];
+                cache.restaurar(conta, entrada.readUTF(), resultado, instante);
+            }
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+import model.TipoServico;
+
+/**
+ * Diário dos comandos recebidos pelo motor sequencial (ver service.MotorSequencial), na ordem em que
+ * foram executados.
+ *
+ * Diferente do {@link DiarioDeOperacoes}, que registra o efeito das operações, este diário registra
+ * as entradas: reaplicar os comandos, na mesma ordem e a partir do mesmo estado inicial, reproduz
+ * exatamente os mesmos saldos. Os comandos recusados também são registrados, já que a recusa é
+ * decidida pela própria reprodução.
+ *
+ * A classe não é thread-safe: é utilizada apenas pela thread do motor que grava o diário. Os comandos
+ * são acumulados em um buffer e gravados ao final de cada lote (ver {@link #concluirLote()}).
+ *
+ * Formato de cada registro, de tamanho fixo: CRC32 do conteúdo (int), instante (long), tipo de
+ * serviço (byte), conta (long), conta de destino (long) e valor (long). A leitura para no primeiro
+ * registro incompleto ou corrompido.
+ */
+public class DiarioDeComandos implements Closeable {
+    private static final int TAMANHO_BUFFER = 1 << 20;
+    private static final int TAMANHO_CONTEUDO = 8 + 1 + 8 + 8 + 8;
+    private static final int TAMANHO_REGISTRO = 4 + TAMANHO_CONTEUDO;
+    private static final TipoServico[] TIPOS_SERVICO = TipoServico.values();
+
+    // Comando lido do diário
+    public record ComandoGravado(long instante, TipoServico tipoServico, long conta, long destinatario, long valor) {
+    }
+
+    private final FileChannel canal;
+    private final boolean sincronizar;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER - TAMANHO_BUFFER % TAMANHO_REGISTRO);
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Abre o diário para acrescentar comandos. Se o arquivo já existir, um eventual registro
+     * incompleto no final é descartado antes dos novos comandos.
+     *
+     * @param sincronizar Se true, cada lote é sincronizado com o disco (fsync) antes de ser confirmado.
+     */
+    public DiarioDeComandos(Path arquivo, boolean sincronizar) throws IOException {
+        long validos = ler(Files.exists(arquivo) ? arquivo : null, comando -> { });
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.canal.truncate(validos * TAMANHO_REGISTRO);
+        this.canal.position(validos * TAMANHO_REGISTRO);
+        this.sincronizar = sincronizar;
+    }
+
+    // Acrescenta um comando ao lote atual; o destinatário é -1 quando não houver
+    public void registrar(long instante, TipoServico tipoServico, long conta, long destinatario, long valor) throws IOException {
+        if (!buffer.hasRemaining()) {
+            gravar();
+        }
+        int inicio = buffer.position();
+        buffer.position(inicio + 4);
+        buffer.putLong(instante);
+        buffer.put((byte) tipoServico.ordinal());
+        buffer.putLong(conta);
+        buffer.putLong(destinatario);
+        buffer.putLong(valor);
+
+        crc.reset();
+        crc.update(buffer.slice(inicio + 4, TAMANHO_CONTEUDO));
+        buffer.putInt(inicio, (int) crc.getValue());
+    }
+
+    // Grava os comandos do lote e, se configurado, aguarda a sincronização com o disco
+    public void concluirLote() throws IOException {
+        gravar();
+        if (sincronizar) {
+            canal.force(false);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            concluirLote();
+        } finally {
+            canal.close();
+        }
+    }
+
+    /**
+     * Lê os comandos válidos do diário, na ordem em que foram executados.
+     *
+     * @param arquivo O arquivo do diário, ou nulo para nenhum comando.
+     * @return A quantidade de comandos lidos.
+     */
+    public static long ler(Path arquivo, Consumer<ComandoGravado> consumidor) throws IOException {
+        if (arquivo == null) {
+            return 0;
+        }
+        long lidos = 0;
+        CRC32 crcLeitura = new CRC32();
+
+        try (FileChannel leitura = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER - TAMANHO_BUFFER % TAMANHO_REGISTRO);
+            while (true) {
+                buffer.clear();
+                while (buffer.hasRemaining() && leitura.read(buffer) >= 0) {
+                    // Lê até encher o buffer ou chegar ao final do arquivo
+                }
+                buffer.flip();
+
+                while (buffer.remaining() >= TAMANHO_REGISTRO) {
+                    int crcEsperado = buffer.getInt();
+                    crcLeitura.reset();
+                    crcLeitura.update(buffer.slice(buffer.position(), TAMANHO_CONTEUDO));
+                    if ((int) crcLeitura.getValue() != crcEsperado) {
+                        return lidos; // Registro corrompido: o restante do diário é descartado
+                    }
+                    consumidor.accept(new ComandoGravado(buffer.getLong(), TIPOS_SERVICO[buffer.get()],
+                            buffer.getLong(), buffer.getLong(), buffer.getLong()));
+                    lidos++;
+                }
+                if (buffer.limit() < buffer.capacity()) {
+                    return lidos; // Final do arquivo, possivelmente com um registro incompleto
+                }
+            }
+        }
+    }
+
+    private void gravar() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,674 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Diário (write-ahead log) das operações aplicadas ao banco.
+ *
+ * Os registros são acumulados em um buffer em memória e gravados por uma thread dedicada, que
+ * faz um único fsync para todos os registros pendentes (group commit). Quem precisa de
+ * durabilidade chama {@link #aguardar(long)} com o LSN recebido ao registrar.
+ *
+ * O diário é dividido em segmentos ("diario-N.log"). Ao salvar um snapshot o segmento é
+ * rotacionado, e os segmentos anteriores ao snapshot podem ser descartados.
+ *
+ * Formato de cada registro: tamanho (int), CRC32 do conteúdo (int) e o conteúdo descrito em
+ * {@link RegistroDiario}. A leitura para no primeiro registro incompleto ou corrompido.
+ */
+public class DiarioDeOperacoes implements Closeable {
+    private static final int TAMANHO_BUFFER = 1 << 20;
+    static final int TAMANHO_CABECALHO = 8;
+    private static final String PREFIXO = "diario-";
+    private static final String SUFIXO = ".log";
+    private static final AtomicLong SEQUENCIA = new AtomicLong(); // Define a ordem de lock entre diários
+
+    // LSNs atribuídos às duas metades de uma transferência entre diários
+    public record LsnsTransferencia(long lsnDebito, long lsnCredito) {
+    }
+
+    private final long ordem = SEQUENCIA.getAndIncrement();
+    private final Path diretorio;
+    private final long intervaloNanos;
+
+    // Ordem de aquisição: escrita -> lock. "escrita" serializa o acesso ao arquivo; "lock" protege o buffer ativo.
+    private final ReentrantLock escrita = new ReentrantLock();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition haRegistros = lock.newCondition();
+    private final Condition espacoLivre = lock.newCondition();
+    private final Condition gravado = lock.newCondition();
+
+    private final CRC32 crc = new CRC32();
+    private ByteBuffer ativo = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+    private ByteBuffer reserva = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+    private FileChannel canal;
+    private long segmento;
+    private long proximoLsn;
+    private long lsnDuravel;
+    private boolean fechado;
+    private IOException falha;
+
+    private final Thread gravador;
+
+    /**
+     * Abre um novo segmento do diário.
+     *
+     * @param diretorio Diretório dos arquivos do diário.
+     * @param segmento Número do segmento a ser criado; deve ser maior que o de todos os segmentos existentes.
+     * @param proximoLsn Primeiro LSN a ser atribuído.
+     * @param intervaloMaximoMs Tempo máximo que um registro aguarda no buffer antes de ser gravado.
+     */
+    public DiarioDeOperacoes(Path diretorio, long segmento, long proximoLsn, long intervaloMaximoMs) throws IOException {
+        this.diretorio = diretorio;
+        this.segmento = segmento;
+        this.proximoLsn = proximoLsn;
+        this.lsnDuravel = proximoLsn - 1;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMaximoMs);
+        this.canal = abrirSegmento(segmento);
+
+        this.gravador = new Thread(this::gravarContinuamente, "diario-gravador");
+        this.gravador.setDaemon(true);
+        this.gravador.start();
+    }
+
+    // Registra uma operação financeira aplicada e retorna o LSN atribuído
+    public long registrarOperacao(long instante, TipoServico tipoServico, long origem, long destino, long valor) {
+        return registrarOperacao(instante, tipoServico, origem, destino, valor, null);
+    }
+
+    // Registra uma operação financeira aplicada, junto com a chave de idempotência dela (opcional), e retorna o LSN atribuído
+    public long registrarOperacao(long instante, TipoServico tipoServico, long origem, long destino, long valor, String chaveIdempotencia) {
+        byte[] chave = codificarChave(chaveIdempotencia);
+        lock.lock();
+        try {
+            int inicio = reservarEspaco(RegistroDiario.TAMANHO_OPERACAO + RegistroDiario.tamanhoChave(chave));
+            long lsn = proximoLsn++;
+            RegistroDiario.escreverOperacao(ativo, lsn, instante, tipoServico, origem, destino, valor, chave);
+            fecharRegistro(inicio);
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Registra o resultado de uma operação recusada que foi executada com chave de idempotência e retorna o LSN atribuído
+    public long registrarResultado(long instante, TipoServico tipoServico, long conta, String chaveIdempotencia, ResultadoOperacao resultado) {
+        byte[] chave = codificarChave(chaveIdempotencia);
+        lock.lock();
+        try {
+            int inicio = reservarEspaco(RegistroDiario.tamanhoResultado(chave));
+            long lsn = proximoLsn++;
+            RegistroDiario.escreverResultado(ativo, lsn, instante, tipoServico, conta, resultado, chave);
+            fecharRegistro(inicio);
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Registra uma transferência entre contas de diários diferentes: o débito no diário da origem e
+     * o crédito no diário do destino.
+     *
+     * As duas metades são escritas com os dois diários travados (na ordem global entre diários), de
+     * forma que cada uma guarde o LSN da outra. Assim, se apenas uma delas chegar ao disco antes de uma
+     * queda, a recuperação encontra a outra metade a partir dela e a completa.
+     */
+    public static LsnsTransferencia registrarTransferencia(DiarioDeOperacoes debito, DiarioDeOperacoes credito,
+            long instante, long origem, long destino, long valor) {
+        return registrarTransferencia(debito, credito, instante, origem, destino, valor, null);
+    }
+
+    // Como registrarTransferencia, guardando a chave de idempotência (opcional) nas duas metades, para que a
+    // metade completada na recuperação também a tenha
+    public static LsnsTransferencia registrarTransferencia(DiarioDeOperacoes debito, DiarioDeOperacoes credito,
+            long instante, long origem, long destino, long valor, String chaveIdempotencia) {
+        if (debito == credito) {
+            throw new IllegalArgumentException("Utilize registrarOperacao para transferências no mesmo diário.");
+        }
+        DiarioDeOperacoes primeiro = debito.ordem < credito.ordem ? debito : credito;
+        DiarioDeOperacoes segundo = primeiro == debito ? credito : debito;
+        byte[] chave = codificarChave(chaveIdempotencia);
+        int tamanho = RegistroDiario.TAMANHO_METADE_TRANSFERENCIA + RegistroDiario.tamanhoChave(chave);
+
+        primeiro.lock.lock();
+        try {
+            // O espaço é reservado antes de travar o segundo diário; a espera por espaço no segundo
+            // só depende da thread gravadora dele, que nunca trava outro diário
+            int inicioPrimeiro = primeiro.reservarEspaco(tamanho);
+            segundo.lock.lock();
+            try {
+                int inicioSegundo = segundo.reservarEspaco(tamanho);
+                long lsnDebito = debito.proximoLsn++;
+                long lsnCredito = credito.proximoLsn++;
+
+                RegistroDiario.escreverMetadeTransferencia(debito.ativo, RegistroDiario.Tipo.DEBITO_ENTRE_PARTICOES,
+                        lsnDebito, instante, origem, destino, valor, lsnCredito, chave);
+                RegistroDiario.escreverMetadeTransferencia(credito.ativo, RegistroDiario.Tipo.CREDITO_ENTRE_PARTICOES,
+                        lsnCredito, instante, origem, destino, valor, lsnDebito, chave);
+                primeiro.fecharRegistro(inicioPrimeiro);
+                segundo.fecharRegistro(inicioSegundo);
+                return new LsnsTransferencia(lsnDebito, lsnCredito);
+            } finally {
+                segundo.lock.unlock();
+            }
+        } finally {
+            primeiro.lock.unlock();
+        }
+    }
+
+    /**
+     * Registra uma transação com várias pernas: uma parte (RegistroDiario.Tipo.TRANSACAO) no diário de
+     * cada partição envolvida.
+     *
+     * Como nas transferências entre diários, todos os diários são travados (na ordem global entre
+     * diários) para que cada parte guarde o LSN de todas as outras; se apenas algumas chegarem ao disco
+     * antes de uma queda, a recuperação completa as demais a partir delas. Cada parte é um único
+     * registro, então a transação nunca é gravada pela metade dentro de uma partição.
+     *
+     * @param diarios O diário de cada partição envolvida, na mesma ordem de "particoes".
+     * @param particoes As partições envolvidas, em ordem crescente.
+     * @return O LSN atribuído à parte de cada partição, na mesma ordem.
+     */
+    public static long[] registrarTransacao(DiarioDeOperacoes[] diarios, int[] particoes, long instante,
+            long[] origens, long[] destinos, long[] valores) {
+        int tamanho = RegistroDiario.tamanhoTransacao(diarios.length, origens.length);
+        if (tamanho > RegistroDiario.TAMANHO_MAXIMO) {
+            throw new IllegalArgumentException("A transação excede o tamanho máximo de um registro do diário.");
+        }
+        DiarioDeOperacoes[] emOrdem = diarios.clone();
+        Arrays.sort(emOrdem, (a, b) -> Long.compare(a.ordem, b.ordem));
+        int[] inicios = new int[diarios.length];
+
+        // O espaço de cada diário é reservado antes de travar o próximo (ver registrarTransferencia)
+        int travados = 0;
+        try {
+            for (DiarioDeOperacoes diario : emOrdem) {
+                diario.lock.lock();
+                travados++;
+                inicios[indiceDe(diarios, diario)] = diario.reservarEspaco(tamanho);
+            }
+            long[] lsns = new long[diarios.length];
+            for (int i = 0; i < diarios.length; i++) {
+                lsns[i] = diarios[i].proximoLsn++;
+            }
+            RegistroDiario.Transacao transacao = new RegistroDiario.Transacao(particoes, lsns, origens, destinos, valores);
+            for (int i = 0; i < diarios.length; i++) {
+                RegistroDiario.escreverTransacao(diarios[i].ativo, lsns[i], instante, transacao);
+                diarios[i].fecharRegistro(inicios[i]);
+            }
+            return lsns;
+        } finally {
+            for (int i = travados - 1; i >= 0; i--) {
+                emOrdem[i].lock.unlock();
+            }
+        }
+    }
+
+    // Posição do diário no array (comparação por identidade)
+    private static int indiceDe(DiarioDeOperacoes[] diarios, DiarioDeOperacoes diario) {
+        int i = 0;
+        while (diarios[i] != diario) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Regrava, com o LSN original, uma metade de transferência entre diários completada na recuperação.
+     *
+     * Deve ser chamado antes de qualquer outro registro no diário, com LSNs menores que o próximo LSN
+     * e em ordem crescente.
+     */
+    public void regravarMetade(RegistroDiario metade) {
+        lock.lock();
+        try {
+            if (metade.lsn() >= proximoLsn) {
+                throw new IllegalArgumentException("O LSN da metade regravada deve ser menor que o próximo LSN do diário.");
+            }
+            byte[] chave = codificarChave(metade.chaveIdempotencia());
+            int inicio = reservarEspaco(RegistroDiario.TAMANHO_METADE_TRANSFERENCIA + RegistroDiario.tamanhoChave(chave));
+            RegistroDiario.escreverMetadeTransferencia(ativo, metade.tipo(), metade.lsn(), metade.instante(),
+                    metade.origem(), metade.destino(), metade.valor(), metade.lsnContraparte(), chave);
+            fecharRegistro(inicio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Regrava, com o LSN original, uma parte de transação completada na recuperação (ver regravarMetade)
+    public void regravarParteDeTransacao(RegistroDiario parte) {
+        lock.lock();
+        try {
+            if (parte.lsn() >= proximoLsn) {
+                throw new IllegalArgumentException("O LSN da parte regravada deve ser menor que o próximo LSN do diário.");
+            }
+            RegistroDiario.Transacao transacao = parte.transacao();
+            int inicio = reservarEspaco(RegistroDiario.tamanhoTransacao(transacao.particoes().length, transacao.quantidadePernas()));
+            RegistroDiario.escreverTransacao(ativo, parte.lsn(), parte.instante(), transacao);
+            fecharRegistro(inicio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Acrescenta registros recebidos do diário de outro processo (ver ReceptorDoDiario), já com tamanho,
+     * CRC e LSN originais, na mesma ordem em que foram gravados lá.
+     *
+     * @param registros Os registros, com os cabeçalhos; no máximo ProtocoloDeReplicacao.TAMANHO_MAXIMO_LOTE bytes.
+     * @param maiorLsn O maior LSN entre os registros; o diário passa a atribuir LSNs maiores que ele.
+     */
+    public void anexarReplicados(ByteBuffer registros, long maiorLsn) {
+        if (registros.remaining() > TAMANHO_BUFFER) {
+            throw new IllegalArgumentException("O lote excede o tamanho do buffer do diário.");
+        }
+        lock.lock();
+        try {
+            aguardarEspaco(registros.remaining());
+            ativo.put(registros.duplicate());
+            proximoLsn = Math.max(proximoLsn, maiorLsn + 1);
+            haRegistros.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Garante que os próximos LSNs atribuídos sejam iguais ou maiores que o informado
+    public void avancarProximoLsn(long lsn) {
+        lock.lock();
+        try {
+            proximoLsn = Math.max(proximoLsn, lsn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Registra a criação de uma conta e retorna o LSN atribuído
+    public long registrarCriacao(long instante, long chave, TipoConta tipoConta, String nome, String cpf) {
+        byte[] bytesNome = nome.getBytes(StandardCharsets.UTF_8);
+        byte[] bytesCpf = cpf.getBytes(StandardCharsets.UTF_8);
+        validarCriacao(bytesNome, bytesCpf);
+
+        lock.lock();
+        try {
+            int inicio = reservarEspaco(RegistroDiario.tamanhoCriacao(bytesNome, bytesCpf));
+            long lsn = proximoLsn++;
+            RegistroDiario.escreverCriacao(ativo, lsn, instante, chave, tipoConta, bytesNome, bytesCpf);
+            fecharRegistro(inicio);
+            return lsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Verifica, antes de criar a conta, se o nome e o CPF cabem no registro de criação do diário
+    public static void validarCriacao(String nome, String cpf) {
+        validarCriacao(nome.getBytes(StandardCharsets.UTF_8), cpf.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void validarCriacao(byte[] bytesNome, byte[] bytesCpf) {
+        if (bytesNome.length > 0xFFFF || bytesCpf.length > 0xFFFF) {
+            throw new IllegalArgumentException("Nome ou CPF excede o tamanho permitido.");
+        }
+    }
+
+    /**
+     * Bloqueia até que o registro com o LSN informado (e todos os anteriores) esteja gravado em disco.
+     *
+     * @throws UncheckedIOException Se a gravação do diário falhou.
+     */
+    public void aguardar(long lsn) {
+        lock.lock();
+        try {
+            while (lsnDuravel < lsn) {
+                verificarFalha();
+                haRegistros.signal();
+                gravado.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Bloqueia até que todos os registros feitos até o momento estejam gravados em disco
+    public void aguardarPendentes() {
+        aguardar(getProximoLsn() - 1);
+    }
+
+    // Retorna o maior LSN cujos registros (e todos os anteriores) estão gravados em disco
+    public long getLsnDuravel() {
+        lock.lock();
+        try {
+            return lsnDuravel;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Aguarda a gravação em disco de novos registros, sem provocá-la (ver TransmissorDoDiario).
+     *
+     * @param lsnDuravelConhecido O último valor de {@link #getLsnDuravel()} observado pelo chamador.
+     * @return O LSN durável atual; igual ao informado se nada foi gravado dentro do tempo máximo.
+     */
+    public long aguardarGravacao(long lsnDuravelConhecido, long tempoMaximoMs) throws InterruptedException {
+        long restante = TimeUnit.MILLISECONDS.toNanos(tempoMaximoMs);
+        lock.lock();
+        try {
+            while (lsnDuravel == lsnDuravelConhecido && !fechado && falha == null && restante > 0) {
+                restante = gravado.awaitNanos(restante);
+            }
+            return lsnDuravel;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grava os registros pendentes, fecha o segmento atual e abre o próximo.
+     *
+     * Todos os registros feitos antes da chamada ficam nos segmentos anteriores ao retornado.
+     *
+     * @return O número do novo segmento.
+     */
+    public long rotacionar() throws IOException {
+        escrita.lock();
+        try {
+            lock.lock();
+            try {
+                verificarFalha();
+                gravar(ativo);
+                canal.force(false);
+                canal.close();
+                lsnDuravel = proximoLsn - 1;
+                gravado.signalAll();
+                espacoLivre.signalAll();
+
+                segmento++;
+                canal = abrirSegmento(segmento);
+                return segmento;
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    // Retorna o próximo LSN a ser atribuído
+    public long getProximoLsn() {
+        lock.lock();
+        try {
+            return proximoLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Remove os segmentos anteriores ao informado, já cobertos por um snapshot
+    public void descartarAnteriores(long segmentoInicial) throws IOException {
+        for (long antigo : listarSegmentos(diretorio)) {
+            if (antigo < segmentoInicial) {
+                Files.deleteIfExists(caminhoSegmento(diretorio, antigo));
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            fechado = true;
+            haRegistros.signalAll();
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            gravador.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrompido ao fechar o diário.");
+        }
+
+        escrita.lock();
+        lock.lock();
+        try {
+            if (falha == null) {
+                gravar(ativo);
+                canal.force(false);
+                lsnDuravel = proximoLsn - 1;
+            }
+            gravado.signalAll();
+            canal.close();
+        } finally {
+            lock.unlock();
+            escrita.unlock();
+        }
+    }
+
+    /**
+     * Lê os registros válidos de um segmento, na ordem em que foram gravados.
+     *
+     * @return O maior LSN lido, ou -1 se o segmento estiver vazio.
+     */
+    public static long ler(Path arquivo, Consumer<RegistroDiario> consumidor) throws IOException {
+        long maiorLsn = -1;
+        CRC32 crcLeitura = new CRC32();
+
+        try (FileChannel leitura = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER);
+            buffer.flip();
+
+            while (true) {
+                if (!preencher(leitura, buffer, TAMANHO_CABECALHO)) {
+                    break;
+                }
+                int tamanho = buffer.getInt();
+                int crcEsperado = buffer.getInt();
+                if (tamanho <= 0 || tamanho > RegistroDiario.TAMANHO_MAXIMO || !preencher(leitura, buffer, tamanho)) {
+                    break; // Final do arquivo ou registro parcialmente gravado
+                }
+
+                ByteBuffer conteudo = buffer.slice(buffer.position(), tamanho);
+                crcLeitura.reset();
+                crcLeitura.update(conteudo.duplicate());
+                if ((int) crcLeitura.getValue() != crcEsperado) {
+                    break; // Registro corrompido: o restante do segmento é descartado
+                }
+
+                RegistroDiario registro = RegistroDiario.ler(conteudo);
+                buffer.position(buffer.position() + tamanho);
+                maiorLsn = Math.max(maiorLsn, registro.lsn());
+                consumidor.accept(registro);
+            }
+        }
+        return maiorLsn;
+    }
+
+    /**
+     * Verifica o registro que começa na posição atual do buffer (cabeçalho e conteúdo), sem consumi-lo.
+     *
+     * @return O tamanho do registro com o cabeçalho; 0 se o buffer ainda não contém o registro inteiro;
+     *         -1 se o registro estiver corrompido.
+     */
+    static int verificarRegistro(ByteBuffer buffer, CRC32 crc) {
+        if (buffer.remaining() < TAMANHO_CABECALHO) {
+            return 0;
+        }
+        int inicio = buffer.position();
+        int tamanho = buffer.getInt(inicio);
+        if (tamanho <= 0 || tamanho > RegistroDiario.TAMANHO_MAXIMO) {
+            return -1;
+        }
+        if (buffer.remaining() < TAMANHO_CABECALHO + tamanho) {
+            return 0;
+        }
+        crc.reset();
+        crc.update(buffer.slice(inicio + TAMANHO_CABECALHO, tamanho));
+        return (int) crc.getValue() == buffer.getInt(inicio + 4) ? TAMANHO_CABECALHO + tamanho : -1;
+    }
+
+    // Lista os números dos segmentos existentes no diretório, em ordem crescente
+    public static List<Long> listarSegmentos(Path diretorio) throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO))
+                    .forEach(nome -> segmentos.add(Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()))));
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+
+    public static Path caminhoSegmento(Path diretorio, long segmento) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, segmento, SUFIXO));
+    }
+
+    // Laço da thread gravadora: troca os buffers, grava o pendente e faz um único fsync por lote
+    private void gravarContinuamente() {
+        while (true) {
+            escrita.lock();
+            try {
+                ByteBuffer pendente;
+                long ultimoLsn;
+
+                lock.lock();
+                try {
+                    if (ativo.position() == 0) {
+                        if (fechado) {
+                            return;
+                        }
+                        haRegistros.awaitNanos(intervaloNanos);
+                        if (ativo.position() == 0) {
+                            continue;
+                        }
+                    }
+                    pendente = ativo;
+                    ativo = reserva;
+                    reserva = pendente;
+                    ultimoLsn = proximoLsn - 1;
+                    espacoLivre.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                gravar(pendente);
+                canal.force(false);
+
+                lock.lock();
+                try {
+                    lsnDuravel = Math.max(lsnDuravel, ultimoLsn);
+                    gravado.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            } catch (IOException e) {
+                lock.lock();
+                try {
+                    falha = e;
+                    gravado.signalAll();
+                    espacoLivre.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+                return;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                escrita.unlock();
+            }
+        }
+    }
+
+    // Garante espaço no buffer ativo e escreve o cabeçalho provisório; deve ser chamado com "lock"
+    private int reservarEspaco(int tamanhoConteudo) {
+        aguardarEspaco(TAMANHO_CABECALHO + tamanhoConteudo);
+        int inicio = ativo.position();
+        ativo.putInt(tamanhoConteudo);
+        ativo.putInt(0); // CRC preenchido em fecharRegistro
+        return inicio;
+    }
+
+    // Aguarda até que o buffer ativo tenha o espaço informado livre; deve ser chamado com "lock"
+    private void aguardarEspaco(int necessario) {
+        while (ativo.remaining() < necessario) {
+            verificarFalha();
+            haRegistros.signal();
+            espacoLivre.awaitUninterruptibly();
+        }
+    }
+
+    // Calcula o CRC do registro recém-escrito e acorda a thread gravadora
+    private void fecharRegistro(int inicio) {
+        int fim = ativo.position();
+        ByteBuffer conteudo = ativo.duplicate();
+        conteudo.position(inicio + TAMANHO_CABECALHO).limit(fim);
+        crc.reset();
+        crc.update(conteudo);
+        ativo.putInt(inicio + 4, (int) crc.getValue());
+        haRegistros.signal();
+    }
+
+    private void gravar(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            canal.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] codificarChave(String chaveIdempotencia) {
+        return chaveIdempotencia == null ? null : chaveIdempotencia.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private void verificarFalha() {
+        if (falha != null) {
+            throw new UncheckedIOException("Falha ao gravar o diário de operações.", falha);
+        }
+    }
+
+    private FileChannel abrirSegmento(long numero) throws IOException {
+        return FileChannel.open(caminhoSegmento(diretorio, numero),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    // Garante que o buffer tenha ao menos "quantidade" bytes disponíveis para leitura
+    private static boolean preencher(FileChannel leitura, ByteBuffer buffer, int quantidade) throws IOException {
+        if (buffer.remaining() >= quantidade) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < quantidade) {
+            if (leitura.read(buffer) < 0) {
+                buffer.flip();
+                return false;
+            }
+        }
+        buffer.flip();
+        return true;
+    }
+}
@@ -0,0 +1,523 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import model.Conta;
+import model.HistoricoTransacoes;
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Exportação das contas e de todos os seus extratos para arquivos, em CSV ou em formato binário colunar.
+ *
+ * São gerados dois arquivos no diretório de destino: um com uma linha por conta e outro com uma linha
+ * por transação, na ordem do histórico de cada conta. Cada arquivo é escrito por um buffer direto de
+ * tamanho fixo, gravado no canal do arquivo sempre que enche; a memória usada não depende do número de
+ * contas nem de transações.
+ *
+ * A exportação pode ser feita com o banco atendendo operações. O lock de cada conta é mantido apenas
+ * para ler o saldo e capturar as colunas do histórico (ver HistoricoTransacoes.Colunas), sem copiar as
+ * transações; a escrita acontece depois, fora do lock. Saldo e histórico de uma conta são exportados de
+ * forma consistente, mas as contas são capturadas em instantes diferentes: uma transferência feita
+ * durante a exportação pode aparecer em apenas uma das duas contas.
+ *
+ * Os arquivos são escritos com nomes temporários e renomeados por {@link #concluir}.
+ *
+ * CSV (separador vírgula, valores em centavos, instantes em ISO-8601 UTC):
+ *   contas.csv:      agencia,numero,tipo_conta,cpf,nome,saldo_centavos,transacoes
+ *   transacoes.csv:  agencia,numero,instante,tipo,valor_centavos,saldo_centavos,contraparte_agencia,contraparte_numero
+ *
+ * Binário (contas.bdc e transacoes.bdc, little-endian): mágico, versão e tabela, seguidos de blocos de
+ * até {@value #LINHAS_POR_BLOCO} linhas. Cada bloco começa com o número de linhas e traz as colunas
+ * inteiras, uma após a outra, de forma que uma coluna pode ser lida sem percorrer as demais:
+ *   contas:      chave (long), tipo_conta (byte), saldo (long), transacoes (int), fim_cpf (int), cpf (bytes UTF-8),
+ *                fim_nome (int), nome (bytes UTF-8); fim_* é a posição final de cada texto dentro do bloco
+ *   transacoes:  conta (long), instante (long), tipo (byte), valor (long), saldo (long), contraparte (long)
+ * As chaves de conta seguem Banco.chaveConta, os tipos são os ordinais dos enums e a contraparte é -1
+ * quando não há. Um bloco com 0 linhas, seguido do total de linhas (long), marca o fim do arquivo.
+ */
+public abstract class ExportadorDeExtratos implements Closeable {
+    static final int LINHAS_POR_BLOCO = 1 << 16;
+    private static final int TAMANHO_BUFFER = 8 << 20;
+
+    // Formatos de exportação
+    public enum Formato {
+        CSV,
+        BINARIO
+    }
+
+    // Totais de uma exportação; "bytes" soma os dois arquivos
+    public record Resumo(long contas, long transacoes, long bytes, long duracaoMs) {
+
+        // Taxa de escrita em MB/s (10^6 bytes por segundo)
+        public double megabytesPorSegundo() {
+            return duracaoMs == 0 ? 0 : bytes / 1000.0 / duracaoMs;
+        }
+    }
+
+    private final long inicio = System.nanoTime();
+    final Saida saidaContas;
+    final Saida saidaTransacoes;
+    private long contas;
+    private long transacoes;
+    private boolean concluida;
+
+    private ExportadorDeExtratos(Path diretorio, String extensao) throws IOException {
+        Files.createDirectories(diretorio);
+        saidaContas = new Saida(diretorio.resolve("contas" + extensao));
+        Saida segunda;
+        try {
+            segunda = new Saida(diretorio.resolve("transacoes" + extensao));
+        } catch (IOException e) {
+            saidaContas.close();
+            throw e;
+        }
+        saidaTransacoes = segunda;
+    }
+
+    // Cria os arquivos temporários da exportação no diretório informado
+    public static ExportadorDeExtratos abrir(Path diretorio, Formato formato) throws IOException {
+        return switch (formato) {
+            case CSV -> new Csv(diretorio);
+            case BINARIO -> new Binario(diretorio);
+        };
+    }
+
+    // Exporta a conta e todo o seu histórico
+    public void exportar(Conta conta) throws IOException {
+        byte[] cpf = conta.getCliente().getCpf().getBytes(StandardCharsets.UTF_8);
+        byte[] nome = conta.getCliente().getNome().getBytes(StandardCharsets.UTF_8);
+        long saldo;
+        HistoricoTransacoes.Colunas colunas;
+
+        // Apenas a captura é feita sob o lock; as transações são lidas depois de liberá-lo
+        synchronized (conta) {
+            saldo = conta.getSaldo();
+            colunas = conta.getHistorico().capturarColunas();
+        }
+
+        escreverConta(conta, cpf, nome, saldo, colunas.tamanho());
+        escreverTransacoes(conta, colunas);
+        contas++;
+        transacoes += colunas.tamanho();
+    }
+
+    /**
+     * Grava o restante dos buffers, sincroniza os arquivos com o disco e os renomeia para os nomes finais.
+     *
+     * @return Os totais da exportação.
+     */
+    public Resumo concluir() throws IOException {
+        finalizar();
+        saidaContas.publicar();
+        saidaTransacoes.publicar();
+        concluida = true;
+        return new Resumo(contas, transacoes, saidaContas.bytes + saidaTransacoes.bytes, (System.nanoTime() - inicio) / 1_000_000);
+    }
+
+    // Fecha os arquivos; sem concluir, os arquivos temporários são removidos
+    @Override
+    public void close() throws IOException {
+        try {
+            saidaContas.close();
+        } finally {
+            saidaTransacoes.close();
+        }
+        if (!concluida) {
+            Files.deleteIfExists(saidaContas.temporario);
+            Files.deleteIfExists(saidaTransacoes.temporario);
+        }
+    }
+
+    abstract void escreverConta(Conta conta, byte[] cpf, byte[] nome, long saldo, int quantidadeTransacoes) throws IOException;
+
+    abstract void escreverTransacoes(Conta conta, HistoricoTransacoes.Colunas colunas) throws IOException;
+
+    // Escreve o que ainda estiver pendente no final dos arquivos
+    abstract void finalizar() throws IOException;
+
+    // Arquivo de saída escrito por um buffer direto
+    static final class Saida implements Closeable {
+        final Path destino;
+        final Path temporario;
+        final FileChannel canal;
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(TAMANHO_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+        long bytes;
+
+        Saida(Path destino) throws IOException {
+            this.destino = destino;
+            this.temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+            this.canal = FileChannel.open(temporario, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+        }
+
+        // Garante espaço no buffer para a quantidade de bytes informada (no máximo TAMANHO_BUFFER)
+        void garantir(int quantidade) throws IOException {
+            if (buffer.remaining() < quantidade) {
+                esvaziar();
+            }
+        }
+
+        // Escreve bytes de qualquer tamanho, esvaziando o buffer quantas vezes for preciso
+        void escrever(byte[] origem, int inicio, int quantidade) throws IOException {
+            while (quantidade > 0) {
+                if (!buffer.hasRemaining()) {
+                    esvaziar();
+                }
+                int parte = Math.min(quantidade, buffer.remaining());
+                buffer.put(origem, inicio, parte);
+                inicio += parte;
+                quantidade -= parte;
+            }
+        }
+
+        void escreverLongs(long[] origem, int quantidade) throws IOException {
+            garantir(quantidade * Long.BYTES);
+            buffer.asLongBuffer().put(origem, 0, quantidade);
+            buffer.position(buffer.position() + quantidade * Long.BYTES);
+        }
+
+        void escreverInts(int[] origem, int quantidade) throws IOException {
+            garantir(quantidade * Integer.BYTES);
+            buffer.asIntBuffer().put(origem, 0, quantidade);
+            buffer.position(buffer.position() + quantidade * Integer.BYTES);
+        }
+
+        void esvaziar() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                bytes += canal.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        void publicar() throws IOException {
+            esvaziar();
+            canal.force(false);
+            canal.close();
+            Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+
+    // Exportação em CSV; os números e datas são escritos diretamente como bytes, sem criar Strings por linha
+    private static final class Csv extends ExportadorDeExtratos {
+        private static final int TAMANHO_MAXIMO_LINHA = 256;  // Linha de transação ou parte numérica de uma linha de conta
+        private static final long MS_POR_DIA = 86_400_000L;
+        private static final byte[] CABECALHO_CONTAS = "agencia,numero,tipo_conta,cpf,nome,saldo_centavos,transacoes\n"
+                .getBytes(StandardCharsets.US_ASCII);
+        private static final byte[] CABECALHO_TRANSACOES = ("agencia,numero,instante,tipo,valor_centavos,saldo_centavos,"
+                + "contraparte_agencia,contraparte_numero\n").getBytes(StandardCharsets.US_ASCII);
+        private static final byte[][] NOMES_TIPOS_CONTA = nomes(TipoConta.values());
+        private static final byte[][] NOMES_TIPOS_SERVICO = nomes(TipoServico.values());
+
+        private final byte[] digitos = new byte[20];
+        private long diaEmCache = Long.MIN_VALUE;
+        private byte[] dataEmCache;                             // "AAAA-MM-DDT" do dia em cache
+
+        Csv(Path diretorio) throws IOException {
+            super(diretorio, ".csv");
+            saidaContas.escrever(CABECALHO_CONTAS, 0, CABECALHO_CONTAS.length);
+            saidaTransacoes.escrever(CABECALHO_TRANSACOES, 0, CABECALHO_TRANSACOES.length);
+        }
+
+        private static byte[][] nomes(Enum<?>[] valores) {
+            byte[][] nomes = new byte[valores.length][];
+            for (int i = 0; i < valores.length; i++) {
+                nomes[i] = valores[i].name().getBytes(StandardCharsets.US_ASCII);
+            }
+            return nomes;
+        }
+
+        @Override
+        void escreverConta(Conta conta, byte[] cpf, byte[] nome, long saldo, int quantidadeTransacoes) throws IOException {
+            Saida saida = saidaContas;
+            saida.garantir(TAMANHO_MAXIMO_LINHA);
+            ByteBuffer buffer = saida.buffer;
+            escreverDecimal(buffer, conta.getAgencia());
+            buffer.put((byte) ',');
+            escreverDecimal(buffer, conta.getNumero());
+            buffer.put((byte) ',');
+            buffer.put(NOMES_TIPOS_CONTA[conta.getTipoConta().ordinal()]);
+            buffer.put((byte) ',');
+            escreverTexto(saida, cpf);
+            saida.garantir(1);
+            saida.buffer.put((byte) ',');
+            escreverTexto(saida, nome);
+
+            saida.garantir(TAMANHO_MAXIMO_LINHA);
+            buffer = saida.buffer;
+            buffer.put((byte) ',');
+            escreverDecimal(buffer, saldo);
+            buffer.put((byte) ',');
+            escreverDecimal(buffer, quantidadeTransacoes);
+            buffer.put((byte) '\n');
+        }
+
+        @Override
+        void escreverTransacoes(Conta conta, HistoricoTransacoes.Colunas colunas) throws IOException {
+            Saida saida = saidaTransacoes;
+            ByteBuffer buffer = saida.buffer;
+            long[] instantes = colunas.instantes();
+            byte[] tipos = colunas.tipos();
+            long[] valores = colunas.valores();
+            long[] saldos = colunas.saldos();
+            long[] contrapartes = colunas.contrapartes();
+
+            for (int i = 0; i < colunas.tamanho(); i++) {
+                saida.garantir(TAMANHO_MAXIMO_LINHA);
+                escreverDecimal(buffer, conta.getAgencia());
+                buffer.put((byte) ',');
+                escreverDecimal(buffer, conta.getNumero());
+                buffer.put((byte) ',');
+                escreverInstante(buffer, instantes[i]);
+                buffer.put((byte) ',');
+                buffer.put(NOMES_TIPOS_SERVICO[tipos[i]]);
+                buffer.put((byte) ',');
+                escreverDecimal(buffer, valores[i]);
+                buffer.put((byte) ',');
+                escreverDecimal(buffer, saldos[i]);
+                buffer.put((byte) ',');
+                if (contrapartes[i] != HistoricoTransacoes.SEM_CONTRAPARTE) {
+                    escreverDecimal(buffer, (int) (contrapartes[i] >>> 32));
+                    buffer.put((byte) ',');
+                    escreverDecimal(buffer, (int) contrapartes[i]);
+                } else {
+                    buffer.put((byte) ',');
+                }
+                buffer.put((byte) '\n');
+            }
+        }
+
+        @Override
+        void finalizar() {
+        }
+
+        // Escreve o número em decimal, com sinal
+        private void escreverDecimal(ByteBuffer buffer, long valor) {
+            if (valor == Long.MIN_VALUE) {
+                buffer.put(Long.toString(valor).getBytes(StandardCharsets.US_ASCII));
+                return;
+            }
+            if (valor < 0) {
+                buffer.put((byte) '-');
+                valor = -valor;
+            }
+            int posicao = digitos.length;
+            do {
+                digitos[--posicao] = (byte) ('0' + valor % 10);
+                valor /= 10;
+            } while (valor != 0);
+            buffer.put(digitos, posicao, digitos.length - posicao);
+        }
+
+        // Escreve o instante como AAAA-MM-DDTHH:MM:SS.mmmZ; a data é calculada apenas quando o dia muda
+        private void escreverInstante(ByteBuffer buffer, long instante) {
+            long dia = Math.floorDiv(instante, MS_POR_DIA);
+            if (dia != diaEmCache) {
+                LocalDate data = LocalDate.ofEpochDay(dia);
+                dataEmCache = String.format("%04d-%02d-%02dT", data.getYear(), data.getMonthValue(), data.getDayOfMonth())
+                        .getBytes(StandardCharsets.US_ASCII);
+                diaEmCache = dia;
+            }
+            buffer.put(dataEmCache);
+
+            int ms = (int) Math.floorMod(instante, MS_POR_DIA);
+            escreverDoisDigitos(buffer, ms / 3_600_000);
+            buffer.put((byte) ':');
+            escreverDoisDigitos(buffer, ms / 60_000 % 60);
+            buffer.put((byte) ':');
+            escreverDoisDigitos(buffer, ms / 1000 % 60);
+            buffer.put((byte) '.');
+            buffer.put((byte) ('0' + ms % 1000 / 100));
+            escreverDoisDigitos(buffer, ms % 100);
+            buffer.put((byte) 'Z');
+        }
+
+        private static void escreverDoisDigitos(ByteBuffer buffer, int valor) {
+            buffer.put((byte) ('0' + valor / 10));
+            buffer.put((byte) ('0' + valor % 10));
+        }
+
+        // Escreve um texto, entre aspas (com as aspas internas duplicadas) se ele tiver vírgula, aspas ou quebra de linha
+        private static void escreverTexto(Saida saida, byte[] texto) throws IOException {
+            boolean precisaAspas = false;
+            for (byte b : texto) {
+                if (b == ',' || b == '"' || b == '\n' || b == '\r') {
+                    precisaAspas = true;
+                    break;
+                }
+            }
+            if (!precisaAspas) {
+                saida.escrever(texto, 0, texto.length);
+                return;
+            }
+            saida.garantir(1);
+            saida.buffer.put((byte) '"');
+            int inicio = 0;
+            for (int i = 0; i < texto.length; i++) {
+                if (texto[i] == '"') {
+                    saida.escrever(texto, inicio, i + 1 - inicio);  // Inclui a aspa, que fica duplicada pela próxima parte
+                    inicio = i;
+                }
+            }
+            saida.escrever(texto, inicio, texto.length - inicio);
+            saida.garantir(1);
+            saida.buffer.put((byte) '"');
+        }
+    }
+
+    // Exportação binária colunar; cada bloco é acumulado em arrays por coluna e gravado de uma vez
+    private static final class Binario extends ExportadorDeExtratos {
+        private static final int MAGICO = 0x42445843;  // "BDXC"
+        private static final int VERSAO = 1;
+        private static final byte TABELA_CONTAS = 1;
+        private static final byte TABELA_TRANSACOES = 2;
+        private static final int LIMITE_TEXTO_BLOCO = 4 << 20;  // Bytes de CPF e nome acumulados antes de gravar um bloco de contas
+
+        // Bloco de contas
+        private final long[] chaves = new long[LINHAS_POR_BLOCO];
+        private final byte[] tiposConta = new byte[LINHAS_POR_BLOCO];
+        private final long[] saldosContas = new long[LINHAS_POR_BLOCO];
+        private final int[] quantidades = new int[LINHAS_POR_BLOCO];
+        private final int[] fimCpfs = new int[LINHAS_POR_BLOCO];
+        private final int[] fimNomes = new int[LINHAS_POR_BLOCO];
+        private byte[] cpfs = new byte[1 << 20];
+        private byte[] nomes = new byte[1 << 20];
+        private int linhasContas;
+        private long totalContas;
+
+        // Bloco de transações
+        private final long[] contas = new long[LINHAS_POR_BLOCO];
+        private final long[] instantes = new long[LINHAS_POR_BLOCO];
+        private final byte[] tipos = new byte[LINHAS_POR_BLOCO];
+        private final long[] valores = new long[LINHAS_POR_BLOCO];
+        private final long[] saldos = new long[LINHAS_POR_BLOCO];
+        private final long[] contrapartes = new long[LINHAS_POR_BLOCO];
+        private int linhasTransacoes;
+        private long totalTransacoes;
+
+        Binario(Path diretorio) throws IOException {
+            super(diretorio, ".bdc");
+            escreverCabecalho(saidaContas, TABELA_CONTAS);
+            escreverCabecalho(saidaTransacoes, TABELA_TRANSACOES);
+        }
+
+        private static void escreverCabecalho(Saida saida, byte tabela) {
+            saida.buffer.putInt(MAGICO).putInt(VERSAO).put(tabela);
+        }
+
+        @Override
+        void escreverConta(Conta conta, byte[] cpf, byte[] nome, long saldo, int quantidadeTransacoes) throws IOException {
+            int linha = linhasContas;
+            int inicioCpf = linha == 0 ? 0 : fimCpfs[linha - 1];
+            int inicioNome = linha == 0 ? 0 : fimNomes[linha - 1];
+            cpfs = acrescentar(cpfs, inicioCpf, cpf);
+            nomes = acrescentar(nomes, inicioNome, nome);
+
+            chaves[linha] = conta.getChave();
+            tiposConta[linha] = (byte) conta.getTipoConta().ordinal();
+            saldosContas[linha] = saldo;
+            quantidades[linha] = quantidadeTransacoes;
+            fimCpfs[linha] = inicioCpf + cpf.length;
+            fimNomes[linha] = inicioNome + nome.length;
+            linhasContas++;
+
+            if (linhasContas == LINHAS_POR_BLOCO || fimCpfs[linha] + fimNomes[linha] >= LIMITE_TEXTO_BLOCO) {
+                gravarBlocoContas();
+            }
+        }
+
+        @Override
+        void escreverTransacoes(Conta conta, HistoricoTransacoes.Colunas colunas) throws IOException {
+            long chave = conta.getChave();
+            int origem = 0;
+            while (origem < colunas.tamanho()) {
+                int quantidade = Math.min(colunas.tamanho() - origem, LINHAS_POR_BLOCO - linhasTransacoes);
+                int destino = linhasTransacoes;
+                Arrays.fill(contas, destino, destino + quantidade, chave);
+                System.arraycopy(colunas.instantes(), origem, instantes, destino, quantidade);
+                System.arraycopy(colunas.tipos(), origem, tipos, destino, quantidade);
+                System.arraycopy(colunas.valores(), origem, valores, destino, quantidade);
+                System.arraycopy(colunas.saldos(), origem, saldos, destino, quantidade);
+                System.arraycopy(colunas.contrapartes(), origem, contrapartes, destino, quantidade);
+                linhasTransacoes += quantidade;
+                origem += quantidade;
+
+                if (linhasTransacoes == LINHAS_POR_BLOCO) {
+                    gravarBlocoTransacoes();
+                }
+            }
+        }
+
+        @Override
+        void finalizar() throws IOException {
+            if (linhasContas > 0) {
+                gravarBlocoContas();
+            }
+            if (linhasTransacoes > 0) {
+                gravarBlocoTransacoes();
+            }
+            saidaContas.garantir(4 + 8);
+            saidaContas.buffer.putInt(0).putLong(totalContas);
+            saidaTransacoes.garantir(4 + 8);
+            saidaTransacoes.buffer.putInt(0).putLong(totalTransacoes);
+        }
+
+        private void gravarBlocoContas() throws IOException {
+            Saida saida = saidaContas;
+            int linhas = linhasContas;
+            saida.garantir(4);
+            saida.buffer.putInt(linhas);
+            saida.escreverLongs(chaves, linhas);
+            saida.escrever(tiposConta, 0, linhas);
+            saida.escreverLongs(saldosContas, linhas);
+            saida.escreverInts(quantidades, linhas);
+            saida.escreverInts(fimCpfs, linhas);
+            saida.escrever(cpfs, 0, fimCpfs[linhas - 1]);
+            saida.escreverInts(fimNomes, linhas);
+            saida.escrever(nomes, 0, fimNomes[linhas - 1]);
+            totalContas += linhas;
+            linhasContas = 0;
+        }
+
+        private void gravarBlocoTransacoes() throws IOException {
+            Saida saida = saidaTransacoes;
+            int linhas = linhasTransacoes;
+            saida.garantir(4);
+            saida.buffer.putInt(linhas);
+            saida.escreverLongs(contas, linhas);
+            saida.escreverLongs(instantes, linhas);
+            saida.escrever(tipos, 0, linhas);
+            saida.escreverLongs(valores, linhas);
+            saida.escreverLongs(saldos, linhas);
+            saida.escreverLongs(contrapartes, linhas);
+            totalTransacoes += linhas;
+            linhasTransacoes = 0;
+        }
+
+        // Copia o texto para a área na posição informada, dobrando a área se necessário
+        private static byte[] acrescentar(byte[] area, int posicao, byte[] texto) {
+            if (posicao + texto.length > area.length) {
+                area = Arrays.copyOf(area, Math.max(area.length * 2, posicao + texto.length));
+            }
+            System.arraycopy(texto, 0, area, posicao, texto.length);
+            return area;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package persistencia;
+
+/**
+ * Formato das mensagens trocadas entre o primário (TransmissorDoDiario) e a réplica (ReceptorDoDiario).
+ *
+ * A réplica abre a conexão e envia MAGICO, VERSAO, o número de partições e, para cada partição, o
+ * próximo LSN que ela espera. O primário responde com um byte:
+ * <ul>
+ *   <li>RESPOSTA_DIARIO: seguem lotes até o fim da conexão, cada um com a partição, o tamanho original,
+ *       o tamanho comprimido, o maior LSN e os registros do diário comprimidos (Deflate), com os cabeçalhos
+ *       de tamanho e CRC originais. Enquanto isso, a réplica envia confirmações (partição e maior LSN
+ *       gravado em disco na réplica);</li>
+ *   <li>RESPOSTA_SNAPSHOT: a réplica está atrás dos segmentos mantidos pelo primário; seguem o número de
+ *       arquivos e cada arquivo (caminho relativo ao diretório de dados, tamanho e conteúdo): os snapshots
+ *       mais recentes e o arquivo de idempotência. O primário encerra a conexão; a réplica reinicia a
+ *       partir desses arquivos e reconecta;</li>
+ *   <li>RESPOSTA_RECUSA: segue o motivo (texto); a réplica não deve tentar de novo.</li>
+ * </ul>
+ */
+final class ProtocoloDeReplicacao {
+    static final int MAGICO = 0x4244524C; // "BDRL"
+    static final int VERSAO = 1;
+
+    static final byte RESPOSTA_DIARIO = 0;
+    static final byte RESPOSTA_SNAPSHOT = 1;
+    static final byte RESPOSTA_RECUSA = 2;
+
+    static final int TAMANHO_MAXIMO_LOTE = 512 << 10;  // Cabe no buffer do diário da réplica e acima do maior registro
+
+    private ProtocoloDeReplicacao() {
+    }
+}
@@ -0,0 +1,323 @@
+package persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import util.HistogramaLatencia;
+
+/**
+ * Lado da réplica na replicação: conecta-se ao primário (TransmissorDoDiario), recebe os lotes de
+ * registros do diário e os entrega ao destino (ver service.Replica), na ordem de cada partição, e
+ * confirma ao primário os LSNs já gravados em disco na réplica. O formato está em ProtocoloDeReplicacao.
+ *
+ * Uma thread recebe e aplica os lotes; outra envia as confirmações a cada {@link #INTERVALO_CONFIRMACAO_MS}
+ * milissegundos, quando mudaram. Se a conexão cair, o receptor reconecta a cada segundo, informando ao
+ * primário a posição em que parou.
+ */
+public class ReceptorDoDiario implements Closeable {
+    public static final long INTERVALO_CONFIRMACAO_MS = 5;
+    private static final long ESPERA_RECONEXAO_MS = 1000;
+
+    // O banco da réplica, que aplica e grava os registros recebidos
+    public interface Destino {
+        // Próximo LSN esperado em cada partição, informado ao primário ao conectar
+        long[] proximosLsns();
+
+        /**
+         * Aplica os registros de um lote de uma partição e os acrescenta ao diário da réplica.
+         *
+         * @param registros Os registros lidos do lote, na ordem.
+         * @param brutos O lote como recebido, com os cabeçalhos de tamanho e CRC de cada registro.
+         * @param maiorLsn O maior LSN do lote.
+         */
+        void aplicar(int particao, List<RegistroDiario> registros, ByteBuffer brutos, long maiorLsn);
+
+        // Maior LSN da partição gravado em disco na réplica, confirmado ao primário
+        long lsnDuravel(int particao);
+
+        /**
+         * Prepara a réplica para receber os snapshots do primário: encerra o banco e apaga os seus arquivos.
+         *
+         * @return O diretório de dados, em que os arquivos recebidos serão gravados.
+         */
+        Path prepararSnapshot() throws IOException;
+
+        // Reabre o banco a partir dos arquivos recebidos
+        void snapshotRecebido() throws IOException;
+    }
+
+    private final InetSocketAddress primario;
+    private final int particoes;
+    private final Destino destino;
+    private final Thread recepcao;
+    private final Thread confirmacao;
+    private final HistogramaLatencia atraso = new HistogramaLatencia();
+    private volatile Socket socket;
+    private volatile DataOutputStream saida;  // Nula enquanto não há conexão recebendo o diário
+    private volatile boolean fechado;
+    private volatile String falha;
+    private volatile long lotes;
+    private volatile long registros;
+    private volatile long bytesOriginais;
+    private volatile long bytesComprimidos;
+
+    // Conecta-se ao primário e passa a receber o diário das partições, em segundo plano
+    public ReceptorDoDiario(InetSocketAddress primario, int particoes, Destino destino) {
+        this.primario = primario;
+        this.particoes = particoes;
+        this.destino = destino;
+        this.recepcao = new Thread(this::receberContinuamente, "replica-recepcao");
+        this.confirmacao = new Thread(this::confirmarContinuamente, "replica-confirmacoes");
+        recepcao.setDaemon(true);
+        confirmacao.setDaemon(true);
+        recepcao.start();
+        confirmacao.start();
+    }
+
+    // Indica se há conexão com o primário recebendo o diário
+    public boolean isConectado() {
+        return saida != null;
+    }
+
+    // Motivo pelo qual o primário recusou a réplica, ou nulo
+    public String getFalha() {
+        return falha;
+    }
+
+    // Atraso entre cada operação no primário e a sua aplicação na réplica, medido pelo registro mais antigo de cada lote
+    public HistogramaLatencia getAtraso() {
+        return atraso;
+    }
+
+    public long getLotes() {
+        return lotes;
+    }
+
+    public long getRegistros() {
+        return registros;
+    }
+
+    public long getBytesOriginais() {
+        return bytesOriginais;
+    }
+
+    public long getBytesComprimidos() {
+        return bytesComprimidos;
+    }
+
+    private void receberContinuamente() {
+        while (!fechado && falha == null) {
+            try (Socket conexao = new Socket()) {
+                conexao.connect(primario);
+                conexao.setTcpNoDelay(true);
+                socket = conexao;
+                if (fechado) {
+                    return;
+                }
+                receber(conexao);
+            } catch (IOException e) {
+                if (fechado) {
+                    return;
+                }
+                if (saida != null) {
+                    System.err.println("[!] Conexão com o primário interrompida: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(ESPERA_RECONEXAO_MS);
+                } catch (InterruptedException interrupcao) {
+                    return;
+                }
+            } finally {
+                saida = null;
+            }
+        }
+    }
+
+    private void receber(Socket conexao) throws IOException {
+        DataOutputStream novaSaida = new DataOutputStream(new BufferedOutputStream(conexao.getOutputStream()));
+        long[] posicoes = destino.proximosLsns();
+        novaSaida.writeInt(ProtocoloDeReplicacao.MAGICO);
+        novaSaida.writeInt(ProtocoloDeReplicacao.VERSAO);
+        novaSaida.writeInt(particoes);
+        for (long posicao : posicoes) {
+            novaSaida.writeLong(posicao);
+        }
+        novaSaida.flush();
+
+        DataInputStream entrada = new DataInputStream(new BufferedInputStream(conexao.getInputStream(), 1 << 16));
+        switch (entrada.readByte()) {
+            case ProtocoloDeReplicacao.RESPOSTA_RECUSA -> {
+                falha = entrada.readUTF();
+                System.err.println("[!] O primário recusou a réplica: " + falha);
+            }
+            case ProtocoloDeReplicacao.RESPOSTA_SNAPSHOT -> receberSnapshot(entrada);
+            case ProtocoloDeReplicacao.RESPOSTA_DIARIO -> {
+                saida = novaSaida;
+                receberLotes(entrada);
+            }
+            default -> throw new IOException("Resposta inválida do primário.");
+        }
+    }
+
+    private void receberLotes(DataInputStream entrada) throws IOException {
+        Inflater descompressor = new Inflater();
+        byte[] comprimido = new byte[1 << 16];
+        byte[] original = new byte[ProtocoloDeReplicacao.TAMANHO_MAXIMO_LOTE];
+        CRC32 crc = new CRC32();
+        List<RegistroDiario> lote = new ArrayList<>();
+        try {
+            while (true) {
+                int particao = entrada.readInt();
+                int tamanhoOriginal = entrada.readInt();
+                int tamanhoComprimido = entrada.readInt();
+                long maiorLsn = entrada.readLong();
+                if (particao < 0 || particao >= particoes || tamanhoOriginal <= 0 || tamanhoOriginal > original.length
+                        || tamanhoComprimido <= 0) {
+                    throw new IOException("Lote inválido recebido do primário.");
+                }
+                if (tamanhoComprimido > comprimido.length) {
+                    comprimido = Arrays.copyOf(comprimido, Integer.highestOneBit(tamanhoComprimido) << 1);
+                }
+                entrada.readFully(comprimido, 0, tamanhoComprimido);
+
+                descompressor.reset();
+                descompressor.setInput(comprimido, 0, tamanhoComprimido);
+                int descomprimidos = 0;
+                while (descomprimidos < tamanhoOriginal && !descompressor.finished()) {
+                    int lidos = descompressor.inflate(original, descomprimidos, tamanhoOriginal - descomprimidos);
+                    if (lidos == 0 && descompressor.needsInput()) {
+                        break;
+                    }
+                    descomprimidos += lidos;
+                }
+                if (descomprimidos != tamanhoOriginal) {
+                    throw new IOException("Lote truncado recebido do primário.");
+                }
+
+                ByteBuffer brutos = ByteBuffer.wrap(original, 0, tamanhoOriginal);
+                lote.clear();
+                while (brutos.hasRemaining()) {
+                    int tamanho = DiarioDeOperacoes.verificarRegistro(brutos, crc);
+                    if (tamanho <= 0) {
+                        throw new IOException("Registro corrompido recebido do primário.");
+                    }
+                    lote.add(RegistroDiario.ler(brutos.slice(brutos.position() + DiarioDeOperacoes.TAMANHO_CABECALHO,
+                            tamanho - DiarioDeOperacoes.TAMANHO_CABECALHO)));
+                    brutos.position(brutos.position() + tamanho);
+                }
+                destino.aplicar(particao, lote, brutos.flip(), maiorLsn);
+
+                atraso.registrar((System.currentTimeMillis() - lote.get(0).instante()) * 1_000_000L);
+                lotes++;
+                registros += lote.size();
+                bytesOriginais += tamanhoOriginal;
+                bytesComprimidos += tamanhoComprimido;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Lote inválido recebido do primário.", e);
+        } finally {
+            descompressor.end();
+        }
+    }
+
+    // Grava os arquivos recebidos no diretório da réplica, cada um com nome temporário e renomeado ao final
+    private void receberSnapshot(DataInputStream entrada) throws IOException {
+        int quantidade = entrada.readInt();
+        Path diretorio = destino.prepararSnapshot().toAbsolutePath().normalize();
+        byte[] bloco = new byte[1 << 16];
+        for (int i = 0; i < quantidade; i++) {
+            Path arquivo = diretorio.resolve(entrada.readUTF()).normalize();
+            if (!arquivo.startsWith(diretorio) || arquivo.equals(diretorio)) {
+                throw new IOException("Caminho inválido recebido do primário: " + arquivo);
+            }
+            long tamanho = entrada.readLong();
+            Files.createDirectories(arquivo.getParent());
+            Path temporario = arquivo.resolveSibling(arquivo.getFileName() + ".tmp");
+            try (OutputStream conteudo = Files.newOutputStream(temporario)) {
+                for (long restante = tamanho; restante > 0; ) {
+                    int lidos = entrada.read(bloco, 0, (int) Math.min(bloco.length, restante));
+                    if (lidos < 0) {
+                        throw new IOException("Conexão encerrada durante o envio do snapshot.");
+                    }
+                    conteudo.write(bloco, 0, lidos);
+                    restante -= lidos;
+                }
+            }
+            Files.move(temporario, arquivo, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        destino.snapshotRecebido();
+    }
+
+    // Envia ao primário o maior LSN gravado em disco em cada partição, quando mudou
+    private void confirmarContinuamente() {
+        long[] enviados = new long[particoes];
+        DataOutputStream ultimaSaida = null;
+        while (!fechado) {
+            try {
+                Thread.sleep(INTERVALO_CONFIRMACAO_MS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            DataOutputStream atual = saida;
+            if (atual == null) {
+                continue;
+            }
+            if (atual != ultimaSaida) {
+                Arrays.fill(enviados, -1);
+                ultimaSaida = atual;
+            }
+            try {
+                boolean enviou = false;
+                for (int particao = 0; particao < particoes; particao++) {
+                    long lsn = destino.lsnDuravel(particao);
+                    if (lsn != enviados[particao]) {
+                        atual.writeInt(particao);
+                        atual.writeLong(lsn);
+                        enviados[particao] = lsn;
+                        enviou = true;
+                    }
+                }
+                if (enviou) {
+                    atual.flush();
+                }
+            } catch (IOException e) {
+                // A thread de recepção trata a queda da conexão
+            }
+        }
+    }
+
+    // Encerra a conexão com o primário e aguarda as threads do receptor; o lote em aplicação é concluído antes
+    @Override
+    public void close() throws IOException {
+        fechado = true;
+        Socket atual = socket;
+        if (atual != null) {
+            atual.close();
+        }
+        confirmacao.interrupt();
+        recepcao.interrupt();
+        try {
+            recepcao.join();
+            confirmacao.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
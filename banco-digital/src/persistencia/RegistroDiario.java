@@ -0,0 +1,227 @@
+package persistencia;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Registro lido do diário de operações.
+ *
+ * Há dois tipos principais de registro: a criação de uma conta e uma operação financeira já aplicada
+ * (saque, depósito ou transferência). Uma transferência entre contas de partições diferentes gera
+ * duas metades, uma no diário de cada partição (débito e crédito), e cada metade guarda o LSN da
+ * outra (ver DiarioDeOperacoes.registrarTransferencia). Da mesma forma, uma transação com várias pernas
+ * gera uma parte (TRANSACAO) no diário de cada partição envolvida; cada parte guarda todas as pernas e
+ * o LSN de todas as partes (ver DiarioDeOperacoes.registrarTransacao).
+ *
+ * Uma operação executada com chave de idempotência guarda a chave no próprio registro (nas duas
+ * metades, entre partições), de forma que a chave nunca chega ao disco sem a operação, nem o contrário.
+ * Uma operação recusada com chave gera um registro RESULTADO_IDEMPOTENTE, que não altera saldos.
+ *
+ * Os métodos estáticos definem o formato binário utilizado no arquivo, sem o cabeçalho de tamanho e
+ * CRC, que é responsabilidade do diário.
+ */
+public record RegistroDiario(
+        long lsn,
+        Tipo tipo,
+        long instante,
+        TipoServico tipoServico,  // Apenas para OPERACAO e RESULTADO_IDEMPOTENTE
+        long origem,              // Chave da conta de origem (OPERACAO, RESULTADO_IDEMPOTENTE) ou da conta criada (CRIACAO_CONTA)
+        long destino,             // Chave da conta de destino, ou -1 quando não houver; em RENDIMENTO e TARIFA, o período apurado
+        long valor,               // Valor em centavos
+        TipoConta tipoConta,      // Apenas para CRIACAO_CONTA
+        String nome,              // Apenas para CRIACAO_CONTA
+        String cpf,               // Apenas para CRIACAO_CONTA
+        long lsnContraparte,      // Apenas para as metades de transferência: LSN da outra metade, no diário da outra partição
+        String chaveIdempotencia, // Chave de idempotência da operação, ou nula
+        ResultadoOperacao resultado,   // Apenas para RESULTADO_IDEMPOTENTE
+        Transacao transacao) {         // Apenas para TRANSACAO
+
+    public enum Tipo {
+        CRIACAO_CONTA,
+        OPERACAO,
+        DEBITO_ENTRE_PARTICOES,
+        CREDITO_ENTRE_PARTICOES,
+        RESULTADO_IDEMPOTENTE,
+        TRANSACAO
+    }
+
+    /**
+     * Conteúdo de uma parte de transação: as partições envolvidas (em ordem crescente) com o LSN da parte
+     * de cada uma, e as pernas da transação, na ordem em que foram aplicadas.
+     */
+    public record Transacao(int[] particoes, long[] lsns, long[] origens, long[] destinos, long[] valores) {
+        public int quantidadePernas() {
+            return origens.length;
+        }
+    }
+
+    private static final Tipo[] TIPOS = Tipo.values();
+
+    private static final TipoServico[] TIPOS_SERVICO = TipoServico.values();
+    private static final TipoConta[] TIPOS_CONTA = TipoConta.values();
+    private static final ResultadoOperacao[] RESULTADOS = ResultadoOperacao.values();
+
+    // Tamanho máximo de um registro; protege a leitura contra cabeçalhos corrompidos
+    static final int TAMANHO_MAXIMO = 1 << 18;
+
+    // Tamanho, em bytes, de um registro de operação, sem a chave de idempotência
+    static final int TAMANHO_OPERACAO = 8 + 1 + 8 + 1 + 8 + 8 + 8;
+
+    // Tamanho, em bytes, de uma metade de transferência entre partições, sem a chave de idempotência
+    static final int TAMANHO_METADE_TRANSFERENCIA = TAMANHO_OPERACAO + 8;
+
+    // Tamanho, em bytes, de uma parte de transação
+    static int tamanhoTransacao(int partes, int pernas) {
+        return 8 + 1 + 8 + 2 + partes * (2 + 8) + 4 + pernas * 24;
+    }
+
+    // Tamanho, em bytes, da chave de idempotência ao final de um registro (0 sem chave)
+    static int tamanhoChave(byte[] chave) {
+        return chave == null ? 0 : 2 + chave.length;
+    }
+
+    // Tamanho, em bytes, de um registro RESULTADO_IDEMPOTENTE
+    static int tamanhoResultado(byte[] chave) {
+        return 8 + 1 + 8 + 1 + 8 + 1 + tamanhoChave(chave);
+    }
+
+    // Escreve um registro de operação no buffer; a chave de idempotência (opcional) fica ao final
+    static void escreverOperacao(ByteBuffer buffer, long lsn, long instante, TipoServico tipoServico, long origem, long destino, long valor, byte[] chave) {
+        buffer.putLong(lsn);
+        buffer.put((byte) Tipo.OPERACAO.ordinal());
+        buffer.putLong(instante);
+        buffer.put((byte) tipoServico.ordinal());
+        buffer.putLong(origem);
+        buffer.putLong(destino);
+        buffer.putLong(valor);
+        escreverChave(buffer, chave);
+    }
+
+    // Escreve uma metade (DEBITO_ENTRE_PARTICOES ou CREDITO_ENTRE_PARTICOES) de uma transferência entre partições
+    static void escreverMetadeTransferencia(ByteBuffer buffer, Tipo tipo, long lsn, long instante, long origem, long destino, long valor,
+            long lsnContraparte, byte[] chave) {
+        buffer.putLong(lsn);
+        buffer.put((byte) tipo.ordinal());
+        buffer.putLong(instante);
+        buffer.put((byte) TipoServico.TRANSFERENCIA.ordinal());
+        buffer.putLong(origem);
+        buffer.putLong(destino);
+        buffer.putLong(valor);
+        buffer.putLong(lsnContraparte);
+        escreverChave(buffer, chave);
+    }
+
+    // Escreve uma parte de transação com o LSN informado; as demais partes são identificadas em "transacao"
+    static void escreverTransacao(ByteBuffer buffer, long lsn, long instante, Transacao transacao) {
+        buffer.putLong(lsn);
+        buffer.put((byte) Tipo.TRANSACAO.ordinal());
+        buffer.putLong(instante);
+        buffer.putShort((short) transacao.particoes().length);
+        for (int i = 0; i < transacao.particoes().length; i++) {
+            buffer.putShort((short) transacao.particoes()[i]);
+            buffer.putLong(transacao.lsns()[i]);
+        }
+        buffer.putInt(transacao.quantidadePernas());
+        for (int i = 0; i < transacao.quantidadePernas(); i++) {
+            buffer.putLong(transacao.origens()[i]);
+            buffer.putLong(transacao.destinos()[i]);
+            buffer.putLong(transacao.valores()[i]);
+        }
+    }
+
+    // Escreve o resultado de uma operação recusada que foi executada com chave de idempotência
+    static void escreverResultado(ByteBuffer buffer, long lsn, long instante, TipoServico tipoServico, long conta, ResultadoOperacao resultado, byte[] chave) {
+        buffer.putLong(lsn);
+        buffer.put((byte) Tipo.RESULTADO_IDEMPOTENTE.ordinal());
+        buffer.putLong(instante);
+        buffer.put((byte) tipoServico.ordinal());
+        buffer.putLong(conta);
+        buffer.put((byte) resultado.ordinal());
+        escreverChave(buffer, chave);
+    }
+
+    private static void escreverChave(ByteBuffer buffer, byte[] chave) {
+        if (chave != null) {
+            buffer.putShort((short) chave.length);
+            buffer.put(chave);
+        }
+    }
+
+    // Escreve um registro de criação de conta no buffer
+    static void escreverCriacao(ByteBuffer buffer, long lsn, long instante, long chave, TipoConta tipoConta, byte[] nome, byte[] cpf) {
+        buffer.putLong(lsn);
+        buffer.put((byte) Tipo.CRIACAO_CONTA.ordinal());
+        buffer.putLong(instante);
+        buffer.putLong(chave);
+        buffer.put((byte) tipoConta.ordinal());
+        buffer.putShort((short) nome.length);
+        buffer.put(nome);
+        buffer.putShort((short) cpf.length);
+        buffer.put(cpf);
+    }
+
+    // Tamanho, em bytes, de um registro de criação de conta
+    static int tamanhoCriacao(byte[] nome, byte[] cpf) {
+        return 8 + 1 + 8 + 8 + 1 + 2 + nome.length + 2 + cpf.length;
+    }
+
+    // Lê um registro a partir da posição atual do buffer
+    static RegistroDiario ler(ByteBuffer buffer) {
+        long lsn = buffer.getLong();
+        Tipo tipo = TIPOS[buffer.get()];
+        long instante = buffer.getLong();
+
+        if (tipo == Tipo.CRIACAO_CONTA) {
+            long chave = buffer.getLong();
+            TipoConta tipoConta = TIPOS_CONTA[buffer.get()];
+            String nome = lerTexto(buffer);
+            String cpf = lerTexto(buffer);
+            return new RegistroDiario(lsn, tipo, instante, null, chave, -1L, 0L, tipoConta, nome, cpf, 0L, null, null, null);
+        }
+
+        if (tipo == Tipo.TRANSACAO) {
+            int partes = Short.toUnsignedInt(buffer.getShort());
+            int[] particoes = new int[partes];
+            long[] lsns = new long[partes];
+            for (int i = 0; i < partes; i++) {
+                particoes[i] = Short.toUnsignedInt(buffer.getShort());
+                lsns[i] = buffer.getLong();
+            }
+            int pernas = buffer.getInt();
+            long[] origens = new long[pernas];
+            long[] destinos = new long[pernas];
+            long[] valores = new long[pernas];
+            for (int i = 0; i < pernas; i++) {
+                origens[i] = buffer.getLong();
+                destinos[i] = buffer.getLong();
+                valores[i] = buffer.getLong();
+            }
+            return new RegistroDiario(lsn, tipo, instante, TipoServico.TRANSFERENCIA, -1L, -1L, 0L, null, null, null, 0L, null, null,
+                    new Transacao(particoes, lsns, origens, destinos, valores));
+        }
+
+        TipoServico tipoServico = TIPOS_SERVICO[buffer.get()];
+        long origem = buffer.getLong();
+        if (tipo == Tipo.RESULTADO_IDEMPOTENTE) {
+            ResultadoOperacao resultado = RESULTADOS[buffer.get()];
+            return new RegistroDiario(lsn, tipo, instante, tipoServico, origem, -1L, 0L, null, null, null, 0L, lerTexto(buffer), resultado, null);
+        }
+        long destino = buffer.getLong();
+        long valor = buffer.getLong();
+        long lsnContraparte = tipo == Tipo.OPERACAO ? 0L : buffer.getLong();
+
+        // Registros sem chave de idempotência terminam aqui (inclusive os gravados antes de ela existir)
+        String chaveIdempotencia = buffer.hasRemaining() ? lerTexto(buffer) : null;
+        return new RegistroDiario(lsn, tipo, instante, tipoServico, origem, destino, valor, null, null, null, lsnContraparte, chaveIdempotencia, null, null);
+    }
+
+    private static String lerTexto(ByteBuffer buffer) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Lê os segmentos do diário de uma partição à medida que são gravados, a partir de um segmento e de um
+ * LSN mínimo, para a transmissão à réplica (ver TransmissorDoDiario).
+ *
+ * Lê somente o que já está nos arquivos; um registro incompleto no fim do segmento atual é relido na
+ * próxima chamada. Quando o segmento seguinte já existe, o atual está encerrado (ver
+ * DiarioDeOperacoes.rotacionar): o seguidor lê o que faltar e passa ao próximo, descartando um registro
+ * incompleto no final, como faz a recuperação.
+ */
+class SeguidorDeSegmentos implements Closeable {
+    private static final int TAMANHO_ENTRADA = 2 * (DiarioDeOperacoes.TAMANHO_CABECALHO + RegistroDiario.TAMANHO_MAXIMO);
+
+    private final Path diretorio;
+    private final long lsnMinimo;
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer entrada = ByteBuffer.allocate(TAMANHO_ENTRADA).flip();  // Bytes lidos e ainda não consumidos
+    private long segmento;
+    private FileChannel canal;
+    private long posicaoArquivo;
+
+    /**
+     * @param segmento O primeiro segmento a ser lido.
+     * @param lsnMinimo Registros com LSN menor são ignorados (a réplica já os possui).
+     */
+    SeguidorDeSegmentos(Path diretorio, long segmento, long lsnMinimo) {
+        this.diretorio = diretorio;
+        this.segmento = segmento;
+        this.lsnMinimo = lsnMinimo;
+    }
+
+    /**
+     * Copia para o lote os próximos registros completos, com os cabeçalhos, até encher o lote ou
+     * alcançar o fim do que já foi gravado.
+     *
+     * @return O maior LSN copiado, ou -1 se nenhum registro foi copiado.
+     * @throws IOException Se um registro estiver corrompido ou se o segmento a ser lido já foi descartado.
+     */
+    long ler(ByteBuffer lote) throws IOException {
+        long maiorLsn = -1;
+        while (true) {
+            int tamanho = DiarioDeOperacoes.verificarRegistro(entrada, crc);
+            if (tamanho > 0) {
+                if (tamanho > lote.remaining()) {
+                    return maiorLsn;
+                }
+                int inicio = entrada.position();
+                long lsn = entrada.getLong(inicio + DiarioDeOperacoes.TAMANHO_CABECALHO);
+                if (lsn >= lsnMinimo) {
+                    lote.put(entrada.slice(inicio, tamanho));
+                    maiorLsn = Math.max(maiorLsn, lsn);
+                }
+                entrada.position(inicio + tamanho);
+                continue;
+            }
+            if (tamanho < 0) {
+                // Num segmento encerrado, é o resto de uma gravação interrompida, que a recuperação também ignora
+                if (!Files.exists(DiarioDeOperacoes.caminhoSegmento(diretorio, segmento + 1))) {
+                    throw new IOException("Registro corrompido no segmento " + segmento + " de " + diretorio);
+                }
+            } else {
+                if (canal == null && !abrir()) {
+                    return maiorLsn;
+                }
+                // O segmento seguinte é verificado antes da leitura: se ele já existia, esta leitura vê o segmento atual inteiro
+                boolean encerrado = Files.exists(DiarioDeOperacoes.caminhoSegmento(diretorio, segmento + 1));
+                entrada.compact();
+                int lidos = canal.read(entrada, posicaoArquivo);
+                entrada.flip();
+                if (lidos > 0) {
+                    posicaoArquivo += lidos;
+                    continue;
+                }
+                if (!encerrado) {
+                    return maiorLsn;
+                }
+            }
+            if (canal != null) {
+                canal.close();
+            }
+            canal = null;
+            entrada.clear().flip();
+            segmento++;
+            posicaoArquivo = 0;
+        }
+    }
+
+    // Abre o segmento atual; retorna false se ele ainda não foi criado
+    private boolean abrir() throws IOException {
+        try {
+            canal = FileChannel.open(DiarioDeOperacoes.caminhoSegmento(diretorio, segmento), StandardOpenOption.READ);
+            return true;
+        } catch (NoSuchFileException e) {
+            for (long existente : DiarioDeOperacoes.listarSegmentos(diretorio)) {
+                if (existente > segmento) {
+                    throw new IOException("O segmento " + segmento + " de " + diretorio + " já foi descartado.");
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (canal != null) {
+            canal.close();
+        }
+    }
+}
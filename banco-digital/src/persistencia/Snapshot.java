@@ -0,0 +1,289 @@
+package persistencia;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import model.Cliente;
+import model.Conta;
+import model.HistoricoTransacoes;
+import model.TipoConta;
+import model.TipoServico;
+import service.Banco;
+
+/**
+ * Snapshot binário de todas as contas, gravado e lido por meio de arquivos mapeados em memória.
+ *
+ * Cada conta é copiada sob o seu próprio lock, junto com o LSN da última operação aplicada, sem
+ * interromper as demais contas. Por isso o snapshot não precisa ser um retrato de um único
+ * instante: na recuperação, o diário é reaplicado a partir do segmento registrado no cabeçalho,
+ * e cada conta ignora os registros com LSN menor ou igual ao seu.
+ */
+public class Snapshot {
+    private static final int MAGICO = 0x42444E4B; // "BDNK"
+    private static final int VERSAO = 2;               // A versão 2 acrescenta o último período apurado de cada conta
+    private static final String PREFIXO = "snapshot-";
+    private static final String SUFIXO = ".dat";
+    private static final long TAMANHO_JANELA = 64L << 20;
+    private static final TipoConta[] TIPOS_CONTA = TipoConta.values();
+    private static final TipoServico[] TIPOS_SERVICO = TipoServico.values();
+
+    // Dados do cabeçalho de um snapshot
+    public record Cabecalho(long segmentoInicial, long proximoLsn, long quantidadeContas) {
+    }
+
+    /**
+     * Grava o snapshot das contas informadas.
+     *
+     * O arquivo é escrito com um nome temporário e renomeado ao final, para que um snapshot
+     * incompleto nunca seja usado na recuperação.
+     *
+     * @param segmentoInicial Primeiro segmento do diário a ser reaplicado sobre este snapshot.
+     * @param proximoLsn Próximo LSN do diário no momento do snapshot.
+     * @param antesDePublicar Executado depois de gravar o arquivo e antes de renomeá-lo; usado para aguardar
+     *                        a gravação no diário das operações copiadas no snapshot.
+     */
+    public static Path salvar(Path diretorio, long segmentoInicial, long proximoLsn, Iterable<Conta> contas,
+            Runnable antesDePublicar) throws IOException {
+        Path destino = caminho(diretorio, segmentoInicial);
+        Path temporario = destino.resolveSibling(destino.getFileName() + ".tmp");
+        long quantidade = 0;
+
+        try (EscritorMapeado escritor = new EscritorMapeado(temporario)) {
+            escritor.garantir(4 + 4 + 8 + 8 + 8);
+            escritor.janela.putInt(MAGICO);
+            escritor.janela.putInt(VERSAO);
+            escritor.janela.putLong(segmentoInicial);
+            escritor.janela.putLong(proximoLsn);
+            long posicaoQuantidade = escritor.posicao();
+            escritor.janela.putLong(0L);
+
+            for (Conta conta : contas) {
+                escreverConta(escritor, conta);
+                quantidade++;
+            }
+            escritor.escreverLong(posicaoQuantidade, quantidade);
+        }
+
+        antesDePublicar.run();
+        Files.move(temporario, destino, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return destino;
+    }
+
+    /**
+     * Lê um snapshot, entregando cada conta reconstruída ao consumidor.
+     *
+     * @return O cabeçalho do snapshot.
+     */
+    public static Cabecalho carregar(Path arquivo, Consumer<Conta> consumidor) throws IOException {
+        try (LeitorMapeado leitor = new LeitorMapeado(arquivo)) {
+            int versao = lerVersao(leitor, arquivo);
+            Cabecalho cabecalho = new Cabecalho(leitor.janela.getLong(), leitor.janela.getLong(), leitor.janela.getLong());
+
+            for (long i = 0; i < cabecalho.quantidadeContas(); i++) {
+                consumidor.accept(lerConta(leitor, versao));
+            }
+            return cabecalho;
+        }
+    }
+
+    // Lê apenas o cabeçalho de um snapshot, sem carregar as contas
+    public static Cabecalho lerCabecalho(Path arquivo) throws IOException {
+        try (LeitorMapeado leitor = new LeitorMapeado(arquivo)) {
+            lerVersao(leitor, arquivo);
+            return new Cabecalho(leitor.janela.getLong(), leitor.janela.getLong(), leitor.janela.getLong());
+        }
+    }
+
+    // Retorna o snapshot mais recente do diretório, se houver
+    public static Path maisRecente(Path diretorio) throws IOException {
+        List<Long> segmentos = listar(diretorio);
+        return segmentos.isEmpty() ? null : caminho(diretorio, segmentos.get(segmentos.size() - 1));
+    }
+
+    // Remove os snapshots anteriores ao informado
+    public static void descartarAnteriores(Path diretorio, long segmentoInicial) throws IOException {
+        for (long segmento : listar(diretorio)) {
+            if (segmento < segmentoInicial) {
+                Files.deleteIfExists(caminho(diretorio, segmento));
+            }
+        }
+    }
+
+    private static int lerVersao(LeitorMapeado leitor, Path arquivo) throws IOException {
+        leitor.garantir(4 + 4 + 8 + 8 + 8);
+        int versao = leitor.janela.getInt() != MAGICO ? -1 : leitor.janela.getInt();
+        if (versao < 1 || versao > VERSAO) {
+            throw new IOException("Arquivo de snapshot inválido: " + arquivo);
+        }
+        return versao;
+    }
+
+    private static void escreverConta(EscritorMapeado escritor, Conta conta) throws IOException {
+        byte[] nome = conta.getCliente().getNome().getBytes(StandardCharsets.UTF_8);
+        byte[] cpf = conta.getCliente().getCpf().getBytes(StandardCharsets.UTF_8);
+
+        // O lock da conta garante que saldo, histórico e LSN sejam copiados de forma consistente
+        synchronized (conta) {
+            HistoricoTransacoes historico = conta.getHistorico();
+            int quantidade = historico.tamanho();
+
+            escritor.garantir(4 + 4 + 1 + 2 + nome.length + 2 + cpf.length + 8 + 8 + 4 + 4);
+            ByteBuffer janela = escritor.janela;
+            janela.putInt(conta.getAgencia());
+            janela.putInt(conta.getNumero());
+            janela.put((byte) conta.getTipoConta().ordinal());
+            janela.putShort((short) nome.length);
+            janela.put(nome);
+            janela.putShort((short) cpf.length);
+            janela.put(cpf);
+            janela.putLong(conta.getSaldo());
+            janela.putLong(conta.getUltimoLsn());
+            janela.putInt(conta.getUltimoPeriodoApurado());
+            janela.putInt(quantidade);
+
+            for (int i = 0; i < quantidade; i++) {
+                escritor.garantir(8 + 1 + 8 + 8 + 8);
+                janela = escritor.janela;
+                janela.putLong(historico.getInstante(i));
+                janela.put((byte) historico.getTipo(i).ordinal());
+                janela.putLong(historico.getValor(i));
+                janela.putLong(historico.getSaldo(i));
+                janela.putLong(historico.getContraparte(i));
+            }
+        }
+    }
+
+    private static Conta lerConta(LeitorMapeado leitor, int versao) throws IOException {
+        leitor.garantir(4 + 4 + 1 + 2);
+        int agencia = leitor.janela.getInt();
+        int numero = leitor.janela.getInt();
+        TipoConta tipoConta = TIPOS_CONTA[leitor.janela.get()];
+        String nome = leitor.lerTexto();
+        String cpf = leitor.lerTexto();
+
+        leitor.garantir(8 + 8 + 4 + (versao >= 2 ? 4 : 0));
+        long saldo = leitor.janela.getLong();
+        long ultimoLsn = leitor.janela.getLong();
+        int ultimoPeriodoApurado = versao >= 2 ? leitor.janela.getInt() : 0;
+        int quantidade = leitor.janela.getInt();
+
+        Conta conta = Banco.instanciarConta(new Cliente(nome, cpf), tipoConta, agencia, numero);
+        HistoricoTransacoes historico = conta.getHistorico();
+        for (int i = 0; i < quantidade; i++) {
+            leitor.garantir(8 + 1 + 8 + 8 + 8);
+            ByteBuffer janela = leitor.janela;
+            historico.registrar(janela.getLong(), TIPOS_SERVICO[janela.get()], janela.getLong(), janela.getLong(), janela.getLong());
+        }
+        conta.restaurar(saldo, ultimoLsn, ultimoPeriodoApurado);
+        return conta;
+    }
+
+    private static Path caminho(Path diretorio, long segmentoInicial) {
+        return diretorio.resolve(String.format("%s%020d%s", PREFIXO, segmentoInicial, SUFIXO));
+    }
+
+    private static List<Long> listar(Path diretorio) throws IOException {
+        List<Long> segmentos = new ArrayList<>();
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            arquivos.map(arquivo -> arquivo.getFileName().toString())
+                    .filter(nome -> nome.startsWith(PREFIXO) && nome.endsWith(SUFIXO))
+                    .forEach(nome -> segmentos.add(Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()))));
+        }
+        segmentos.sort(null);
+        return segmentos;
+    }
+
+    // Escreve o arquivo por janelas mapeadas em memória, remapeando conforme o arquivo cresce
+    private static class EscritorMapeado implements Closeable {
+        private final FileChannel canal;
+        private MappedByteBuffer janela;
+        private long inicioJanela;
+
+        EscritorMapeado(Path arquivo) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        long posicao() {
+            return janela == null ? 0 : inicioJanela + janela.position();
+        }
+
+        void garantir(int bytes) throws IOException {
+            if (janela == null || janela.remaining() < bytes) {
+                long inicio = posicao();
+                if (janela != null) {
+                    janela.force();
+                }
+                janela = canal.map(FileChannel.MapMode.READ_WRITE, inicio, Math.max(TAMANHO_JANELA, bytes));
+                inicioJanela = inicio;
+            }
+        }
+
+        void escreverLong(long posicao, long valor) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(8).putLong(0, valor);
+            canal.write(buffer, posicao);
+        }
+
+        @Override
+        public void close() throws IOException {
+            long fim = posicao();
+            if (janela != null) {
+                janela.force();
+            }
+            canal.truncate(fim);
+            canal.force(true);
+            canal.close();
+        }
+    }
+
+    // Lê o arquivo por janelas mapeadas em memória
+    private static class LeitorMapeado implements Closeable {
+        private final FileChannel canal;
+        private final long tamanho;
+        private MappedByteBuffer janela;
+        private long inicioJanela;
+
+        LeitorMapeado(Path arquivo) throws IOException {
+            this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+            this.tamanho = canal.size();
+        }
+
+        void garantir(int bytes) throws IOException {
+            if (janela == null || janela.remaining() < bytes) {
+                long inicio = janela == null ? 0 : inicioJanela + janela.position();
+                long disponivel = Math.min(Math.max(TAMANHO_JANELA, bytes), tamanho - inicio);
+                if (disponivel < bytes) {
+                    throw new IOException("Snapshot truncado.");
+                }
+                janela = canal.map(FileChannel.MapMode.READ_ONLY, inicio, disponivel);
+                inicioJanela = inicio;
+            }
+        }
+
+        String lerTexto() throws IOException {
+            garantir(2);
+            int comprimento = Short.toUnsignedInt(janela.getShort());
+            garantir(comprimento);
+            byte[] bytes = new byte[comprimento];
+            janela.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public void close() throws IOException {
+            canal.close();
+        }
+    }
+}
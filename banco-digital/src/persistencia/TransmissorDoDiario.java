@@ -0,0 +1,346 @@
+package persistencia;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.zip.Deflater;
+
+/**
+ * Lado primário da replicação: transmite o diário de operações de todas as partições a réplicas
+ * conectadas por TCP (ver ReceptorDoDiario e o formato em ProtocoloDeReplicacao).
+ *
+ * Os registros são lidos dos próprios segmentos em disco (ver SeguidorDeSegmentos), depois de gravados:
+ * a réplica nunca recebe uma operação que o primário poderia perder numa queda, e a mesma leitura serve
+ * para alcançar o primário a partir de qualquer posição ainda mantida nos segmentos e para acompanhar
+ * as novas gravações. Uma thread por partição agrupa os registros disponíveis em lotes de até
+ * {@link ProtocoloDeReplicacao#TAMANHO_MAXIMO_LOTE} bytes, comprimidos; sem registros novos, ela aguarda
+ * a próxima gravação do diário (DiarioDeOperacoes.aguardarGravacao), sem consultas periódicas.
+ *
+ * Uma réplica atrás do snapshot mais recente de alguma partição (os segmentos anteriores já foram
+ * descartados) recebe os arquivos dos snapshots e de idempotência e reinicia a partir deles.
+ */
+public class TransmissorDoDiario implements Closeable {
+    private static final long ESPERA_GRAVACAO_MS = 100;
+
+    private final Path diretorioDados;
+    private final Path[] diretorios;
+    private final DiarioDeOperacoes[] diarios;
+    private final Path arquivoIdempotencia;
+    private final ServerSocket servidor;
+    private final Thread aceitacao;
+    private final Set<Conexao> conexoes = ConcurrentHashMap.newKeySet();
+    private final AtomicLongArray confirmados;  // Maior LSN confirmado por uma réplica, por partição
+    private volatile boolean fechado;
+
+    /**
+     * Inicia a transmissão, aceitando réplicas no endereço informado.
+     *
+     * @param diretorioDados O diretório de dados do banco; os caminhos dos arquivos enviados às réplicas são relativos a ele.
+     * @param diretorios O diretório do diário e dos snapshots de cada partição.
+     * @param diarios O diário de cada partição.
+     * @param arquivoIdempotencia O arquivo em que o banco salva as chaves de idempotência junto com os snapshots.
+     */
+    public TransmissorDoDiario(Path diretorioDados, Path[] diretorios, DiarioDeOperacoes[] diarios, Path arquivoIdempotencia,
+            InetSocketAddress endereco) throws IOException {
+        this.diretorioDados = diretorioDados;
+        this.diretorios = diretorios;
+        this.diarios = diarios;
+        this.arquivoIdempotencia = arquivoIdempotencia;
+        this.confirmados = new AtomicLongArray(diarios.length);
+        this.servidor = new ServerSocket();
+        servidor.bind(endereco);
+        this.aceitacao = new Thread(this::aceitarConexoes, "replicacao-aceitacao");
+        aceitacao.setDaemon(true);
+        aceitacao.start();
+    }
+
+    // Porta em que as réplicas são aceitas
+    public int getPorta() {
+        return servidor.getLocalPort();
+    }
+
+    // Número de réplicas conectadas recebendo o diário
+    public int getReplicasConectadas() {
+        int quantidade = 0;
+        for (Conexao conexao : conexoes) {
+            if (conexao.transmitindo) {
+                quantidade++;
+            }
+        }
+        return quantidade;
+    }
+
+    // Maior LSN da partição gravado em disco por alguma réplica, ou 0 se nenhuma confirmou ainda
+    public long getConfirmado(int particao) {
+        return confirmados.get(particao);
+    }
+
+    // Registros gravados no primário e ainda não confirmados pela réplica mais adiantada, somando as partições
+    public long getRegistrosNaoConfirmados() {
+        long total = 0;
+        for (int i = 0; i < diarios.length; i++) {
+            total += Math.max(0, diarios[i].getProximoLsn() - 1 - confirmados.get(i));
+        }
+        return total;
+    }
+
+    private void aceitarConexoes() {
+        while (!fechado) {
+            try {
+                Socket socket = servidor.accept();
+                socket.setTcpNoDelay(true);
+                Conexao conexao = new Conexao(socket);
+                conexoes.add(conexao);
+                conexao.iniciar();
+            } catch (IOException e) {
+                if (!fechado) {
+                    System.err.println("[!] Falha ao aceitar réplica: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        fechado = true;
+        servidor.close();
+        for (Conexao conexao : conexoes) {
+            conexao.encerrar();
+        }
+        try {
+            aceitacao.join();
+            for (Conexao conexao : conexoes) {
+                conexao.aguardarTermino();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Uma réplica conectada: a thread da conexão lê as confirmações e há uma thread de envio por partição
+    private class Conexao {
+        private final Socket socket;
+        private final DataOutputStream saida;
+        private final List<Thread> threads = new ArrayList<>();
+        private volatile boolean transmitindo;
+        private volatile boolean encerrada;
+
+        Conexao(Socket socket) throws IOException {
+            this.socket = socket;
+            this.saida = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 16));
+        }
+
+        void iniciar() {
+            Thread thread = new Thread(this::atender, "replicacao-" + socket.getRemoteSocketAddress());
+            thread.setDaemon(true);
+            synchronized (threads) {
+                threads.add(thread);
+            }
+            thread.start();
+        }
+
+        private void atender() {
+            try (socket) {
+                DataInputStream entrada = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                if (entrada.readInt() != ProtocoloDeReplicacao.MAGICO || entrada.readInt() != ProtocoloDeReplicacao.VERSAO) {
+                    recusar("Protocolo de replicação incompatível.");
+                    return;
+                }
+                int particoes = entrada.readInt();
+                if (particoes != diarios.length) {
+                    recusar("A réplica tem " + particoes + " partições e o primário, " + diarios.length + ".");
+                    return;
+                }
+                long[] posicoes = new long[particoes];
+                for (int i = 0; i < particoes; i++) {
+                    posicoes[i] = entrada.readLong();
+                }
+
+                long[] segmentosIniciais = new long[particoes];
+                boolean precisaSnapshot = false;
+                for (int i = 0; i < particoes; i++) {
+                    if (posicoes[i] > diarios[i].getProximoLsn()) {
+                        recusar("A réplica está à frente do primário na partição " + i + ": os diários divergiram.");
+                        return;
+                    }
+                    Path snapshot = Snapshot.maisRecente(diretorios[i]);
+                    if (snapshot != null) {
+                        Snapshot.Cabecalho cabecalho = Snapshot.lerCabecalho(snapshot);
+                        segmentosIniciais[i] = cabecalho.segmentoInicial();
+                        precisaSnapshot |= posicoes[i] < cabecalho.proximoLsn();
+                    } else {
+                        List<Long> segmentos = DiarioDeOperacoes.listarSegmentos(diretorios[i]);
+                        segmentosIniciais[i] = segmentos.isEmpty() ? 0 : segmentos.get(0);
+                    }
+                }
+
+                if (precisaSnapshot) {
+                    enviarSnapshot();
+                    return;
+                }
+                saida.writeByte(ProtocoloDeReplicacao.RESPOSTA_DIARIO);
+                saida.flush();
+                transmitindo = true;
+                for (int i = 0; i < particoes; i++) {
+                    int particao = i;
+                    Thread thread = new Thread(() -> transmitir(particao, segmentosIniciais[particao], posicoes[particao]),
+                            "replicacao-particao-" + i);
+                    thread.setDaemon(true);
+                    synchronized (threads) {
+                        threads.add(thread);
+                    }
+                    thread.start();
+                }
+                receberConfirmacoes(entrada);
+            } catch (EOFException e) {
+                // A réplica encerrou a conexão
+            } catch (IOException e) {
+                if (!encerrada && !fechado) {
+                    System.err.println("[!] Replicação interrompida: " + e.getMessage());
+                }
+            } finally {
+                encerrar();
+                conexoes.remove(this);
+            }
+        }
+
+        private void receberConfirmacoes(DataInputStream entrada) throws IOException {
+            while (true) {
+                int particao = entrada.readInt();
+                long lsn = entrada.readLong();
+                if (particao < 0 || particao >= diarios.length) {
+                    throw new IOException("Confirmação de partição inválida: " + particao);
+                }
+                confirmados.accumulateAndGet(particao, lsn, Math::max);
+            }
+        }
+
+        // Envia os registros de uma partição, a partir da posição da réplica, até a conexão ser encerrada
+        private void transmitir(int particao, long segmentoInicial, long lsnInicial) {
+            DiarioDeOperacoes diario = diarios[particao];
+            ByteBuffer lote = ByteBuffer.allocate(ProtocoloDeReplicacao.TAMANHO_MAXIMO_LOTE);
+            Deflater compressor = new Deflater(Deflater.BEST_SPEED);
+            byte[] comprimido = new byte[1 << 16];
+            try (SeguidorDeSegmentos seguidor = new SeguidorDeSegmentos(diretorios[particao], segmentoInicial, lsnInicial)) {
+                long lsnDuravel = diario.getLsnDuravel();
+                while (!encerrada) {
+                    lote.clear();
+                    long maiorLsn = seguidor.ler(lote);
+                    if (lote.position() == 0) {
+                        lsnDuravel = diario.aguardarGravacao(lsnDuravel, ESPERA_GRAVACAO_MS);
+                        continue;
+                    }
+
+                    compressor.reset();
+                    compressor.setInput(lote.array(), 0, lote.position());
+                    compressor.finish();
+                    int tamanho = 0;
+                    while (!compressor.finished()) {
+                        if (tamanho == comprimido.length) {
+                            comprimido = Arrays.copyOf(comprimido, comprimido.length * 2);
+                        }
+                        tamanho += compressor.deflate(comprimido, tamanho, comprimido.length - tamanho);
+                    }
+                    synchronized (saida) {
+                        saida.writeInt(particao);
+                        saida.writeInt(lote.position());
+                        saida.writeInt(tamanho);
+                        saida.writeLong(maiorLsn);
+                        saida.write(comprimido, 0, tamanho);
+                        saida.flush();
+                    }
+                }
+            } catch (IOException e) {
+                if (!encerrada && !fechado) {
+                    System.err.println("[!] Falha ao transmitir a partição " + particao + ": " + e.getMessage());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                compressor.end();
+                encerrar();
+            }
+        }
+
+        // Envia os snapshots mais recentes e o arquivo de idempotência, para a réplica reiniciar a partir deles
+        private void enviarSnapshot() throws IOException {
+            List<Path> arquivos = new ArrayList<>();
+            for (Path diretorio : diretorios) {
+                Path snapshot = Snapshot.maisRecente(diretorio);
+                if (snapshot != null) {
+                    arquivos.add(snapshot);
+                }
+            }
+            if (Files.exists(arquivoIdempotencia)) {
+                arquivos.add(arquivoIdempotencia);
+            }
+
+            saida.writeByte(ProtocoloDeReplicacao.RESPOSTA_SNAPSHOT);
+            saida.writeInt(arquivos.size());
+            for (Path arquivo : arquivos) {
+                try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+                    long tamanho = canal.size();
+                    saida.writeUTF(diretorioDados.relativize(arquivo).toString().replace('\\', '/'));
+                    saida.writeLong(tamanho);
+                    InputStream conteudo = Channels.newInputStream(canal);
+                    byte[] bloco = new byte[1 << 16];
+                    for (long restante = tamanho; restante > 0; ) {
+                        int lidos = conteudo.read(bloco, 0, (int) Math.min(bloco.length, restante));
+                        if (lidos < 0) {
+                            throw new IOException("Arquivo truncado durante o envio: " + arquivo);
+                        }
+                        saida.write(bloco, 0, lidos);
+                        restante -= lidos;
+                    }
+                }
+            }
+            saida.flush();
+        }
+
+        private void recusar(String motivo) throws IOException {
+            saida.writeByte(ProtocoloDeReplicacao.RESPOSTA_RECUSA);
+            saida.writeUTF(motivo);
+            saida.flush();
+        }
+
+        void encerrar() {
+            encerrada = true;
+            transmitindo = false;
+            try {
+                socket.close();
+            } catch (IOException e) {
+                // A conexão já está sendo encerrada
+            }
+        }
+
+        void aguardarTermino() throws InterruptedException {
+            List<Thread> copia;
+            synchronized (threads) {
+                copia = new ArrayList<>(threads);
+            }
+            for (Thread thread : copia) {
+                thread.join();
+            }
+        }
+    }
+}
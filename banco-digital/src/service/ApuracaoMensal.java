@@ -0,0 +1,67 @@
+package service;
+
+import java.time.YearMonth;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.Conta;
+import model.TabelaDeEncargos;
+
+/**
+ * Apuração mensal dos rendimentos da poupança e das tarifas de manutenção da conta corrente.
+ *
+ * Todas as contas de cada partição são percorridas em paralelo pelo pool comum do fork-join
+ * (ConcurrentHashMap.forEachValue divide o índice em tarefas). Cada conta é apurada sob o seu próprio
+ * lock, sobre o saldo daquele momento, então as operações continuam sendo atendidas e nenhuma
+ * operação concorrente é perdida ou contada duas vezes. O lançamento é registrado no histórico e no
+ * diário como uma operação RENDIMENTO ou TARIFA, e a gravação no diário é aguardada uma única vez,
+ * ao final.
+ *
+ * A apuração é idempotente por período: cada conta guarda o último período apurado (também
+ * preservado no diário e nos snapshots), e períodos iguais ou anteriores a ele são ignorados.
+ */
+public final class ApuracaoMensal {
+    private static final long CONTAS_POR_TAREFA = 4096;  // Limiar de paralelismo do forEachValue
+
+    // Totais de uma apuração; os valores estão em centavos
+    public record Resumo(YearMonth periodo, long contasApuradas, long contasJaApuradas, long totalRendimentos,
+            long totalTarifas, long duracaoMs) {
+    }
+
+    private ApuracaoMensal() {
+    }
+
+    // Codifica o período como um número de meses, crescente no tempo
+    public static int codificar(YearMonth periodo) {
+        return periodo.getYear() * 12 + periodo.getMonthValue() - 1;
+    }
+
+    // Apura o período em todas as contas das partições e aguarda a gravação dos lançamentos no diário
+    static Resumo executar(Particao[] particoes, YearMonth periodo, TabelaDeEncargos tabela) {
+        long inicio = System.nanoTime();
+        int codigo = codificar(periodo);
+        LongAdder apuradas = new LongAdder();
+        LongAdder jaApuradas = new LongAdder();
+        LongAdder rendimentos = new LongAdder();
+        LongAdder tarifas = new LongAdder();
+
+        for (Particao particao : particoes) {
+            particao.contasPorNumero.forEachValue(CONTAS_POR_TAREFA, conta -> {
+                long valor = conta.apurar(codigo, tabela);
+                if (valor == Conta.JA_APURADA) {
+                    jaApuradas.increment();
+                    return;
+                }
+                apuradas.increment();
+                if (valor > 0) {
+                    rendimentos.add(valor);
+                } else if (valor < 0) {
+                    tarifas.add(-valor);
+                }
+            });
+        }
+        Banco.aguardarPersistenciaPendente();
+
+        return new Resumo(periodo, apuradas.sum(), jaApuradas.sum(), rendimentos.sum(), tarifas.sum(),
+                (System.nanoTime() - inicio) / 1_000_000);
+    }
+}
@@ -1,60 +1,1346 @@
 package service;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import model.Cliente;
 import model.Conta;
 import model.ContaCorrente;
 import model.ContaPoupanca;
+import model.CorteDeSaldos;
+import model.FotografiaDeSaldos;
+import model.HistoricoTransacoes;
+import model.PaginaExtrato;
+import model.ResultadoOperacao;
+import model.TabelaDeEncargos;
 import model.TipoConta;
+import model.TipoServico;
+import persistencia.ArquivoDeIdempotencia;
+import persistencia.DiarioDeComandos;
+import persistencia.DiarioDeOperacoes;
+import persistencia.ExportadorDeExtratos;
+import persistencia.RegistroDiario;
+import persistencia.Snapshot;
+import persistencia.TransmissorDoDiario;
+import util.Dinheiro;
 
-public class Banco {
-    private String nome;               // Nome do banco (não utilizado ainda)
-    private static List<Conta> contas; // Lista de todas as contas cadastradas
+public class Banco implements Closeable {
+    private static final long INTERVALO_DIARIO_MS = 2; // Tempo máximo de espera para agrupar gravações no diário
+    private static final int MAXIMO_PARTICOES = 256;
+    private static final String PREFIXO_PARTICAO = "particao-";
+    private static final int CAPACIDADE_MOTOR = 1 << 16;  // Posições do buffer do motor sequencial
+    private static final String ARQUIVO_IDEMPOTENCIA = "idempotencia.dat";
+    public static final int MAXIMO_PERNAS = 1024;                 // Pernas por transação (ver executarTransacao)
+
+    private String nome;                               // Nome do banco (não utilizado ainda)
+    private static Particao[] particoes;               // Partições das contas; uma única partição sem particionamento
+    private static int bitsParticao;                   // log2 do número de partições
+    private static FilaDeNotificacoes notificacoes;    // Fila de notificações; nula quando as notificações estão desativadas
+    private static volatile MotorSequencial motor;     // Motor sequencial; nulo quando as operações usam os locks das contas
+    private static CacheDeIdempotencia idempotencia;   // Resultados das operações executadas com chave de idempotência
+    private static volatile LimitesDeOperacao limites; // Limites de saques e transferências; nulo quando desativados
+    private static Banco aberto;                       // Banco ainda não encerrado, dono do estado acima; protegido pelo lock da classe
+
+    private Path diretorioDados;
+    private ScheduledExecutorService agendador;
+    private TransmissorDoDiario transmissor;           // Transmissão do diário a réplicas; nula quando desativada
+    private MetadesDeTransferencia replicadas;         // Na réplica, metades e partes recebidas ainda sem as contrapartes
+    private boolean encerrado;
 
     public Banco() {
-        Banco.contas = new ArrayList<>(); // Inicializa a lista de contas
+        this(1);
+    }
+
+    /**
+     * Cria um banco em memória com as contas divididas em partições independentes.
+     *
+     * Cada partição tem os seus próprios índices e numeração de contas. As contas são distribuídas
+     * pelo hash do CPF.
+     *
+     * Os índices, as partições e os demais serviços do banco são compartilhados pelo processo (as contas
+     * chegam a eles por Banco.buscarCpf, Banco.registrarOperacao etc.), então só pode haver um banco aberto
+     * por vez: o anterior deve ser encerrado (close) antes de outro ser criado.
+     *
+     * @param quantidadeParticoes Número de partições; arredondado para a próxima potência de 2 (máximo de 256).
+     * @throws IllegalStateException Se houver outro banco aberto no processo.
+     */
+    public Banco(int quantidadeParticoes) {
+        if (quantidadeParticoes < 1 || quantidadeParticoes > MAXIMO_PARTICOES) {
+            throw new IllegalArgumentException("O número de partições deve estar entre 1 e " + MAXIMO_PARTICOES + ".");
+        }
+        synchronized (Banco.class) {
+            if (aberto != null) {
+                throw new IllegalStateException("Já existe um banco aberto neste processo; encerre-o antes de criar outro.");
+            }
+            encerrarRestantes();
+            aberto = this;
+        }
+        Banco.bitsParticao = 32 - Integer.numberOfLeadingZeros(quantidadeParticoes - 1);
+        Banco.particoes = new Particao[1 << bitsParticao];
+        for (int i = 0; i < particoes.length; i++) {
+            particoes[i] = new Particao(i, bitsParticao, null);
+        }
+        Banco.notificacoes = null;
+        Banco.motor = null;
+        Banco.limites = null;
+        Banco.idempotencia = new CacheDeIdempotencia(CacheDeIdempotencia.CAPACIDADE_PADRAO, CacheDeIdempotencia.VALIDADE_PADRAO_MS);
+    }
+
+    /**
+     * Cria um banco persistente, recuperando o estado gravado no diretório informado.
+     *
+     * A recuperação carrega o snapshot mais recente e reaplica os segmentos do diário gravados
+     * depois dele. A partir daí, toda operação é registrada no diário antes de ser confirmada.
+     *
+     * @param diretorioDados Diretório dos snapshots e do diário de operações.
+     */
+    public Banco(Path diretorioDados) throws IOException {
+        this(diretorioDados, 1);
+    }
+
+    /**
+     * Cria um banco persistente e particionado, recuperando o estado gravado no diretório informado.
+     *
+     * Cada partição grava o seu próprio diário e os seus snapshots em um subdiretório ("particao-N");
+     * sem particionamento, os arquivos ficam diretamente no diretório de dados. O número de partições
+     * deve ser o mesmo utilizado na criação do diretório.
+     *
+     * Transferências entre partições gravam uma metade no diário de cada partição. Se apenas uma das
+     * metades tiver chegado ao disco, a recuperação aplica a outra a partir dela, de forma que o
+     * dinheiro nunca seja criado nem destruído.
+     *
+     * As chaves de idempotência também são recuperadas: as do arquivo gravado com o último snapshot e
+     * as dos registros do diário reaplicados depois dele.
+     *
+     * @param diretorioDados Diretório dos snapshots e do diário de operações.
+     * @param quantidadeParticoes Número de partições (ver {@link #Banco(int)}).
+     */
+    public Banco(Path diretorioDados, int quantidadeParticoes) throws IOException {
+        this(diretorioDados, quantidadeParticoes, false);
+    }
+
+    /**
+     * Cria o banco persistente de uma réplica (ver Replica): na recuperação, as transferências e transações
+     * gravadas apenas em parte não são completadas, pois as partes restantes ainda podem chegar do primário;
+     * elas são completadas na promoção (ver concluirReplicacao).
+     */
+    Banco(Path diretorioDados, int quantidadeParticoes, boolean replica) throws IOException {
+        this(quantidadeParticoes);
+        this.diretorioDados = diretorioDados;
+        try {
+            recuperar(replica);
+        } catch (IOException | RuntimeException e) {
+            // Uma recuperação que falhou não deixa diários abertos nem impede a criação de outro banco
+            try {
+                close();
+            } catch (IOException | RuntimeException falhaAoFechar) {
+                e.addSuppressed(falhaAoFechar);
+            }
+            throw e;
+        }
+    }
+
+    // Carrega os snapshots e reaplica os diários das partições do diretório de dados, abrindo um novo segmento em cada uma
+    private void recuperar(boolean replica) throws IOException {
+        Files.createDirectories(diretorioDados);
+        verificarParticoesGravadas(diretorioDados, particoes.length);
+
+        long[] segmentosIniciais = new long[particoes.length];
+        long[] proximosLsns = new long[particoes.length];
+        MetadesDeTransferencia metades = new MetadesDeTransferencia();
+
+        for (int i = 0; i < particoes.length; i++) {
+            particoes[i] = new Particao(i, bitsParticao, particoes.length == 1 ? diretorioDados : diretorioDados.resolve(PREFIXO_PARTICAO + i));
+            Files.createDirectories(particoes[i].diretorio);
+            proximosLsns[i] = 1;
+
+            // Carrega o snapshot mais recente da partição, se existir
+            Path snapshot = Snapshot.maisRecente(particoes[i].diretorio);
+            if (snapshot != null) {
+                Snapshot.Cabecalho cabecalho = Snapshot.carregar(snapshot, particoes[i]::indexar);
+                segmentosIniciais[i] = cabecalho.segmentoInicial();
+                proximosLsns[i] = cabecalho.proximoLsn();
+            }
+        }
+
+        ArquivoDeIdempotencia.carregar(diretorioDados.resolve(ARQUIVO_IDEMPOTENCIA), idempotencia);
+
+        // Reaplica o diário de cada partição gravado depois do snapshot dela
+        long[] ultimosSegmentos = new long[particoes.length];
+        for (Particao particao : particoes) {
+            int i = particao.indice;
+            ultimosSegmentos[i] = segmentosIniciais[i] - 1;
+            for (long segmento : DiarioDeOperacoes.listarSegmentos(particao.diretorio)) {
+                if (segmento >= segmentosIniciais[i]) {
+                    long maiorLsn = DiarioDeOperacoes.ler(DiarioDeOperacoes.caminhoSegmento(particao.diretorio, segmento),
+                            registro -> aplicarRegistro(particao, registro, metades));
+                    proximosLsns[i] = Math.max(proximosLsns[i], maiorLsn + 1);
+                }
+                ultimosSegmentos[i] = Math.max(ultimosSegmentos[i], segmento);
+            }
+        }
+
+        // Completa as transferências entre partições que tiveram apenas uma metade gravada
+        if (!replica) {
+            metades.completar(proximosLsns);
+        }
+
+        // Sempre inicia um segmento novo, para não gravar depois de um registro incompleto
+        for (Particao particao : particoes) {
+            particao.diario = new DiarioDeOperacoes(particao.diretorio, ultimosSegmentos[particao.indice] + 1,
+                    proximosLsns[particao.indice], INTERVALO_DIARIO_MS);
+        }
+        if (replica) {
+            this.replicadas = metades;
+        } else {
+            metades.regravarFaltantes();
+        }
+    }
+
+    // Retorna o número de partições das contas
+    public static int getQuantidadeParticoes() {
+        return particoes.length;
+    }
+
+    // Gera a chave única de uma conta a partir da agência e do número
+    public static long chaveConta(int agencia, int numero) {
+        return ((long) agencia << 32) | (numero & 0xFFFFFFFFL);
     }
-        
+
     // Método que verifica se existe uma conta com o CPF informado
     public static Conta buscarCpf(String cpfProcurado) {
-        return contas.stream()
-                .filter(conta -> conta.getCliente().getCpf().equals(cpfProcurado))
-                .findFirst()
-                .orElse(null);
+        if (cpfProcurado == null) {
+            return null;
+        }
+        return particoes[particaoDoCpf(cpfProcurado)].contasPorCpf.get(cpfProcurado);
+    }
+
+    // Método que busca uma conta pela agência e pelo número
+    public static Conta buscarConta(int agencia, int numero) {
+        return buscarConta(chaveConta(agencia, numero));
+    }
+
+    // Método que busca uma conta pela chave gerada em chaveConta
+    public static Conta buscarConta(long chave) {
+        return particaoDaChave(chave).contasPorNumero.get(chave);
+    }
+
+    // Partição de um CPF; usa os bits altos de um hash multiplicativo, independentes dos usados pelos índices de cada partição
+    static int particaoDoCpf(String cpf) {
+        return ((cpf.hashCode() * 0x9E3779B9) >>> 24) & (particoes.length - 1);
+    }
+
+    // Partição de uma conta, indicada nos bits mais altos do número da conta; a máscara mantém números
+    // negativos (informados pelo usuário) dentro do array, e a busca nessa partição apenas não encontra a conta
+    private static Particao particaoDaChave(long chave) {
+        return particoes[((int) chave >>> (31 - bitsParticao)) & (particoes.length - 1)];
+    }
+
+    // Cria a instância de conta do tipo informado, preservando agência e número (usado na recuperação)
+    public static Conta instanciarConta(Cliente cliente, TipoConta tipoConta, int agencia, int numero) {
+        return instanciarConta(cliente, tipoConta, agencia, numero, true);
+    }
+
+    // Como instanciarConta; com "recuperada" falso (número alocado por uma partição), a numeração global não é alterada
+    private static Conta instanciarConta(Cliente cliente, TipoConta tipoConta, int agencia, int numero, boolean recuperada) {
+        return switch (tipoConta) {
+            case CORRENTE -> new ContaCorrente(cliente, agencia, numero, recuperada);
+            case POUPANCA -> new ContaPoupanca(cliente, agencia, numero, recuperada);
+        };
     }
 
     public String criarConta(String nomeCliente, String cpfCliente, TipoConta tipoConta) throws IllegalArgumentException {
+        return criarConta(nomeCliente, cpfCliente, tipoConta, Conta.AGENCIA_PADRAO);
+    }
+
+    // Cria uma conta na agência informada; o número da conta é alocado de forma independente em cada agência
+    public String criarConta(String nomeCliente, String cpfCliente, TipoConta tipoConta, int agencia) throws IllegalArgumentException {
+        if (agencia <= 0) {
+            throw new IllegalArgumentException("Agência inválida.");
+        }
 
-        // Verifica se já existe uma conta com o mesmo CPF  
+        // Nome e CPF que não caberiam no registro de criação do diário são recusados antes de indexar a conta
+        Particao particao = particoes[particaoDoCpf(cpfCliente)];
+        if (particao.diario != null) {
+            DiarioDeOperacoes.validarCriacao(nomeCliente, cpfCliente);
+        }
+
+        // Verificação rápida para não consumir um número de conta à toa
         if (buscarCpf(cpfCliente) != null) {
-            throw new IllegalArgumentException("Já existe uma conta utilizando o CPF informado.");  
+            throw new IllegalArgumentException("Já existe uma conta utilizando o CPF informado.");
         }
 
         // Cria novo cliente
         Cliente cliente = new Cliente(nomeCliente, cpfCliente);
 
-        // Cria conta conforme o tipo informado
+        // Cria conta conforme o tipo informado; com partições, o número da conta é alocado pela partição do CPF
         Conta novaConta;
-        
-        if(tipoConta == TipoConta.CORRENTE) {
-            novaConta = new ContaCorrente(cliente);
+
+        if (particoes.length > 1) {
+            novaConta = instanciarConta(cliente, tipoConta, agencia, particao.alocarNumero(agencia), false);
+        } else if(tipoConta == TipoConta.CORRENTE) {
+            novaConta = new ContaCorrente(cliente, agencia);
         } else if (tipoConta == TipoConta.POUPANCA) {
-            novaConta = new ContaPoupanca(cliente);
+            novaConta = new ContaPoupanca(cliente, agencia);
         } else {
             return "Falha ao criar conta: Tipo de conta inválido.";
         }
-        
-        contas.add(novaConta); // Adiciona a nova conta à lista
+
+        // A conta fica travada até a criação estar gravada no diário, para que nenhuma operação sobre ela
+        // (inclusive a metade de uma transferência gravada no diário de outra partição) seja registrada
+        // antes da própria criação.
+        synchronized (novaConta) {
+            // Registra o CPF de forma atômica: se outra thread criou a conta antes, a criação é recusada
+            if (particao.contasPorCpf.putIfAbsent(cpfCliente, novaConta) != null) {
+                throw new IllegalArgumentException("Já existe uma conta utilizando o CPF informado.");
+            }
+            particao.contasPorNumero.put(novaConta.getChave(), novaConta);
+
+            // Se a criação não chegar ao diário, a conta sai dos índices: nenhuma operação pode ser registrada
+            // para uma conta que a recuperação não conhece
+            if (particao.diario != null) {
+                try {
+                    particao.diario.aguardar(particao.diario.registrarCriacao(System.currentTimeMillis(), novaConta.getChave(),
+                            tipoConta, nomeCliente, cpfCliente));
+                } catch (RuntimeException e) {
+                    particao.contasPorNumero.remove(novaConta.getChave(), novaConta);
+                    particao.contasPorCpf.remove(cpfCliente, novaConta);
+                    throw e;
+                }
+            }
+        }
         return tipoConta.getDescricao() + " criada com sucesso! Bem-vindo(a), " + nomeCliente + "!";
     }
 
-    
+
     public Conta acessarConta(String cpfTitular) {
-        return contas.stream()
-            .filter(conta -> conta.getCliente().getCpf().equals(cpfTitular))
-            .findFirst()
-            .orElseThrow(() -> new IllegalArgumentException("O CPF informado não corresponde a uma conta existente."));
+        Conta conta = buscarCpf(cpfTitular);
+        if (conta == null) {
+            throw new IllegalArgumentException("O CPF informado não corresponde a uma conta existente.");
+        }
+        return conta;
+    }
+
+    // Consulta uma página do extrato da conta do CPF informado (ver Conta.consultarExtrato); a paginação é validada antes da busca da conta
+    public PaginaExtrato consultarExtrato(String cpfTitular, long inicio, long fim, TipoServico tipoServico, int cursor, int tamanhoPagina) {
+        PaginaExtrato.validar(cursor, tamanhoPagina);
+        return acessarConta(cpfTitular).consultarExtrato(inicio, fim, tipoServico, cursor, tamanhoPagina);
+    }
+
+    /**
+     * Executa um lote de operações, retornando o resultado de cada uma na mesma ordem do lote.
+     *
+     * As contas são localizadas uma única vez por CPF. Saques e depósitos são agrupados por conta e
+     * aplicados com uma única aquisição do lock de cada conta, na ordem em que aparecem no lote; em
+     * seguida, as transferências são aplicadas na ordem do lote. Falhas não interrompem o lote nem
+     * lançam exceções: são informadas no resultado da operação correspondente. A persistência é
+     * aguardada uma única vez, ao final do lote.
+     *
+     * Como todas as transferências são aplicadas depois de todos os saques e depósitos, o resultado pode
+     * diferir da execução das operações uma a uma na ordem do lote quando uma mesma conta é debitada e
+     * transfere no lote: por exemplo, uma transferência listada antes de um saque da mesma conta pode ser
+     * recusada por SALDO_INSUFICIENTE porque o saque já foi aplicado. Quem precisa da ordem exata entre
+     * movimentações e transferências da mesma conta deve enviá-las em lotes separados. Com o motor
+     * sequencial ativo, as operações são aplicadas na ordem do lote.
+     *
+     * Com os limites de operação ativos, cada saque e transferência é reservado nos limites logo antes de
+     * ser aplicado, como em Conta.executarServico; os que excedem um limite resultam em LIMITE_EXCEDIDO.
+     *
+     * @param operacoes As operações a serem executadas; os tipos de serviço já são validados na criação de
+     * cada OperacaoEmLote.
+     * @return O resultado de cada operação, na mesma ordem da lista recebida.
+     */
+    public List<ResultadoOperacao> executarLote(List<OperacaoEmLote> operacoes) {
+        MotorSequencial atual = motor;
+        if (atual != null) {
+            return executarLoteNoMotor(atual, operacoes);
+        }
+        ResultadoOperacao[] resultados = new ResultadoOperacao[operacoes.size()];
+        Map<String, Conta> contasDoLote = new HashMap<>();
+        Map<Conta, List<Integer>> movimentacoesPorConta = new LinkedHashMap<>();
+        List<Integer> transferencias = new ArrayList<>();
+        ReservasDoLote reservas = ReservasDoLote.criar(resultados.length);
+
+        // Localiza as contas e separa as operações por conta de origem
+        for (int i = 0; i < resultados.length; i++) {
+            OperacaoEmLote operacao = operacoes.get(i);
+            Conta conta = contasDoLote.computeIfAbsent(operacao.cpf(), Banco::buscarCpf);
+            Conta destinatario = operacao.tipoServico() == TipoServico.TRANSFERENCIA
+                    ? contasDoLote.computeIfAbsent(operacao.cpfDestinatario(), Banco::buscarCpf) : null;
+
+            if (conta == null || (operacao.tipoServico() == TipoServico.TRANSFERENCIA && destinatario == null)) {
+                resultados[i] = ResultadoOperacao.CONTA_INEXISTENTE;
+            } else if (destinatario != null) {
+                transferencias.add(i);
+            } else {
+                movimentacoesPorConta.computeIfAbsent(conta, chave -> new ArrayList<>()).add(i);
+            }
+        }
+
+        // Aplica saques e depósitos com um único lock por conta
+        for (Map.Entry<Conta, List<Integer>> grupo : movimentacoesPorConta.entrySet()) {
+            Conta conta = grupo.getKey();
+            synchronized (conta) {
+                for (int i : grupo.getValue()) {
+                    OperacaoEmLote operacao = operacoes.get(i);
+                    if (reservas != null && !reservas.reservar(i, operacao, conta, null)) {
+                        resultados[i] = ResultadoOperacao.LIMITE_EXCEDIDO;
+                        continue;
+                    }
+                    resultados[i] = conta.aplicarMovimentacao(operacao.tipoServico(), operacao.valor());
+                    if (reservas != null) {
+                        reservas.estornarSeRecusada(i, operacao, resultados[i]);
+                    }
+                }
+            }
+        }
+
+        // Aplica as transferências, cada uma travando as duas contas envolvidas
+        for (int i : transferencias) {
+            OperacaoEmLote operacao = operacoes.get(i);
+            Conta conta = contasDoLote.get(operacao.cpf());
+            Conta destinatario = contasDoLote.get(operacao.cpfDestinatario());
+            if (reservas != null && !reservas.reservar(i, operacao, conta, destinatario)) {
+                resultados[i] = ResultadoOperacao.LIMITE_EXCEDIDO;
+                continue;
+            }
+            resultados[i] = conta.aplicarTransferencia(operacao.valor(), destinatario);
+            if (reservas != null) {
+                reservas.estornarSeRecusada(i, operacao, resultados[i]);
+            }
+        }
+
+        aguardarPersistenciaPendente();
+
+        if (Metricas.isAtivada()) {
+            for (int i = 0; i < resultados.length; i++) {
+                Metricas.contar(operacoes.get(i).tipoServico(), resultados[i]);
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Executa uma transação com várias pernas (transferências entre contas) de forma atômica: todas as
+     * pernas são aplicadas, ou nenhuma (ver Conta.aplicarTransacao).
+     *
+     * As pernas são aplicadas na ordem da lista, e cada uma deve ser possível com os saldos deixados
+     * pelas anteriores; uma conta pode aparecer em várias pernas. Com os limites de operação ativos,
+     * cada perna é contabilizada como uma transferência. Confirmada a transação, a gravação de todas as
+     * partes no diário é aguardada.
+     *
+     * @param pernas As pernas da transação (de 1 a {@value #MAXIMO_PERNAS}).
+     * @return SUCESSO, ou o resultado da primeira perna recusada; nesse caso nenhum saldo é alterado.
+     * @throws IllegalStateException Se o motor sequencial estiver ativo.
+     */
+    public ResultadoOperacao executarTransacao(List<PernaDeTransacao> pernas) {
+        if (motor != null) {
+            throw new IllegalStateException("As transações não estão disponíveis com o motor sequencial ativo.");
+        }
+        if (pernas.isEmpty() || pernas.size() > MAXIMO_PERNAS) {
+            throw new IllegalArgumentException("A transação deve ter entre 1 e " + MAXIMO_PERNAS + " pernas.");
+        }
+        long inicio = Metricas.iniciar();
+        int quantidade = pernas.size();
+        Conta[] origens = new Conta[quantidade];
+        Conta[] destinos = new Conta[quantidade];
+        long[] valores = new long[quantidade];
+        Map<String, Conta> contasDaTransacao = new HashMap<>();
+        ResultadoOperacao resultado = ResultadoOperacao.SUCESSO;
+
+        for (int i = 0; i < quantidade && resultado.isSucesso(); i++) {
+            PernaDeTransacao perna = pernas.get(i);
+            origens[i] = contasDaTransacao.computeIfAbsent(perna.cpfOrigem(), Banco::buscarCpf);
+            destinos[i] = contasDaTransacao.computeIfAbsent(perna.cpfDestinatario(), Banco::buscarCpf);
+            valores[i] = perna.valor();
+            if (origens[i] == null || destinos[i] == null) {
+                resultado = ResultadoOperacao.CONTA_INEXISTENTE;
+            }
+        }
+
+        // Reserva cada perna nos limites; se alguma for recusada, as anteriores são estornadas
+        LimitesDeOperacao atuais = limites;
+        long instante = System.currentTimeMillis();
+        int reservadas = 0;
+        if (resultado.isSucesso() && atuais != null) {
+            while (reservadas < quantidade && atuais.reservarSeLimitada(TipoServico.TRANSFERENCIA,
+                    origens[reservadas].getChave(), destinos[reservadas].getChave(), valores[reservadas], instante)) {
+                reservadas++;
+            }
+            if (reservadas < quantidade) {
+                resultado = ResultadoOperacao.LIMITE_EXCEDIDO;
+            }
+        }
+
+        if (resultado.isSucesso()) {
+            resultado = Conta.aplicarTransacao(origens, destinos, valores);
+        }
+        if (atuais != null) {
+            for (int i = 0; i < reservadas; i++) {
+                atuais.estornarSeRecusada(TipoServico.TRANSFERENCIA, origens[i].getChave(), destinos[i].getChave(), valores[i], instante, resultado);
+            }
+        }
+
+        // Aguarda a gravação da parte de cada partição envolvida
+        if (resultado.isSucesso()) {
+            for (Conta conta : contasDaTransacao.values()) {
+                aguardarPersistenciaPendente(conta);
+            }
+        }
+        Metricas.registrarServico(TipoServico.TRANSFERENCIA, resultado, inicio);
+        return resultado;
+    }
+
+    // Com o motor sequencial ativo, envia as operações do lote ao motor, na ordem do lote, e aguarda apenas a última
+    private static List<ResultadoOperacao> executarLoteNoMotor(MotorSequencial atual, List<OperacaoEmLote> operacoes) {
+        ResultadoOperacao[] resultados = new ResultadoOperacao[operacoes.size()];
+        ReservasDoLote reservas = ReservasDoLote.criar(resultados.length);
+        long ultima = -1;
+
+        for (int i = 0; i < resultados.length; i++) {
+            OperacaoEmLote operacao = operacoes.get(i);
+            Conta conta = buscarCpf(operacao.cpf());
+            Conta destinatario = null;
+            if (operacao.tipoServico() == TipoServico.TRANSFERENCIA) {
+                destinatario = buscarCpf(operacao.cpfDestinatario());
+                if (conta != null && destinatario == conta) {
+                    resultados[i] = ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+                    continue;
+                }
+            }
+            if (conta == null || (operacao.tipoServico() == TipoServico.TRANSFERENCIA && destinatario == null)) {
+                resultados[i] = ResultadoOperacao.CONTA_INEXISTENTE;
+                continue;
+            }
+            if (reservas != null && !reservas.reservar(i, operacao, conta, destinatario)) {
+                resultados[i] = ResultadoOperacao.LIMITE_EXCEDIDO;
+                continue;
+            }
+            ultima = atual.enviar(conta, operacao.tipoServico(), operacao.valor(), destinatario, resultados, i);
+        }
+        if (ultima >= 0) {
+            atual.aguardar(ultima);
+        }
+        if (reservas != null) {
+            for (int i = 0; i < resultados.length; i++) {
+                reservas.estornarSeRecusada(i, operacoes.get(i), resultados[i]);
+            }
+        }
+
+        if (Metricas.isAtivada()) {
+            for (int i = 0; i < resultados.length; i++) {
+                Metricas.contar(operacoes.get(i).tipoServico(), resultados[i]);
+            }
+        }
+        return Arrays.asList(resultados);
+    }
+
+    /**
+     * Reservas das operações de um lote nos limites ativos (ver LimitesDeOperacao.reservarSeLimitada), com
+     * um único instante para todo o lote. Uma operação reservada e depois recusada por outro motivo é
+     * estornada; no motor sequencial, depois de o lote inteiro ser aplicado.
+     */
+    private static final class ReservasDoLote {
+        private final LimitesDeOperacao limites;
+        private final long instante = System.currentTimeMillis();
+        private final long[] origens;       // Chave da conta de origem de cada operação reservada; 0 se não reservada
+        private final long[] destinos;
+
+        private ReservasDoLote(LimitesDeOperacao limites, int tamanho) {
+            this.limites = limites;
+            this.origens = new long[tamanho];
+            this.destinos = new long[tamanho];
+        }
+
+        // Reservas de um lote com o tamanho informado, ou nulo com os limites desativados
+        static ReservasDoLote criar(int tamanho) {
+            LimitesDeOperacao atuais = Banco.limites;
+            return atuais != null ? new ReservasDoLote(atuais, tamanho) : null;
+        }
+
+        // Reserva a operação da posição informada; false se algum limite for excedido
+        boolean reservar(int posicao, OperacaoEmLote operacao, Conta conta, Conta destinatario) {
+            long destino = destinatario != null ? destinatario.getChave() : LimitesDeOperacao.SEM_DESTINO;
+            if (!limites.reservarSeLimitada(operacao.tipoServico(), conta.getChave(), destino, operacao.valor(), instante)) {
+                return false;
+            }
+            origens[posicao] = conta.getChave();
+            destinos[posicao] = destino;
+            return true;
+        }
+
+        // Estorna a operação da posição informada, se ela foi reservada e depois recusada
+        void estornarSeRecusada(int posicao, OperacaoEmLote operacao, ResultadoOperacao resultado) {
+            if (origens[posicao] != 0) {
+                limites.estornarSeRecusada(operacao.tipoServico(), origens[posicao], destinos[posicao], operacao.valor(), instante, resultado);
+            }
+        }
+    }
+
+    // Registra um saque ou depósito aplicado no diário da partição da conta, retornando o LSN atribuído (0 sem persistência)
+    public static long registrarOperacao(long instante, TipoServico tipoServico, long origem, long destino, long valor) {
+        return registrarOperacao(instante, tipoServico, origem, destino, valor, null);
+    }
+
+    // Como registrarOperacao, gravando no mesmo registro a chave de idempotência da operação (opcional)
+    public static long registrarOperacao(long instante, TipoServico tipoServico, long origem, long destino, long valor, String chaveIdempotencia) {
+        DiarioDeOperacoes atual = particaoDaChave(origem).diario;
+        return atual == null ? 0 : atual.registrarOperacao(instante, tipoServico, origem, destino, valor, chaveIdempotencia);
+    }
+
+    // Registra um lançamento da apuração mensal no diário da partição da conta, guardando o período no lugar do destino
+    public static long registrarApuracao(long instante, TipoServico tipoServico, long conta, int periodo, long valor) {
+        return registrarOperacao(instante, tipoServico, conta, periodo, valor, null);
+    }
+
+    // Registra no diário da partição da conta o resultado de uma operação recusada que foi executada com chave de idempotência
+    public static void registrarResultado(TipoServico tipoServico, long conta, String chaveIdempotencia, ResultadoOperacao resultado) {
+        DiarioDeOperacoes atual = particaoDaChave(conta).diario;
+        if (atual != null) {
+            atual.registrarResultado(System.currentTimeMillis(), tipoServico, conta, chaveIdempotencia, resultado);
+        }
+    }
+
+    /**
+     * Registra uma transferência aplicada e atualiza o LSN das duas contas. Deve ser chamado com as duas contas travadas.
+     *
+     * Entre contas da mesma partição, a transferência é um único registro. Entre partições, cada diário
+     * recebe uma metade (ver DiarioDeOperacoes.registrarTransferencia).
+     */
+    public static void registrarTransferencia(long instante, Conta remetente, Conta destinatario, long valor) {
+        registrarTransferencia(instante, remetente, destinatario, valor, null);
+    }
+
+    // Como registrarTransferencia, gravando a chave de idempotência da operação (opcional) no registro da transferência
+    public static void registrarTransferencia(long instante, Conta remetente, Conta destinatario, long valor, String chaveIdempotencia) {
+        DiarioDeOperacoes debito = particaoDaChave(remetente.getChave()).diario;
+        DiarioDeOperacoes credito = particaoDaChave(destinatario.getChave()).diario;
+        if (debito == null) {
+            remetente.setUltimoLsn(0);
+            destinatario.setUltimoLsn(0);
+        } else if (debito == credito) {
+            long lsn = debito.registrarOperacao(instante, TipoServico.TRANSFERENCIA, remetente.getChave(), destinatario.getChave(), valor, chaveIdempotencia);
+            remetente.setUltimoLsn(lsn);
+            destinatario.setUltimoLsn(lsn);
+        } else {
+            DiarioDeOperacoes.LsnsTransferencia lsns = DiarioDeOperacoes.registrarTransferencia(debito, credito, instante,
+                    remetente.getChave(), destinatario.getChave(), valor, chaveIdempotencia);
+            remetente.setUltimoLsn(lsns.lsnDebito());
+            destinatario.setUltimoLsn(lsns.lsnCredito());
+        }
+    }
+
+    /**
+     * Registra uma transação aplicada (ver Conta.aplicarTransacao) e atualiza o LSN das contas. Deve ser
+     * chamado com todas as contas travadas.
+     *
+     * Cada partição envolvida recebe uma parte com todas as pernas (ver DiarioDeOperacoes.registrarTransacao),
+     * e cada conta fica com o LSN da parte da sua partição.
+     *
+     * @param contas As contas distintas da transação.
+     */
+    public static void registrarTransacao(long instante, Conta[] contas, Conta[] origens, Conta[] destinos, long[] valores) {
+        int[] indices = new int[contas.length];
+        boolean[] envolvidas = new boolean[particoes.length];
+        for (int i = 0; i < contas.length; i++) {
+            indices[i] = particaoDaChave(contas[i].getChave()).indice;
+            envolvidas[indices[i]] = true;
+        }
+        if (particoes[indices[0]].diario == null) {
+            for (Conta conta : contas) {
+                conta.setUltimoLsn(0);
+            }
+            return;
+        }
+
+        // Partições envolvidas em ordem crescente, e a posição da parte de cada uma
+        int[] parteDaParticao = new int[particoes.length];
+        int partes = 0;
+        for (int i = 0; i < particoes.length; i++) {
+            if (envolvidas[i]) {
+                parteDaParticao[i] = partes++;
+            }
+        }
+        int[] particoesEnvolvidas = new int[partes];
+        DiarioDeOperacoes[] diarios = new DiarioDeOperacoes[partes];
+        for (int i = 0; i < particoes.length; i++) {
+            if (envolvidas[i]) {
+                particoesEnvolvidas[parteDaParticao[i]] = i;
+                diarios[parteDaParticao[i]] = particoes[i].diario;
+            }
+        }
+
+        long[] chavesOrigem = new long[valores.length];
+        long[] chavesDestino = new long[valores.length];
+        for (int i = 0; i < valores.length; i++) {
+            chavesOrigem[i] = origens[i].getChave();
+            chavesDestino[i] = destinos[i].getChave();
+        }
+        long[] lsns = DiarioDeOperacoes.registrarTransacao(diarios, particoesEnvolvidas, instante, chavesOrigem, chavesDestino, valores);
+        for (int i = 0; i < contas.length; i++) {
+            contas[i].setUltimoLsn(lsns[parteDaParticao[indices[i]]]);
+        }
+    }
+
+    // Aguarda a gravação em disco de todos os registros feitos até o momento na partição da conta
+    public static void aguardarPersistenciaPendente(Conta conta) {
+        DiarioDeOperacoes atual = particaoDaChave(conta.getChave()).diario;
+        if (atual != null) {
+            atual.aguardarPendentes();
+        }
+    }
+
+    // Aguarda a gravação em disco de todos os registros feitos até o momento, em todas as partições
+    public static void aguardarPersistenciaPendente() {
+        for (Particao particao : particoes) {
+            DiarioDeOperacoes atual = particao.diario;
+            if (atual != null) {
+                atual.aguardarPendentes();
+            }
+        }
+    }
+
+    // Ativa as notificações com a política DESCARTAR: com a fila cheia, as operações não esperam pelo destino
+    public void ativarNotificacoes(int capacidade, int tamanhoLote, Consumer<List<String>> destino) {
+        ativarNotificacoes(capacidade, tamanhoLote, FilaDeNotificacoes.Politica.DESCARTAR, destino);
+    }
+
+    /**
+     * Ativa o envio assíncrono de notificações de transações aos clientes.
+     *
+     * As notificações são publicadas sob os locks das contas da operação. Com BLOQUEAR, a espera por espaço
+     * na fila acontece dentro desses locks, e um destino lento passa a atrasar as operações das contas
+     * (ver FilaDeNotificacoes).
+     *
+     * @param capacidade Número máximo de notificações aguardando envio.
+     * @param tamanhoLote Número máximo de mensagens entregues ao destino por vez.
+     * @param politica O que fazer quando a fila estiver cheia: aguardar espaço ou descartar a notificação.
+     * @param destino Recebe os lotes de mensagens formatadas, em uma thread de segundo plano.
+     */
+    public synchronized void ativarNotificacoes(int capacidade, int tamanhoLote, FilaDeNotificacoes.Politica politica, Consumer<List<String>> destino) {
+        if (notificacoes != null) {
+            notificacoes.close();
+        }
+        notificacoes = new FilaDeNotificacoes(capacidade, tamanhoLote, politica, destino);
+    }
+
+    // Aguarda a entrega de todas as notificações publicadas até o momento
+    public void aguardarNotificacoes() {
+        FilaDeNotificacoes atual = notificacoes;
+        if (atual != null) {
+            atual.aguardarEntrega();
+        }
+    }
+
+    // Publica a notificação de uma transação, quando as notificações estão ativadas
+    public static void publicarNotificacao(long conta, long instante, TipoServico tipoServico, long valor, long saldo, long contraparte) {
+        FilaDeNotificacoes atual = notificacoes;
+        if (atual != null) {
+            atual.publicar(conta, instante, tipoServico, valor, saldo, contraparte);
+        }
+    }
+
+    /**
+     * Ativa o modo sequencial: a partir daqui, todas as operações das contas são executadas pela thread
+     * de negócio do motor, sem locks (ver {@link MotorSequencial}).
+     *
+     * Disponível apenas sem o diário de operações: no modo sequencial, a durabilidade fica a cargo do
+     * diário de comandos, que registra as entradas do motor em vez do efeito das operações.
+     *
+     * @param arquivoComandos Arquivo do diário de comandos, sincronizado com o disco a cada lote, ou nulo para não gravar os comandos.
+     * @param outros Consumidores adicionais dos comandos (por exemplo, réplicas), cada um em sua própria thread.
+     * @throws IllegalStateException Se o motor já estiver ativo ou se o banco for persistente.
+     */
+    public synchronized MotorSequencial iniciarMotorSequencial(Path arquivoComandos, ConsumidorDeComandos... outros) throws IOException {
+        if (motor != null) {
+            throw new IllegalStateException("O motor sequencial já está ativo.");
+        }
+        if (diretorioDados != null) {
+            throw new IllegalStateException("O motor sequencial não pode ser usado com o diário de operações.");
+        }
+
+        List<ConsumidorDeComandos> consumidores = new ArrayList<>();
+        if (arquivoComandos != null) {
+            consumidores.add(MotorSequencial.gravarEm(new DiarioDeComandos(arquivoComandos, true)));
+        }
+        consumidores.addAll(Arrays.asList(outros));
+        motor = new MotorSequencial(CAPACIDADE_MOTOR, consumidores);
+        return motor;
+    }
+
+    // Processa os comandos pendentes e volta a executar as operações com os locks das contas
+    public synchronized void pararMotorSequencial() throws IOException {
+        MotorSequencial atual = motor;
+        if (atual != null) {
+            try {
+                atual.close();
+            } finally {
+                motor = null;
+            }
+        }
+    }
+
+    // Fila de notificações ativa, ou nula
+    public static FilaDeNotificacoes getNotificacoes() {
+        return notificacoes;
+    }
+
+    // Motor sequencial ativo, ou nulo
+    public static MotorSequencial getMotor() {
+        return motor;
+    }
+
+    // Cache das chaves de idempotência das operações
+    public static CacheDeIdempotencia getIdempotencia() {
+        return idempotencia;
+    }
+
+    // Ativa os limites de saques e transferências informados (ver LimitesDeOperacao), ou os desativa com nulo
+    public void ativarLimites(LimitesDeOperacao limites) {
+        Banco.limites = limites;
+    }
+
+    // Limites de saques e transferências ativos, ou nulo
+    public static LimitesDeOperacao getLimites() {
+        return limites;
+    }
+
+    // Apura os rendimentos e tarifas do período com a tabela padrão (ver ApuracaoMensal)
+    public ApuracaoMensal.Resumo apurarPeriodo(YearMonth periodo) {
+        return apurarPeriodo(periodo, TabelaDeEncargos.PADRAO);
+    }
+
+    /**
+     * Apura os rendimentos da poupança e as tarifas da conta corrente do período, em todas as contas.
+     *
+     * As operações continuam sendo atendidas durante a apuração. Cada período é apurado no máximo uma
+     * vez por conta; repetir a chamada (por exemplo, após uma falha no meio dela) apura apenas as
+     * contas que ainda não foram apuradas.
+     *
+     * @throws IllegalStateException Se o motor sequencial estiver ativo.
+     */
+    public ApuracaoMensal.Resumo apurarPeriodo(YearMonth periodo, TabelaDeEncargos tabela) {
+        if (motor != null) {
+            throw new IllegalStateException("A apuração mensal não está disponível com o motor sequencial ativo.");
+        }
+        return ApuracaoMensal.executar(particoes, periodo, tabela);
+    }
+
+    /**
+     * Exporta todas as contas e os seus extratos para o diretório informado (ver ExportadorDeExtratos).
+     *
+     * As operações continuam sendo atendidas durante a exportação; contas criadas durante ela podem
+     * ou não ser incluídas. Com o motor sequencial ativo, o histórico é registrado depois da operação,
+     * então o saldo exportado de uma conta pode já incluir operações ausentes do seu histórico.
+     */
+    public ExportadorDeExtratos.Resumo exportarExtratos(Path diretorio, ExportadorDeExtratos.Formato formato) throws IOException {
+        try (ExportadorDeExtratos exportador = ExportadorDeExtratos.abrir(diretorio, formato)) {
+            for (Particao particao : particoes) {
+                for (Conta conta : particao.contasPorNumero.values()) {
+                    exportador.exportar(conta);
+                }
+            }
+            return exportador.concluir();
+        }
+    }
+
+    // Retorna o saldo de cada conta num mesmo instante e o total (ver fotografarSaldos(boolean))
+    public FotografiaDeSaldos fotografarSaldos() {
+        return fotografarSaldos(true);
+    }
+
+    // Retorna a soma dos saldos de todas as contas num mesmo instante: o passivo total do banco com os clientes
+    public long somarSaldos() {
+        return fotografarSaldos(false).total();
+    }
+
+    /**
+     * Obtém os saldos de todas as contas num mesmo instante (ver CorteDeSaldos), sem travar as contas.
+     *
+     * As operações continuam sendo atendidas, inclusive pelo motor sequencial. Cada transferência e
+     * cada transação aparece inteira ou não aparece, então o total nunca inclui dinheiro "em trânsito".
+     * Contas criadas durante a leitura podem ou não ser incluídas; quando incluídas, com o saldo do
+     * instante do corte.
+     *
+     * @param comContas Se false, apenas a quantidade e o total são calculados.
+     */
+    public FotografiaDeSaldos fotografarSaldos(boolean comContas) {
+        int capacidade = 0;
+        if (comContas) {
+            for (Particao particao : particoes) {
+                capacidade += particao.contasPorNumero.size();
+            }
+        }
+        long[] chaves = new long[capacidade];
+        long[] saldos = new long[capacidade];
+        int quantidade = 0;
+        long total = 0;
+
+        long epoca = CorteDeSaldos.abrir();
+        try {
+            for (Particao particao : particoes) {
+                for (Conta conta : particao.contasPorNumero.values()) {
+                    long saldo = conta.getSaldoNoCorte(epoca);
+                    total = Dinheiro.somar(total, saldo);
+                    if (comContas) {
+                        if (quantidade == chaves.length) {
+                            chaves = Arrays.copyOf(chaves, Math.max(16, quantidade * 2));
+                            saldos = Arrays.copyOf(saldos, chaves.length);
+                        }
+                        chaves[quantidade] = conta.getChave();
+                        saldos[quantidade] = saldo;
+                    }
+                    quantidade++;
+                }
+            }
+        } finally {
+            CorteDeSaldos.fechar();
+        }
+        if (comContas && quantidade < chaves.length) {
+            chaves = Arrays.copyOf(chaves, quantidade);
+            saldos = Arrays.copyOf(saldos, quantidade);
+        }
+        return new FotografiaDeSaldos(chaves, saldos, quantidade, total);
+    }
+
+    /**
+     * Passa a transmitir o diário de operações de todas as partições a réplicas (ver Replica), aceitas
+     * por TCP no endereço informado. Cada réplica recebe os registros depois de gravados em disco no
+     * primário e confirma os que já gravou no seu próprio diário (ver TransmissorDoDiario).
+     *
+     * @throws IllegalStateException Se o banco não for persistente ou se a transmissão já estiver ativa.
+     */
+    public synchronized TransmissorDoDiario iniciarReplicacao(InetSocketAddress endereco) throws IOException {
+        if (diretorioDados == null) {
+            throw new IllegalStateException("A replicação exige a persistência ativada.");
+        }
+        if (transmissor != null) {
+            throw new IllegalStateException("A replicação já está ativa.");
+        }
+        Path[] diretorios = new Path[particoes.length];
+        DiarioDeOperacoes[] diarios = new DiarioDeOperacoes[particoes.length];
+        for (Particao particao : particoes) {
+            diretorios[particao.indice] = particao.diretorio;
+            diarios[particao.indice] = particao.diario;
+        }
+        transmissor = new TransmissorDoDiario(diretorioDados, diretorios, diarios, diretorioDados.resolve(ARQUIVO_IDEMPOTENCIA), endereco);
+        return transmissor;
+    }
+
+    // Retorna a transmissão do diário a réplicas, ou nulo se não estiver ativa
+    public synchronized TransmissorDoDiario getTransmissor() {
+        return transmissor;
+    }
+
+    // Próximo LSN do diário de cada partição; na réplica, a posição dela no diário do primário
+    long[] proximosLsns() {
+        long[] proximos = new long[particoes.length];
+        for (Particao particao : particoes) {
+            proximos[particao.indice] = particao.diario.getProximoLsn();
+        }
+        return proximos;
+    }
+
+    // Maior LSN do diário da partição gravado em disco
+    long lsnDuravel(int particao) {
+        return particoes[particao].diario.getLsnDuravel();
+    }
+
+    /**
+     * Na réplica, aplica registros recebidos do diário de uma partição do primário, como na recuperação,
+     * e os acrescenta ao diário da mesma partição, com os LSNs originais. Chamado por uma única thread.
+     *
+     * As metades de transferências e partes de transações cujas contrapartes (em outras partições) ainda
+     * não chegaram são guardadas até chegarem, para serem completadas se a réplica for promovida antes.
+     */
+    void aplicarReplicados(int particao, List<RegistroDiario> registros, ByteBuffer brutos, long maiorLsn) {
+        for (RegistroDiario registro : registros) {
+            aplicarRegistro(particoes[particao], registro, replicadas);
+        }
+        particoes[particao].diario.anexarReplicados(brutos, maiorLsn);
+        replicadas.descartarResolvidasSeNecessario();
+    }
+
+    /**
+     * Na réplica promovida, completa as transferências e transações que chegaram apenas em parte (como na
+     * recuperação) e regrava as partes que faltavam. Deve ser chamado depois do último aplicarReplicados.
+     */
+    void concluirReplicacao() throws IOException {
+        long[] proximos = proximosLsns();
+        replicadas.completar(proximos);
+        for (Particao particao : particoes) {
+            particao.diario.avancarProximoLsn(proximos[particao.indice]);
+        }
+        replicadas.regravarFaltantes();
+        replicadas = null;
+    }
+
+    // Apaga os snapshots, os segmentos do diário e o arquivo de idempotência do banco, que deve estar encerrado
+    void apagarArquivos() throws IOException {
+        for (Particao particao : particoes) {
+            Snapshot.descartarAnteriores(particao.diretorio, Long.MAX_VALUE);
+            for (long segmento : DiarioDeOperacoes.listarSegmentos(particao.diretorio)) {
+                Files.deleteIfExists(DiarioDeOperacoes.caminhoSegmento(particao.diretorio, segmento));
+            }
+        }
+        Files.deleteIfExists(diretorioDados.resolve(ARQUIVO_IDEMPOTENCIA));
+    }
+
+    /**
+     * Grava um snapshot de todas as contas e descarta os segmentos do diário cobertos por ele.
+     *
+     * As operações continuam sendo atendidas durante o snapshot. Com partições, cada uma grava o seu
+     * próprio snapshot, mas os diários de todas são rotacionados antes de qualquer conta ser copiada:
+     * assim, as duas metades de uma transferência entre partições ficam ambas refletidas nos
+     * snapshots ou ambas nos segmentos reaplicados depois deles.
+     *
+     * As chaves de idempotência dos registros descartados são gravadas antes, em um arquivo à parte.
+     */
+    public synchronized void salvarSnapshot() throws IOException {
+        if (diretorioDados == null) {
+            throw new IllegalStateException("A persistência não está ativada.");
+        }
+
+        // Tudo o que foi registrado antes da rotação já está aplicado às contas e será copiado no snapshot
+        long[] segmentosIniciais = new long[particoes.length];
+        long[] proximosLsns = new long[particoes.length];
+        for (Particao particao : particoes) {
+            segmentosIniciais[particao.indice] = particao.diario.rotacionar();
+            proximosLsns[particao.indice] = particao.diario.getProximoLsn();
+        }
+
+        // O snapshot só é publicado depois que as operações copiadas nele estão gravadas no diário
+        for (Particao particao : particoes) {
+            Snapshot.salvar(particao.diretorio, segmentosIniciais[particao.indice], proximosLsns[particao.indice],
+                    particao.contasPorNumero.values(), particao.diario::aguardarPendentes);
+        }
+        ArquivoDeIdempotencia.salvar(diretorioDados.resolve(ARQUIVO_IDEMPOTENCIA), idempotencia);
+        for (Particao particao : particoes) {
+            particao.diario.descartarAnteriores(segmentosIniciais[particao.indice]);
+            Snapshot.descartarAnteriores(particao.diretorio, segmentosIniciais[particao.indice]);
+        }
+    }
+
+    // Agenda snapshots periódicos em uma thread de segundo plano
+    public synchronized void agendarSnapshots(long intervalo, TimeUnit unidade) {
+        if (agendador == null) {
+            agendador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "banco-snapshot");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        agendador.scheduleWithFixedDelay(() -> {
+            try {
+                salvarSnapshot();
+            } catch (IOException e) {
+                System.err.println("[!] Falha ao salvar snapshot: " + e.getMessage());
+            }
+        }, intervalo, intervalo, unidade);
+    }
+
+    // Encerra os snapshots periódicos, a replicação e o motor sequencial, entrega as notificações pendentes e grava os
+    // registros pendentes do diário. Mesmo que uma das etapas falhe, as seguintes são executadas e outro banco pode ser criado
+    @Override
+    public synchronized void close() throws IOException {
+        if (encerrado) {
+            return;
+        }
+        encerrado = true;
+        try {
+            if (agendador != null) {
+                agendador.shutdownNow();
+            }
+            if (transmissor != null) {
+                transmissor.close();
+                transmissor = null;
+            }
+            pararMotorSequencial();
+        } finally {
+            try {
+                if (notificacoes != null) {
+                    notificacoes.close();
+                    notificacoes = null;
+                }
+                for (Particao particao : particoes) {
+                    particao.fechar();
+                }
+            } finally {
+                synchronized (Banco.class) {
+                    aberto = null;
+                }
+            }
+        }
+    }
+
+    // Encerra a fila de notificações e o motor sequencial que um banco anterior não chegou a encerrar
+    private static void encerrarRestantes() {
+        if (notificacoes != null) {
+            notificacoes.close();
+            notificacoes = null;
+        }
+        MotorSequencial anterior = motor;
+        if (anterior != null) {
+            motor = null;
+            try {
+                anterior.close();
+            } catch (IOException e) {
+                System.err.println("[!] Falha ao encerrar o motor sequencial anterior: " + e.getMessage());
+            }
+        }
+    }
+
+    // Confere se o diretório de dados foi criado com o mesmo número de partições
+    private static void verificarParticoesGravadas(Path diretorioDados, int quantidadeParticoes) throws IOException {
+        boolean dadosNaRaiz = Snapshot.maisRecente(diretorioDados) != null || !DiarioDeOperacoes.listarSegmentos(diretorioDados).isEmpty();
+        int particoesGravadas = 0;
+        while (Files.isDirectory(diretorioDados.resolve(PREFIXO_PARTICAO + particoesGravadas))) {
+            particoesGravadas++;
+        }
+
+        boolean compativel = quantidadeParticoes == 1 ? particoesGravadas == 0 : !dadosNaRaiz && (particoesGravadas == 0 || particoesGravadas == quantidadeParticoes);
+        if (!compativel) {
+            throw new IllegalArgumentException("O diretório " + diretorioDados + " foi criado com outro número de partições ("
+                    + Math.max(1, particoesGravadas) + ").");
+        }
+    }
+
+    // Aplica um registro lido do diário de uma partição ao estado em memória
+    private static void aplicarRegistro(Particao particao, RegistroDiario registro, MetadesDeTransferencia metades) {
+        switch (registro.tipo()) {
+            case CRIACAO_CONTA -> {
+                if (buscarConta(registro.origem()) == null && buscarCpf(registro.cpf()) == null) {
+                    int agencia = (int) (registro.origem() >>> 32);
+                    int numero = (int) registro.origem();
+                    particao.indexar(instanciarConta(new Cliente(registro.nome(), registro.cpf()), registro.tipoConta(), agencia, numero));
+                }
+            }
+            case DEBITO_ENTRE_PARTICOES -> {
+                buscarConta(registro.origem()).reaplicar(registro.lsn(), registro.instante(), TipoServico.TRANSFERENCIA, -registro.valor(), registro.destino());
+                metades.registrar(particao.indice, registro);
+                restaurarChave(registro, ResultadoOperacao.SUCESSO);
+            }
+            case CREDITO_ENTRE_PARTICOES -> {
+                buscarConta(registro.destino()).reaplicar(registro.lsn(), registro.instante(), TipoServico.TRANSFERENCIA, registro.valor(), registro.origem());
+                metades.registrar(particao.indice, registro);
+                restaurarChave(registro, ResultadoOperacao.SUCESSO);
+            }
+            case OPERACAO -> {
+                Conta origem = buscarConta(registro.origem());
+                long valor = registro.valor();
+                switch (registro.tipoServico()) {
+                    case DEPOSITO -> origem.reaplicar(registro.lsn(), registro.instante(), TipoServico.DEPOSITO, valor, HistoricoTransacoes.SEM_CONTRAPARTE);
+                    case SAQUE -> origem.reaplicar(registro.lsn(), registro.instante(), TipoServico.SAQUE, -valor, HistoricoTransacoes.SEM_CONTRAPARTE);
+                    case RENDIMENTO -> origem.reaplicarApuracao(registro.lsn(), registro.instante(), TipoServico.RENDIMENTO, valor, (int) registro.destino());
+                    case TARIFA -> origem.reaplicarApuracao(registro.lsn(), registro.instante(), TipoServico.TARIFA, -valor, (int) registro.destino());
+                    case TRANSFERENCIA -> {
+                        Conta destino = buscarConta(registro.destino());
+                        origem.reaplicar(registro.lsn(), registro.instante(), TipoServico.TRANSFERENCIA, -valor, destino.getChave());
+                        destino.reaplicar(registro.lsn(), registro.instante(), TipoServico.TRANSFERENCIA, valor, origem.getChave());
+                    }
+                }
+                restaurarChave(registro, ResultadoOperacao.SUCESSO);
+            }
+            case RESULTADO_IDEMPOTENTE -> restaurarChave(registro, registro.resultado());
+            case TRANSACAO -> {
+                reaplicarParteDaTransacao(particao.indice, registro.lsn(), registro.instante(), registro.transacao());
+                metades.registrarTransacao(particao.indice, registro);
+            }
+        }
+    }
+
+    // Reaplica, com o LSN da parte, as pernas de uma transação que movimentam contas da partição informada
+    private static void reaplicarParteDaTransacao(int particao, long lsn, long instante, RegistroDiario.Transacao transacao) {
+        int pernas = transacao.quantidadePernas();
+        Map<Conta, Integer> posicoes = new LinkedHashMap<>();   // Contas da partição, na ordem da primeira perna de cada uma
+        long[][] valores = new long[2 * pernas][];              // Por conta: valor assinado e contraparte de cada perna
+        long[][] contrapartes = new long[2 * pernas][];
+        int[] quantidades = new int[2 * pernas];
+
+        for (int i = 0; i < 2 * pernas; i++) {
+            boolean debito = i % 2 == 0;   // Cada perna é vista pelo débito e depois pelo crédito
+            int perna = i / 2;
+            long chave = debito ? transacao.origens()[perna] : transacao.destinos()[perna];
+            if (particaoDaChave(chave).indice != particao) {
+                continue;
+            }
+            int posicao = posicoes.computeIfAbsent(buscarConta(chave), conta -> posicoes.size());
+            if (valores[posicao] == null) {
+                valores[posicao] = new long[pernas];
+                contrapartes[posicao] = new long[pernas];
+            }
+            valores[posicao][quantidades[posicao]] = debito ? -transacao.valores()[perna] : transacao.valores()[perna];
+            contrapartes[posicao][quantidades[posicao]++] = debito ? transacao.destinos()[perna] : transacao.origens()[perna];
+        }
+        for (Map.Entry<Conta, Integer> conta : posicoes.entrySet()) {
+            int posicao = conta.getValue();
+            conta.getKey().reaplicarTransacao(lsn, instante, valores[posicao], contrapartes[posicao], quantidades[posicao]);
+        }
+    }
+
+    // Restaura no cache a chave de idempotência de um registro reaplicado, se houver
+    private static void restaurarChave(RegistroDiario registro, ResultadoOperacao resultado) {
+        if (registro.chaveIdempotencia() != null) {
+            idempotencia.restaurar(registro.origem(), registro.chaveIdempotencia(), resultado, registro.instante());
+        }
+    }
+
+    /**
+     * Metades de transferências entre partições e partes de transações encontradas durante a recuperação.
+     *
+     * Uma metade cuja contraparte não foi encontrada em nenhum diário teve a outra metade perdida
+     * (gravada depois do último fsync) ou já descartada por um snapshot. Em ambos os casos, a outra
+     * metade é reaplicada com o seu LSN original: se ela já estiver refletida no snapshot da conta,
+     * o LSN da conta é maior ou igual e a reaplicação é ignorada.
+     *
+     * As metades reaplicadas são regravadas, com o LSN original, no início do novo segmento do diário
+     * da partição delas. Uma metade perdida é sempre posterior a tudo o que restou no diário, então a
+     * ordem dos LSNs é preservada, e uma recuperação seguinte a encontra normalmente.
+     *
+     * As partes de uma transação são tratadas da mesma forma: cada parte encontrada guarda todas as
+     * pernas e o LSN das demais, e as partes que faltam são reaplicadas e regravadas a partir dela.
+     *
+     * Na réplica, que recebe os diários continuamente, as metades e partes já com todas as contrapartes
+     * são descartadas de tempos em tempos (ver aplicarReplicados).
+     */
+    private static class MetadesDeTransferencia {
+        private static final int LIMPEZA_MINIMA = 1 << 14;
+
+        private record Metade(int particao, long lsn) {
+        }
+
+        private record Faltante(int particao, RegistroDiario registro) {
+        }
+
+        private final Set<Metade> encontradas = new HashSet<>();
+        private final List<Faltante> registros = new ArrayList<>();   // Metades de transferências, com a partição em que foram encontradas
+        private final List<Faltante> transacoes = new ArrayList<>();  // Partes de transações, idem
+        private final List<Faltante> faltantes = new ArrayList<>();
+        private int proximaLimpeza = LIMPEZA_MINIMA;
+
+        void registrar(int particao, RegistroDiario registro) {
+            encontradas.add(new Metade(particao, registro.lsn()));
+            registros.add(new Faltante(particao, registro));
+        }
+
+        void registrarTransacao(int particao, RegistroDiario registro) {
+            encontradas.add(new Metade(particao, registro.lsn()));
+            transacoes.add(new Faltante(particao, registro));
+        }
+
+        // Descarta as metades e partes cujas contrapartes já foram todas encontradas, quando acumularam muitas
+        void descartarResolvidasSeNecessario() {
+            if (registros.size() + transacoes.size() < proximaLimpeza) {
+                return;
+            }
+            registros.removeIf(metade -> encontradas.contains(contraparte(metade.registro())));
+            transacoes.removeIf(parte -> {
+                RegistroDiario.Transacao transacao = parte.registro().transacao();
+                for (int i = 0; i < transacao.particoes().length; i++) {
+                    if (!encontradas.contains(new Metade(transacao.particoes()[i], transacao.lsns()[i]))) {
+                        return false;
+                    }
+                }
+                return true;
+            });
+            // As que restam ainda podem ser a contraparte de uma metade ou parte que vai chegar
+            encontradas.clear();
+            for (Faltante metade : registros) {
+                encontradas.add(new Metade(metade.particao(), metade.registro().lsn()));
+            }
+            for (Faltante parte : transacoes) {
+                encontradas.add(new Metade(parte.particao(), parte.registro().lsn()));
+            }
+            proximaLimpeza = Math.max(LIMPEZA_MINIMA, 2 * (registros.size() + transacoes.size()));
+        }
+
+        private static Metade contraparte(RegistroDiario registro) {
+            boolean debito = registro.tipo() == RegistroDiario.Tipo.DEBITO_ENTRE_PARTICOES;
+            return new Metade(particaoDaChave(debito ? registro.destino() : registro.origem()).indice, registro.lsnContraparte());
+        }
+
+        // Reaplica as metades que faltam e garante que os diários nunca reutilizem os LSNs delas
+        void completar(long[] proximosLsns) throws IOException {
+            for (Faltante metade : registros) {
+                RegistroDiario registro = metade.registro();
+                boolean debito = registro.tipo() == RegistroDiario.Tipo.DEBITO_ENTRE_PARTICOES;
+                long chaveContraparte = debito ? registro.destino() : registro.origem();
+                Conta contraparte = buscarConta(chaveContraparte);
+                if (contraparte == null) {
+                    throw new IOException("Diário inconsistente: conta inexistente na transferência de LSN " + registro.lsn() + ".");
+                }
+
+                int particaoContraparte = particaoDaChave(chaveContraparte).indice;
+                proximosLsns[particaoContraparte] = Math.max(proximosLsns[particaoContraparte], registro.lsnContraparte() + 1);
+                if (encontradas.contains(new Metade(particaoContraparte, registro.lsnContraparte()))) {
+                    continue;
+                }
+
+                if (debito) {
+                    contraparte.reaplicar(registro.lsnContraparte(), registro.instante(), TipoServico.TRANSFERENCIA, registro.valor(), registro.origem());
+                } else {
+                    contraparte.reaplicar(registro.lsnContraparte(), registro.instante(), TipoServico.TRANSFERENCIA, -registro.valor(), registro.destino());
+                }
+                faltantes.add(new Faltante(particaoContraparte, new RegistroDiario(registro.lsnContraparte(),
+                        debito ? RegistroDiario.Tipo.CREDITO_ENTRE_PARTICOES : RegistroDiario.Tipo.DEBITO_ENTRE_PARTICOES,
+                        registro.instante(), TipoServico.TRANSFERENCIA, registro.origem(), registro.destino(), registro.valor(),
+                        null, null, null, registro.lsn(), registro.chaveIdempotencia(), null, null)));
+            }
+
+            // Uma parte que falta pode ser encontrada a partir de várias outras: é completada uma única vez
+            for (Faltante parte : transacoes) {
+                RegistroDiario registro = parte.registro();
+                RegistroDiario.Transacao transacao = registro.transacao();
+                for (int i = 0; i < transacao.particoes().length; i++) {
+                    int particao = transacao.particoes()[i];
+                    long lsn = transacao.lsns()[i];
+                    proximosLsns[particao] = Math.max(proximosLsns[particao], lsn + 1);
+                    if (!encontradas.add(new Metade(particao, lsn))) {
+                        continue;
+                    }
+                    for (int j = 0; j < transacao.quantidadePernas(); j++) {
+                        if (buscarConta(transacao.origens()[j]) == null || buscarConta(transacao.destinos()[j]) == null) {
+                            throw new IOException("Diário inconsistente: conta inexistente na transação de LSN " + registro.lsn() + ".");
+                        }
+                    }
+                    reaplicarParteDaTransacao(particao, lsn, registro.instante(), transacao);
+                    faltantes.add(new Faltante(particao, new RegistroDiario(lsn, RegistroDiario.Tipo.TRANSACAO, registro.instante(),
+                            TipoServico.TRANSFERENCIA, -1L, -1L, 0L, null, null, null, 0L, null, null, transacao)));
+                }
+            }
+        }
+
+        // Regrava as metades completadas nos novos segmentos e aguarda a gravação
+        void regravarFaltantes() {
+            faltantes.sort((a, b) -> Long.compare(a.registro().lsn(), b.registro().lsn()));
+            for (Faltante faltante : faltantes) {
+                DiarioDeOperacoes diario = particoes[faltante.particao()].diario;
+                if (faltante.registro().tipo() == RegistroDiario.Tipo.TRANSACAO) {
+                    diario.regravarParteDeTransacao(faltante.registro());
+                } else {
+                    diario.regravarMetade(faltante.registro());
+                }
+            }
+            if (!faltantes.isEmpty()) {
+                aguardarPersistenciaPendente();
+            }
+        }
     }
 
     protected String getNome() {
@@ -0,0 +1,326 @@
+package service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.ResultadoOperacao;
+
+/**
+ * Cache das chaves de idempotência das operações, que devolve o resultado original quando uma
+ * operação é repetida com a mesma chave (por exemplo, um cliente que reenvia um depósito após um timeout).
+ *
+ * Uma entrada é identificada pela conta de origem e pela chave informada pelo cliente, de forma que
+ * contas diferentes podem usar as mesmas chaves. A primeira chamada com uma chave a reserva
+ * ({@link #reservar}) e, depois de executar a operação, grava o resultado ({@link #concluir});
+ * uma repetição concorrente aguarda esse resultado em vez de executar a operação de novo.
+ *
+ * As entradas ficam em segmentos independentes, cada um com o seu próprio lock. Cada segmento guarda
+ * as entradas em arrays paralelos usados como fila circular, na ordem de inserção, e um índice de
+ * endereçamento aberto com a posição de cada entrada na fila; nenhum objeto é criado por operação.
+ * Quando a fila de um segmento está cheia, a entrada mais antiga é descartada, e entradas mais
+ * antigas que a validade são descartadas a cada acesso ao segmento.
+ */
+public class CacheDeIdempotencia {
+    public static final int CAPACIDADE_PADRAO = 1 << 18;
+    public static final long VALIDADE_PADRAO_MS = TimeUnit.HOURS.toMillis(24);
+    public static final int TAMANHO_MAXIMO_CHAVE = 255;
+
+    private static final int BITS_SEGMENTOS = 6;
+    private static final int CAPACIDADE_MINIMA_SEGMENTO = 16;
+    private static final byte PENDENTE = -1;      // Operação em andamento
+    private static final byte REMOVIDA = -2;      // Reserva cancelada; a posição é liberada ao chegar ao início da fila
+    private static final ResultadoOperacao[] RESULTADOS = ResultadoOperacao.values();
+
+    // Recebe as entradas concluídas do cache (ver percorrer)
+    @FunctionalInterface
+    public interface Visitante {
+        void visitar(long conta, String chave, ResultadoOperacao resultado, long instante);
+    }
+
+    private final Segmento[] segmentos = new Segmento[1 << BITS_SEGMENTOS];
+    private final long validadeMs;
+    private final LongAdder repeticoes = new LongAdder();
+
+    /**
+     * @param capacidade Número máximo de chaves guardadas (arredondado para cima por segmento).
+     * @param validadeMs Tempo, em ms, durante o qual uma chave é lembrada.
+     */
+    public CacheDeIdempotencia(int capacidade, long validadeMs) {
+        if (capacidade < 1 || validadeMs < 1) {
+            throw new IllegalArgumentException("A capacidade e a validade do cache devem ser positivas.");
+        }
+        int porSegmento = Math.max(CAPACIDADE_MINIMA_SEGMENTO, (capacidade + segmentos.length - 1) / segmentos.length);
+        porSegmento = Integer.highestOneBit(porSegmento - 1) << 1;
+        for (int i = 0; i < segmentos.length; i++) {
+            segmentos[i] = new Segmento(porSegmento);
+        }
+        this.validadeMs = validadeMs;
+    }
+
+    // Confere se a chave de idempotência informada pelo cliente é aceitável
+    public static void validarChave(String chave) {
+        if (chave.isEmpty() || chave.length() > TAMANHO_MAXIMO_CHAVE) {
+            throw new IllegalArgumentException("A chave de idempotência deve ter entre 1 e " + TAMANHO_MAXIMO_CHAVE + " caracteres.");
+        }
+    }
+
+    /**
+     * Reserva a chave para uma operação da conta, ou retorna o resultado da operação já executada com ela.
+     *
+     * Se a chave estiver reservada por uma operação em andamento, aguarda a conclusão dela.
+     *
+     * @return O resultado original, ou null se a chave foi reservada: nesse caso o chamador deve executar
+     *         a operação e chamar {@link #concluir} (ou {@link #cancelar}, se ela falhar sem resultado).
+     */
+    public ResultadoOperacao reservar(long conta, String chave) {
+        validarChave(chave);
+        int hash = hash(conta, chave);
+        Segmento segmento = segmento(hash);
+        long agora = System.currentTimeMillis();
+        boolean interrompida = false;
+
+        synchronized (segmento) {
+            try {
+                segmento.expirar(agora - validadeMs);
+                while (true) {
+                    int posicao = segmento.buscar(conta, chave, hash);
+                    if (posicao < 0) {
+                        segmento.inserir(conta, chave, hash, agora, PENDENTE);
+                        return null;
+                    }
+                    byte resultado = segmento.resultados[posicao];
+                    if (resultado != PENDENTE) {
+                        repeticoes.increment();
+                        return RESULTADOS[resultado];
+                    }
+                    try {
+                        segmento.wait();
+                    } catch (InterruptedException e) {
+                        interrompida = true;
+                    }
+                }
+            } finally {
+                if (interrompida) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    // Grava o resultado da operação que reservou a chave e acorda as repetições que o aguardam
+    public void concluir(long conta, String chave, ResultadoOperacao resultado) {
+        int hash = hash(conta, chave);
+        Segmento segmento = segmento(hash);
+        synchronized (segmento) {
+            int posicao = segmento.buscar(conta, chave, hash);
+            if (posicao < 0) {
+                // A reserva foi descartada pela capacidade durante a operação
+                segmento.inserir(conta, chave, hash, System.currentTimeMillis(), (byte) resultado.ordinal());
+            } else {
+                segmento.definirResultado(posicao, (byte) resultado.ordinal());
+            }
+            segmento.notifyAll();
+        }
+    }
+
+    // Libera a reserva de uma operação que falhou sem resultado; uma repetição poderá executá-la
+    public void cancelar(long conta, String chave) {
+        int hash = hash(conta, chave);
+        Segmento segmento = segmento(hash);
+        synchronized (segmento) {
+            int posicao = segmento.buscar(conta, chave, hash);
+            if (posicao >= 0) {
+                segmento.remover(posicao);
+            }
+            segmento.notifyAll();
+        }
+    }
+
+    // Restaura uma entrada gravada em disco, na recuperação; entradas já vencidas são ignoradas
+    public void restaurar(long conta, String chave, ResultadoOperacao resultado, long instante) {
+        if (instante < System.currentTimeMillis() - validadeMs) {
+            return;
+        }
+        int hash = hash(conta, chave);
+        Segmento segmento = segmento(hash);
+        synchronized (segmento) {
+            int posicao = segmento.buscar(conta, chave, hash);
+            if (posicao < 0) {
+                segmento.inserir(conta, chave, hash, instante, (byte) resultado.ordinal());
+            } else {
+                segmento.definirResultado(posicao, (byte) resultado.ordinal());
+            }
+        }
+    }
+
+    /**
+     * Entrega ao visitante todas as entradas concluídas, segmento por segmento.
+     *
+     * Antes de percorrer um segmento, aguarda a conclusão das operações em andamento nele: assim,
+     * toda chave reservada antes da chamada é entregue com o seu resultado.
+     */
+    public void percorrer(Visitante visitante) {
+        boolean interrompida = false;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                while (segmento.pendentes > 0) {
+                    try {
+                        segmento.wait();
+                    } catch (InterruptedException e) {
+                        interrompida = true;
+                    }
+                }
+                int mascara = segmento.chaves.length - 1;
+                for (int i = 0; i < segmento.tamanho; i++) {
+                    int posicao = (segmento.inicio + i) & mascara;
+                    byte resultado = segmento.resultados[posicao];
+                    if (resultado >= 0) {
+                        visitante.visitar(segmento.contas[posicao], segmento.chaves[posicao], RESULTADOS[resultado], segmento.instantes[posicao]);
+                    }
+                }
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Número de chaves guardadas, incluindo as ainda não descartadas por validade
+    public int tamanho() {
+        int total = 0;
+        for (Segmento segmento : segmentos) {
+            synchronized (segmento) {
+                total += segmento.tamanho;
+            }
+        }
+        return total;
+    }
+
+    // Número de repetições respondidas com o resultado original
+    public long getRepeticoes() {
+        return repeticoes.sum();
+    }
+
+    public long getValidadeMs() {
+        return validadeMs;
+    }
+
+    private Segmento segmento(int hash) {
+        return segmentos[hash >>> (32 - BITS_SEGMENTOS)];
+    }
+
+    private static int hash(long conta, String chave) {
+        int hash = chave.hashCode() * 0x9E3779B9 + Long.hashCode(conta * 0xC2B2AE3D27D4EB4FL);
+        return hash ^ (hash >>> 15);
+    }
+
+    /**
+     * Segmento do cache; todos os métodos devem ser chamados com o lock (monitor) do segmento.
+     *
+     * As entradas ocupam as posições [inicio, inicio + tamanho) da fila circular. O índice tem o dobro
+     * de posições da fila e guarda "posição na fila + 1" (0 indica posição livre), com sondagem linear.
+     */
+    private static final class Segmento {
+        final long[] contas;
+        final String[] chaves;
+        final int[] hashes;
+        final long[] instantes;
+        final byte[] resultados;
+        final int[] indice;
+        int inicio;
+        int tamanho;
+        int pendentes;
+
+        Segmento(int capacidade) {
+            contas = new long[capacidade];
+            chaves = new String[capacidade];
+            hashes = new int[capacidade];
+            instantes = new long[capacidade];
+            resultados = new byte[capacidade];
+            indice = new int[capacidade * 2];
+        }
+
+        // Retorna a posição da entrada na fila, ou -1
+        int buscar(long conta, String chave, int hash) {
+            int mascara = indice.length - 1;
+            for (int i = hash & mascara; indice[i] != 0; i = (i + 1) & mascara) {
+                int posicao = indice[i] - 1;
+                if (hashes[posicao] == hash && contas[posicao] == conta && chave.equals(chaves[posicao])) {
+                    return posicao;
+                }
+            }
+            return -1;
+        }
+
+        // Acrescenta uma entrada ao final da fila, descartando a mais antiga se a fila estiver cheia
+        void inserir(long conta, String chave, int hash, long instante, byte resultado) {
+            if (tamanho == chaves.length) {
+                descartarMaisAntiga();
+            }
+            int posicao = (inicio + tamanho) & (chaves.length - 1);
+            tamanho++;
+            contas[posicao] = conta;
+            chaves[posicao] = chave;
+            hashes[posicao] = hash;
+            instantes[posicao] = instante;
+            resultados[posicao] = resultado;
+            if (resultado == PENDENTE) {
+                pendentes++;
+            }
+
+            int mascara = indice.length - 1;
+            int i = hash & mascara;
+            while (indice[i] != 0) {
+                i = (i + 1) & mascara;
+            }
+            indice[i] = posicao + 1;
+        }
+
+        void definirResultado(int posicao, byte resultado) {
+            if (resultados[posicao] == PENDENTE) {
+                pendentes--;
+            }
+            resultados[posicao] = resultado;
+        }
+
+        // Retira uma entrada do índice; a posição na fila é liberada quando chegar ao início dela
+        void remover(int posicao) {
+            apagarDoIndice(posicao);
+            definirResultado(posicao, REMOVIDA);
+            chaves[posicao] = null;
+        }
+
+        // Descarta, a partir do início da fila, as entradas concluídas gravadas antes do limite
+        void expirar(long limite) {
+            while (tamanho > 0 && (resultados[inicio] == REMOVIDA || (resultados[inicio] != PENDENTE && instantes[inicio] < limite))) {
+                descartarMaisAntiga();
+            }
+        }
+
+        private void descartarMaisAntiga() {
+            if (resultados[inicio] != REMOVIDA) {
+                remover(inicio);
+            }
+            inicio = (inicio + 1) & (chaves.length - 1);
+            tamanho--;
+        }
+
+        // Remove a entrada do índice, recuando as entradas seguintes da mesma sequência de sondagem
+        private void apagarDoIndice(int posicao) {
+            int mascara = indice.length - 1;
+            int livre = hashes[posicao] & mascara;
+            while (indice[livre] != posicao + 1) {
+                livre = (livre + 1) & mascara;
+            }
+            for (int i = (livre + 1) & mascara; indice[i] != 0; i = (i + 1) & mascara) {
+                int ideal = hashes[indice[i] - 1] & mascara;
+                // A entrada pode ocupar a posição livre se a posição ideal dela não estiver entre a livre e a atual
+                if (((i - ideal) & mascara) >= ((i - livre) & mascara)) {
+                    indice[livre] = indice[i];
+                    livre = i;
+                }
+            }
+            indice[livre] = 0;
+        }
+    }
+}
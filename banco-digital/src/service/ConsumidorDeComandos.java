@@ -0,0 +1,32 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import model.TipoServico;
+
+/**
+ * Consumidor dos comandos do motor sequencial (por exemplo, o diário de comandos ou uma réplica).
+ *
+ * Cada consumidor roda em uma thread própria, em paralelo com a thread de negócio, e recebe todos os
+ * comandos na ordem de execução. Um comando só é confirmado a quem o enviou depois de entregue a
+ * todos os consumidores.
+ */
+public interface ConsumidorDeComandos extends Closeable {
+
+    /**
+     * Recebe um comando.
+     *
+     * @param sequencia Posição do comando na ordem de execução.
+     * @param conta Chave da conta do comando.
+     * @param destinatario Chave da conta de destino das transferências, ou -1.
+     * @param fimDoLote true no último comando disponível no momento; o consumidor pode acumular os
+     *        comandos e processá-los de uma só vez nesse ponto.
+     * @throws IOException Interrompe o motor: nenhum outro comando é confirmado.
+     */
+    void receber(long sequencia, long instante, TipoServico tipoServico, long conta, long destinatario, long valor, boolean fimDoLote) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,189 @@
+package service;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import model.RenderizadorDeExtrato;
+import model.TipoServico;
+
+/**
+ * Fila assíncrona de notificações de transações para os clientes.
+ *
+ * As operações apenas copiam os dados da transação para uma posição pré-alocada de um buffer
+ * circular (vários produtores, um consumidor), sem locks e sem formatar mensagens. Uma thread
+ * de segundo plano consome a fila, monta as mensagens e as entrega ao destino em lotes.
+ *
+ * Quando a fila está cheia, a política configurada decide entre aguardar espaço (BLOQUEAR) ou
+ * descartar a notificação (DESCARTAR, o padrão).
+ *
+ * As contas publicam as notificações ainda sob os seus locks, para que cheguem na ordem em que as
+ * operações foram aplicadas. Com BLOQUEAR, um destino lento leva à espera dentro desses locks: as
+ * operações das contas envolvidas, e as que aguardam por elas, ficam paradas até o consumidor liberar
+ * espaço (com o motor sequencial, a thread de negócio inteira). Por isso BLOQUEAR deve ser usada apenas
+ * quando nenhuma notificação pode ser perdida e o destino acompanha a vazão das operações.
+ */
+public class FilaDeNotificacoes implements Closeable {
+    private static final long ESPERA_CONSUMIDOR_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long ESPERA_PRODUTOR_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+
+    public enum Politica {
+        BLOQUEAR,   // Aguarda espaço na fila, ainda sob os locks das contas da operação
+        DESCARTAR   // Descarta a notificação e a contabiliza em getDescartadas
+    }
+
+    // Posição do buffer circular; "publicado" indica a sequência cujos dados já estão completos
+    private static class Posicao {
+        volatile long publicado = -1;
+        long conta;
+        long instante;
+        TipoServico tipoServico;
+        long valor;
+        long saldo;
+        long contraparte;
+    }
+
+    private final Posicao[] posicoes;
+    private final int mascara;
+    private final int tamanhoLote;
+    private final Politica politica;
+    private final Consumer<List<String>> destino;
+
+    private final AtomicLong proximaSequencia = new AtomicLong(); // Próxima posição a ser reservada por um produtor
+    private final AtomicLong consumidas = new AtomicLong();       // Quantidade de posições já entregues pelo consumidor
+    private final LongAdder descartadas = new LongAdder();
+
+    private final Thread consumidor;
+    private volatile boolean fechada;
+
+    // Cria a fila com a política DESCARTAR
+    public FilaDeNotificacoes(int capacidade, int tamanhoLote, Consumer<List<String>> destino) {
+        this(capacidade, tamanhoLote, Politica.DESCARTAR, destino);
+    }
+
+    /**
+     * @param capacidade Número de posições da fila; arredondado para a próxima potência de 2.
+     * @param tamanhoLote Número máximo de mensagens entregues ao destino por vez.
+     * @param politica O que fazer quando a fila estiver cheia (ver a descrição da classe sobre BLOQUEAR).
+     * @param destino Recebe os lotes de mensagens, sempre na thread consumidora.
+     */
+    public FilaDeNotificacoes(int capacidade, int tamanhoLote, Politica politica, Consumer<List<String>> destino) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.posicoes = new Posicao[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            posicoes[i] = new Posicao();
+        }
+        this.mascara = tamanho - 1;
+        this.tamanhoLote = tamanhoLote;
+        this.politica = politica;
+        this.destino = destino;
+
+        this.consumidor = new Thread(this::consumirContinuamente, "notificacoes-consumidor");
+        this.consumidor.setDaemon(true);
+        this.consumidor.start();
+    }
+
+    /**
+     * Publica a notificação de uma transação.
+     *
+     * @return false se a notificação foi descartada porque a fila estava cheia.
+     */
+    public boolean publicar(long conta, long instante, TipoServico tipoServico, long valor, long saldo, long contraparte) {
+        long sequencia;
+        while (true) {
+            sequencia = proximaSequencia.get();
+            if (sequencia - consumidas.get() >= posicoes.length) {
+                if (politica == Politica.DESCARTAR) {
+                    descartadas.increment();
+                    return false;
+                }
+                LockSupport.parkNanos(ESPERA_PRODUTOR_NANOS);
+                continue;
+            }
+            if (proximaSequencia.compareAndSet(sequencia, sequencia + 1)) {
+                break;
+            }
+        }
+
+        Posicao posicao = posicoes[(int) sequencia & mascara];
+        posicao.conta = conta;
+        posicao.instante = instante;
+        posicao.tipoServico = tipoServico;
+        posicao.valor = valor;
+        posicao.saldo = saldo;
+        posicao.contraparte = contraparte;
+        posicao.publicado = sequencia; // Escrita volátil: torna os campos acima visíveis ao consumidor
+        return true;
+    }
+
+    // Aguarda a entrega de todas as notificações publicadas até o momento (útil em testes e no encerramento)
+    public void aguardarEntrega() {
+        long alvo = proximaSequencia.get();
+        while (consumidas.get() < alvo && consumidor.isAlive()) {
+            LockSupport.unpark(consumidor);
+            LockSupport.parkNanos(ESPERA_CONSUMIDOR_NANOS);
+        }
+    }
+
+    // Quantidade de notificações descartadas por falta de espaço
+    public long getDescartadas() {
+        return descartadas.sum();
+    }
+
+    // Entrega as notificações pendentes e encerra a thread consumidora
+    @Override
+    public void close() {
+        aguardarEntrega();
+        fechada = true;
+        LockSupport.unpark(consumidor);
+        try {
+            consumidor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consumirContinuamente() {
+        List<String> lote = new ArrayList<>(tamanhoLote);
+        StringBuilder mensagem = new StringBuilder(128);
+        RenderizadorDeExtrato renderizador = new RenderizadorDeExtrato();
+        long sequencia = consumidas.get();
+
+        while (!fechada || sequencia < proximaSequencia.get()) {
+            Posicao posicao = posicoes[(int) sequencia & mascara];
+
+            if (posicao.publicado == sequencia) {
+                mensagem.setLength(0);
+                mensagem.append("Conta ").append((int) (posicao.conta >>> 32)).append('/').append((int) posicao.conta).append(": ");
+                renderizador.acrescentar(mensagem, posicao.instante, posicao.tipoServico, posicao.valor, posicao.saldo, posicao.contraparte);
+                lote.add(mensagem.toString());
+                sequencia++;
+
+                if (lote.size() < tamanhoLote) {
+                    continue;
+                }
+            }
+
+            if (!lote.isEmpty()) {
+                entregar(lote);
+                consumidas.set(sequencia); // Libera as posições consumidas para os produtores
+            } else {
+                LockSupport.parkNanos(ESPERA_CONSUMIDOR_NANOS);
+            }
+        }
+    }
+
+    private void entregar(List<String> lote) {
+        try {
+            destino.accept(new ArrayList<>(lote));
+        } catch (RuntimeException e) {
+            System.err.println("[!] Falha ao entregar notificações: " + e.getMessage());
+        }
+        lote.clear();
+    }
+}
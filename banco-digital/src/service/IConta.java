@@ -3,13 +3,14 @@ package service;
 import exception.SaldoInsuficienteException;
 import exception.ValorInvalidoException;
 
+// Operações essenciais de uma conta bancária; todos os valores são expressos em centavos
 public interface IConta {
 
-    private void sacar(double valor) throws ValorInvalidoException, SaldoInsuficienteException;
+    void sacar(long valor) throws ValorInvalidoException, SaldoInsuficienteException;
 
-    private void depositar(double valor) throws ValorInvalidoException;
+    void depositar(long valor) throws ValorInvalidoException;
 
-    private void transferir(double valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException, IllegalArgumentException;
+    void transferir(long valor, String cpfDestinatario) throws ValorInvalidoException, SaldoInsuficienteException, IllegalArgumentException;
 
     /* void imprimirExtrato(); */
 }
@@ -0,0 +1,383 @@
+package service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import model.ResultadoOperacao;
+import model.TipoServico;
+
+/**
+ * Limites de velocidade avaliados em cada operação (quantidade e valor de operações em janelas de
+ * 1 minuto, 1 hora e 24 horas), em substituição a um serviço externo de prevenção a fraudes.
+ *
+ * São contabilizados os débitos de cada conta (saques e transferências enviadas) e as transferências
+ * recebidas pela conta de cada CPF de destino; depósitos não são limitados. As regras (ver {@link Regra})
+ * são combinadas em um limite de quantidade e um de valor por alvo e janela, de forma que a avaliação
+ * não depende do número de regras.
+ *
+ * Cada janela é dividida em {@value #FATIAS} fatias de tempo, e a contagem soma a fatia atual (parcial) e
+ * as {@value #FATIAS} anteriores: ela cobre sempre pelo menos a janela inteira e no máximo uma fatia a mais,
+ * então um limite pode ser aplicado um pouco antes, nunca depois. Os contadores de cada conta ficam em
+ * uma linha contígua de uma tabela de long (48 bytes por janela com limite, mais a chave e a folga da
+ * tabela), para que a avaliação de uma conta custe um único acesso fora do cache; as contas são
+ * divididas em faixas pela chave, cada uma com o seu próprio lock. Cada fatia comporta até
+ * 16.777.215 operações e R$ 10.995.116.277,75 por conta; uma operação que não caiba na fatia é recusada.
+ *
+ * A verificação e a contabilização são feitas juntas, sob o lock da faixa ({@link #reservar}): duas
+ * operações concorrentes da mesma conta nunca ultrapassam o limite juntas. Uma operação reservada e
+ * depois recusada (por saldo insuficiente, por exemplo) é estornada ({@link #estornar}).
+ *
+ * Os contadores ficam apenas em memória e recomeçam vazios a cada inicialização.
+ */
+public class LimitesDeOperacao {
+    public static final long SEM_DESTINO = 0L;   // Destino de saques; nenhuma chave de conta é 0 (a agência é positiva)
+    public static final long SEM_LIMITE = Long.MAX_VALUE;
+
+    static final int FATIAS = 4;
+    private static final int POSICOES = FATIAS + 1;           // Fatia atual e as anteriores, em um anel
+    private static final int JANELAS = 3;
+    private static final int COLUNAS_JANELA = 1 + POSICOES;   // Última fatia e as posições do anel
+    private static final int BITS_VALOR = 40;                 // Posição do anel: quantidade (24 bits) e soma dos valores (40 bits)
+    private static final long VALOR_MAXIMO_FATIA = (1L << BITS_VALOR) - 1;
+    private static final long OPERACOES_MAXIMAS_FATIA = (1L << (64 - BITS_VALOR)) - 1;
+    private static final long UMA_OPERACAO = 1L << BITS_VALOR;
+    private static final int BITS_FAIXAS = 8;
+    private static final int CAPACIDADE_INICIAL_FAIXA = 64;
+
+    // Conta cujas operações são contabilizadas
+    public enum Alvo {
+        CONTA,      // Débitos da conta de origem (saques e transferências enviadas)
+        DESTINO     // Transferências recebidas pela conta do CPF de destino
+    }
+
+    // Janelas de tempo dos contadores
+    public enum Janela {
+        MINUTO(60_000L),
+        HORA(3_600_000L),
+        DIA(86_400_000L);
+
+        private final long duracaoMs;
+
+        Janela(long duracaoMs) {
+            this.duracaoMs = duracaoMs;
+        }
+
+        public long getDuracaoMs() {
+            return duracaoMs;
+        }
+    }
+
+    /**
+     * Regra de limite: no máximo "maximoOperacoes" operações, somando no máximo "valorMaximo" centavos,
+     * na janela, incluindo a operação avaliada.
+     *
+     * @param maximoOperacoes Quantidade máxima de operações, ou SEM_LIMITE.
+     * @param valorMaximo Soma máxima dos valores em centavos, ou SEM_LIMITE.
+     */
+    public record Regra(Alvo alvo, Janela janela, long maximoOperacoes, long valorMaximo) {
+        public Regra {
+            if (alvo == null || janela == null || maximoOperacoes < 1 || valorMaximo < 1) {
+                throw new IllegalArgumentException("A regra deve informar alvo, janela e limites positivos.");
+            }
+        }
+    }
+
+    // Regras usadas com --limites: por conta, 10 débitos por minuto, 60 por hora e R$ 20.000,00 por dia;
+    // por CPF de destino, 30 transferências recebidas por hora e R$ 50.000,00 por dia
+    public static final List<Regra> REGRAS_PADRAO = List.of(
+            new Regra(Alvo.CONTA, Janela.MINUTO, 10, SEM_LIMITE),
+            new Regra(Alvo.CONTA, Janela.HORA, 60, SEM_LIMITE),
+            new Regra(Alvo.CONTA, Janela.DIA, SEM_LIMITE, 20_000_00L),
+            new Regra(Alvo.DESTINO, Janela.HORA, 30, SEM_LIMITE),
+            new Regra(Alvo.DESTINO, Janela.DIA, SEM_LIMITE, 50_000_00L));
+
+    private final Contadores debitos;
+    private final Contadores recebimentos;
+    private final LongAdder recusas = new LongAdder();
+    private volatile Relogio relogio = new Relogio(0);
+
+    public LimitesDeOperacao(List<Regra> regras) {
+        long[][] operacoes = new long[Alvo.values().length][JANELAS];
+        long[][] valores = new long[Alvo.values().length][JANELAS];
+        for (int alvo = 0; alvo < operacoes.length; alvo++) {
+            Arrays.fill(operacoes[alvo], SEM_LIMITE);
+            Arrays.fill(valores[alvo], SEM_LIMITE);
+        }
+        // Várias regras para o mesmo alvo e janela valem juntas: prevalece o menor limite
+        for (Regra regra : regras) {
+            int alvo = regra.alvo().ordinal();
+            int janela = regra.janela().ordinal();
+            operacoes[alvo][janela] = Math.min(operacoes[alvo][janela], regra.maximoOperacoes());
+            valores[alvo][janela] = Math.min(valores[alvo][janela], regra.valorMaximo());
+        }
+        debitos = new Contadores(operacoes[Alvo.CONTA.ordinal()], valores[Alvo.CONTA.ordinal()]);
+        recebimentos = new Contadores(operacoes[Alvo.DESTINO.ordinal()], valores[Alvo.DESTINO.ordinal()]);
+    }
+
+    // Indica se a operação é contabilizada pelos limites (saques e transferências com valor positivo)
+    public static boolean isLimitada(TipoServico tipoServico, long valor) {
+        return valor > 0 && (tipoServico == TipoServico.SAQUE || tipoServico == TipoServico.TRANSFERENCIA);
+    }
+
+    /**
+     * Verifica as regras e, se a operação for permitida, a contabiliza para a conta de origem e para o destino.
+     *
+     * @param conta Chave da conta de origem (Banco.chaveConta).
+     * @param destino Chave da conta de destino, ou SEM_DESTINO.
+     * @param valor Valor da operação em centavos.
+     * @param instante Instante da operação (epoch em milissegundos); o mesmo deve ser informado ao estornar.
+     * @return false se alguma regra for excedida; nesse caso nada é contabilizado.
+     */
+    public boolean reservar(long conta, long destino, long valor, long instante) {
+        Relogio atual = relogio(instante);
+        if (!debitos.reservar(conta, valor, atual)) {
+            recusas.increment();
+            return false;
+        }
+        if (destino != SEM_DESTINO && !recebimentos.reservar(destino, valor, atual)) {
+            debitos.estornar(conta, valor, atual);
+            recusas.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Reserva a operação se ela for contabilizada pelos limites (ver isLimitada). Todos os caminhos de saques e
+     * transferências (Conta.executarServico, Conta.transferir, Banco.executarLote e Banco.executarTransacao)
+     * passam por aqui e, depois de executar a operação, por {@link #estornarSeRecusada}.
+     *
+     * @return false se alguma regra for excedida; operações não contabilizadas sempre retornam true.
+     */
+    public boolean reservarSeLimitada(TipoServico tipoServico, long conta, long destino, long valor, long instante) {
+        return !isLimitada(tipoServico, valor) || reservar(conta, destino, valor, instante);
+    }
+
+    // Estorna a reserva feita por reservarSeLimitada se a operação foi recusada por outro motivo (saldo insuficiente, por exemplo)
+    public void estornarSeRecusada(TipoServico tipoServico, long conta, long destino, long valor, long instante, ResultadoOperacao resultado) {
+        if (!resultado.isSucesso() && isLimitada(tipoServico, valor)) {
+            estornar(conta, destino, valor, instante);
+        }
+    }
+
+    // Desfaz uma reserva de uma operação que não foi aplicada
+    public void estornar(long conta, long destino, long valor, long instante) {
+        Relogio atual = relogio(instante);
+        debitos.estornar(conta, valor, atual);
+        if (destino != SEM_DESTINO) {
+            recebimentos.estornar(destino, valor, atual);
+        }
+    }
+
+    // Número de operações recusadas pelos limites
+    public long getRecusas() {
+        return recusas.sum();
+    }
+
+    // Fatias do instante informado, reaproveitando as da última operação enquanto nenhuma janela muda de fatia
+    private Relogio relogio(long instante) {
+        Relogio atual = relogio;
+        if (instante < atual.inicio || instante >= atual.fim) {
+            atual = new Relogio(instante);
+            relogio = atual;
+        }
+        return atual;
+    }
+
+    /**
+     * Fatia atual e posição no anel de cada janela, calculadas uma vez para todo o intervalo em que
+     * nenhuma delas muda, evitando as divisões a cada operação.
+     */
+    private static final class Relogio {
+        final long inicio;      // Intervalo [inicio, fim) em que as fatias valem
+        final long fim;
+        final long[] fatias = new long[JANELAS];
+        final int[] posicoes = new int[JANELAS];
+
+        Relogio(long instante) {
+            long inicio = Long.MIN_VALUE;
+            long fim = Long.MAX_VALUE;
+            for (Janela janela : Janela.values()) {
+                long duracaoFatia = janela.getDuracaoMs() / FATIAS;
+                long fatia = instante / duracaoFatia;
+                fatias[janela.ordinal()] = fatia;
+                posicoes[janela.ordinal()] = (int) (fatia % POSICOES);
+                inicio = Math.max(inicio, fatia * duracaoFatia);
+                fim = Math.min(fim, (fatia + 1) * duracaoFatia);
+            }
+            this.inicio = inicio;
+            this.fim = fim;
+        }
+    }
+
+    /**
+     * Contadores de um alvo, divididos em faixas pela chave da conta.
+     *
+     * Apenas as janelas com algum limite são contabilizadas. Cada conta ocupa uma linha de
+     * 1 + janelas * {@value #COLUNAS_JANELA} posições: a chave e, por janela, a última fatia registrada e,
+     * para cada posição do anel, a quantidade de operações e a soma dos valores compactadas em um long.
+     */
+    private static final class Contadores {
+        private final Faixa[] faixas = new Faixa[1 << BITS_FAIXAS];
+        private final int[] janelas;                // Janelas com limite, na ordem das colunas
+        private final long[] maximoOperacoes;       // Por coluna de janela
+        private final long[] valorMaximo;
+
+        Contadores(long[] maximoOperacoes, long[] valorMaximo) {
+            int ativas = 0;
+            int[] janelas = new int[JANELAS];
+            for (int janela = 0; janela < JANELAS; janela++) {
+                if (maximoOperacoes[janela] != SEM_LIMITE || valorMaximo[janela] != SEM_LIMITE) {
+                    janelas[ativas++] = janela;
+                }
+            }
+            this.janelas = Arrays.copyOf(janelas, ativas);
+            this.maximoOperacoes = new long[ativas];
+            this.valorMaximo = new long[ativas];
+            for (int j = 0; j < ativas; j++) {
+                this.maximoOperacoes[j] = maximoOperacoes[this.janelas[j]];
+                this.valorMaximo[j] = valorMaximo[this.janelas[j]];
+            }
+            for (int i = 0; i < faixas.length; i++) {
+                faixas[i] = new Faixa(CAPACIDADE_INICIAL_FAIXA, 1 + ativas * COLUNAS_JANELA);
+            }
+        }
+
+        boolean reservar(long chave, long valor, Relogio relogio) {
+            if (janelas.length == 0) {
+                return true;    // Nenhuma regra limita o alvo: nada é contabilizado
+            }
+            // Um valor que não cabe em uma posição do anel nunca é permitido com limites ativos
+            if (valor > VALOR_MAXIMO_FATIA) {
+                return false;
+            }
+            int hash = hash(chave);
+            Faixa faixa = faixas[hash >>> (32 - BITS_FAIXAS)];
+            synchronized (faixa) {
+                int linha = faixa.localizar(chave, hash);
+                long[] dados = faixa.dados;     // Lido após localizar, que pode aumentar o array
+                for (int j = 0; j < janelas.length; j++) {
+                    int base = linha + 1 + j * COLUNAS_JANELA;
+                    faixa.avancar(base, relogio.fatias[janelas[j]]);
+                    long operacoes = 1;
+                    long soma = valor;
+                    for (int p = 1; p <= POSICOES; p++) {
+                        operacoes += dados[base + p] >>> BITS_VALOR;
+                        soma += dados[base + p] & VALOR_MAXIMO_FATIA;
+                    }
+                    long atual = dados[base + 1 + relogio.posicoes[janelas[j]]];
+                    if (operacoes > maximoOperacoes[j] || soma > valorMaximo[j]
+                            || (atual >>> BITS_VALOR) == OPERACOES_MAXIMAS_FATIA
+                            || (atual & VALOR_MAXIMO_FATIA) > VALOR_MAXIMO_FATIA - valor) {
+                        return false;
+                    }
+                }
+                for (int j = 0; j < janelas.length; j++) {
+                    dados[linha + 1 + j * COLUNAS_JANELA + 1 + relogio.posicoes[janelas[j]]] += UMA_OPERACAO + valor;
+                }
+                return true;
+            }
+        }
+
+        // Subtrai a operação das fatias do instante informado, se elas ainda estiverem no anel
+        void estornar(long chave, long valor, Relogio relogio) {
+            if (janelas.length == 0) {
+                return;
+            }
+            int hash = hash(chave);
+            Faixa faixa = faixas[hash >>> (32 - BITS_FAIXAS)];
+            synchronized (faixa) {
+                int linha = faixa.localizar(chave, hash);
+                long[] dados = faixa.dados;
+                for (int j = 0; j < janelas.length; j++) {
+                    int base = linha + 1 + j * COLUNAS_JANELA;
+                    long fatia = relogio.fatias[janelas[j]];
+                    if (fatia <= dados[base] && dados[base] - fatia < POSICOES) {
+                        dados[base + 1 + relogio.posicoes[janelas[j]]] -= UMA_OPERACAO + valor;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Faixa dos contadores; todos os métodos devem ser chamados com o lock (monitor) da faixa.
+     *
+     * As linhas das contas ficam diretamente em uma tabela de endereçamento aberto (sondagem linear)
+     * de um único array, de forma que localizar uma conta custe um único acesso fora do cache; a chave
+     * 0 indica linha livre. As contas nunca são removidas: uma conta sem operações recentes mantém a
+     * linha, com os contadores zerados pelo avanço das fatias.
+     */
+    private static final class Faixa {
+        final int colunas;  // Posições por linha
+        long[] dados;
+        int mascara;        // Linhas da tabela - 1
+        int tamanho;        // Linhas ocupadas
+
+        Faixa(int capacidade, int colunas) {
+            this.colunas = colunas;
+            dados = new long[capacidade * colunas];
+            mascara = capacidade - 1;
+        }
+
+        // Retorna a posição inicial da linha da conta, incluindo-a se necessário
+        int localizar(long chave, int hash) {
+            int i = hash & mascara;
+            while (true) {
+                int linha = i * colunas;
+                if (dados[linha] == chave) {
+                    return linha;
+                }
+                if (dados[linha] == 0) {
+                    if (tamanho + 1 > (mascara + 1) - ((mascara + 1) >> 2)) {
+                        crescer();
+                        return localizar(chave, hash);
+                    }
+                    tamanho++;
+                    dados[linha] = chave;
+                    return linha;
+                }
+                i = (i + 1) & mascara;
+            }
+        }
+
+        /**
+         * Avança a janela que começa na posição informada até a fatia informada, zerando as posições do
+         * anel das fatias que saíram dela.
+         *
+         * Uma fatia anterior à última registrada (relógio do sistema retrocedendo) é tratada como a última.
+         */
+        void avancar(int base, long fatia) {
+            long ultima = dados[base];
+            if (fatia <= ultima) {
+                return;
+            }
+            for (long f = Math.max(ultima + 1, fatia - POSICOES + 1); f <= fatia; f++) {
+                dados[base + 1 + (int) (f % POSICOES)] = 0;
+            }
+            dados[base] = fatia;
+        }
+
+        // Dobra a tabela (ocupação máxima de 75%) e reinsere as linhas
+        private void crescer() {
+            long[] antigos = dados;
+            dados = new long[antigos.length * 2];
+            mascara = mascara * 2 + 1;
+            for (int origem = 0; origem < antigos.length; origem += colunas) {
+                if (antigos[origem] != 0) {
+                    int i = hash(antigos[origem]) & mascara;
+                    while (dados[i * colunas] != 0) {
+                        i = (i + 1) & mascara;
+                    }
+                    System.arraycopy(antigos, origem, dados, i * colunas, colunas);
+                }
+            }
+        }
+    }
+
+    private static int hash(long chave) {
+        long h = chave * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
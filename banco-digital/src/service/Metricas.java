@@ -0,0 +1,253 @@
+package service;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import model.ResultadoOperacao;
+import model.TipoServico;
+import util.HistogramaLatencia;
+
+/**
+ * Métricas das operações do banco: contagem por tipo de serviço e resultado, e latência das operações.
+ *
+ * As contagens usam LongAdder e as latências, histogramas logarítmicos (ver {@link HistogramaLatencia}),
+ * para que as operações registrem suas métricas sem disputar uma variável compartilhada.
+ *
+ * As métricas começam desativadas. Nesse estado, o custo no caminho das operações se resume à leitura
+ * de uma variável volátil: {@link #iniciar()} não consulta o relógio e os métodos de registro retornam
+ * imediatamente.
+ *
+ * Quando ativadas, todas as operações são contadas, mas a latência é medida por amostragem (uma a
+ * cada {@link #getAmostragem()} operações, sorteadas), pois as duas leituras do relógio custariam
+ * uma fração relevante de um depósito. Com amostragem 1, todas as operações são medidas.
+ *
+ * Uso no caminho das operações:
+ * <pre>
+ * long inicio = Metricas.iniciar();
+ * ResultadoOperacao resultado = ...;
+ * Metricas.registrarServico(tipoServico, resultado, inicio);
+ * </pre>
+ */
+public class Metricas implements MetricasMBean {
+    public static final String NOME_JMX = "banco-digital:type=Metricas";
+
+    // Valores retornados por iniciar() quando as métricas estão desativadas ou quando a latência não será medida
+    private static final long DESATIVADAS = Long.MIN_VALUE;
+    private static final long SEM_MEDICAO = Long.MIN_VALUE + 1;
+
+    private static final int AMOSTRAGEM_PADRAO = 16;
+
+    private static final TipoServico[] SERVICOS = TipoServico.values();
+    private static final ResultadoOperacao[] RESULTADOS = ResultadoOperacao.values();
+
+    private static volatile boolean ativas;
+    private static volatile int mascaraAmostragem = AMOSTRAGEM_PADRAO - 1;
+
+    // Contagem por (tipo de serviço, resultado), no índice servico * RESULTADOS.length + resultado
+    private static final LongAdder[] contagens = new LongAdder[SERVICOS.length * RESULTADOS.length];
+
+    // Latência de executarServico/tentarExecutarServico, por tipo de serviço
+    private static final HistogramaLatencia[] latenciaPorServico = new HistogramaLatencia[SERVICOS.length];
+
+    // Latência de IConta.transferir
+    private static final HistogramaLatencia latenciaTransferir = new HistogramaLatencia();
+
+    static {
+        for (int i = 0; i < contagens.length; i++) {
+            contagens[i] = new LongAdder();
+        }
+        for (int i = 0; i < latenciaPorServico.length; i++) {
+            latenciaPorServico[i] = new HistogramaLatencia();
+        }
+    }
+
+    public static boolean isAtivada() {
+        return ativas;
+    }
+
+    public static void ativar() {
+        ativas = true;
+    }
+
+    public static void desativar() {
+        ativas = false;
+    }
+
+    // Medição de latência em uma a cada N operações; N é arredondado para a próxima potência de 2
+    public static void setAmostragem(int umaACada) {
+        mascaraAmostragem = umaACada <= 1 ? 0 : (Integer.highestOneBit(umaACada - 1) << 1) - 1;
+    }
+
+    public static int getAmostragem() {
+        return mascaraAmostragem + 1;
+    }
+
+    // Marca o início de uma operação; só consulta o relógio quando as métricas estão ativadas e a operação foi sorteada
+    public static long iniciar() {
+        if (!ativas) {
+            return DESATIVADAS;
+        }
+        return (ThreadLocalRandom.current().nextInt() & mascaraAmostragem) == 0 ? System.nanoTime() : SEM_MEDICAO;
+    }
+
+    // Registra o resultado e a latência de uma chamada a executarServico/tentarExecutarServico
+    public static void registrarServico(TipoServico tipoServico, ResultadoOperacao resultado, long inicio) {
+        if (inicio == DESATIVADAS) {
+            return;
+        }
+        if (inicio != SEM_MEDICAO) {
+            latenciaPorServico[tipoServico.ordinal()].registrar(System.nanoTime() - inicio);
+        }
+        contagens[tipoServico.ordinal() * RESULTADOS.length + resultado.ordinal()].increment();
+    }
+
+    // Registra o resultado e a latência de uma chamada a IConta.transferir
+    public static void registrarTransferir(ResultadoOperacao resultado, long inicio) {
+        if (inicio == DESATIVADAS) {
+            return;
+        }
+        if (inicio != SEM_MEDICAO) {
+            latenciaTransferir.registrar(System.nanoTime() - inicio);
+        }
+        contagens[TipoServico.TRANSFERENCIA.ordinal() * RESULTADOS.length + resultado.ordinal()].increment();
+    }
+
+    // Conta o resultado de uma operação sem medir latência (usado no processamento em lote)
+    public static void contar(TipoServico tipoServico, ResultadoOperacao resultado) {
+        if (ativas) {
+            contagens[tipoServico.ordinal() * RESULTADOS.length + resultado.ordinal()].increment();
+        }
+    }
+
+    public static long getContagem(TipoServico tipoServico, ResultadoOperacao resultado) {
+        return contagens[tipoServico.ordinal() * RESULTADOS.length + resultado.ordinal()].sum();
+    }
+
+    public static HistogramaLatencia getLatencia(TipoServico tipoServico) {
+        return latenciaPorServico[tipoServico.ordinal()];
+    }
+
+    public static HistogramaLatencia getLatenciaTransferir() {
+        return latenciaTransferir;
+    }
+
+    // Monta um relatório em texto com as contagens e os percentis de latência (em microssegundos)
+    public static String gerarRelatorio() {
+        StringBuilder relatorio = new StringBuilder(1024);
+        relatorio.append("Métricas (").append(ativas ? "ativadas" : "desativadas")
+                .append(", latência medida em 1 a cada ").append(getAmostragem()).append(" operações)\n");
+
+        relatorio.append("Operações por resultado:\n");
+        for (TipoServico tipoServico : SERVICOS) {
+            relatorio.append(String.format("  %-14s", tipoServico.name()));
+            for (ResultadoOperacao resultado : RESULTADOS) {
+                long contagem = getContagem(tipoServico, resultado);
+                if (contagem > 0) {
+                    relatorio.append(' ').append(resultado.name()).append('=').append(contagem);
+                }
+            }
+            relatorio.append('\n');
+        }
+
+        relatorio.append(String.format("Latência (µs): %-30s %10s %9s %9s %9s %9s %9s%n",
+                "operação", "amostras", "média", "p50", "p99", "p99.9", "máximo"));
+        for (TipoServico tipoServico : SERVICOS) {
+            acrescentarLatencia(relatorio, "executarServico " + tipoServico.name(), latenciaPorServico[tipoServico.ordinal()]);
+        }
+        acrescentarLatencia(relatorio, "transferir", latenciaTransferir);
+        return relatorio.toString();
+    }
+
+    // Zera todas as contagens e latências
+    public static void zerarTudo() {
+        for (LongAdder contagem : contagens) {
+            contagem.reset();
+        }
+        for (HistogramaLatencia histograma : latenciaPorServico) {
+            histograma.zerar();
+        }
+        latenciaTransferir.zerar();
+    }
+
+    // Registra as métricas no servidor de MBeans da plataforma, para consulta via JConsole/VisualVM
+    public static void registrarJmx() {
+        try {
+            MBeanServer servidor = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nome = new ObjectName(NOME_JMX);
+            if (!servidor.isRegistered(nome)) {
+                servidor.registerMBean(new Metricas(), nome);
+            }
+        } catch (JMException e) {
+            System.err.println("[!] Falha ao registrar as métricas via JMX: " + e.getMessage());
+        }
+    }
+
+    private static void acrescentarLatencia(StringBuilder relatorio, String operacao, HistogramaLatencia histograma) {
+        long quantidade = histograma.getQuantidade();
+        if (quantidade == 0) {
+            return;
+        }
+        relatorio.append(String.format("               %-30s %10d %9.1f %9.1f %9.1f %9.1f %9.1f%n", operacao, quantidade,
+                histograma.getMedia() / 1000.0, histograma.percentil(0.50) / 1000.0, histograma.percentil(0.99) / 1000.0,
+                histograma.percentil(0.999) / 1000.0, histograma.getMaximo() / 1000.0));
+    }
+
+    // Implementação do MBean, delegando ao estado estático
+
+    @Override
+    public boolean isAtivas() {
+        return ativas;
+    }
+
+    @Override
+    public void setAtivas(boolean valor) {
+        ativas = valor;
+    }
+
+    @Override
+    public int getAmostragemLatencia() {
+        return getAmostragem();
+    }
+
+    @Override
+    public void setAmostragemLatencia(int umaACada) {
+        setAmostragem(umaACada);
+    }
+
+    @Override
+    public long getTotalOperacoes() {
+        long total = 0;
+        for (LongAdder contagem : contagens) {
+            total += contagem.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public long getTotalRecusadas() {
+        long total = 0;
+        for (TipoServico tipoServico : SERVICOS) {
+            for (ResultadoOperacao resultado : RESULTADOS) {
+                if (!resultado.isSucesso()) {
+                    total += getContagem(tipoServico, resultado);
+                }
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public String getRelatorio() {
+        return gerarRelatorio();
+    }
+
+    @Override
+    public void zerar() {
+        zerarTudo();
+    }
+}
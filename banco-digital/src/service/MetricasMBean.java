@@ -0,0 +1,20 @@
+package service;
+
+// Interface de gerenciamento das métricas do banco, exposta via JMX (ver Metricas.registrarJmx)
+public interface MetricasMBean {
+    boolean isAtivas();
+
+    void setAtivas(boolean ativas);
+
+    int getAmostragemLatencia();
+
+    void setAmostragemLatencia(int umaACada);
+
+    long getTotalOperacoes();
+
+    long getTotalRecusadas();
+
+    String getRelatorio();
+
+    void zerar();
+}
@@ -0,0 +1,401 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import model.Conta;
+import model.HistoricoTransacoes;
+import model.ResultadoOperacao;
+import model.TipoServico;
+import persistencia.DiarioDeComandos;
+
+/**
+ * Motor de execução sequencial das operações (no estilo do LMAX Disruptor), alternativo aos locks das contas.
+ *
+ * Os comandos (saque, depósito ou transferência) são copiados para posições pré-alocadas de um buffer
+ * circular, e uma única thread de negócio os aplica às contas, na ordem do buffer e sem locks. Por ser a
+ * única a alterar saldos, ela não disputa nenhuma variável com as demais threads.
+ *
+ * Em paralelo com a thread de negócio, cada {@link ConsumidorDeComandos} (o diário de comandos, réplicas)
+ * recebe os mesmos comandos em uma thread própria. Depois da thread de negócio, uma última thread
+ * registra as operações aplicadas no histórico das contas e na fila de notificações, fora do caminho
+ * crítico. Um comando só é confirmado a quem o enviou depois de passar por todas as etapas.
+ *
+ * As decisões da thread de negócio dependem apenas do estado das contas e do próprio comando (o
+ * instante é atribuído no envio), de modo que reaplicar o diário de comandos a partir do mesmo estado
+ * inicial (ver {@link #reproduzir(Path)}) produz exatamente os mesmos saldos.
+ *
+ * Enquanto o motor está ativo, os saldos só podem ser alterados por ele; o Banco e as contas encaminham
+ * as operações ao motor (ver Banco.iniciarMotorSequencial).
+ */
+public class MotorSequencial implements Closeable {
+    private static final int TAMANHO_LOTE = 256;
+    private static final int TENTATIVAS_GIRANDO = 100;
+    private static final int TENTATIVAS_CEDENDO = 200;
+    private static final long ESPERA_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    // Posição do buffer circular; "publicado" indica a sequência cujos dados de entrada já estão completos
+    private static class Comando {
+        volatile long publicado = -1;
+        long instante;
+        TipoServico tipoServico;
+        Conta conta;
+        Conta destinatario;             // Apenas para transferências
+        long valor;
+        ResultadoOperacao[] resultados; // Onde gravar o resultado (na posição indiceResultado), ou nulo
+        int indiceResultado;
+
+        // Preenchidos pela thread de negócio
+        ResultadoOperacao resultado;
+        long saldoConta;
+        long saldoDestinatario;
+    }
+
+    // Processamento de um comando por uma das etapas
+    private interface Etapa {
+        void processar(long sequencia, Comando comando, boolean fimDoLote) throws Exception;
+    }
+
+    private final Comando[] comandos;
+    private final int mascara;
+    private final List<ConsumidorDeComandos> consumidores;
+
+    private final AtomicLong proximaSequencia = new AtomicLong();  // Próxima posição a ser reservada por um produtor
+    private final AtomicLong aplicados = new AtomicLong();         // Comandos processados pela thread de negócio
+    private final AtomicLong registrados = new AtomicLong();       // Comandos registrados no histórico
+    private final AtomicLong[] entregues;                          // Comandos entregues a cada consumidor
+    private volatile long liberados;                               // Último valor calculado por menorProgresso()
+
+    private final Thread[] threads;
+    private final ThreadLocal<ResultadoOperacao[]> respostas = ThreadLocal.withInitial(() -> new ResultadoOperacao[1]);
+    private volatile boolean fechado;
+    private volatile boolean parado;
+    private volatile Exception falha;
+
+    /**
+     * Cria e inicia o motor.
+     *
+     * @param capacidade Número de posições do buffer; arredondado para a próxima potência de 2.
+     * @param consumidores Consumidores que recebem todos os comandos, cada um em sua própria thread.
+     */
+    public MotorSequencial(int capacidade, List<ConsumidorDeComandos> consumidores) {
+        int tamanho = Integer.highestOneBit(Math.max(2, capacidade - 1)) << 1;
+        this.comandos = new Comando[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            comandos[i] = new Comando();
+        }
+        this.mascara = tamanho - 1;
+        this.consumidores = List.copyOf(consumidores);
+        this.entregues = new AtomicLong[consumidores.size()];
+
+        this.threads = new Thread[2 + consumidores.size()];
+        threads[0] = new Thread(() -> executarEtapa(aplicados, null, MotorSequencial::aplicar), "motor-negocio");
+        threads[1] = new Thread(() -> executarEtapa(registrados, aplicados, MotorSequencial::registrarHistorico), "motor-historico");
+        for (int i = 0; i < entregues.length; i++) {
+            ConsumidorDeComandos consumidor = this.consumidores.get(i);
+            AtomicLong entregue = entregues[i] = new AtomicLong();
+            threads[2 + i] = new Thread(() -> executarEtapa(entregue, null,
+                    (sequencia, comando, fimDoLote) -> entregar(consumidor, sequencia, comando, fimDoLote)), "motor-consumidor-" + i);
+        }
+        for (Thread thread : threads) {
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // Cria um consumidor que grava os comandos no diário informado, concluindo um lote a cada fim de lote
+    public static ConsumidorDeComandos gravarEm(DiarioDeComandos diario) {
+        return new ConsumidorDeComandos() {
+            @Override
+            public void receber(long sequencia, long instante, TipoServico tipoServico, long conta, long destinatario, long valor, boolean fimDoLote) throws IOException {
+                diario.registrar(instante, tipoServico, conta, destinatario, valor);
+                if (fimDoLote) {
+                    diario.concluirLote();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                diario.close();
+            }
+        };
+    }
+
+    /**
+     * Executa um serviço bancário no motor e aguarda o resultado.
+     *
+     * Equivalente a Conta.tentarExecutarServico: recusas comuns do negócio são informadas pelo retorno.
+     * O retorno só ocorre depois que o comando foi aplicado, entregue a todos os consumidores e
+     * registrado no histórico da conta.
+     *
+     * @throws IllegalStateException Se o motor tiver sido encerrado.
+     * @throws UncheckedIOException Se um consumidor falhou (por exemplo, na gravação do diário de comandos).
+     */
+    public ResultadoOperacao executar(Conta conta, TipoServico tipoServico, long valor, String cpfDestinatario) {
+        Conta destinatario = null;
+        if (tipoServico == TipoServico.TRANSFERENCIA) {
+            if (conta.getCliente().getCpf().equals(cpfDestinatario)) {
+                return ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA;
+            }
+            destinatario = Banco.buscarCpf(cpfDestinatario);
+            if (destinatario == null) {
+                return ResultadoOperacao.CONTA_INEXISTENTE;
+            }
+        }
+
+        ResultadoOperacao[] resposta = respostas.get();
+        aguardar(enviar(conta, tipoServico, valor, destinatario, resposta, 0));
+        return resposta[0];
+    }
+
+    // Envia um comando sem aguardar a execução nem guardar o resultado; retorna a sequência atribuída
+    public long enviar(Conta conta, TipoServico tipoServico, long valor, Conta destinatario) {
+        return enviar(conta, tipoServico, valor, destinatario, null, 0);
+    }
+
+    /**
+     * Envia um comando sem aguardar a execução.
+     *
+     * O resultado é gravado em resultados[indice] pela thread de negócio e pode ser lido depois que
+     * {@link #aguardar(long)} retornar para a sequência devolvida (ou para uma posterior).
+     *
+     * @param destinatario A conta de destino das transferências; nula nos demais serviços.
+     * @param resultados Onde gravar o resultado, ou nulo para descartá-lo.
+     * @return A sequência atribuída ao comando.
+     * @throws IllegalStateException Se o motor tiver sido encerrado.
+     */
+    public long enviar(Conta conta, TipoServico tipoServico, long valor, Conta destinatario, ResultadoOperacao[] resultados, int indice) {
+        if (tipoServico == TipoServico.TRANSFERENCIA && destinatario == null) {
+            throw new IllegalArgumentException("Transferências exigem a conta de destino.");
+        }
+        if (tipoServico.isApuracaoMensal()) {
+            throw new IllegalArgumentException("Rendimentos e tarifas são lançados apenas pela apuração mensal.");
+        }
+        verificarEstado();
+        long instante = System.currentTimeMillis();
+        long sequencia = proximaSequencia.getAndIncrement();
+
+        // Aguarda a posição ser liberada por todas as etapas
+        int tentativas = 0;
+        while (sequencia - comandos.length >= liberados) {
+            liberados = menorProgresso();
+            if (sequencia - comandos.length >= liberados) {
+                verificarFalha();
+                esperar(tentativas++);
+            }
+        }
+
+        Comando comando = comandos[(int) sequencia & mascara];
+        comando.instante = instante;
+        comando.tipoServico = tipoServico;
+        comando.conta = conta;
+        comando.destinatario = destinatario;
+        comando.valor = valor;
+        comando.resultados = resultados;
+        comando.indiceResultado = indice;
+        comando.publicado = sequencia; // Escrita volátil: torna os campos acima visíveis às etapas
+        return sequencia;
+    }
+
+    /**
+     * Aguarda até que o comando da sequência informada (e todos os anteriores) tenha passado por todas as etapas.
+     *
+     * @throws UncheckedIOException Se um consumidor falhou.
+     * @throws IllegalStateException Se o motor foi encerrado antes de processar o comando.
+     */
+    public void aguardar(long sequencia) {
+        int tentativas = 0;
+        while (menorProgresso() <= sequencia) {
+            verificarFalha();
+            if (parado) {
+                throw new IllegalStateException("O motor sequencial foi encerrado.");
+            }
+            esperar(tentativas++);
+        }
+    }
+
+    // Quantidade de comandos enviados ao motor desde a sua criação
+    public long getEnviados() {
+        return proximaSequencia.get();
+    }
+
+    /**
+     * Processa os comandos pendentes e encerra as threads do motor e os consumidores.
+     *
+     * Deve ser chamado sem operações em andamento: comandos enviados depois do início do encerramento são recusados.
+     */
+    @Override
+    public void close() throws IOException {
+        fechado = true;
+        try {
+            if (falha == null) {
+                aguardar(proximaSequencia.get() - 1);
+            }
+        } finally {
+            parado = true;
+            for (Thread thread : threads) {
+                LockSupport.unpark(thread);
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            for (ConsumidorDeComandos consumidor : consumidores) {
+                consumidor.close();
+            }
+        }
+    }
+
+    /**
+     * Reaplica os comandos de um diário de comandos, na ordem gravada, com as mesmas regras do motor.
+     *
+     * Partindo do mesmo estado inicial (as mesmas contas, com os mesmos saldos), o resultado são os
+     * mesmos saldos e o mesmo histórico da execução original. Deve ser chamado sem o motor ativo e sem
+     * outras operações em andamento.
+     *
+     * @return A quantidade de comandos reaplicados.
+     * @throws IOException Se o diário não puder ser lido ou referenciar uma conta inexistente.
+     */
+    public static long reproduzir(Path arquivo) throws IOException {
+        Comando comando = new Comando();
+        try {
+            return DiarioDeComandos.ler(arquivo, gravado -> {
+                comando.instante = gravado.instante();
+                comando.tipoServico = gravado.tipoServico();
+                comando.conta = localizar(gravado.conta());
+                comando.destinatario = gravado.tipoServico() == TipoServico.TRANSFERENCIA ? localizar(gravado.destinatario()) : null;
+                comando.valor = gravado.valor();
+                aplicar(0, comando, false);
+                registrarHistorico(0, comando, false);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Etapa de negócio: aplica o comando às contas e guarda o resultado e os saldos resultantes
+    private static void aplicar(long sequencia, Comando comando, boolean fimDoLote) {
+        ResultadoOperacao resultado = comando.conta.aplicarSemLock(comando.tipoServico, comando.valor, comando.destinatario);
+        comando.resultado = resultado;
+        comando.saldoConta = comando.conta.getSaldo();
+        comando.saldoDestinatario = comando.destinatario != null ? comando.destinatario.getSaldo() : 0;
+        if (comando.resultados != null) {
+            comando.resultados[comando.indiceResultado] = resultado;
+        }
+    }
+
+    // Etapa de histórico: registra as operações aplicadas no histórico das contas envolvidas
+    private static void registrarHistorico(long sequencia, Comando comando, boolean fimDoLote) {
+        if (!comando.resultado.isSucesso()) {
+            return;
+        }
+        Conta conta = comando.conta;
+        switch (comando.tipoServico) {
+            case SAQUE -> conta.registrarDoMotor(comando.instante, TipoServico.SAQUE, -comando.valor,
+                    comando.saldoConta, HistoricoTransacoes.SEM_CONTRAPARTE);
+            case DEPOSITO -> conta.registrarDoMotor(comando.instante, TipoServico.DEPOSITO, comando.valor,
+                    comando.saldoConta, HistoricoTransacoes.SEM_CONTRAPARTE);
+            case TRANSFERENCIA -> {
+                Conta destinatario = comando.destinatario;
+                conta.registrarDoMotor(comando.instante, TipoServico.TRANSFERENCIA, -comando.valor,
+                        comando.saldoConta, destinatario.getChave());
+                destinatario.registrarDoMotor(comando.instante, TipoServico.TRANSFERENCIA, comando.valor,
+                        comando.saldoDestinatario, conta.getChave());
+            }
+        }
+    }
+
+    private static void entregar(ConsumidorDeComandos consumidor, long sequencia, Comando comando, boolean fimDoLote) throws IOException {
+        long destinatario = comando.destinatario != null ? comando.destinatario.getChave() : HistoricoTransacoes.SEM_CONTRAPARTE;
+        consumidor.receber(sequencia, comando.instante, comando.tipoServico, comando.conta.getChave(), destinatario, comando.valor, fimDoLote);
+    }
+
+    private static Conta localizar(long chave) {
+        Conta conta = Banco.buscarConta(chave);
+        if (conta == null) {
+            throw new UncheckedIOException(new IOException("O diário de comandos referencia uma conta inexistente: " + chave));
+        }
+        return conta;
+    }
+
+    /**
+     * Laço de uma etapa: processa, em lotes, os comandos publicados (e já processados pela etapa
+     * anterior, se houver), atualizando o progresso da etapa ao final de cada lote.
+     */
+    private void executarEtapa(AtomicLong progresso, AtomicLong anterior, Etapa etapa) {
+        long sequencia = progresso.get();
+        int tentativas = 0;
+
+        while (true) {
+            long limite = Math.min(sequencia + TAMANHO_LOTE, anterior != null ? anterior.get() : Long.MAX_VALUE);
+            long fim = sequencia;
+            while (fim < limite && comandos[(int) fim & mascara].publicado == fim) {
+                fim++;
+            }
+
+            if (fim == sequencia) {
+                if (parado) {
+                    return;
+                }
+                esperar(tentativas++);
+                continue;
+            }
+            tentativas = 0;
+
+            try {
+                for (long atual = sequencia; atual < fim; atual++) {
+                    etapa.processar(atual, comandos[(int) atual & mascara], atual == fim - 1);
+                }
+            } catch (Exception e) {
+                falha = e;
+                return;
+            }
+            sequencia = fim;
+            progresso.set(sequencia);
+        }
+    }
+
+    // Menor progresso entre as etapas finais: as posições anteriores a ele já podem ser reutilizadas
+    private long menorProgresso() {
+        long menor = registrados.get();
+        for (AtomicLong entregue : entregues) {
+            menor = Math.min(menor, entregue.get());
+        }
+        return menor;
+    }
+
+    // Espera progressiva: gira alguns ciclos, depois cede o processador e por fim dorme brevemente
+    private static void esperar(int tentativas) {
+        if (tentativas < TENTATIVAS_GIRANDO) {
+            Thread.onSpinWait();
+        } else if (tentativas < TENTATIVAS_CEDENDO) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(ESPERA_NANOS);
+        }
+    }
+
+    private void verificarEstado() {
+        if (fechado) {
+            throw new IllegalStateException("O motor sequencial foi encerrado.");
+        }
+        verificarFalha();
+    }
+
+    private void verificarFalha() {
+        Exception erro = falha;
+        if (erro instanceof IOException e) {
+            throw new UncheckedIOException("Falha em um consumidor do motor sequencial.", e);
+        }
+        if (erro != null) {
+            throw new IllegalStateException("Falha no motor sequencial.", erro);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package service;
+
+import model.TipoServico;
+
+/**
+ * Operação a ser executada por {@link Banco#executarLote(java.util.List)}.
+ *
+ * O tipo de serviço é validado na criação da operação, de modo que um lote montado com sucesso contém
+ * apenas operações que o banco sabe executar: nenhuma operação inválida é descoberta depois que as
+ * anteriores do lote já foram aplicadas.
+ *
+ * @param tipoServico O tipo de serviço (SAQUE, DEPOSITO ou TRANSFERENCIA).
+ * @param cpf O CPF do titular da conta de origem.
+ * @param valor O valor em centavos.
+ * @param cpfDestinatario O CPF do destinatário, apenas para transferências (caso contrário, nulo).
+ * @throws IllegalArgumentException Se o tipo de serviço for nulo, RENDIMENTO ou TARIFA.
+ */
+public record OperacaoEmLote(TipoServico tipoServico, String cpf, long valor, String cpfDestinatario) {
+
+    public OperacaoEmLote {
+        if (tipoServico == null) {
+            throw new IllegalArgumentException("Informe o tipo de serviço da operação.");
+        }
+        // Rendimentos e tarifas são lançados apenas pela apuração mensal (ver Banco.apurarPeriodo)
+        if (tipoServico == TipoServico.RENDIMENTO || tipoServico == TipoServico.TARIFA) {
+            throw new IllegalArgumentException("Rendimentos e tarifas não podem ser executados em lote.");
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import model.AlocadorDeNumeros;
+import model.Conta;
+import persistencia.DiarioDeOperacoes;
+
+/**
+ * Partição das contas do banco, com índices, numeração de contas e diário de operações próprios.
+ *
+ * Operações sobre uma única conta usam apenas a partição dela. No modo particionado, o número de
+ * cada conta carrega o índice da sua partição nos bits mais altos, o que permite localizar a
+ * partição tanto pelo CPF (ver Banco.particaoDoCpf) quanto pela chave da conta, sem um índice global.
+ */
+class Particao {
+    final int indice;
+    final Map<String, Conta> contasPorCpf = new ConcurrentHashMap<>();   // Índice de contas pelo CPF do titular
+    final ConcurrentHashMap<Long, Conta> contasPorNumero = new ConcurrentHashMap<>();  // Índice de contas pela chave (agência, número); percorrido em paralelo pela apuração mensal
+    final Path diretorio;      // Diretório do diário e dos snapshots; nulo quando a persistência está desativada
+    DiarioDeOperacoes diario;  // Diário da partição; nulo quando a persistência está desativada
+
+    private final int bitsSequencia;   // Bits do número da conta disponíveis para a sequência dentro da partição
+    private final AlocadorDeNumeros numeracao = new AlocadorDeNumeros();
+
+    /**
+     * @param indice Índice da partição.
+     * @param bitsParticao Bits do número da conta reservados ao índice da partição (0 sem particionamento).
+     * @param diretorio Diretório de dados da partição, ou nulo.
+     */
+    Particao(int indice, int bitsParticao, Path diretorio) {
+        this.indice = indice;
+        this.bitsSequencia = 31 - bitsParticao;
+        this.diretorio = diretorio;
+    }
+
+    /**
+     * Aloca um número de conta da partição: o índice da partição nos bits mais altos e uma sequência
+     * própria da partição (e da agência) nos demais.
+     *
+     * @throws IllegalStateException Se os números da partição estiverem esgotados para a agência.
+     */
+    int alocarNumero(int agencia) {
+        int sequencia = numeracao.alocar(agencia);
+        if (sequencia >= 1L << bitsSequencia) {
+            throw new IllegalStateException("Os números de conta da agência " + agencia + " estão esgotados nesta partição.");
+        }
+        return (int) (((long) indice << bitsSequencia) | sequencia);
+    }
+
+    // Adiciona uma conta recuperada aos índices, sem reutilizar o seu número em contas novas
+    void indexar(Conta conta) {
+        contasPorCpf.put(conta.getCliente().getCpf(), conta);
+        contasPorNumero.put(conta.getChave(), conta);
+        numeracao.reservarAte(conta.getAgencia(), (int) (conta.getNumero() & ((1L << bitsSequencia) - 1)));
+    }
+
+    // Fecha o diário da partição, gravando os registros pendentes
+    void fechar() throws IOException {
+        if (diario != null) {
+            diario.close();
+            diario = null;
+        }
+    }
+}
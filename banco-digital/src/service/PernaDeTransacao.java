@@ -0,0 +1,17 @@
+package service;
+
+/**
+ * Perna de uma transação executada por {@link Banco#executarTransacao(java.util.List)}: uma transferência
+ * que só é aplicada junto com todas as outras pernas da transação.
+ *
+ * @param cpfOrigem O CPF do titular da conta debitada.
+ * @param cpfDestinatario O CPF do titular da conta creditada.
+ * @param valor O valor em centavos.
+ */
+public record PernaDeTransacao(String cpfOrigem, String cpfDestinatario, long valor) {
+
+    // Perna que desfaz esta; uma transação é estornada com as pernas invertidas, em ordem inversa
+    public PernaDeTransacao inverter() {
+        return new PernaDeTransacao(cpfDestinatario, cpfOrigem, valor);
+    }
+}
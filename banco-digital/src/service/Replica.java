@@ -0,0 +1,110 @@
+package service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import persistencia.ReceptorDoDiario;
+import persistencia.RegistroDiario;
+
+/**
+ * Réplica em espera (hot standby) de um banco persistente: mantém no seu próprio diretório de dados uma
+ * cópia do banco primário, aplicando em memória e gravando no seu diário cada registro do diário do
+ * primário (ver Banco.iniciarReplicacao e ReceptorDoDiario).
+ *
+ * Enquanto não é promovida, a réplica atende apenas leituras; as operações são recebidas do primário.
+ * Uma réplica nova, ou atrás do snapshot mais recente do primário, recebe os snapshots dele e continua a
+ * partir deles. Ao ser promovida ({@link #promover()}), deixa de receber o diário, completa as
+ * transferências e transações que chegaram apenas em parte e passa a aceitar operações.
+ */
+public class Replica implements Closeable, ReceptorDoDiario.Destino {
+    private static final long INTERVALO_SNAPSHOTS_MIN = 5;
+
+    private final Path diretorioDados;
+    private final int quantidadeParticoes;
+    private final ReceptorDoDiario receptor;
+    private volatile Banco banco;
+    private boolean promovida;
+
+    /**
+     * Abre o banco do diretório de dados e passa a receber o diário do primário, em segundo plano.
+     *
+     * @param quantidadeParticoes Número de partições; deve ser o mesmo do primário.
+     */
+    public Replica(Path diretorioDados, int quantidadeParticoes, InetSocketAddress primario) throws IOException {
+        this.diretorioDados = diretorioDados;
+        this.quantidadeParticoes = quantidadeParticoes;
+        abrirBanco();
+        this.receptor = new ReceptorDoDiario(primario, Banco.getQuantidadeParticoes(), this);
+    }
+
+    // Banco da réplica; substituído quando a réplica recebe snapshots do primário
+    public Banco getBanco() {
+        return banco;
+    }
+
+    // Conexão com o primário e estatísticas da recepção (atraso, lotes, bytes)
+    public ReceptorDoDiario getReceptor() {
+        return receptor;
+    }
+
+    /**
+     * Promove a réplica a primário: encerra a recepção do diário (o lote em aplicação é concluído),
+     * completa as transferências e transações recebidas apenas em parte e devolve o banco, que passa a
+     * aceitar operações.
+     */
+    public synchronized Banco promover() throws IOException {
+        if (!promovida) {
+            receptor.close();
+            banco.concluirReplicacao();
+            promovida = true;
+        }
+        return banco;
+    }
+
+    @Override
+    public long[] proximosLsns() {
+        return banco.proximosLsns();
+    }
+
+    @Override
+    public void aplicar(int particao, List<RegistroDiario> registros, ByteBuffer brutos, long maiorLsn) {
+        banco.aplicarReplicados(particao, registros, brutos, maiorLsn);
+    }
+
+    @Override
+    public long lsnDuravel(int particao) {
+        return banco.lsnDuravel(particao);
+    }
+
+    @Override
+    public Path prepararSnapshot() throws IOException {
+        banco.close();
+        banco.apagarArquivos();
+        return diretorioDados;
+    }
+
+    @Override
+    public void snapshotRecebido() throws IOException {
+        abrirBanco();
+    }
+
+    // Os snapshots periódicos da réplica limitam o diário a ser reaplicado quando ela reinicia ou é promovida
+    private void abrirBanco() throws IOException {
+        banco = new Banco(diretorioDados, quantidadeParticoes, true);
+        banco.agendarSnapshots(INTERVALO_SNAPSHOTS_MIN, TimeUnit.MINUTES);
+    }
+
+    // Encerra a recepção e, se a réplica não foi promovida, o banco dela
+    @Override
+    public synchronized void close() throws IOException {
+        receptor.close();
+        if (!promovida) {
+            banco.close();
+        }
+    }
+}
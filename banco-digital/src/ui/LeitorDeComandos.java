@@ -0,0 +1,155 @@
+package ui;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Leitor das entradas do menu, com as mesmas regras de separação do java.util.Scanner usadas em
+ * OperacoesContaMenu (números e palavras separados por espaços ou quebras de linha; uma linha vai da
+ * posição atual até a próxima quebra de linha).
+ *
+ * A entrada é lida em blocos para um buffer de bytes, e os números são convertidos diretamente desses
+ * bytes, sem expressões regulares, sem criar Strings e sem exceções para entradas inválidas; apenas
+ * palavras e linhas são convertidas em String (UTF-8). Isso torna viável conduzir o menu por roteiros
+ * com milhões de comandos (ver o modo em lote de OperacoesContaMenu).
+ *
+ * Não é thread-safe.
+ */
+public class LeitorDeComandos {
+    public static final int FIM = Integer.MIN_VALUE;                  // Retorno de proximoInt no fim da entrada
+    public static final int NAO_NUMERICO = Integer.MIN_VALUE + 1;     // Retorno de proximoInt para uma palavra que não é um int
+
+    private static final int TAMANHO_BUFFER = 1 << 16;
+
+    private final InputStream entrada;
+    private final byte[] buffer = new byte[TAMANHO_BUFFER];
+    private int posicao;
+    private int limite;
+    private byte[] texto = new byte[64];  // Palavra ou linha em leitura
+
+    public LeitorDeComandos(InputStream entrada) {
+        this.entrada = entrada;
+    }
+
+    /**
+     * Lê o próximo número inteiro.
+     *
+     * @return O número, {@link #FIM} se a entrada terminou ou {@link #NAO_NUMERICO} se a próxima palavra
+     *         não for um número entre -Integer.MAX_VALUE e Integer.MAX_VALUE (a palavra é consumida).
+     */
+    public int proximoInt() {
+        if (!pularEspacos()) {
+            return FIM;
+        }
+        boolean negativo = buffer[posicao] == '-';
+        if (negativo || buffer[posicao] == '+') {
+            posicao++;
+        }
+        long valor = 0;
+        boolean valido = false;
+        int b;
+        while ((b = espiar()) >= 0 && !isEspaco(b)) {
+            posicao++;
+            if (b >= '0' && b <= '9' && valor <= Integer.MAX_VALUE) {
+                valor = valor * 10 + (b - '0');
+                valido = true;
+            } else {
+                valido = false;
+                valor = Long.MAX_VALUE;  // Invalida o restante da palavra
+            }
+        }
+        if (!valido || valor > Integer.MAX_VALUE) {
+            return NAO_NUMERICO;
+        }
+        return (int) (negativo ? -valor : valor);
+    }
+
+    // Lê a próxima palavra, ou retorna null no fim da entrada
+    public String proximaPalavra() {
+        if (!pularEspacos()) {
+            return null;
+        }
+        int tamanho = 0;
+        int b;
+        while ((b = espiar()) >= 0 && !isEspaco(b)) {
+            posicao++;
+            tamanho = acrescentar(tamanho, b);
+        }
+        return new String(texto, 0, tamanho, StandardCharsets.UTF_8);
+    }
+
+    // Lê o restante da linha atual (sem a quebra de linha), ou retorna null no fim da entrada
+    public String proximaLinha() {
+        if (espiar() < 0) {
+            return null;
+        }
+        int tamanho = 0;
+        int b;
+        while ((b = espiar()) >= 0) {
+            posicao++;
+            if (b == '\n') {
+                break;
+            }
+            tamanho = acrescentar(tamanho, b);
+        }
+        if (tamanho > 0 && texto[tamanho - 1] == '\r') {
+            tamanho--;
+        }
+        return new String(texto, 0, tamanho, StandardCharsets.UTF_8);
+    }
+
+    // Descarta o restante da linha atual, incluindo a quebra de linha
+    public void descartarLinha() {
+        int b;
+        while ((b = espiar()) >= 0) {
+            posicao++;
+            if (b == '\n') {
+                return;
+            }
+        }
+    }
+
+    // Pula espaços e quebras de linha; retorna false se a entrada terminou
+    private boolean pularEspacos() {
+        int b;
+        while ((b = espiar()) >= 0) {
+            if (!isEspaco(b)) {
+                return true;
+            }
+            posicao++;
+        }
+        return false;
+    }
+
+    // Retorna o byte na posição atual sem consumi-lo, ou -1 no fim da entrada
+    private int espiar() {
+        if (posicao == limite) {
+            try {
+                limite = entrada.read(buffer, 0, buffer.length);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            posicao = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return buffer[posicao] & 0xFF;
+    }
+
+    private int acrescentar(int tamanho, int b) {
+        if (tamanho == texto.length) {
+            texto = Arrays.copyOf(texto, tamanho * 2);
+        }
+        texto[tamanho] = (byte) b;
+        return tamanho + 1;
+    }
+
+    private static boolean isEspaco(int b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f';
+    }
+}
@@ -1,38 +1,77 @@
 package ui;
 
-import java.util.List;
-import java.util.Scanner;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
+import exception.LimiteExcedidoException;
 import exception.SaldoInsuficienteException;
 import exception.ValorInvalidoException;
 
 import model.Conta;
+import model.PaginaExtrato;
+import model.RenderizadorDeExtrato;
 import model.TipoConta;
 import model.TipoServico;
+import persistencia.ExportadorDeExtratos;
 import service.Banco;
-
+import service.Metricas;
+import util.Dinheiro;
+
+/**
+ * Menu de terminal do banco.
+ *
+ * As entradas são lidas por um {@link LeitorDeComandos} e toda a saída passa por um único escritor
+ * com buffer, enviado ao terminal antes de cada leitura. No modo em lote, usado para conduzir o menu
+ * por roteiros de comandos (testes de regressão e de carga), os quadros, os pedidos de entrada e a
+ * limpeza da tela são omitidos, e a saída só é enviada quando o buffer enche ou ao final: restam
+ * apenas os resultados das operações, uma linha por resultado.
+ *
+ * O fim da entrada equivale a digitar 0 em todos os menus, encerrando o programa.
+ */
 public class OperacoesContaMenu {
-    private Scanner scanner;
+    private static final int DIAS_EXTRATO = 30;              // Período exibido no extrato
+    private static final int TRANSACOES_POR_PAGINA = 20;     // Transações exibidas por página do extrato
+    private static final int TAMANHO_BUFFER_SAIDA = 1 << 16;
+
+    private final LeitorDeComandos entrada;
+    private final PrintWriter saida;
+    private final boolean lote;
+    private final RenderizadorDeExtrato renderizador = new RenderizadorDeExtrato();  // Monta as linhas do extrato direto na saída
     private Banco banco;
 
-    // Construtor para inicializar o scanner e o banco
-    public OperacoesContaMenu(Scanner scanner, Banco banco) {
-        this.scanner = scanner;
+    /**
+     * Construtor para inicializar a entrada, a saída e o banco.
+     *
+     * @param lote Se verdadeiro, o menu é conduzido por um roteiro, sem quadros nem limpeza da tela.
+     */
+    public OperacoesContaMenu(InputStream entrada, OutputStream saida, Banco banco, boolean lote) {
+        this.entrada = new LeitorDeComandos(entrada);
+        this.saida = new PrintWriter(new BufferedWriter(new OutputStreamWriter(saida, Charset.defaultCharset()), TAMANHO_BUFFER_SAIDA));
         this.banco = banco;
+        this.lote = lote;
     }
 
     // Método que exibe o menu inicial e controla as opções do usuário
     public void menuInicial() {
         while (true) {
             // Exibe as opções do menu
-            System.out.println("╔══════════════════════════════════════╗");
-            System.out.println("║             MENU INICIAL             ║");
-            System.out.println("╠══════════════════════════════════════╣");
-            System.out.println("║ 1. Criar conta                       ║");
-            System.out.println("║ 2. Acessar conta                     ║");
-            System.out.println("║ 0. Sair                              ║");
-            System.out.println("╚══════════════════════════════════════╝");
+            quadro("╔══════════════════════════════════════╗",
+                    "║             MENU INICIAL             ║",
+                    "╠══════════════════════════════════════╣",
+                    "║ 1. Criar conta                       ║",
+                    "║ 2. Acessar conta                     ║",
+                    "║ 0. Sair                              ║",
+                    "╚══════════════════════════════════════╝");
             
 
             int opcao = lerInt();   // Lê a opção do usuário
@@ -42,12 +81,14 @@ public class OperacoesContaMenu {
                 case 1 -> criarConta();     // Chama o processo de criação de conta
                 case 2 -> acessarConta();   // Ainda não implementado
                 case 0 -> {
-                    System.out.println("\n[!] Encerrando... volte sempre!");
+                    saida.println("\n[!] Encerrando... volte sempre!");
+                    saida.flush();
                     return; // Sai do menu e encerra o programa
                 }
-                case 999 -> System.out.println("Menu do administrador... (breve)");
+                case 998 -> exportarExtratos();                       // Opção oculta: exporta contas e extratos para arquivos
+                case 999 -> saida.println(Metricas.gerarRelatorio()); // Opção oculta: métricas das operações
                 default -> {
-                    System.out.println("\n[!] Opção inválida. Por favor, tente novamente.");
+                    saida.println("\n[!] Opção inválida. Por favor, tente novamente.");
                 }
             }
         }
@@ -56,14 +97,14 @@ public class OperacoesContaMenu {
     private void criarConta() {
         while (true) {
             // Escolha do tipo de conta a ser criada
-            System.out.println("╔══════════════════════════════════════╗");
-            System.out.println("║        ABERTURA DE NOVA CONTA        ║");
-            System.out.println("║   Qual tipo de conta deseja criar?   ║");
-            System.out.println("╠══════════════════════════════════════╣");
-            System.out.println("║ 1. Conta corrente.                   ║");
-            System.out.println("║ 2. Conta poupança.                   ║");
-            System.out.println("║ 0. Voltar ao menu principal.         ║");
-            System.out.println("╚══════════════════════════════════════╝");
+            quadro("╔══════════════════════════════════════╗",
+                    "║        ABERTURA DE NOVA CONTA        ║",
+                    "║   Qual tipo de conta deseja criar?   ║",
+                    "╠══════════════════════════════════════╣",
+                    "║ 1. Conta corrente.                   ║",
+                    "║ 2. Conta poupança.                   ║",
+                    "║ 0. Voltar ao menu principal.         ║",
+                    "╚══════════════════════════════════════╝");
 
             int opcao = lerInt();   // Lê a opção do usuário
             limparTerminal();       // Limpa a tela
@@ -75,38 +116,35 @@ public class OperacoesContaMenu {
             // Verifica se a opção é válida (poderia ser substituída por um enum
             // futuramente)
             if (!Set.of(1, 2).contains(opcao)) {
-                System.out.println("\n[!] Opção inválida. Por favor, tente novamente.");
+                saida.println("\n[!] Opção inválida. Por favor, tente novamente.");
                 continue;
             }
 
             // Define o tipo de conta
             TipoConta tipoConta = opcao == 1 ? TipoConta.CORRENTE : TipoConta.POUPANCA;
 
-            scanner.nextLine(); // Consome o '\n' pendente
+            entrada.descartarLinha(); // Consome o '\n' pendente
 
             // Coleta os dados do cliente
-            System.out.println("╔══════════════════════════════════════╗");
-            System.out.println("║      CRIANDO UMA CONTA " + tipoConta + "      ║");
-            System.out.println("║       Insira o nome do titular:      ║");
-            System.out.println("╚══════════════════════════════════════╝");
-            System.out.print("> Digite: ");
-            String nomeTitular = scanner.nextLine();
-
-            System.out.println("╔══════════════════════════════════════╗");
-            System.out.println("║      CRIANDO UMA CONTA " + tipoConta + "      ║");
-            System.out.println("║       Insira o CPF do titular:       ║");
-            System.out.println("╚══════════════════════════════════════╝");
-            System.out.print("> Digite: ");
-
-            String cpfTitular = scanner.nextLine(); // Captura o CPF digitado pelo usuário
+            quadro("╔══════════════════════════════════════╗",
+                    "║      CRIANDO UMA CONTA " + tipoConta + "      ║",
+                    "║       Insira o nome do titular:      ║",
+                    "╚══════════════════════════════════════╝");
+            String nomeTitular = lerLinha();
+
+            quadro("╔══════════════════════════════════════╗",
+                    "║      CRIANDO UMA CONTA " + tipoConta + "      ║",
+                    "║       Insira o CPF do titular:       ║",
+                    "╚══════════════════════════════════════╝");
+            String cpfTitular = lerLinha(); // Captura o CPF digitado pelo usuário
             limparTerminal();                       // Limpa a tela
 
             // Chama o método de criação no banco
             try {
                 this.banco.criarConta(nomeTitular, cpfTitular, tipoConta);
-                System.out.println("[!] Conta criada com sucesso!");
+                saida.println("[!] Conta criada com sucesso!");
             } catch (IllegalArgumentException e) {
-                System.out.println("[!] ERRO: " + e.getMessage());
+                saida.println("[!] ERRO: " + e.getMessage());
             }
             break;
         }
@@ -114,14 +152,12 @@ public class OperacoesContaMenu {
 
     private void acessarConta() {
         // Cabeçalho visual informando a ação ao usuário
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║             ACESSAR CONTA            ║");
-        System.out.println("║    Digite o CPF da conta desejada:   ║");
-        System.out.println("╚══════════════════════════════════════╝");
-        System.out.print("> Digite: ");
-
-        scanner.nextLine();                     // Consome o '\n' pendente
-        String cpfTitular = scanner.nextLine(); // Captura o CPF digitado pelo usuário
+        quadro("╔══════════════════════════════════════╗",
+                "║             ACESSAR CONTA            ║",
+                "║    Digite o CPF da conta desejada:   ║",
+                "╚══════════════════════════════════════╝");
+        entrada.descartarLinha();           // Consome o '\n' pendente
+        String cpfTitular = lerLinha();     // Captura o CPF digitado pelo usuário
 
         limparTerminal();   // Limpa a tela
 
@@ -131,11 +167,11 @@ public class OperacoesContaMenu {
             conta = banco.acessarConta(cpfTitular);
         } catch (IllegalArgumentException e) {
             // Se o CPF não for encontrado ou for inválido, exibe o erro e encerra o método
-            System.out.println("ERRO: " + e.getMessage());
+            saida.println("ERRO: " + e.getMessage());
             return;
         }
 
-        System.out.println("\n[!] Bem-vindo(a), " + conta.getCliente().getNome() + "!");
+        saida.println("\n[!] Bem-vindo(a), " + conta.getCliente().getNome() + "!");
         // Chama o menu da conta (operações como sacar, depositar, etc.)
         menuConta(conta);
     }
@@ -144,17 +180,17 @@ public class OperacoesContaMenu {
     private void menuConta(Conta conta) {
         while (true) {
             // Interface do menu
-            System.out.println("╔══════════════════════════════════════╗");
-            System.out.println("║      MENU DE OPERAÇÕES BANCÁRIAS     ║");
-            System.out.println("║     Tipo de conta: " + conta.getTipoConta().getDescricao() + "    ║");
-            System.out.println("╠══════════════════════════════════════╣");
-            System.out.println("║ 1. Consultar saldo                   ║");
-            System.out.println("║ 2. Depositar                         ║");
-            System.out.println("║ 3. Sacar                             ║");
-            System.out.println("║ 4. Transferir                        ║");
-            System.out.println("║ 5. Ver extrato                       ║");
-            System.out.println("║ 0. Desconectar da conta              ║");
-            System.out.println("╚══════════════════════════════════════╝");
+            quadro("╔══════════════════════════════════════╗",
+                    "║      MENU DE OPERAÇÕES BANCÁRIAS     ║",
+                    "║     Tipo de conta: " + conta.getTipoConta().getDescricao() + "    ║",
+                    "╠══════════════════════════════════════╣",
+                    "║ 1. Consultar saldo                   ║",
+                    "║ 2. Depositar                         ║",
+                    "║ 3. Sacar                             ║",
+                    "║ 4. Transferir                        ║",
+                    "║ 5. Ver extrato                       ║",
+                    "║ 0. Desconectar da conta              ║",
+                    "╚══════════════════════════════════════╝");
 
             int opcao = lerInt();
 
@@ -169,136 +205,220 @@ public class OperacoesContaMenu {
                 case 0 -> {
                     return; // Desconecta da conta e retorna ao menu anterior (MENU INICIAL)
                 }
-                default -> System.out.println("\n[!] Opção inválida. Por favor, tente novamente.");
+                default -> saida.println("\n[!] Opção inválida. Por favor, tente novamente.");
             }
         }
     }
 
     // Exibe o saldo atual da conta informada
     private void consultarSaldoConta(Conta conta) {
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║            SALDO DA CONTA            ║");
-        System.out.printf("║ Saldo da conta: R$ %-17.2f ║%n", conta.getSaldo());
-        System.out.println("╚══════════════════════════════════════╝");
+        if (lote) {
+            saida.println("Saldo da conta: " + Dinheiro.formatar(conta.getSaldo()));
+            return;
+        }
+        saida.println("╔══════════════════════════════════════╗");
+        saida.println("║            SALDO DA CONTA            ║");
+        saida.printf("║ Saldo da conta: %-20s ║%n", Dinheiro.formatar(conta.getSaldo()));
+        saida.println("╚══════════════════════════════════════╝");
     }
 
     // Solicita o valor ao usuário e realiza a operação de depósito na conta
     private void depositarConta(Conta conta) {
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║          DEPOSITAR NA CONTA          ║");
-        System.out.println("║      Insira o valor a depositar:     ║");
-        System.out.println("╚══════════════════════════════════════╝");
+        quadro("╔══════════════════════════════════════╗",
+                "║          DEPOSITAR NA CONTA          ║",
+                "║      Insira o valor a depositar:     ║",
+                "╚══════════════════════════════════════╝");
         try {
-            conta.executarServico(TipoServico.DEPOSITO, lerDouble(), null);
+            conta.executarServico(TipoServico.DEPOSITO, lerValor(), null);
 
             limparTerminal();
-            System.out.println("[!] Valor depositado com sucesso!");
+            saida.println("[!] Valor depositado com sucesso!");
         } catch (ValorInvalidoException e) {
             limparTerminal();
-            System.out.println("[!] ERRO: " + e.getMessage());
+            saida.println("[!] ERRO: " + e.getMessage());
         } catch (Exception e) {
             limparTerminal();
-            System.out.println("[!] ERRO desconhecido: " + e.getMessage());
+            saida.println("[!] ERRO desconhecido: " + e.getMessage());
         }
     }
 
     // Solicita o valor ao usuário e realiza a operação de saque na conta
     private void sacarConta(Conta conta) {
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║          DEPOSITAR NA CONTA          ║");
-        System.out.println("║        Insira o valor a sacar:       ║");
-        System.out.println("╚══════════════════════════════════════╝");
+        quadro("╔══════════════════════════════════════╗",
+                "║          DEPOSITAR NA CONTA          ║",
+                "║        Insira o valor a sacar:       ║",
+                "╚══════════════════════════════════════╝");
         try {
-            conta.executarServico(TipoServico.SAQUE, lerDouble(), null);
+            conta.executarServico(TipoServico.SAQUE, lerValor(), null);
             
             limparTerminal();
-            System.out.println("[!] Saque realizado com sucesso.");
-        } catch (SaldoInsuficienteException | ValorInvalidoException e) {
+            saida.println("[!] Saque realizado com sucesso.");
+        } catch (SaldoInsuficienteException | ValorInvalidoException | LimiteExcedidoException e) {
             limparTerminal();
-            System.out.println("[!] ERRO: " + e.getMessage());
+            saida.println("[!] ERRO: " + e.getMessage());
         } catch (Exception e) {
             limparTerminal();
-            System.out.println("[!] ERRO desconhecido: " + e.getMessage());
+            saida.println("[!] ERRO desconhecido: " + e.getMessage());
         }
     }
 
     // Solicita CPF do destinatário e valor da transferência, e executa a operação
     private void transferirValor(Conta conta) {
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║           TRANSFERIR VALOR           ║");
-        System.out.println("║  Digite o CPF da conta destinatária: ║");
-        System.out.println("╚══════════════════════════════════════╝");
-        System.out.print("> Digite: ");
-
-        scanner.nextLine(); // Consome o '\n' pendente
-        String cpfDestinatario = scanner.nextLine();
-
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║           TRANSFERIR VALOR           ║");
-        System.out.println("║      Digite o valor a transferir:    ║");
-        System.out.println("╚══════════════════════════════════════╝");
-        double valor = lerDouble();
+        quadro("╔══════════════════════════════════════╗",
+                "║           TRANSFERIR VALOR           ║",
+                "║  Digite o CPF da conta destinatária: ║",
+                "╚══════════════════════════════════════╝");
+        entrada.descartarLinha(); // Consome o '\n' pendente
+        String cpfDestinatario = lerLinha();
+
+        quadro("╔══════════════════════════════════════╗",
+                "║           TRANSFERIR VALOR           ║",
+                "║      Digite o valor a transferir:    ║",
+                "╚══════════════════════════════════════╝");
+        long valor = lerValor();
 
         try {
             conta.executarServico(TipoServico.TRANSFERENCIA, valor, cpfDestinatario);
 
             limparTerminal();
-            System.out.println("[!] Transferência realizada com sucesso.");
-        } catch (ValorInvalidoException | IllegalArgumentException | SaldoInsuficienteException e) {
+            saida.println("[!] Transferência realizada com sucesso.");
+        } catch (ValorInvalidoException | IllegalArgumentException | SaldoInsuficienteException | LimiteExcedidoException e) {
             limparTerminal();
-            System.out.println("[!] ERRO: " + e.getMessage());
+            saida.println("[!] ERRO: " + e.getMessage());
         } catch (Exception e) {
             limparTerminal();
-            System.out.println("[!] ERRO desconhecido: " + e.getMessage());
+            saida.println("[!] ERRO desconhecido: " + e.getMessage());
         }
     }
 
-    // Exibe o extrato da conta, listando todas as transações registradas
+    // Exibe o extrato da conta dos últimos dias, página a página
     private void verExtrato(Conta conta) {
-        System.out.println("╔══════════════════════════════════════╗");
-        System.out.println("║           EXTRATO DA CONTA           ║");
-        System.out.println("╚══════════════════════════════════════╝");
-        List<String> transacoes = conta.getTransacoes();
+        quadro("╔══════════════════════════════════════╗",
+                "║           EXTRATO DA CONTA           ║",
+                "║          Últimos " + DIAS_EXTRATO + " dias             ║",
+                "╚══════════════════════════════════════╝");
+
+        long fim = System.currentTimeMillis() + 1;
+        long inicio = fim - TimeUnit.DAYS.toMillis(DIAS_EXTRATO);
+        int cursor = 0;
+
+        while (true) {
+            int proximoCursor;
+            try {
+                proximoCursor = conta.escreverExtrato(inicio, fim, null, cursor, TRANSACOES_POR_PAGINA, renderizador, "• ", saida);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);  // Não ocorre: o PrintWriter registra os erros em vez de lançá-los
+            }
+
+            if (cursor == 0 && renderizador.getLinhasEscritas() == 0) {
+                saida.println("[!] Nenhuma transação encontrada.");
+                return;
+            }
+
+            if (proximoCursor == PaginaExtrato.SEM_PROXIMA_PAGINA) {
+                return;
+            }
+
+            // Pergunta se o usuário deseja ver a próxima página
+            quadro("1. Próxima página | 0. Voltar");
+            if (lerInt() != 1) {
+                return;
+            }
+            cursor = proximoCursor;
+        }
+    }
 
-        if (transacoes.isEmpty()) {
-            System.out.println("[!] Nenhuma transação encontrada.");
+    // Exporta todas as contas e extratos para o diretório e formato informados (ver ExportadorDeExtratos)
+    private void exportarExtratos() {
+        quadro("╔══════════════════════════════════════╗",
+                "║          EXPORTAR EXTRATOS           ║",
+                "║  Digite o diretório de destino:      ║",
+                "╚══════════════════════════════════════╝");
+        entrada.descartarLinha(); // Consome o '\n' pendente
+        String diretorio = lerLinha();
+
+        quadro("1. CSV | 2. Binário colunar");
+        ExportadorDeExtratos.Formato formato = lerInt() == 2 ? ExportadorDeExtratos.Formato.BINARIO : ExportadorDeExtratos.Formato.CSV;
+        if (diretorio.isBlank()) {
+            saida.println("[!] ERRO: Informe o diretório de destino.");
             return;
         }
 
-        transacoes.forEach(transacao -> System.out.println("• " + transacao));
+        try {
+            ExportadorDeExtratos.Resumo resumo = banco.exportarExtratos(Path.of(diretorio), formato);
+            saida.printf("[!] %d contas e %d transações exportadas (%.1f MB em %d ms, %.1f MB/s).%n",
+                    resumo.contas(), resumo.transacoes(), resumo.bytes() / 1e6, resumo.duracaoMs(), resumo.megabytesPorSegundo());
+        } catch (IOException | InvalidPathException e) {
+            saida.println("[!] ERRO ao exportar: " + e.getMessage());
+        }
     }
 
-    // Método auxiliar para capturar um número inteiro do usuário, com tratamento de exceções
+    // Método auxiliar para capturar um número inteiro do usuário; entradas inválidas são descartadas até a próxima linha
     private int lerInt() {
         while (true) {
-            try {
-                System.out.print("> Digite: "); // Solicita ao usuário para digitar um valor inteiro
-                return scanner.nextInt();         // Retorna o valor digitado pelo usuário
-            } catch (Exception e) {
-                // Caso o usuário insira um valor não inteiro, captura a exceção e exibe a mensagem
-                System.out.println("Valor inválido. Por favor, digite apenas números.");
-                scanner.nextLine(); /// Limpa o buffer do scanner para tentar novamente
+            solicitar(); // Solicita ao usuário para digitar um valor inteiro
+            int valor = entrada.proximoInt();
+            if (valor == LeitorDeComandos.FIM) {
+                return 0; // Fim da entrada: equivale a voltar (ou sair) em todos os menus
+            }
+            if (valor != LeitorDeComandos.NAO_NUMERICO) {
+                return valor;
             }
+            // Caso o usuário insira um valor não inteiro, exibe a mensagem e descarta o restante da linha
+            saida.println("Valor inválido. Por favor, digite apenas números.");
+            entrada.descartarLinha();
         }
     }
 
-    // Método auxiliar para capturar um número double do usuário, com tratamento de exceções
-    private double lerDouble() {
+    // Método auxiliar para capturar um valor monetário do usuário (ex.: 10,50), retornado em centavos
+    private long lerValor() {
         while (true) {
+            solicitar(); // Solicita ao usuário para digitar um valor
+            String texto = entrada.proximaPalavra();
+            if (texto == null) {
+                return 0; // Fim da entrada: o valor é recusado pela operação
+            }
             try {
-                System.out.print("> Digite: "); // Solicita ao usuário para digitar um valor double
-                return scanner.nextDouble();      // Retorna o valor double digitado pelo usuário
-            } catch (Exception e) {
-                // Caso o usuário insira um valor não numérico ou inválido, captura a exceção
-                System.out.println("Valor inválido. Por favor, digite apenas números.");
-                scanner.nextLine(); // Limpa o buffer do scanner para tentar novamente
+                return Dinheiro.converter(texto); // Converte o valor digitado para centavos
+            } catch (NumberFormatException e) {
+                // Caso o usuário insira um valor fora do formato aceito, exibe o formato esperado
+                saida.println(e.getMessage());
+                entrada.descartarLinha(); // Descarta o restante da linha para tentar novamente
             }
         }
     }
 
-    // Método auxiliar para limpar o terminal (funciona em sistemas baseados em UNIX)
+    // Solicita e lê o restante da linha atual; no fim da entrada, retorna uma linha vazia
+    private String lerLinha() {
+        solicitar();
+        String linha = entrada.proximaLinha();
+        return linha != null ? linha : "";
+    }
+
+    // Exibe o pedido de entrada e envia a saída pendente ao terminal antes de aguardar o usuário (omitido no modo em lote)
+    private void solicitar() {
+        if (!lote) {
+            saida.print("> Digite: ");
+            saida.flush();
+        }
+    }
+
+    // Exibe as linhas de um quadro do menu (omitido no modo em lote)
+    private void quadro(String... linhas) {
+        if (lote) {
+            return;
+        }
+        for (String linha : linhas) {
+            saida.println(linha);
+        }
+    }
+
+    // Método auxiliar para limpar o terminal (funciona em sistemas baseados em UNIX; omitido no modo em lote)
     private void limparTerminal() {
-        System.out.print("\033[H\033[2J");  // Comando ANSI para limpar a tela
-        System.out.flush();                   // Garante que o comando seja executado imediatamente
+        if (lote) {
+            return;
+        }
+        saida.print("\033[H\033[2J");  // Comando ANSI para limpar a tela
+        saida.flush();                   // Garante que o comando seja executado imediatamente
     }
 }
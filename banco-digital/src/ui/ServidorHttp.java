@@ -0,0 +1,318 @@
+package ui;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import model.Conta;
+import model.FotografiaDeSaldos;
+import model.PaginaExtrato;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import service.ApuracaoMensal;
+import service.Banco;
+import service.Metricas;
+import util.Dinheiro;
+
+/**
+ * Interface HTTP/JSON do banco, sobre o mesmo Banco utilizado pelo menu do terminal.
+ *
+ * Cada requisição é atendida em uma thread virtual quando a JVM oferece esse recurso (Java 21+);
+ * em versões anteriores, é usado um pool de threads que cresce conforme a demanda.
+ *
+ * Rotas (parâmetros na query string, valores monetários no formato "10,50"):
+ * <pre>
+ * POST /contas?nome=&amp;cpf=&amp;tipo=CORRENTE|POUPANCA[&amp;agencia=]   cria uma conta
+ * GET  /contas/{cpf}                                      dados da conta
+ * GET  /contas/{cpf}/saldo                                saldo da conta
+ * POST /contas/{cpf}/deposito?valor=                      depósito
+ * POST /contas/{cpf}/saque?valor=                         saque
+ * POST /contas/{cpf}/transferencia?destino=&amp;valor=        transferência para o CPF de destino
+ * GET  /contas/{cpf}/extrato?dias=&amp;cursor=&amp;tamanho=&amp;tipo=   página do extrato
+ * POST /apuracao?periodo=AAAA-MM                          apura rendimentos e tarifas do mês
+ * GET  /saldos                                          passivo total (soma dos saldos num mesmo instante)
+ * GET  /metricas                                          relatório das métricas, em texto
+ * </pre>
+ *
+ * Depósitos, saques e transferências aceitam o cabeçalho "Idempotency-Key": uma requisição repetida com
+ * a mesma chave (para a mesma conta) recebe o resultado da original, sem movimentar o saldo de novo.
+ */
+public class ServidorHttp {
+    private static final int DIAS_EXTRATO_PADRAO = 30;
+    private static final int TAMANHO_PAGINA_PADRAO = 20;
+    private static final String CABECALHO_IDEMPOTENCIA = "Idempotency-Key";
+
+    private final Banco banco;
+    private final HttpServer servidor;
+    private final ExecutorService executor;
+
+    // Cria o servidor na porta informada, apenas no endereço local (loopback)
+    public ServidorHttp(Banco banco, int porta) throws IOException {
+        this(banco, new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+    }
+
+    /**
+     * Cria o servidor no endereço informado. A opção sun.net.httpserver.nodelay, que desativa o algoritmo
+     * de Nagle nas conexões, vale para toda a JVM e deve ser definida antes (ver Main).
+     *
+     * @param endereco Endereço e porta em que o servidor escuta; porta 0 para uma porta livre.
+     */
+    public ServidorHttp(Banco banco, InetSocketAddress endereco) throws IOException {
+        this.banco = banco;
+        this.servidor = HttpServer.create(endereco, 1024);
+        this.executor = criarExecutor();
+        this.servidor.setExecutor(executor);
+        this.servidor.createContext("/contas", this::atender);
+        this.servidor.createContext("/apuracao", this::apuracao);
+        this.servidor.createContext("/saldos", this::saldos);
+        this.servidor.createContext("/metricas", ServidorHttp::metricas);
+    }
+
+    public void iniciar() {
+        servidor.start();
+    }
+
+    public int getPorta() {
+        return servidor.getAddress().getPort();
+    }
+
+    public void parar() {
+        servidor.stop(0);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Usa uma thread virtual por requisição quando disponível (Java 21+), sem exigir essa versão para compilar
+    private static ExecutorService criarExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    private void atender(HttpExchange troca) throws IOException {
+        try {
+            String[] partes = troca.getRequestURI().getPath().split("/");
+            Map<String, String> parametros = lerParametros(troca.getRequestURI().getRawQuery());
+            String metodo = troca.getRequestMethod();
+
+            // partes[0] é vazio e partes[1] é "contas"
+            if (partes.length == 2 && metodo.equals("POST")) {
+                criarConta(troca, parametros);
+            } else if (partes.length == 3 && metodo.equals("GET")) {
+                dadosDaConta(troca, partes[2]);
+            } else if (partes.length == 4) {
+                String cpf = partes[2];
+                switch (metodo + " " + partes[3]) {
+                    case "GET saldo" -> saldo(troca, cpf);
+                    case "POST deposito" -> movimentar(troca, cpf, TipoServico.DEPOSITO, parametros);
+                    case "POST saque" -> movimentar(troca, cpf, TipoServico.SAQUE, parametros);
+                    case "POST transferencia" -> movimentar(troca, cpf, TipoServico.TRANSFERENCIA, parametros);
+                    case "GET extrato" -> extrato(troca, cpf, parametros);
+                    default -> responder(troca, 404, erro("Rota não encontrada."));
+                }
+            } else {
+                responder(troca, 404, erro("Rota não encontrada."));
+            }
+        } catch (IllegalArgumentException e) {
+            responder(troca, 400, erro(e.getMessage()));
+        } catch (RuntimeException e) {
+            responder(troca, 500, erro("Erro interno: " + e.getMessage()));
+        } finally {
+            troca.close();
+        }
+    }
+
+    private void criarConta(HttpExchange troca, Map<String, String> parametros) throws IOException {
+        TipoConta tipoConta = TipoConta.valueOf(obrigatorio(parametros, "tipo").toUpperCase());
+        int agencia = Integer.parseInt(parametros.getOrDefault("agencia", String.valueOf(Conta.AGENCIA_PADRAO)));
+        String mensagem = banco.criarConta(obrigatorio(parametros, "nome"), obrigatorio(parametros, "cpf"), tipoConta, agencia);
+        responder(troca, 201, "{\"mensagem\":" + texto(mensagem) + "}");
+    }
+
+    private void dadosDaConta(HttpExchange troca, String cpf) throws IOException {
+        Conta conta = banco.acessarConta(cpf);
+        responder(troca, 200, "{\"nome\":" + texto(conta.getCliente().getNome())
+                + ",\"cpf\":" + texto(conta.getCliente().getCpf())
+                + ",\"tipo\":" + texto(conta.getTipoConta().name())
+                + ",\"agencia\":" + conta.getAgencia()
+                + ",\"numero\":" + conta.getNumero() + "}");
+    }
+
+    private void saldo(HttpExchange troca, String cpf) throws IOException {
+        long saldo = banco.acessarConta(cpf).getSaldo();
+        responder(troca, 200, "{\"saldoCentavos\":" + saldo + ",\"saldo\":" + texto(Dinheiro.formatar(saldo)) + "}");
+    }
+
+    private void movimentar(HttpExchange troca, String cpf, TipoServico tipoServico, Map<String, String> parametros) throws IOException {
+        long valor = Dinheiro.converter(obrigatorio(parametros, "valor"));
+        String destino = tipoServico == TipoServico.TRANSFERENCIA ? obrigatorio(parametros, "destino") : null;
+        String chaveIdempotencia = troca.getRequestHeaders().getFirst(CABECALHO_IDEMPOTENCIA);
+
+        Conta conta = banco.acessarConta(cpf);
+        ResultadoOperacao resultado = conta.tentarExecutarServico(tipoServico, valor, destino, chaveIdempotencia);
+
+        // Uma recusa pelos limites de operação pode ser repetida mais tarde (429); as demais recusas são definitivas (422)
+        int status = resultado.isSucesso() ? 200 : resultado == ResultadoOperacao.LIMITE_EXCEDIDO ? 429 : 422;
+        responder(troca, status, "{\"resultado\":" + texto(resultado.name())
+                + ",\"mensagem\":" + texto(resultado.getDescricao())
+                + ",\"saldoCentavos\":" + conta.getSaldo() + "}");
+    }
+
+    private void extrato(HttpExchange troca, String cpf, Map<String, String> parametros) throws IOException {
+        int dias = Integer.parseInt(parametros.getOrDefault("dias", String.valueOf(DIAS_EXTRATO_PADRAO)));
+        int cursor = Integer.parseInt(parametros.getOrDefault("cursor", "0"));
+        int tamanho = Integer.parseInt(parametros.getOrDefault("tamanho", String.valueOf(TAMANHO_PAGINA_PADRAO)));
+        TipoServico tipoServico = parametros.containsKey("tipo") ? TipoServico.valueOf(parametros.get("tipo").toUpperCase()) : null;
+
+        long fim = System.currentTimeMillis() + 1;
+        long inicio = fim - TimeUnit.DAYS.toMillis(dias);
+        PaginaExtrato pagina = banco.consultarExtrato(cpf, inicio, fim, tipoServico, cursor, tamanho);
+
+        StringBuilder json = new StringBuilder(64 + pagina.transacoes().size() * 96);
+        json.append("{\"transacoes\":[");
+        for (int i = 0; i < pagina.transacoes().size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append(texto(pagina.transacoes().get(i)));
+        }
+        json.append("],\"proximoCursor\":").append(pagina.proximoCursor()).append('}');
+        responder(troca, 200, json.toString());
+    }
+
+    // Apura o período informado e responde com os totais; repetir a chamada não repete os lançamentos
+    private void apuracao(HttpExchange troca) throws IOException {
+        try {
+            if (!troca.getRequestMethod().equals("POST")) {
+                responder(troca, 404, erro("Rota não encontrada."));
+                return;
+            }
+            YearMonth periodo = YearMonth.parse(obrigatorio(lerParametros(troca.getRequestURI().getRawQuery()), "periodo"));
+            ApuracaoMensal.Resumo resumo = banco.apurarPeriodo(periodo);
+            responder(troca, 200, "{\"periodo\":" + texto(resumo.periodo().toString())
+                    + ",\"contasApuradas\":" + resumo.contasApuradas()
+                    + ",\"contasJaApuradas\":" + resumo.contasJaApuradas()
+                    + ",\"rendimentosCentavos\":" + resumo.totalRendimentos()
+                    + ",\"tarifasCentavos\":" + resumo.totalTarifas()
+                    + ",\"duracaoMs\":" + resumo.duracaoMs() + "}");
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            responder(troca, 400, erro(e.getMessage()));
+        } catch (IllegalStateException e) {
+            responder(troca, 409, erro(e.getMessage()));
+        } catch (RuntimeException e) {
+            responder(troca, 500, erro("Erro interno: " + e.getMessage()));
+        } finally {
+            troca.close();
+        }
+    }
+
+    // Passivo total: a soma dos saldos de todas as contas num mesmo instante, sem interromper as operações
+    private void saldos(HttpExchange troca) throws IOException {
+        try {
+            if (!troca.getRequestMethod().equals("GET")) {
+                responder(troca, 404, erro("Rota não encontrada."));
+                return;
+            }
+            FotografiaDeSaldos fotografia = banco.fotografarSaldos(false);
+            responder(troca, 200, "{\"contas\":" + fotografia.quantidade()
+                    + ",\"totalCentavos\":" + fotografia.total()
+                    + ",\"total\":" + texto(Dinheiro.formatar(fotografia.total())) + "}");
+        } catch (RuntimeException e) {
+            responder(troca, 500, erro("Erro interno: " + e.getMessage()));
+        } finally {
+            troca.close();
+        }
+    }
+
+    private static void metricas(HttpExchange troca) throws IOException {
+        try {
+            byte[] corpo = Metricas.gerarRelatorio().getBytes(StandardCharsets.UTF_8);
+            troca.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            troca.sendResponseHeaders(200, corpo.length);
+            try (OutputStream saida = troca.getResponseBody()) {
+                saida.write(corpo);
+            }
+        } finally {
+            troca.close();
+        }
+    }
+
+    private static void responder(HttpExchange troca, int status, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        troca.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        troca.sendResponseHeaders(status, corpo.length);
+        try (OutputStream saida = troca.getResponseBody()) {
+            saida.write(corpo);
+        }
+    }
+
+    private static String erro(String mensagem) {
+        return "{\"erro\":" + texto(mensagem) + "}";
+    }
+
+    private static String obrigatorio(Map<String, String> parametros, String nome) {
+        String valor = parametros.get(nome);
+        if (valor == null || valor.isEmpty()) {
+            throw new IllegalArgumentException("Parâmetro obrigatório ausente: " + nome);
+        }
+        return valor;
+    }
+
+    private static Map<String, String> lerParametros(String query) {
+        Map<String, String> parametros = new HashMap<>();
+        if (query == null) {
+            return parametros;
+        }
+        for (String par : query.split("&")) {
+            int igual = par.indexOf('=');
+            if (igual > 0) {
+                parametros.put(URLDecoder.decode(par.substring(0, igual), StandardCharsets.UTF_8),
+                        URLDecoder.decode(par.substring(igual + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parametros;
+    }
+
+    // Converte um texto em string JSON, escapando os caracteres especiais
+    private static String texto(String valor) {
+        StringBuilder json = new StringBuilder(valor.length() + 2).append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"').toString();
+    }
+}
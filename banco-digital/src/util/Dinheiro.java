@@ -0,0 +1,140 @@
+package util;
+
+/**
+ * Operações sobre valores monetários representados como {@code long} em centavos.
+ *
+ * Todos os valores do sistema (saldos e valores de operação) usam esta representação, evitando
+ * os erros de arredondamento do {@code double}. As operações aritméticas não alocam objetos e
+ * lançam {@link ArithmeticException} em caso de estouro.
+ */
+public class Dinheiro {
+    public static final long CENTAVOS_POR_REAL = 100;
+    public static final long PARTES_POR_MILHAO = 1_000_000;
+
+    // Converte um valor inteiro em reais para centavos
+    public static long deReais(long reais) {
+        return Math.multiplyExact(reais, CENTAVOS_POR_REAL);
+    }
+
+    // Soma dois valores em centavos, lançando ArithmeticException em caso de estouro
+    public static long somar(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    // Subtrai dois valores em centavos, lançando ArithmeticException em caso de estouro
+    public static long subtrair(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // Aplica uma taxa, em partes por milhão (até 1.000.000), a um valor não negativo; arredonda para baixo sem estourar
+    public static long aplicarTaxa(long valor, long partesPorMilhao) {
+        return valor / PARTES_POR_MILHAO * partesPorMilhao + valor % PARTES_POR_MILHAO * partesPorMilhao / PARTES_POR_MILHAO;
+    }
+
+    // Formato aceito por converter, incluído nas mensagens de erro
+    private static final String FORMATO = "Use apenas dígitos, com até duas casas decimais após vírgula ou ponto; "
+            + "o ponto também separa os milhares quando os centavos vêm após a vírgula (ex.: 10, 10,5, 1234.56 ou 1.234,56).";
+
+    /**
+     * Converte um texto digitado pelo usuário (ex.: "10", "10,5", "1234.56", "1.234,56") em centavos.
+     *
+     * A parte inteira tem ao menos um dígito e pode ser seguida de um separador decimal (vírgula ou ponto)
+     * e de uma ou duas casas decimais. Com a vírgula como separador decimal, a parte inteira pode usar o
+     * ponto como separador de milhar, em grupos de três dígitos ("1.234.567,89"); sem a vírgula, um único
+     * ponto é sempre o separador decimal, de modo que "1.234" é recusado por ser ambíguo. Sinais, espaços
+     * e separadores sem dígitos dos dois lados (".5", "5.") são recusados.
+     *
+     * @param texto O valor digitado.
+     * @return O valor em centavos.
+     * @throws NumberFormatException Se o texto não seguir o formato aceito ou o valor for grande demais.
+     */
+    public static long converter(String texto) throws NumberFormatException {
+        if (texto == null || texto.isEmpty()) {
+            throw new NumberFormatException("Valor vazio. " + FORMATO);
+        }
+
+        int virgula = texto.indexOf(',');
+        int separadorDecimal = virgula >= 0 ? virgula : texto.indexOf('.');
+        int fimDaParteInteira = separadorDecimal >= 0 ? separadorDecimal : texto.length();
+
+        // Toda a acumulação fica no try: um valor grande demais estoura em reais ou ao converter para centavos
+        try {
+            long reais = converterParteInteira(texto, fimDaParteInteira, virgula >= 0);
+            long centavos = 0;
+            if (separadorDecimal >= 0) {
+                int casasDecimais = texto.length() - separadorDecimal - 1;
+                if (casasDecimais < 1 || casasDecimais > 2) {
+                    throw valorInvalido(texto);
+                }
+                for (int i = separadorDecimal + 1; i < texto.length(); i++) {
+                    centavos = centavos * 10 + digito(texto, i);
+                }
+
+                // "10,5" representa 50 centavos, e não 5
+                if (casasDecimais == 1) {
+                    centavos *= 10;
+                }
+            }
+            return Math.addExact(deReais(reais), centavos);
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Valor fora do limite permitido: " + texto);
+        }
+    }
+
+    // Converte os "fim" primeiros caracteres (a parte inteira); com "milhar", aceita pontos entre grupos de três dígitos
+    private static long converterParteInteira(String texto, int fim, boolean milhar) {
+        long reais = 0;
+        int digitosNoGrupo = 0;
+        boolean agrupado = false;
+
+        for (int i = 0; i < fim; i++) {
+            if (texto.charAt(i) == '.' && milhar && digitosNoGrupo > 0 && (agrupado ? digitosNoGrupo == 3 : digitosNoGrupo <= 3)) {
+                agrupado = true;
+                digitosNoGrupo = 0;
+            } else {
+                reais = Math.addExact(Math.multiplyExact(reais, 10), digito(texto, i));
+                digitosNoGrupo++;
+            }
+        }
+
+        if (digitosNoGrupo == 0 || (agrupado && digitosNoGrupo != 3)) {
+            throw valorInvalido(texto);
+        }
+        return reais;
+    }
+
+    private static int digito(String texto, int posicao) {
+        char c = texto.charAt(posicao);
+        if (c < '0' || c > '9') {
+            throw valorInvalido(texto);
+        }
+        return c - '0';
+    }
+
+    private static NumberFormatException valorInvalido(String texto) {
+        return new NumberFormatException("Valor inválido: \"" + texto + "\". " + FORMATO);
+    }
+
+    // Formata um valor em centavos no padrão "R$ x,yy"
+    public static String formatar(long centavos) {
+        return formatar(new StringBuilder(24), centavos).toString();
+    }
+
+    // Acrescenta o valor formatado ("R$ x,yy") a um StringBuilder existente, sem criar objetos intermediários
+    public static StringBuilder formatar(StringBuilder destino, long centavos) {
+        if (centavos < 0) {
+            destino.append('-');
+        }
+        destino.append("R$ ");
+
+        // Long.MIN_VALUE não tem representação positiva; usa aritmética negativa para tratar todos os casos
+        long negativo = centavos < 0 ? centavos : -centavos;
+        destino.append(-(negativo / CENTAVOS_POR_REAL));
+        destino.append(',');
+
+        int resto = (int) -(negativo % CENTAVOS_POR_REAL);
+        destino.append((char) ('0' + resto / 10));
+        destino.append((char) ('0' + resto % 10));
+        return destino;
+    }
+}
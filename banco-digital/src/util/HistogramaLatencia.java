@@ -0,0 +1,103 @@
+package util;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma de latências em nanossegundos, com faixas de largura logarítmica (no estilo do HdrHistogram).
+ *
+ * Cada potência de 2 é dividida em 8 sub-faixas, o que limita o erro relativo dos percentis a 12,5%
+ * com um número fixo de contadores, independentemente do intervalo de valores. Os contadores são
+ * LongAdder, para que várias threads registrem valores sem disputar a mesma variável.
+ */
+public class HistogramaLatencia {
+    private static final int BITS_SUBFAIXA = 3;
+    private static final int SUBFAIXAS = 1 << BITS_SUBFAIXA;
+    private static final int FAIXAS = 64 - BITS_SUBFAIXA + 1;
+
+    private final LongAdder[] contagens = new LongAdder[FAIXAS * SUBFAIXAS];
+    private final LongAdder soma = new LongAdder();
+    private final LongAccumulator maximo = new LongAccumulator(Math::max, 0);
+
+    public HistogramaLatencia() {
+        for (int i = 0; i < contagens.length; i++) {
+            contagens[i] = new LongAdder();
+        }
+    }
+
+    // Registra uma latência em nanossegundos; valores negativos são tratados como zero
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        contagens[indice(valor)].increment();
+        soma.add(valor);
+        maximo.accumulate(valor);
+    }
+
+    public long getQuantidade() {
+        long quantidade = 0;
+        for (LongAdder contagem : contagens) {
+            quantidade += contagem.sum();
+        }
+        return quantidade;
+    }
+
+    public long getMaximo() {
+        return maximo.get();
+    }
+
+    public double getMedia() {
+        long quantidade = getQuantidade();
+        return quantidade == 0 ? 0 : (double) soma.sum() / quantidade;
+    }
+
+    /**
+     * Retorna o valor abaixo do qual está a fração informada dos registros.
+     *
+     * O resultado é o limite superior da faixa onde o percentil cai, limitado ao máximo registrado.
+     *
+     * @param fracao Fração entre 0 e 1 (por exemplo, 0.99 para o p99).
+     */
+    public long percentil(double fracao) {
+        long quantidade = getQuantidade();
+        if (quantidade == 0) {
+            return 0;
+        }
+        long alvo = Math.max(1, (long) Math.ceil(fracao * quantidade));
+        long acumulado = 0;
+        for (int i = 0; i < contagens.length; i++) {
+            acumulado += contagens[i].sum();
+            if (acumulado >= alvo) {
+                return Math.min(limiteSuperior(i), getMaximo());
+            }
+        }
+        return getMaximo();
+    }
+
+    // Zera todos os contadores
+    public void zerar() {
+        for (LongAdder contagem : contagens) {
+            contagem.reset();
+        }
+        soma.reset();
+        maximo.reset();
+    }
+
+    // Valores menores que SUBFAIXAS têm faixa própria; os demais usam o bit mais alto e os 3 bits seguintes
+    private static int indice(long valor) {
+        if (valor < SUBFAIXAS) {
+            return (int) valor;
+        }
+        int deslocamento = 63 - Long.numberOfLeadingZeros(valor) - BITS_SUBFAIXA;
+        int subfaixa = (int) (valor >>> deslocamento) & (SUBFAIXAS - 1);
+        return (deslocamento + 1) * SUBFAIXAS + subfaixa;
+    }
+
+    private static long limiteSuperior(int indice) {
+        if (indice < SUBFAIXAS) {
+            return indice;
+        }
+        int deslocamento = indice / SUBFAIXAS - 1;
+        long inicio = (long) (SUBFAIXAS + indice % SUBFAIXAS) << deslocamento;
+        return inicio + (1L << deslocamento) - 1;
+    }
+}
@@ -0,0 +1,127 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+
+import service.Banco;
+import service.PernaDeTransacao;
+
+/**
+ * Cortes de saldos por época: o corte vê o saldo de cada conta no instante em que foi aberto, aguarda as
+ * alterações já em andamento e nunca inclui uma transferência ou transação pela metade.
+ */
+class CorteDeSaldosTest {
+    private static final int CONTAS = 50;
+    private static final long SALDO_INICIAL = 1_000_00;
+
+    @Test
+    void alteracaoDepoisDaAberturaNaoEntraNoCorte() throws Exception {
+        try (Banco banco = new Banco()) {
+            banco.criarConta("Cliente", "12345678901", TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf("12345678901");
+            conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+
+            long epoca = CorteDeSaldos.abrir();
+            try {
+                conta.tentarExecutarServico(TipoServico.DEPOSITO, 50_00, null);
+                conta.tentarExecutarServico(TipoServico.SAQUE, 20_00, null);
+                assertEquals(100_00, conta.getSaldoNoCorte(epoca));
+                assertEquals(130_00, conta.getSaldo());
+            } finally {
+                CorteDeSaldos.fechar();
+            }
+
+            // Um corte seguinte já vê o saldo atual
+            assertEquals(130_00, banco.fotografarSaldos(false).total());
+        }
+    }
+
+    @Test
+    void corteAguardaAsAlteracoesEmAndamento() throws Exception {
+        long epoca = CorteDeSaldos.entrar();
+        AtomicBoolean aberto = new AtomicBoolean();
+        Thread corte = new Thread(() -> {
+            CorteDeSaldos.abrir();
+            aberto.set(true);
+            CorteDeSaldos.fechar();
+        });
+        corte.start();
+        try {
+            corte.join(200);
+            assertFalse(aberto.get(), "O corte foi aberto com uma alteração da época anterior em andamento");
+        } finally {
+            CorteDeSaldos.sair(epoca);
+        }
+        corte.join(TimeUnit.SECONDS.toMillis(10));
+        assertTrue(aberto.get());
+    }
+
+    @Test
+    void totalDosCortesNaoIncluiDinheiroEmTransito() throws Exception {
+        try (Banco banco = new Banco()) {
+            for (int i = 0; i < CONTAS; i++) {
+                banco.criarConta("Cliente " + i, cpf(i), TipoConta.CORRENTE);
+                Banco.buscarCpf(cpf(i)).tentarExecutarServico(TipoServico.DEPOSITO, SALDO_INICIAL, null);
+            }
+            long totalEsperado = CONTAS * SALDO_INICIAL;
+
+            // Transferências e transações de três pernas entre contas sorteadas, durante os cortes
+            AtomicBoolean parar = new AtomicBoolean();
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                SplittableRandom aleatorio = new SplittableRandom(t);
+                boolean transacoes = t % 2 == 1;
+                Thread thread = new Thread(() -> {
+                    while (!parar.get()) {
+                        String a = cpf(aleatorio.nextInt(CONTAS));
+                        String b = cpf(aleatorio.nextInt(CONTAS));
+                        String c = cpf(aleatorio.nextInt(CONTAS));
+                        long valor = 1 + aleatorio.nextInt(50_00);
+                        if (transacoes) {
+                            banco.executarTransacao(List.of(new PernaDeTransacao(a, b, valor),
+                                    new PernaDeTransacao(b, c, valor), new PernaDeTransacao(c, a, valor / 2)));
+                        } else {
+                            Banco.buscarCpf(a).tentarExecutarServico(TipoServico.TRANSFERENCIA, valor, b);
+                        }
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+
+            try {
+                for (int i = 0; i < 500; i++) {
+                    FotografiaDeSaldos fotografia = banco.fotografarSaldos(i % 2 == 0);
+                    assertEquals(totalEsperado, fotografia.total());
+                    assertEquals(CONTAS, fotografia.quantidade());
+                    if (i % 2 == 0) {
+                        long soma = 0;
+                        for (int j = 0; j < fotografia.quantidade(); j++) {
+                            soma += fotografia.saldos()[j];
+                        }
+                        assertEquals(totalEsperado, soma);
+                    }
+                }
+            } finally {
+                parar.set(true);
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+            }
+            assertEquals(totalEsperado, banco.fotografarSaldos(false).total());
+        }
+    }
+
+    private static String cpf(int indice) {
+        return String.format("%011d", indice + 1);
+    }
+}
@@ -0,0 +1,79 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.StringWriter;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import service.Banco;
+
+/**
+ * Paginação do extrato: percorrer as páginas pelo cursor termina e devolve cada transação uma vez, e
+ * cursores negativos ou páginas sem tamanho são recusados em vez de devolverem sempre a mesma página.
+ */
+class ExtratoTest {
+    private static final String CPF = "12345678901";
+    private static final int TRANSACOES = 7;
+
+    private Banco banco;
+    private Conta conta;
+
+    @BeforeEach
+    void abrir() {
+        banco = new Banco();
+        banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+        conta = Banco.buscarCpf(CPF);
+        for (int i = 1; i <= TRANSACOES; i++) {
+            conta.tentarExecutarServico(TipoServico.DEPOSITO, i * 100L, null);
+        }
+    }
+
+    @AfterEach
+    void encerrar() throws Exception {
+        banco.close();
+    }
+
+    @Test
+    void paginasCobremTodasAsTransacoes() {
+        int cursor = 0;
+        int total = 0;
+        int paginas = 0;
+        PaginaExtrato pagina;
+        do {
+            pagina = conta.consultarExtrato(0, Long.MAX_VALUE, null, cursor, 3);
+            total += pagina.transacoes().size();
+            paginas++;
+            cursor = pagina.proximoCursor();
+        } while (pagina.temProximaPagina());
+
+        assertEquals(TRANSACOES, total);
+        assertEquals(3, paginas);
+    }
+
+    @Test
+    void tamanhoDePaginaNaoPositivoERecusado() {
+        assertThrows(IllegalArgumentException.class, () -> conta.consultarExtrato(0, Long.MAX_VALUE, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> conta.consultarExtrato(0, Long.MAX_VALUE, null, 0, -1));
+        assertThrows(IllegalArgumentException.class, () -> banco.consultarExtrato(CPF, 0, Long.MAX_VALUE, null, 0, 0));
+        assertThrows(IllegalArgumentException.class, () -> conta.escreverExtrato(0, Long.MAX_VALUE, null, 0, 0,
+                new RenderizadorDeExtrato(), "", new StringWriter()));
+    }
+
+    @Test
+    void cursorNegativoERecusado() {
+        assertThrows(IllegalArgumentException.class, () -> conta.consultarExtrato(0, Long.MAX_VALUE, null, -1, 3));
+        assertThrows(IllegalArgumentException.class, () -> banco.consultarExtrato(CPF, 0, Long.MAX_VALUE, null, -5, 3));
+    }
+
+    @Test
+    void ultimaPaginaNaoTemProxima() {
+        PaginaExtrato pagina = conta.consultarExtrato(0, Long.MAX_VALUE, null, 0, TRANSACOES);
+        assertEquals(TRANSACOES, pagina.transacoes().size());
+        assertFalse(pagina.temProximaPagina());
+    }
+}
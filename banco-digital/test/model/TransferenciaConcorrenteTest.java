@@ -0,0 +1,127 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.jupiter.api.Test;
+
+import exception.SaldoInsuficienteException;
+import exception.ValorInvalidoException;
+import service.Banco;
+
+/**
+ * Transferências concorrentes entre poucas contas, com todas as threads disputando os mesmos locks
+ * (inclusive em sentidos opostos): o dinheiro total não muda, nenhum saldo fica negativo e nenhuma
+ * thread fica presa em um deadlock.
+ */
+class TransferenciaConcorrenteTest {
+    private static final int THREADS = 8;
+    private static final int TRANSFERENCIAS_POR_THREAD = 250_000;
+    private static final long SALDO_INICIAL = 1_000_00L;
+    private static final long TEMPO_MAXIMO_SEGUNDOS = 120;
+
+    @Test
+    void transferenciasSorteadasConservamOTotal() throws Exception {
+        try (Banco banco = new Banco()) {
+            Conta[] contas = criarContas(banco, 64);
+
+            executarEmParalelo(aleatorio -> {
+                Conta origem = contas[aleatorio.nextInt(contas.length)];
+                Conta destino = contas[aleatorio.nextInt(contas.length)];
+                long valor = 1 + aleatorio.nextLong(SALDO_INICIAL / 10);
+                return origem != destino && origem.tentarExecutarServico(TipoServico.TRANSFERENCIA, valor, destino.getCliente().getCpf()).isSucesso();
+            });
+
+            verificarTotal(contas);
+        }
+    }
+
+    @Test
+    void transferenciasEmSentidosOpostosNaoTravam() throws Exception {
+        try (Banco banco = new Banco()) {
+            Conta[] contas = criarContas(banco, 2);
+
+            // Cada transferência sorteia o sentido (A para B ou B para A) e um dos três caminhos de transferência
+            executarEmParalelo(aleatorio -> {
+                Conta de = aleatorio.nextBoolean() ? contas[0] : contas[1];
+                Conta para = de == contas[0] ? contas[1] : contas[0];
+                long valor = 1 + aleatorio.nextLong(SALDO_INICIAL);
+                switch (aleatorio.nextInt(3)) {
+                    case 0 -> {
+                        return de.aplicarTransferencia(valor, para).isSucesso();
+                    }
+                    case 1 -> {
+                        try {
+                            de.transferir(valor, para.getCliente().getCpf());
+                            return true;
+                        } catch (SaldoInsuficienteException | ValorInvalidoException e) {
+                            return false;
+                        }
+                    }
+                    default -> {
+                        return de.tentarExecutarServico(TipoServico.TRANSFERENCIA, valor, para.getCliente().getCpf()).isSucesso();
+                    }
+                }
+            });
+
+            verificarTotal(contas);
+        }
+    }
+
+    private interface Transferencia {
+        boolean executar(SplittableRandom aleatorio);
+    }
+
+    private static Conta[] criarContas(Banco banco, int quantidade) {
+        Conta[] contas = new Conta[quantidade];
+        for (int i = 0; i < quantidade; i++) {
+            String cpf = String.format("%011d", i);
+            banco.criarConta("Cliente " + i, cpf, i % 2 == 0 ? TipoConta.CORRENTE : TipoConta.POUPANCA);
+            contas[i] = Banco.buscarCpf(cpf);
+            assertEquals(ResultadoOperacao.SUCESSO, contas[i].tentarExecutarServico(TipoServico.DEPOSITO, SALDO_INICIAL, null));
+        }
+        return contas;
+    }
+
+    // Executa as transferências em THREADS threads, falhando se elas não terminarem no tempo máximo
+    private static void executarEmParalelo(Transferencia transferencia) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        LongAdder confirmadas = new LongAdder();
+        for (int t = 0; t < THREADS; t++) {
+            long semente = 20240601L + t;
+            executor.execute(() -> {
+                SplittableRandom aleatorio = new SplittableRandom(semente);
+                for (int i = 0; i < TRANSFERENCIAS_POR_THREAD; i++) {
+                    if (transferencia.executar(aleatorio)) {
+                        confirmadas.increment();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        boolean terminou = executor.awaitTermination(TEMPO_MAXIMO_SEGUNDOS, TimeUnit.SECONDS);
+        long[] travadas = ManagementFactory.getThreadMXBean().findDeadlockedThreads();
+        executor.shutdownNow();
+
+        assertTrue(travadas == null, () -> "Threads em deadlock: " + Arrays.toString(travadas));
+        assertTrue(terminou, "As transferências não terminaram em " + TEMPO_MAXIMO_SEGUNDOS + " s.");
+        assertTrue(confirmadas.sum() > 0, "Nenhuma transferência foi confirmada.");
+    }
+
+    private static void verificarTotal(Conta[] contas) {
+        long total = 0;
+        for (Conta conta : contas) {
+            assertTrue(conta.getSaldo() >= 0, "Saldo negativo na conta " + conta.getNumero());
+            total += conta.getSaldo();
+        }
+        assertEquals(SALDO_INICIAL * contas.length, total);
+    }
+}
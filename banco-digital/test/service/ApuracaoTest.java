@@ -0,0 +1,98 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+import java.time.YearMonth;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Apuração mensal repetida: cada período é lançado no máximo uma vez por conta, inclusive depois de um
+ * reinício, e períodos anteriores ao último apurado são ignorados.
+ */
+class ApuracaoTest {
+    private static final String CPF_POUPANCA = "11111111111";
+    private static final String CPF_CORRENTE = "22222222222";
+    private static final YearMonth PERIODO = YearMonth.of(2024, 5);
+
+    // Com a tabela padrão: 0,5% de rendimento na poupança e tarifa de R$ 12,90 na corrente
+    private static final long SALDO_POUPANCA = 1_000_00 + 5_00;
+    private static final long SALDO_CORRENTE = 100_00 - 12_90;
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void segundaApuracaoDoPeriodoNaoLancaNada() throws Exception {
+        try (Banco banco = new Banco()) {
+            criarContas(banco);
+
+            ApuracaoMensal.Resumo primeira = banco.apurarPeriodo(PERIODO);
+            assertEquals(2, primeira.contasApuradas());
+            assertEquals(5_00, primeira.totalRendimentos());
+            assertEquals(12_90, primeira.totalTarifas());
+
+            ApuracaoMensal.Resumo segunda = banco.apurarPeriodo(PERIODO);
+            assertEquals(0, segunda.contasApuradas());
+            assertEquals(2, segunda.contasJaApuradas());
+            assertEquals(0, segunda.totalRendimentos());
+            assertEquals(0, segunda.totalTarifas());
+            verificarSaldos();
+        }
+    }
+
+    @Test
+    void periodoAnteriorAoUltimoApuradoEIgnorado() throws Exception {
+        try (Banco banco = new Banco()) {
+            criarContas(banco);
+            banco.apurarPeriodo(PERIODO);
+
+            ApuracaoMensal.Resumo anterior = banco.apurarPeriodo(PERIODO.minusMonths(1));
+            assertEquals(2, anterior.contasJaApuradas());
+            verificarSaldos();
+        }
+    }
+
+    @Test
+    void apuracaoRepetidaAposReinicioNaoLancaNada() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            criarContas(banco);
+            banco.apurarPeriodo(PERIODO);
+        }
+
+        // O período apurado é recuperado do diário
+        try (Banco banco = new Banco(diretorio)) {
+            assertEquals(2, banco.apurarPeriodo(PERIODO).contasJaApuradas());
+            verificarSaldos();
+            banco.salvarSnapshot();
+        }
+
+        // ... e do snapshot, depois que o diário foi descartado
+        try (Banco banco = new Banco(diretorio)) {
+            assertEquals(2, banco.apurarPeriodo(PERIODO).contasJaApuradas());
+            verificarSaldos();
+
+            // O período seguinte continua sendo apurado
+            assertEquals(2, banco.apurarPeriodo(PERIODO.plusMonths(1)).contasApuradas());
+        }
+    }
+
+    private static void criarContas(Banco banco) {
+        banco.criarConta("Poupança", CPF_POUPANCA, TipoConta.POUPANCA);
+        banco.criarConta("Corrente", CPF_CORRENTE, TipoConta.CORRENTE);
+        Banco.buscarCpf(CPF_POUPANCA).tentarExecutarServico(TipoServico.DEPOSITO, 1_000_00, null);
+        Banco.buscarCpf(CPF_CORRENTE).tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+    }
+
+    private static void verificarSaldos() {
+        assertEquals(SALDO_POUPANCA, Banco.buscarCpf(CPF_POUPANCA).getSaldo());
+        assertEquals(SALDO_CORRENTE, Banco.buscarCpf(CPF_CORRENTE).getSaldo());
+        assertEquals(2, Banco.buscarCpf(CPF_POUPANCA).getTransacoes().size());
+        assertEquals(2, Banco.buscarCpf(CPF_CORRENTE).getTransacoes().size());
+    }
+}
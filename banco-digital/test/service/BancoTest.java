@@ -0,0 +1,75 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.Conta;
+import model.TipoConta;
+
+/**
+ * Um único banco aberto por processo: os índices e serviços do Banco são compartilhados, então um segundo
+ * banco é recusado enquanto o primeiro não for encerrado, em vez de esconder as contas dele.
+ */
+class BancoTest {
+    private static final String CPF = "12345678901";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void segundoBancoAbertoERecusado() throws Exception {
+        try (Banco banco = new Banco()) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf(CPF);
+
+            assertThrows(IllegalStateException.class, Banco::new);
+            assertThrows(IllegalStateException.class, () -> new Banco(diretorio));
+            assertSame(conta, Banco.buscarCpf(CPF));
+        }
+    }
+
+    @Test
+    void bancoEncerradoPermiteCriarOutro() throws Exception {
+        try (Banco banco = new Banco()) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+        }
+        try (Banco banco = new Banco()) {
+            assertNull(Banco.buscarCpf(CPF));
+        }
+    }
+
+    @Test
+    void recuperacaoComFalhaNaoImpedeOutroBanco() throws Exception {
+        try (Banco banco = new Banco(diretorio, 2)) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+        }
+
+        // O diretório foi criado com 2 partições: a recuperação com 1 falha e encerra o banco incompleto
+        assertThrows(IllegalArgumentException.class, () -> new Banco(diretorio, 1));
+
+        try (Banco banco = new Banco(diretorio, 2)) {
+            assertNotNull(Banco.buscarCpf(CPF));
+        }
+    }
+
+    @Test
+    void encerrarDuasVezesNaoAfetaOBancoSeguinte() throws Exception {
+        Banco anterior = new Banco();
+        anterior.ativarNotificacoes(16, 4, FilaDeNotificacoes.Politica.DESCARTAR, mensagens -> { });
+        anterior.close();
+
+        try (Banco banco = new Banco()) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            anterior.close();
+            assertNotNull(Banco.buscarCpf(CPF));
+            assertThrows(IllegalStateException.class, Banco::new);
+        }
+    }
+}
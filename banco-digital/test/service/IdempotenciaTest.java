@@ -0,0 +1,98 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Chaves de idempotência após um reinício: a repetição de uma operação com a mesma chave devolve o
+ * resultado original sem alterar os saldos, tanto com a chave recuperada do diário quanto do arquivo
+ * gravado com o snapshot.
+ */
+class IdempotenciaTest {
+    private static final String CPF = "12345678901";
+    private static final String CPF_DESTINO = "10987654321";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void depositoRepetidoAposReinicioNaoEAplicado() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            assertEquals(ResultadoOperacao.SUCESSO, Banco.buscarCpf(CPF).tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null, "dep-1"));
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            Conta conta = Banco.buscarCpf(CPF);
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null, "dep-1"));
+            assertEquals(100_00, conta.getSaldo());
+            assertEquals(1, conta.getTransacoes().size());
+
+            // Uma chave nova é executada normalmente
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null, "dep-2"));
+            assertEquals(200_00, conta.getSaldo());
+        }
+    }
+
+    @Test
+    void recusaRepetidaAposReinicioDevolveAMesmaRecusa() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            assertEquals(ResultadoOperacao.SALDO_INSUFICIENTE, Banco.buscarCpf(CPF).tentarExecutarServico(TipoServico.SAQUE, 50_00, null, "saque-1"));
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            Conta conta = Banco.buscarCpf(CPF);
+            conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+
+            // Mesmo com saldo agora suficiente, a repetição devolve o resultado original
+            assertEquals(ResultadoOperacao.SALDO_INSUFICIENTE, conta.tentarExecutarServico(TipoServico.SAQUE, 50_00, null, "saque-1"));
+            assertEquals(100_00, conta.getSaldo());
+        }
+    }
+
+    @Test
+    void transferenciaRepetidaAposSnapshotNaoEAplicada() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Origem", CPF, TipoConta.CORRENTE);
+            banco.criarConta("Destino", CPF_DESTINO, TipoConta.CORRENTE);
+            Conta origem = Banco.buscarCpf(CPF);
+            origem.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+            assertEquals(ResultadoOperacao.SUCESSO, origem.tentarExecutarServico(TipoServico.TRANSFERENCIA, 30_00, CPF_DESTINO, "transf-1"));
+
+            // O snapshot descarta o diário: a chave passa a ser recuperada do arquivo de idempotência
+            banco.salvarSnapshot();
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            Conta origem = Banco.buscarCpf(CPF);
+            assertEquals(ResultadoOperacao.SUCESSO, origem.tentarExecutarServico(TipoServico.TRANSFERENCIA, 30_00, CPF_DESTINO, "transf-1"));
+            assertEquals(70_00, origem.getSaldo());
+            assertEquals(30_00, Banco.buscarCpf(CPF_DESTINO).getSaldo());
+        }
+    }
+
+    @Test
+    void chavesSaoSeparadasPorConta() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Cliente A", CPF, TipoConta.CORRENTE);
+            banco.criarConta("Cliente B", CPF_DESTINO, TipoConta.CORRENTE);
+            Banco.buscarCpf(CPF).tentarExecutarServico(TipoServico.DEPOSITO, 10_00, null, "mesma-chave");
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            assertEquals(ResultadoOperacao.SUCESSO, Banco.buscarCpf(CPF_DESTINO).tentarExecutarServico(TipoServico.DEPOSITO, 20_00, null, "mesma-chave"));
+            assertEquals(10_00, Banco.buscarCpf(CPF).getSaldo());
+            assertEquals(20_00, Banco.buscarCpf(CPF_DESTINO).getSaldo());
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import service.LimitesDeOperacao.Alvo;
+import service.LimitesDeOperacao.Janela;
+import service.LimitesDeOperacao.Regra;
+
+/**
+ * Limites em janelas deslizantes: a contagem cobre a janela inteira e no máximo uma fatia a mais, as
+ * operações recusadas por outro motivo são estornadas e a recusa pelo destino não contabiliza a origem.
+ */
+class LimitesDeOperacaoTest {
+    private static final long CONTA = 1_0001L;
+    private static final long OUTRA_CONTA = 1_0002L;
+    private static final long DESTINO = 1_0003L;
+
+    // Início de uma fatia de todas as janelas (múltiplo da duração de uma fatia do dia)
+    private static final long INICIO = Janela.DIA.getDuracaoMs() * 100;
+    private static final long FATIA_MINUTO = Janela.MINUTO.getDuracaoMs() / LimitesDeOperacao.FATIAS;
+
+    @Test
+    void quantidadeNaJanelaDeslizante() {
+        LimitesDeOperacao limites = new LimitesDeOperacao(List.of(new Regra(Alvo.CONTA, Janela.MINUTO, 3, LimitesDeOperacao.SEM_LIMITE)));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO + i));
+        }
+        assertFalse(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO + 10));
+
+        // Outra conta tem os seus próprios contadores
+        assertTrue(limites.reservar(OUTRA_CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO + 10));
+
+        // Um minuto depois, a fatia das operações ainda pode ser contada (no máximo uma fatia a mais)...
+        assertFalse(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO + Janela.MINUTO.getDuracaoMs()));
+
+        // ... mas nunca depois de um minuto e uma fatia
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO + Janela.MINUTO.getDuracaoMs() + FATIA_MINUTO));
+        assertEquals(2, limites.getRecusas());
+    }
+
+    @Test
+    void operacoesEmFatiasDiferentesSaemDaJanelaUmaAUma() {
+        LimitesDeOperacao limites = new LimitesDeOperacao(List.of(new Regra(Alvo.CONTA, Janela.MINUTO, 2, LimitesDeOperacao.SEM_LIMITE)));
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO));
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, INICIO + 2 * FATIA_MINUTO));
+
+        // A primeira operação sai da contagem; a segunda continua nela
+        long depois = INICIO + Janela.MINUTO.getDuracaoMs() + FATIA_MINUTO;
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, depois));
+        assertFalse(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 1_00, depois));
+    }
+
+    @Test
+    void valorNaJanelaEEstorno() {
+        LimitesDeOperacao limites = new LimitesDeOperacao(List.of(new Regra(Alvo.CONTA, Janela.DIA, LimitesDeOperacao.SEM_LIMITE, 100_00)));
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 60_00, INICIO));
+        assertFalse(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 50_00, INICIO + 1));
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 40_00, INICIO + 2));
+
+        // Uma operação estornada (por exemplo, recusada por saldo) libera o seu valor
+        limites.estornar(CONTA, LimitesDeOperacao.SEM_DESTINO, 40_00, INICIO + 2);
+        assertTrue(limites.reservar(CONTA, LimitesDeOperacao.SEM_DESTINO, 40_00, INICIO + 3));
+    }
+
+    @Test
+    void recusaPeloDestinoNaoContabilizaAOrigem() {
+        LimitesDeOperacao limites = new LimitesDeOperacao(List.of(
+                new Regra(Alvo.CONTA, Janela.MINUTO, 1, LimitesDeOperacao.SEM_LIMITE),
+                new Regra(Alvo.DESTINO, Janela.HORA, 1, LimitesDeOperacao.SEM_LIMITE)));
+        assertTrue(limites.reservar(CONTA, DESTINO, 10_00, INICIO));
+        assertFalse(limites.reservar(OUTRA_CONTA, DESTINO, 10_00, INICIO + 1));
+
+        // O débito da outra conta foi desfeito junto com a recusa
+        assertTrue(limites.reservar(OUTRA_CONTA, LimitesDeOperacao.SEM_DESTINO, 10_00, INICIO + 2));
+    }
+
+    @Test
+    void saquesRecusadosPorSaldoNaoConsomemOLimite() throws Exception {
+        try (Banco banco = new Banco()) {
+            banco.criarConta("Cliente", "12345678901", TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf("12345678901");
+            conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+            banco.ativarLimites(new LimitesDeOperacao(List.of(new Regra(Alvo.CONTA, Janela.HORA, 2, LimitesDeOperacao.SEM_LIMITE))));
+
+            assertEquals(ResultadoOperacao.SALDO_INSUFICIENTE, conta.tentarExecutarServico(TipoServico.SAQUE, 500_00, null));
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.SAQUE, 10_00, null));
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.SAQUE, 10_00, null));
+            assertEquals(ResultadoOperacao.LIMITE_EXCEDIDO, conta.tentarExecutarServico(TipoServico.SAQUE, 10_00, null));
+
+            // Depósitos não são limitados
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 10_00, null));
+            assertEquals(90_00, conta.getSaldo());
+        }
+    }
+}
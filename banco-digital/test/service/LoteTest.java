@@ -0,0 +1,96 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Execução de lotes: cada operação recebe o seu resultado, na ordem do lote, sem interromper as demais;
+ * operações que o banco não executa em lote são recusadas antes de qualquer saldo ser alterado.
+ */
+class LoteTest {
+    private static final String CPF_A = "11111111111";
+    private static final String CPF_B = "22222222222";
+    private static final String CPF_INEXISTENTE = "99999999999";
+
+    private Banco banco;
+
+    @BeforeEach
+    void abrir() {
+        banco = new Banco();
+        banco.criarConta("Cliente A", CPF_A, TipoConta.CORRENTE);
+        banco.criarConta("Cliente B", CPF_B, TipoConta.CORRENTE);
+        Banco.buscarCpf(CPF_A).tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+    }
+
+    @AfterEach
+    void encerrar() throws Exception {
+        banco.close();
+    }
+
+    @Test
+    void cadaOperacaoRecebeOSeuResultado() {
+        List<ResultadoOperacao> resultados = banco.executarLote(List.of(
+                new OperacaoEmLote(TipoServico.DEPOSITO, CPF_B, 20_00, null),
+                new OperacaoEmLote(TipoServico.SAQUE, CPF_A, 500_00, null),
+                new OperacaoEmLote(TipoServico.SAQUE, CPF_INEXISTENTE, 10_00, null),
+                new OperacaoEmLote(TipoServico.DEPOSITO, CPF_A, 0, null),
+                new OperacaoEmLote(TipoServico.TRANSFERENCIA, CPF_A, 30_00, CPF_B),
+                new OperacaoEmLote(TipoServico.TRANSFERENCIA, CPF_A, 10_00, CPF_INEXISTENTE),
+                new OperacaoEmLote(TipoServico.TRANSFERENCIA, CPF_A, 10_00, CPF_A),
+                new OperacaoEmLote(TipoServico.SAQUE, CPF_A, 20_00, null)));
+
+        assertEquals(List.of(
+                ResultadoOperacao.SUCESSO,
+                ResultadoOperacao.SALDO_INSUFICIENTE,
+                ResultadoOperacao.CONTA_INEXISTENTE,
+                ResultadoOperacao.VALOR_INVALIDO,
+                ResultadoOperacao.SUCESSO,
+                ResultadoOperacao.CONTA_INEXISTENTE,
+                ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA,
+                ResultadoOperacao.SUCESSO), resultados);
+        assertEquals(50_00, Banco.buscarCpf(CPF_A).getSaldo());
+        assertEquals(50_00, Banco.buscarCpf(CPF_B).getSaldo());
+    }
+
+    @Test
+    void tiposNaoSuportadosSaoRecusadosNaCriacao() {
+        assertThrows(IllegalArgumentException.class, () -> new OperacaoEmLote(null, CPF_A, 10_00, null));
+        assertThrows(IllegalArgumentException.class, () -> new OperacaoEmLote(TipoServico.RENDIMENTO, CPF_A, 10_00, null));
+        assertThrows(IllegalArgumentException.class, () -> new OperacaoEmLote(TipoServico.TARIFA, CPF_A, 10_00, null));
+        assertEquals(100_00, Banco.buscarCpf(CPF_A).getSaldo());
+    }
+
+    @Test
+    void transferenciasSaoAplicadasDepoisDasMovimentacoes() {
+        // A transferência vem antes do saque no lote, mas o saque é aplicado primeiro e consome o saldo
+        List<ResultadoOperacao> resultados = banco.executarLote(List.of(
+                new OperacaoEmLote(TipoServico.TRANSFERENCIA, CPF_A, 80_00, CPF_B),
+                new OperacaoEmLote(TipoServico.SAQUE, CPF_A, 50_00, null)));
+
+        assertEquals(List.of(ResultadoOperacao.SALDO_INSUFICIENTE, ResultadoOperacao.SUCESSO), resultados);
+        assertEquals(50_00, Banco.buscarCpf(CPF_A).getSaldo());
+        assertEquals(0, Banco.buscarCpf(CPF_B).getSaldo());
+    }
+
+    @Test
+    void comOMotorSequencialOLoteSegueAOrdem() throws Exception {
+        banco.iniciarMotorSequencial(null);
+        List<ResultadoOperacao> resultados = banco.executarLote(List.of(
+                new OperacaoEmLote(TipoServico.TRANSFERENCIA, CPF_A, 80_00, CPF_B),
+                new OperacaoEmLote(TipoServico.SAQUE, CPF_A, 50_00, null)));
+
+        assertEquals(List.of(ResultadoOperacao.SUCESSO, ResultadoOperacao.SALDO_INSUFICIENTE), resultados);
+        assertEquals(20_00, Banco.buscarCpf(CPF_A).getSaldo());
+        assertEquals(80_00, Banco.buscarCpf(CPF_B).getSaldo());
+    }
+}
@@ -0,0 +1,64 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+
+/**
+ * Fila de notificações com o destino parado: pela política padrão (DESCARTAR), as operações seguem sem
+ * esperar pelo destino e as notificações que não cabem na fila são contabilizadas como descartadas.
+ */
+class NotificacoesTest {
+    private static final String CPF = "12345678901";
+    private static final int DEPOSITOS = 100;
+
+    @Test
+    void filaCheiaNaoParaAsOperacoes() throws Exception {
+        CountDownLatch liberar = new CountDownLatch(1);
+        AtomicInteger entregues = new AtomicInteger();
+
+        try (Banco banco = new Banco()) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf(CPF);
+            banco.ativarNotificacoes(4, 2, mensagens -> {
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                entregues.addAndGet(mensagens.size());
+            });
+
+            // Os depósitos rodam em outra thread para que uma espera indevida pela fila não trave o teste
+            AtomicInteger aceitos = new AtomicInteger();
+            Thread operacoes = new Thread(() -> {
+                for (int i = 0; i < DEPOSITOS; i++) {
+                    if (conta.tentarExecutarServico(TipoServico.DEPOSITO, 1_00, null) == ResultadoOperacao.SUCESSO) {
+                        aceitos.incrementAndGet();
+                    }
+                }
+            });
+            operacoes.start();
+            operacoes.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse(operacoes.isAlive(), "As operações aguardaram o destino das notificações");
+            assertEquals(DEPOSITOS, aceitos.get());
+
+            FilaDeNotificacoes fila = Banco.getNotificacoes();
+            assertTrue(fila.getDescartadas() > 0);
+            liberar.countDown();
+            banco.aguardarNotificacoes();
+            assertEquals(DEPOSITOS, entregues.get() + fila.getDescartadas());
+        }
+    }
+}
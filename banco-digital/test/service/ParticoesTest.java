@@ -0,0 +1,96 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import persistencia.DiarioDeOperacoes;
+
+/**
+ * Recuperação de transferências entre partições: cada metade é gravada no diário da sua partição, e se
+ * apenas uma chegou ao disco, a recuperação aplica a outra a partir dela, sem criar nem destruir dinheiro.
+ */
+class ParticoesTest {
+    private static final int PARTICOES = 2;
+
+    @TempDir
+    Path diretorio;
+
+    private String cpfOrigem;
+    private String cpfDestino;
+
+    @Test
+    void transferenciaSemAMetadeDeCreditoECompletada() throws Exception {
+        transferirEPerderMetade(1);
+        verificarSaldosAposReinicio();
+    }
+
+    @Test
+    void transferenciaSemAMetadeDeDebitoECompletada() throws Exception {
+        transferirEPerderMetade(0);
+        verificarSaldosAposReinicio();
+    }
+
+    @Test
+    void transferenciaCompletaNaoEReaplicada() throws Exception {
+        transferirEPerderMetade(-1);
+        verificarSaldosAposReinicio();
+    }
+
+    // Grava as contas e um depósito, depois uma transferência em segmentos novos; descarta a metade da partição informada (-1 para nenhuma)
+    private void transferirEPerderMetade(int particaoPerdida) throws Exception {
+        try (Banco banco = new Banco(diretorio, PARTICOES)) {
+            escolherContas();
+            banco.criarConta("Origem", cpfOrigem, TipoConta.CORRENTE);
+            banco.criarConta("Destino", cpfDestino, TipoConta.CORRENTE);
+            assertEquals(ResultadoOperacao.SUCESSO, Banco.buscarCpf(cpfOrigem).tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null));
+        }
+        try (Banco banco = new Banco(diretorio, PARTICOES)) {
+            assertEquals(ResultadoOperacao.SUCESSO, Banco.buscarCpf(cpfOrigem).tentarExecutarServico(TipoServico.TRANSFERENCIA, 30_00, cpfDestino));
+        }
+
+        // Simula uma queda com apenas uma das metades no disco: a outra, última do seu diário, ficou incompleta
+        if (particaoPerdida >= 0) {
+            Path diretorioParticao = diretorio.resolve("particao-" + particaoPerdida);
+            List<Long> segmentos = DiarioDeOperacoes.listarSegmentos(diretorioParticao);
+            Path ultimo = DiarioDeOperacoes.caminhoSegmento(diretorioParticao, segmentos.get(segmentos.size() - 1));
+            try (FileChannel canal = FileChannel.open(ultimo, StandardOpenOption.WRITE)) {
+                canal.truncate(canal.size() - 3);
+            }
+        }
+    }
+
+    // A transferência aparece inteira, e a metade completada na recuperação sobrevive a outro reinício sem ser duplicada
+    private void verificarSaldosAposReinicio() throws Exception {
+        for (int reinicio = 0; reinicio < 2; reinicio++) {
+            try (Banco banco = new Banco(diretorio, PARTICOES)) {
+                assertEquals(70_00, Banco.buscarCpf(cpfOrigem).getSaldo());
+                assertEquals(30_00, Banco.buscarCpf(cpfDestino).getSaldo());
+                assertEquals(2, Banco.buscarCpf(cpfOrigem).getTransacoes().size());
+                assertEquals(1, Banco.buscarCpf(cpfDestino).getTransacoes().size());
+            }
+        }
+    }
+
+    // Um CPF em cada partição, para que a transferência grave uma metade em cada diário; exige o banco aberto
+    private void escolherContas() {
+        for (int i = 1; cpfOrigem == null || cpfDestino == null; i++) {
+            String cpf = String.format("%011d", i);
+            int particao = Banco.particaoDoCpf(cpf);
+            if (particao == 0 && cpfOrigem == null) {
+                cpfOrigem = cpf;
+            } else if (particao == 1 && cpfDestino == null) {
+                cpfDestino = cpf;
+            }
+        }
+    }
+}
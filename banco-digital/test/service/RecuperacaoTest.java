@@ -0,0 +1,100 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import persistencia.DiarioDeOperacoes;
+
+/**
+ * Recuperação de um banco persistente a partir do diário de operações (sem snapshot): as operações
+ * confirmadas sobrevivem ao reinício, e um registro gravado pela metade no final do diário é descartado.
+ */
+class RecuperacaoTest {
+    private static final String CPF = "12345678901";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void depositarESacarSobrevivemAoReinicio() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf(CPF);
+            conta.depositar(500_00);
+            conta.sacar(100_00);
+            assertEquals(400_00, conta.getSaldo());
+            assertEquals(2, conta.getTransacoes().size());
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            Conta conta = Banco.buscarCpf(CPF);
+            assertEquals(400_00, conta.getSaldo());
+            assertEquals(2, conta.getTransacoes().size());
+        }
+    }
+
+    @Test
+    void registroFinalIncompletoEDescartado() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf(CPF);
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null));
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 50_00, null));
+        }
+
+        // Simula uma queda durante a gravação do último depósito: o final do registro não chegou ao disco
+        List<Long> segmentos = DiarioDeOperacoes.listarSegmentos(diretorio);
+        Path ultimo = DiarioDeOperacoes.caminhoSegmento(diretorio, segmentos.get(segmentos.size() - 1));
+        try (FileChannel canal = FileChannel.open(ultimo, StandardOpenOption.WRITE)) {
+            canal.truncate(canal.size() - 3);
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            Conta conta = Banco.buscarCpf(CPF);
+            assertEquals(100_00, conta.getSaldo());
+            assertEquals(1, conta.getTransacoes().size());
+
+            // As operações seguintes vão para um segmento novo, e não para depois do registro incompleto
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.SAQUE, 30_00, null));
+        }
+
+        try (Banco banco = new Banco(diretorio)) {
+            Conta conta = Banco.buscarCpf(CPF);
+            assertEquals(70_00, conta.getSaldo());
+            assertEquals(2, conta.getTransacoes().size());
+        }
+    }
+
+    @Test
+    void registroFinalCorrompidoEDescartado() throws Exception {
+        try (Banco banco = new Banco(diretorio)) {
+            banco.criarConta("Cliente", CPF, TipoConta.CORRENTE);
+            Conta conta = Banco.buscarCpf(CPF);
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null));
+            assertEquals(ResultadoOperacao.SUCESSO, conta.tentarExecutarServico(TipoServico.DEPOSITO, 50_00, null));
+        }
+
+        // Altera o último byte do diário: o CRC do último registro deixa de conferir
+        List<Long> segmentos = DiarioDeOperacoes.listarSegmentos(diretorio);
+        Path ultimo = DiarioDeOperacoes.caminhoSegmento(diretorio, segmentos.get(segmentos.size() - 1));
+        byte[] conteudo = Files.readAllBytes(ultimo);
+        conteudo[conteudo.length - 1] ^= 0x5A;
+        Files.write(ultimo, conteudo);
+
+        try (Banco banco = new Banco(diretorio)) {
+            assertEquals(100_00, Banco.buscarCpf(CPF).getSaldo());
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.Conta;
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import persistencia.TransmissorDoDiario;
+
+/**
+ * Réplica de um primário em outro processo (um banco aberto por processo): a réplica alcança o primário a
+ * partir do snapshot e do diário dele, acompanha as operações seguintes e, promovida depois de uma queda do
+ * primário no meio de transferências entre partições, fica com o total dos saldos preservado e passa a
+ * aceitar operações.
+ */
+class ReplicaTest {
+    private static final int PARTICOES = 4;
+    private static final int CONTAS = 20;
+    private static final long SALDO_INICIAL = 1_000_00;
+    private static final long ESPERA_MS = TimeUnit.SECONDS.toMillis(30);
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void replicaAlcancaOPrimarioEAssumeDepoisDaQueda() throws Exception {
+        Process primario = new ProcessBuilder(Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"), Primario.class.getName(), diretorio.resolve("primario").toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        BufferedReader saida = new BufferedReader(new InputStreamReader(primario.getInputStream(), StandardCharsets.UTF_8));
+        BufferedWriter entrada = new BufferedWriter(new OutputStreamWriter(primario.getOutputStream(), StandardCharsets.UTF_8));
+        Replica replica = null;
+        try {
+            int porta = Integer.parseInt(aguardarLinha(saida, "PORTA ").substring("PORTA ".length()));
+            replica = new Replica(diretorio.resolve("replica"), PARTICOES, new InetSocketAddress(InetAddress.getLoopbackAddress(), porta));
+
+            // A réplica nova recebe o snapshot do primário e os registros gravados depois dele
+            aguardarLinha(saida, "SINCRONIZADO");
+            long total = aguardarSaldosEsperados();
+
+            // Carga contínua de transferências; o primário cai sem encerrar o banco
+            entrada.write("carga\n");
+            entrada.flush();
+            aguardarLinha(saida, "CARGA");
+            Thread.sleep(300);
+            primario.destroyForcibly();
+            primario.waitFor(ESPERA_MS, TimeUnit.MILLISECONDS);
+
+            // A promoção completa as transferências recebidas apenas em parte
+            try (Banco banco = replica.promover()) {
+                assertEquals(total, banco.fotografarSaldos(false).total());
+                assertEquals(ResultadoOperacao.SUCESSO, Banco.buscarCpf(cpf(0)).tentarExecutarServico(TipoServico.DEPOSITO, 10_00, null));
+            }
+            replica.close();
+            replica = null;
+
+            // O banco promovido é um banco persistente comum
+            try (Banco banco = new Banco(diretorio.resolve("replica"), PARTICOES)) {
+                assertEquals(total + 10_00, banco.fotografarSaldos(false).total());
+            }
+        } finally {
+            primario.destroyForcibly();
+            if (replica != null) {
+                replica.close();
+            }
+        }
+    }
+
+    // Aguarda na réplica os saldos após as operações determinísticas do primário (ver Primario.operar) e retorna o total deles
+    private static long aguardarSaldosEsperados() throws InterruptedException {
+        long[] esperados = new long[CONTAS];
+        for (int i = 0; i < CONTAS; i++) {
+            esperados[i] += SALDO_INICIAL - (i + 1) * 100L;
+            esperados[(i + 1) % CONTAS] += (i + 1) * 100L;
+        }
+        for (int i = 0; i < CONTAS; i += 2) {
+            esperados[i] -= (i + 1) * 10L;
+        }
+        esperados[1] += 5_00;
+
+        long total = 0;
+        long limite = System.currentTimeMillis() + ESPERA_MS;
+        for (int i = 0; i < CONTAS; i++) {
+            // A conta pode ainda não existir, ou o banco estar sendo reaberto com o snapshot recebido
+            Conta conta = Banco.buscarCpf(cpf(i));
+            while ((conta == null || conta.getSaldo() != esperados[i]) && System.currentTimeMillis() < limite) {
+                Thread.sleep(10);
+                conta = Banco.buscarCpf(cpf(i));
+            }
+            assertNotNull(conta, "Conta " + i + " não replicada");
+            assertEquals(esperados[i], conta.getSaldo(), "Saldo replicado da conta " + i);
+            total += esperados[i];
+        }
+        return total;
+    }
+
+    // Lê a saída do primário até a linha com o prefixo informado
+    private static String aguardarLinha(BufferedReader saida, String prefixo) throws IOException {
+        String linha;
+        while ((linha = saida.readLine()) != null) {
+            if (linha.startsWith(prefixo)) {
+                return linha;
+            }
+        }
+        fail("O primário terminou antes de escrever " + prefixo);
+        return null;
+    }
+
+    private static String cpf(int indice) {
+        return String.format("%011d", indice + 1);
+    }
+
+    /**
+     * Primário executado em outro processo: cria as contas, grava um snapshot e mais algumas operações,
+     * aguarda a réplica confirmar tudo e, ao receber "carga" na entrada, transfere continuamente entre
+     * contas sorteadas até ser encerrado.
+     */
+    public static class Primario {
+        public static void main(String[] args) throws Exception {
+            Banco banco = new Banco(Path.of(args[0]), PARTICOES);
+            TransmissorDoDiario transmissor = banco.iniciarReplicacao(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+            operar(banco);
+            System.out.println("PORTA " + transmissor.getPorta());
+
+            while (transmissor.getReplicasConectadas() == 0 || transmissor.getRegistrosNaoConfirmados() > 0) {
+                Thread.sleep(10);
+            }
+            System.out.println("SINCRONIZADO");
+
+            BufferedReader entrada = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+            if ("carga".equals(entrada.readLine())) {
+                Thread carga = new Thread(Primario::transferirContinuamente);
+                carga.setDaemon(true);
+                carga.start();
+                System.out.println("CARGA");
+            }
+            entrada.readLine();  // Aguarda ser encerrado
+            banco.close();
+        }
+
+        // Operações determinísticas, conferidas na réplica por aguardarSaldosEsperados
+        private static void operar(Banco banco) throws IOException {
+            for (int i = 0; i < CONTAS; i++) {
+                banco.criarConta("Cliente " + i, cpf(i), TipoConta.CORRENTE);
+                Banco.buscarCpf(cpf(i)).tentarExecutarServico(TipoServico.DEPOSITO, SALDO_INICIAL, null);
+            }
+            for (int i = 0; i < CONTAS; i++) {
+                Banco.buscarCpf(cpf(i)).tentarExecutarServico(TipoServico.TRANSFERENCIA, (i + 1) * 100L, cpf((i + 1) % CONTAS));
+            }
+            banco.salvarSnapshot();
+            for (int i = 0; i < CONTAS; i += 2) {
+                Banco.buscarCpf(cpf(i)).tentarExecutarServico(TipoServico.SAQUE, (i + 1) * 10L, null);
+            }
+            banco.executarTransacao(List.of(new PernaDeTransacao(cpf(2), cpf(1), 5_00)));
+            Banco.buscarCpf(cpf(2)).tentarExecutarServico(TipoServico.DEPOSITO, 5_00, null);
+        }
+
+        private static void transferirContinuamente() {
+            SplittableRandom aleatorio = new SplittableRandom(42);
+            while (true) {
+                Banco.buscarCpf(cpf(aleatorio.nextInt(CONTAS)))
+                        .tentarExecutarServico(TipoServico.TRANSFERENCIA, 1 + aleatorio.nextInt(1_00), cpf(aleatorio.nextInt(CONTAS)));
+            }
+        }
+    }
+}
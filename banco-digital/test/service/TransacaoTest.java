@@ -0,0 +1,144 @@
+package service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import model.ResultadoOperacao;
+import model.TipoConta;
+import model.TipoServico;
+import service.LimitesDeOperacao.Alvo;
+import service.LimitesDeOperacao.Janela;
+import service.LimitesDeOperacao.Regra;
+
+/**
+ * Transações com várias pernas: todas as pernas são aplicadas, ou nenhuma. Uma perna recusada desfaz as
+ * anteriores sem deixar rastro nos saldos, nos históricos, nos limites nem no diário.
+ */
+class TransacaoTest {
+    private static final String CPF_A = "11111111111";
+    private static final String CPF_B = "22222222222";
+    private static final String CPF_C = "33333333333";
+    private static final String CPF_INEXISTENTE = "99999999999";
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void pernasUsamOsSaldosDeixadosPelasAnteriores() throws Exception {
+        try (Banco banco = new Banco()) {
+            criarContas(banco);
+            assertEquals(ResultadoOperacao.SUCESSO, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 50_00),
+                    new PernaDeTransacao(CPF_B, CPF_C, 70_00),
+                    new PernaDeTransacao(CPF_C, CPF_A, 10_00))));
+            verificarSaldos(60_00, 0, 60_00);
+            assertEquals(3, Banco.buscarCpf(CPF_A).getTransacoes().size());
+        }
+    }
+
+    @Test
+    void pernaRecusadaDesfazAsAnteriores() throws Exception {
+        try (Banco banco = new Banco()) {
+            criarContas(banco);
+            assertEquals(ResultadoOperacao.SALDO_INSUFICIENTE, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 50_00),
+                    new PernaDeTransacao(CPF_B, CPF_C, 40_00),
+                    new PernaDeTransacao(CPF_C, CPF_A, 200_00))));
+            assertEquals(ResultadoOperacao.CONTA_INEXISTENTE, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 50_00),
+                    new PernaDeTransacao(CPF_B, CPF_INEXISTENTE, 10_00))));
+            assertEquals(ResultadoOperacao.TRANSFERENCIA_PARA_PROPRIA_CONTA, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 50_00),
+                    new PernaDeTransacao(CPF_C, CPF_C, 10_00))));
+            assertEquals(ResultadoOperacao.VALOR_INVALIDO, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 50_00),
+                    new PernaDeTransacao(CPF_B, CPF_C, 0))));
+
+            verificarSaldos(100_00, 20_00, 0);
+            assertEquals(1, Banco.buscarCpf(CPF_A).getTransacoes().size());
+            assertEquals(1, Banco.buscarCpf(CPF_B).getTransacoes().size());
+            assertEquals(0, Banco.buscarCpf(CPF_C).getTransacoes().size());
+        }
+    }
+
+    @Test
+    void pernaAlemDoLimiteEstornaAsReservasAnteriores() throws Exception {
+        try (Banco banco = new Banco()) {
+            criarContas(banco);
+            banco.ativarLimites(new LimitesDeOperacao(List.of(new Regra(Alvo.CONTA, Janela.HORA, 2, LimitesDeOperacao.SEM_LIMITE))));
+
+            // A conta A aparece em três pernas: a terceira excede o limite e nenhuma é aplicada
+            assertEquals(ResultadoOperacao.LIMITE_EXCEDIDO, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 10_00),
+                    new PernaDeTransacao(CPF_A, CPF_C, 10_00),
+                    new PernaDeTransacao(CPF_A, CPF_B, 10_00))));
+            verificarSaldos(100_00, 20_00, 0);
+
+            // As reservas das duas primeiras pernas foram estornadas
+            assertEquals(ResultadoOperacao.SUCESSO, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_B, 10_00),
+                    new PernaDeTransacao(CPF_A, CPF_C, 10_00))));
+            verificarSaldos(80_00, 30_00, 10_00);
+        }
+    }
+
+    @Test
+    void quantidadeDePernasEValidada() throws Exception {
+        try (Banco banco = new Banco()) {
+            criarContas(banco);
+            assertThrows(IllegalArgumentException.class, () -> banco.executarTransacao(List.of()));
+
+            List<PernaDeTransacao> demais = new ArrayList<>();
+            for (int i = 0; i <= Banco.MAXIMO_PERNAS; i++) {
+                demais.add(new PernaDeTransacao(CPF_A, CPF_B, 1));
+            }
+            assertThrows(IllegalArgumentException.class, () -> banco.executarTransacao(demais));
+            verificarSaldos(100_00, 20_00, 0);
+        }
+    }
+
+    @Test
+    void transacaoRecusadaNaoChegaAoDiario() throws Exception {
+        List<PernaDeTransacao> aceita = List.of(new PernaDeTransacao(CPF_A, CPF_B, 30_00), new PernaDeTransacao(CPF_B, CPF_C, 50_00));
+        try (Banco banco = new Banco(diretorio, 2)) {
+            criarContas(banco);
+            assertEquals(ResultadoOperacao.SUCESSO, banco.executarTransacao(aceita));
+            assertEquals(ResultadoOperacao.SALDO_INSUFICIENTE, banco.executarTransacao(List.of(
+                    new PernaDeTransacao(CPF_A, CPF_C, 10_00),
+                    new PernaDeTransacao(CPF_B, CPF_A, 500_00))));
+        }
+
+        try (Banco banco = new Banco(diretorio, 2)) {
+            verificarSaldos(70_00, 0, 50_00);
+
+            // A transação aceita é estornada com as pernas invertidas, em ordem inversa
+            List<PernaDeTransacao> estorno = new ArrayList<>();
+            for (int i = aceita.size() - 1; i >= 0; i--) {
+                estorno.add(aceita.get(i).inverter());
+            }
+            assertEquals(ResultadoOperacao.SUCESSO, banco.executarTransacao(estorno));
+            verificarSaldos(100_00, 20_00, 0);
+        }
+    }
+
+    private static void criarContas(Banco banco) {
+        banco.criarConta("Cliente A", CPF_A, TipoConta.CORRENTE);
+        banco.criarConta("Cliente B", CPF_B, TipoConta.CORRENTE);
+        banco.criarConta("Cliente C", CPF_C, TipoConta.CORRENTE);
+        Banco.buscarCpf(CPF_A).tentarExecutarServico(TipoServico.DEPOSITO, 100_00, null);
+        Banco.buscarCpf(CPF_B).tentarExecutarServico(TipoServico.DEPOSITO, 20_00, null);
+    }
+
+    private static void verificarSaldos(long saldoA, long saldoB, long saldoC) {
+        assertEquals(saldoA, Banco.buscarCpf(CPF_A).getSaldo());
+        assertEquals(saldoB, Banco.buscarCpf(CPF_B).getSaldo());
+        assertEquals(saldoC, Banco.buscarCpf(CPF_C).getSaldo());
+    }
+}
@@ -0,0 +1,112 @@
+package ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Leitura dos comandos do menu com as regras do Scanner: números e palavras separados por espaços ou
+ * quebras de linha, linhas até a próxima quebra, e entradas inválidas sem exceções, inclusive quando uma
+ * palavra ou um caractere UTF-8 fica dividido entre duas leituras da entrada.
+ */
+class LeitorDeComandosTest {
+
+    @Test
+    void numerosEPalavras() {
+        LeitorDeComandos leitor = leitor("12 -7 +3\n  abc 2147483647\t-2147483647 2147483648 1x 0");
+        assertEquals(12, leitor.proximoInt());
+        assertEquals(-7, leitor.proximoInt());
+        assertEquals(3, leitor.proximoInt());
+        assertEquals(LeitorDeComandos.NAO_NUMERICO, leitor.proximoInt());
+        assertEquals(Integer.MAX_VALUE, leitor.proximoInt());
+        assertEquals(-Integer.MAX_VALUE, leitor.proximoInt());
+        assertEquals(LeitorDeComandos.NAO_NUMERICO, leitor.proximoInt());
+        assertEquals(LeitorDeComandos.NAO_NUMERICO, leitor.proximoInt());
+        assertEquals(0, leitor.proximoInt());
+        assertEquals(LeitorDeComandos.FIM, leitor.proximoInt());
+        assertNull(leitor.proximaPalavra());
+        assertNull(leitor.proximaLinha());
+    }
+
+    @Test
+    void sinalSozinhoNaoENumero() {
+        LeitorDeComandos leitor = leitor("- + 5");
+        assertEquals(LeitorDeComandos.NAO_NUMERICO, leitor.proximoInt());
+        assertEquals(LeitorDeComandos.NAO_NUMERICO, leitor.proximoInt());
+        assertEquals(5, leitor.proximoInt());
+    }
+
+    @Test
+    void linhasComoNoScanner() {
+        // Depois de um número, a linha atual ainda contém a quebra pendente, como em Scanner.nextLine
+        LeitorDeComandos leitor = leitor("1\nMaria da Silva\r\n12345678901\n\nfim");
+        assertEquals(1, leitor.proximoInt());
+        assertEquals("", leitor.proximaLinha());
+        assertEquals("Maria da Silva", leitor.proximaLinha());
+        assertEquals("12345678901", leitor.proximaLinha());
+        assertEquals("", leitor.proximaLinha());
+        assertEquals("fim", leitor.proximaLinha());
+        assertNull(leitor.proximaLinha());
+    }
+
+    @Test
+    void descartarLinhaPulaORestoDaLinha() {
+        LeitorDeComandos leitor = leitor("x y z\n42\nsem quebra");
+        assertEquals(LeitorDeComandos.NAO_NUMERICO, leitor.proximoInt());
+        leitor.descartarLinha();
+        assertEquals(42, leitor.proximoInt());
+        leitor.descartarLinha();
+        leitor.descartarLinha();
+        assertEquals(LeitorDeComandos.FIM, leitor.proximoInt());
+    }
+
+    @Test
+    void palavrasELinhasEmUtf8() {
+        LeitorDeComandos leitor = leitor("João 10,50\nConceição Ávila\n");
+        assertEquals("João", leitor.proximaPalavra());
+        assertEquals("10,50", leitor.proximaPalavra());
+        leitor.descartarLinha();
+        assertEquals("Conceição Ávila", leitor.proximaLinha());
+    }
+
+    @Test
+    void palavrasDivididasEntreLeiturasDaEntrada() {
+        // Uma leitura por byte: todo número, palavra e caractere UTF-8 fica dividido entre leituras
+        LeitorDeComandos leitor = new LeitorDeComandos(umBytePorLeitura("123 Conceição\nlinha com ç\n-45"));
+        assertEquals(123, leitor.proximoInt());
+        assertEquals("Conceição", leitor.proximaPalavra());
+        leitor.descartarLinha();
+        assertEquals("linha com ç", leitor.proximaLinha());
+        assertEquals(-45, leitor.proximoInt());
+        assertEquals(LeitorDeComandos.FIM, leitor.proximoInt());
+    }
+
+    @Test
+    void linhaMaiorQueOBuffer() {
+        // Maior que o buffer de leitura (64 KiB) e que o buffer inicial das palavras
+        String longa = "á".repeat(50_000);
+        LeitorDeComandos leitor = leitor("7\n" + longa + "\n8");
+        assertEquals(7, leitor.proximoInt());
+        leitor.descartarLinha();
+        assertEquals(longa, leitor.proximaLinha());
+        assertEquals(8, leitor.proximoInt());
+    }
+
+    private static LeitorDeComandos leitor(String texto) {
+        return new LeitorDeComandos(new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static InputStream umBytePorLeitura(String texto) {
+        return new ByteArrayInputStream(texto.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] destino, int inicio, int tamanho) {
+                return super.read(destino, inicio, Math.min(tamanho, 1));
+            }
+        };
+    }
+}
@@ -0,0 +1,150 @@
+package ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import service.Banco;
+
+/**
+ * Menu conduzido por roteiros no modo em lote: cada comando é uma linha, a saída tem apenas os resultados
+ * das operações e entradas inválidas são recusadas sem interromper o roteiro.
+ */
+class OperacoesContaMenuTest {
+    private Banco banco;
+
+    @BeforeEach
+    void abrir() {
+        banco = new Banco();
+    }
+
+    @AfterEach
+    void encerrar() throws Exception {
+        banco.close();
+    }
+
+    @Test
+    void roteiroComOperacoesERecusas() {
+        List<String> saida = executar("""
+                1
+                1
+                Maria
+                11111111111
+                1
+                2
+                João
+                22222222222
+                2
+                11111111111
+                1
+                2
+                100,00
+                3
+                1.234,56
+                3
+                -5
+                30
+                4
+                22222222222
+                20,50
+                x
+                9
+                5
+                0
+                2
+                99999999999
+                2
+                22222222222
+                1
+                0
+                0
+                """);
+
+        assertEquals(naCodificacaoPadrao(
+                "[!] Conta criada com sucesso!",
+                "[!] Conta criada com sucesso!",
+                "[!] Bem-vindo(a), Maria!",
+                "Saldo da conta: R$ 0,00",
+                "[!] Valor depositado com sucesso!",
+                "[!] ERRO: Saldo insuficiente.",
+                "Valor inválido: \"-5\". " + formatoAceito(),
+                "[!] Saque realizado com sucesso.",
+                "[!] Transferência realizada com sucesso.",
+                "Valor inválido. Por favor, digite apenas números.",
+                "[!] Opção inválida. Por favor, tente novamente.",
+                "• Depósito +R$ 100,00 | Saldo: R$ 100,00",
+                "• Saque -R$ 30,00 | Saldo: R$ 70,00",
+                "• Transferência Enviada para: João (CPF: 22222222222): -R$ 20,50 | Saldo: R$ 49,50",
+                "ERRO: O CPF informado não corresponde a uma conta existente.",
+                "[!] Bem-vindo(a), João!",
+                "Saldo da conta: R$ 20,50",
+                "[!] Encerrando... volte sempre!"), saida);
+        assertEquals(49_50, Banco.buscarCpf("11111111111").getSaldo());
+        assertEquals(20_50, Banco.buscarCpf("22222222222").getSaldo());
+    }
+
+    @Test
+    void fimDaEntradaEncerraOMenu() {
+        // Sem os zeros finais: o fim da entrada volta de todos os menus e encerra o programa
+        List<String> saida = executar("1\n2\nMaria\n11111111111\n2\n11111111111\n2\n10");
+
+        assertEquals(naCodificacaoPadrao(
+                "[!] Conta criada com sucesso!",
+                "[!] Bem-vindo(a), Maria!",
+                "[!] Valor depositado com sucesso!",
+                "[!] Encerrando... volte sempre!"), saida);
+        assertEquals(10_00, Banco.buscarCpf("11111111111").getSaldo());
+    }
+
+    @Test
+    void contaDuplicadaERecusada() {
+        List<String> saida = executar("1\n1\nMaria\n11111111111\n1\n1\nOutra\n11111111111\n0\n");
+
+        assertEquals("[!] Conta criada com sucesso!", saida.get(0));
+        assertTrue(saida.get(1).startsWith("[!] ERRO: "), saida.get(1));
+        assertEquals("Maria", Banco.buscarCpf("11111111111").getCliente().getNome());
+    }
+
+    // Executa o roteiro no modo em lote e retorna as linhas não vazias da saída, sem o horário das linhas do extrato
+    private List<String> executar(String roteiro) {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream();
+        new OperacoesContaMenu(new ByteArrayInputStream(roteiro.getBytes(StandardCharsets.UTF_8)), saida, banco, true).menuInicial();
+
+        List<String> linhas = new ArrayList<>();
+        for (String linha : saida.toString(Charset.defaultCharset()).split("\\R")) {
+            if (!linha.isEmpty()) {
+                linhas.add(linha.replaceFirst("^(\\S+) \\[[^\\]]*\\] ", "$1 "));
+            }
+        }
+        return linhas;
+    }
+
+    // O menu escreve na codificação padrão da plataforma; caracteres que ela não representa saem substituídos
+    private static List<String> naCodificacaoPadrao(String... linhas) {
+        List<String> convertidas = new ArrayList<>();
+        for (String linha : linhas) {
+            convertidas.add(new String(linha.getBytes(Charset.defaultCharset()), Charset.defaultCharset()));
+        }
+        return convertidas;
+    }
+
+    // Parte da mensagem de Dinheiro.converter que descreve o formato aceito
+    private static String formatoAceito() {
+        try {
+            util.Dinheiro.converter("-5");
+            throw new AssertionError("-5 foi aceito");
+        } catch (NumberFormatException e) {
+            return e.getMessage().substring(e.getMessage().indexOf(". ") + 2);
+        }
+    }
+}
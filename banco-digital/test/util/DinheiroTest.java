@@ -0,0 +1,84 @@
+package util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Conversão dos valores digitados para centavos e formatação dos centavos em reais.
+ */
+class DinheiroTest {
+
+    @Test
+    void converteValoresBemFormados() {
+        assertEquals(10_00, Dinheiro.converter("10"));
+        assertEquals(10_50, Dinheiro.converter("10,5"));
+        assertEquals(10_05, Dinheiro.converter("10,05"));
+        assertEquals(1234_56, Dinheiro.converter("1234.56"));
+        assertEquals(1234_56, Dinheiro.converter("1234,56"));
+        assertEquals(0, Dinheiro.converter("0,00"));
+    }
+
+    @Test
+    void aceitaSeparadorDeMilharAntesDaVirgula() {
+        assertEquals(1234_56, Dinheiro.converter("1.234,56"));
+        assertEquals(1_234_567_89, Dinheiro.converter("1.234.567,89"));
+        assertEquals(123_456_00, Dinheiro.converter("123.456,0"));
+    }
+
+    @Test
+    void recusaSeparadorDeMilharMalAgrupado() {
+        for (String texto : new String[] {"12.34,56", "1234.567,00", "1..234,56", ".234,56", "1.234.,56"}) {
+            assertThrows(NumberFormatException.class, () -> Dinheiro.converter(texto), texto);
+        }
+    }
+
+    @Test
+    void recusaPontoAmbiguoSemVirgula() {
+        // Sem a vírgula, o ponto é o separador decimal: "1.234" teria três casas decimais
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("1.234"));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("1.234.567"));
+    }
+
+    @Test
+    void recusaSeparadorSemDigitosESinais() {
+        for (String texto : new String[] {".5", "5.", ",5", "5,", "-5", "+5", "-", ",", "", " 5", "5 ", "1,2,3", "1e3", "10,555"}) {
+            assertThrows(NumberFormatException.class, () -> Dinheiro.converter(texto), texto);
+        }
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter(null));
+    }
+
+    @Test
+    void mensagemDescreveOFormatoAceito() {
+        NumberFormatException e = assertThrows(NumberFormatException.class, () -> Dinheiro.converter("1.234"));
+        assertTrue(e.getMessage().contains("1.234,56"), e.getMessage());
+        e = assertThrows(NumberFormatException.class, () -> Dinheiro.converter("10,555"));
+        assertTrue(e.getMessage().contains("duas casas decimais"), e.getMessage());
+    }
+
+    @Test
+    void valorGrandeDemaisERecusado() {
+        assertEquals(Long.MAX_VALUE / 100 * 100, Dinheiro.converter(String.valueOf(Long.MAX_VALUE / 100)));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter(String.valueOf(Long.MAX_VALUE / 100 + 1)));
+        assertThrows(NumberFormatException.class, () -> Dinheiro.converter("99999999999999999999"));
+    }
+
+    @Test
+    void formataEmReais() {
+        assertEquals("R$ 0,00", Dinheiro.formatar(0));
+        assertEquals("R$ 0,05", Dinheiro.formatar(5));
+        assertEquals("R$ 1234,56", Dinheiro.formatar(1234_56));
+        assertEquals("-R$ 10,50", Dinheiro.formatar(-10_50));
+        assertEquals("-R$ 92233720368547758,08", Dinheiro.formatar(Long.MIN_VALUE));
+    }
+
+    @Test
+    void converterEFormatarSaoInversos() {
+        for (long centavos : new long[] {1, 99, 100, 10_50, 1_234_567_89}) {
+            String formatado = Dinheiro.formatar(centavos);
+            assertEquals(centavos, Dinheiro.converter(formatado.substring("R$ ".length())));
+        }
+    }
+}